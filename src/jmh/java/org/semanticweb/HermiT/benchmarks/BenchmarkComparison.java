@@ -0,0 +1,234 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the CSV results of a JMH run (-rf csv) with a stored baseline in the same format. Each benchmark is
+ * identified by its name, mode, thread count and parameters. The program prints one line per benchmark and exits
+ * with status 1 if some benchmark regressed, and with status 2 if the baseline does not exist. A benchmark regressed
+ * if it got slower than the given threshold (in percent) and the confidence intervals of the two scores, that is,
+ * the scores plus or minus their "Score Error (99.9%)", are disjoint. A slowdown above the threshold whose
+ * intervals overlap is reported as uncertain, since it is within the measurement noise. With --update (or
+ * --update=true), the current results replace the baseline instead of being compared with it.
+ *
+ * Scores depend on the machine, so the baseline is not part of the sources: it is recorded with --update on the
+ * machine that runs the comparison, and refreshed whenever a change deliberately alters performance. The errors
+ * shrink with more forks and iterations, so a baseline is comparable only with results recorded with the same JMH
+ * options. If the number of samples of some benchmark differs between the baseline and the results, the program
+ * reports that benchmark as incomparable and exits with status 2 without comparing anything.
+ *
+ * Usage: BenchmarkComparison [--update[=true|false]] baseline.csv results.csv [thresholdPercent]
+ */
+public class BenchmarkComparison {
+
+    public static void main(String[] args) throws IOException {
+        boolean update=false;
+        int firstArgument=0;
+        if (args.length>0 && args[0].startsWith("--update")) {
+            update=!"--update=false".equals(args[0]);
+            firstArgument=1;
+        }
+        if (args.length-firstArgument<2 || args.length-firstArgument>3) {
+            System.err.println("Usage: BenchmarkComparison [--update[=true|false]] baseline.csv results.csv [thresholdPercent]");
+            System.exit(2);
+        }
+        File baselineFile=new File(args[firstArgument]);
+        File resultsFile=new File(args[firstArgument+1]);
+        double threshold=(args.length-firstArgument==3 ? Double.parseDouble(args[firstArgument+2]) : 10.0);
+        if (update) {
+            Files.copy(resultsFile.toPath(),baselineFile.toPath(),StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Stored the current results as the baseline in "+baselineFile+".");
+            return;
+        }
+        if (!baselineFile.exists()) {
+            System.err.println("The baseline "+baselineFile+" does not exist; rerun with -DbenchmarkUpdateBaseline=true to record it.");
+            System.exit(2);
+        }
+        Map<String,Result> baseline=loadResults(baselineFile);
+        Map<String,Result> results=loadResults(resultsFile);
+        if (reportIncomparable(baseline,results)>0) {
+            System.out.println("The baseline was recorded with other JMH options; rerun with -DbenchmarkUpdateBaseline=true to replace it.");
+            System.exit(2);
+        }
+        int regressions=compare(baseline,results,threshold);
+        if (regressions>0) {
+            System.out.println(regressions+" benchmark(s) regressed by more than "+threshold+"% beyond the score errors.");
+            System.exit(1);
+        }
+    }
+    /**
+     * Prints the benchmarks whose numbers of samples differ between the baseline and the results and returns their
+     * number. Benchmarks without a sample count are not checked.
+     */
+    public static int reportIncomparable(Map<String,Result> baseline,Map<String,Result> results) {
+        int incomparable=0;
+        for (Map.Entry<String,Result> entry : results.entrySet()) {
+            Result result=entry.getValue();
+            Result baselineResult=baseline.get(entry.getKey());
+            if (baselineResult!=null && result.m_samples>=0 && baselineResult.m_samples>=0 && result.m_samples!=baselineResult.m_samples) {
+                System.out.println("INCOMPARABLE "+entry.getKey()+": "+baselineResult.m_samples+" samples in the baseline, "+result.m_samples+" now");
+                incomparable++;
+            }
+        }
+        return incomparable;
+    }
+    /**
+     * Prints the comparison and returns the number of regressions.
+     */
+    public static int compare(Map<String,Result> baseline,Map<String,Result> results,double threshold) {
+        int regressions=0;
+        for (Map.Entry<String,Result> entry : results.entrySet()) {
+            Result result=entry.getValue();
+            Result baselineResult=baseline.get(entry.getKey());
+            if (baselineResult==null)
+                System.out.println("NEW        "+entry.getKey()+": "+result);
+            else {
+                double slowdown=result.getSlowdownPercent(baselineResult);
+                boolean differs=result.differsBeyondErrors(baselineResult);
+                String status;
+                if (slowdown>threshold && differs) {
+                    status="REGRESSION ";
+                    regressions++;
+                }
+                else if (slowdown< -threshold && differs)
+                    status="IMPROVED   ";
+                else if (Math.abs(slowdown)>threshold)
+                    status="UNCERTAIN  ";
+                else
+                    status="OK         ";
+                System.out.println(status+entry.getKey()+": "+baselineResult+" -> "+result+String.format(" (%+.1f%% slowdown)",slowdown));
+            }
+        }
+        for (String key : baseline.keySet())
+            if (!results.containsKey(key))
+                System.out.println("MISSING    "+key);
+        return regressions;
+    }
+    public static Map<String,Result> loadResults(File file) throws IOException {
+        Map<String,Result> results=new LinkedHashMap<String,Result>();
+        BufferedReader reader=new BufferedReader(new InputStreamReader(new FileInputStream(file),"UTF-8"));
+        try {
+            String line=reader.readLine();
+            if (line==null)
+                return results;
+            List<String> header=parseCSVLine(line);
+            int benchmarkColumn=header.indexOf("Benchmark");
+            int modeColumn=header.indexOf("Mode");
+            int threadsColumn=header.indexOf("Threads");
+            int samplesColumn=header.indexOf("Samples");
+            int scoreColumn=header.indexOf("Score");
+            int errorColumn=header.indexOf("Score Error (99.9%)");
+            int unitColumn=header.indexOf("Unit");
+            if (benchmarkColumn<0 || modeColumn<0 || scoreColumn<0 || unitColumn<0)
+                throw new IOException("File "+file+" does not contain JMH results in CSV format.");
+            while ((line=reader.readLine())!=null) {
+                if (line.trim().length()==0)
+                    continue;
+                List<String> fields=parseCSVLine(line);
+                StringBuilder key=new StringBuilder(fields.get(benchmarkColumn));
+                key.append(" [").append(fields.get(modeColumn));
+                if (threadsColumn>=0)
+                    key.append(", threads=").append(fields.get(threadsColumn));
+                for (int column=0;column<header.size() && column<fields.size();column++)
+                    if (header.get(column).startsWith("Param: ") && fields.get(column).length()>0)
+                        key.append(", ").append(header.get(column).substring(7)).append('=').append(fields.get(column));
+                key.append(']');
+                double error=(errorColumn>=0 && errorColumn<fields.size() ? parseError(fields.get(errorColumn)) : 0.0);
+                int samples=(samplesColumn>=0 && samplesColumn<fields.size() && fields.get(samplesColumn).length()>0 ? Integer.parseInt(fields.get(samplesColumn)) : -1);
+                results.put(key.toString(),new Result(fields.get(modeColumn),samples,Double.parseDouble(fields.get(scoreColumn)),error,fields.get(unitColumn)));
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return results;
+    }
+    /**
+     * Parses a score error. JMH writes NaN if the error cannot be computed, for example for a single iteration; such
+     * errors, like missing ones, are taken as zero, so that the comparison falls back to the threshold alone.
+     */
+    protected static double parseError(String field) {
+        if (field.length()==0)
+            return 0.0;
+        double error=Double.parseDouble(field);
+        return (Double.isNaN(error) || Double.isInfinite(error) ? 0.0 : error);
+    }
+    protected static List<String> parseCSVLine(String line) {
+        List<String> fields=new ArrayList<String>();
+        StringBuilder field=new StringBuilder();
+        boolean quoted=false;
+        for (int index=0;index<line.length();index++) {
+            char c=line.charAt(index);
+            if (quoted) {
+                if (c=='"') {
+                    if (index+1<line.length() && line.charAt(index+1)=='"') {
+                        field.append('"');
+                        index++;
+                    }
+                    else
+                        quoted=false;
+                }
+                else
+                    field.append(c);
+            }
+            else if (c=='"')
+                quoted=true;
+            else if (c==',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else
+                field.append(c);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public static class Result {
+        protected final String m_mode;
+        protected final int m_samples;
+        protected final double m_score;
+        protected final double m_error;
+        protected final String m_unit;
+
+        public Result(String mode,int samples,double score,double error,String unit) {
+            m_mode=mode;
+            m_samples=samples;
+            m_score=score;
+            m_error=error;
+            m_unit=unit;
+        }
+        /**
+         * Returns by how many percent this result is slower than the baseline; negative values mean that it is
+         * faster. In throughput mode higher scores are better, in all other modes lower scores are better.
+         */
+        public double getSlowdownPercent(Result baseline) {
+            if (baseline.m_score==0.0 || m_score==0.0)
+                return 0.0;
+            if ("thrpt".equals(m_mode))
+                return (baseline.m_score/m_score-1.0)*100.0;
+            else
+                return (m_score/baseline.m_score-1.0)*100.0;
+        }
+        /**
+         * Returns true if the confidence intervals of this result and of the baseline are disjoint, that is, if the
+         * scores differ by more than the sum of their errors.
+         */
+        public boolean differsBeyondErrors(Result baseline) {
+            return Math.abs(m_score-baseline.m_score)>m_error+baseline.m_error;
+        }
+        public String toString() {
+            return String.format("%.3f +- %.3f %s",m_score,m_error,m_unit);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.structural.OWLClausification;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+/**
+ * Preprocessing and clausification of synthetic ontologies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(3)
+@Warmup(iterations=5,time=5)
+@Measurement(iterations=10,time=5)
+public class ClausificationBenchmark {
+    @Param({ "1000","10000" })
+    public int size;
+
+    protected OWLOntology m_ontology;
+    protected Configuration m_configuration;
+
+    @Setup
+    public void createOntology() {
+        m_ontology=SyntheticOntologies.createOntology(size,size/2);
+        m_configuration=new Configuration();
+    }
+    @Benchmark
+    public Object[] clausify() {
+        return new OWLClausification(m_configuration).preprocessAndClausify(m_ontology,null);
+    }
+}
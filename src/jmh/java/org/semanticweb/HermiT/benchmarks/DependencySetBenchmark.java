@@ -0,0 +1,54 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.HermiT.tableau.DependencySetFactory;
+import org.semanticweb.HermiT.tableau.PermanentDependencySet;
+
+/**
+ * Unions of permanent dependency sets of the given size, as computed for every derivation in the tableau.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations=5,time=5)
+@Measurement(iterations=10,time=5)
+public class DependencySetBenchmark {
+    @Param({ "4","64" })
+    public int branchingPointsPerSet;
+
+    protected DependencySetFactory m_factory;
+    protected PermanentDependencySet[] m_sets;
+
+    @Setup
+    public void createSets() {
+        m_factory=new DependencySetFactory();
+        m_sets=new PermanentDependencySet[64];
+        for (int setIndex=0;setIndex<m_sets.length;setIndex++) {
+            PermanentDependencySet set=m_factory.emptySet();
+            for (int branchingPoint=setIndex%3;branchingPoint<3*branchingPointsPerSet;branchingPoint+=3)
+                set=m_factory.addBranchingPoint(set,branchingPoint+(setIndex%2));
+            m_factory.addUsage(set);
+            m_sets[setIndex]=set;
+        }
+    }
+    @Benchmark
+    public PermanentDependencySet unionWith() {
+        PermanentDependencySet result=null;
+        for (int index=0;index<m_sets.length;index++)
+            result=m_factory.unionWith(m_sets[index],m_sets[(index*5+1)%m_sets.length]);
+        return result;
+    }
+}
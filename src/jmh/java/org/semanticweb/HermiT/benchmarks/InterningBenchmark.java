@@ -0,0 +1,64 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.HermiT.model.AtomicConcept;
+
+/**
+ * Interning throughput of model objects for one, four and eight threads. With the striped InterningManager
+ * the throughput should grow with the number of threads instead of staying flat.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(3)
+@Warmup(iterations=5,time=5)
+@Measurement(iterations=10,time=5)
+public class InterningBenchmark {
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        protected String[] m_iris;
+        protected int m_nextIRI;
+
+        @Setup
+        public void createIRIs() {
+            // Half of the IRIs are shared by all threads and half are private to the thread.
+            String threadPrefix=SyntheticOntologies.NS+"t"+System.identityHashCode(this)+"-";
+            m_iris=new String[1024];
+            for (int index=0;index<m_iris.length;index++)
+                m_iris[index]=(index%2==0 ? SyntheticOntologies.NS+"shared-" : threadPrefix)+index;
+        }
+        public String nextIRI() {
+            String iri=m_iris[m_nextIRI];
+            m_nextIRI=(m_nextIRI+1)%m_iris.length;
+            return iri;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public AtomicConcept internOneThread(ThreadState state) {
+        return AtomicConcept.create(state.nextIRI());
+    }
+    @Benchmark
+    @Threads(4)
+    public AtomicConcept internFourThreads(ThreadState state) {
+        return AtomicConcept.create(state.nextIRI());
+    }
+    @Benchmark
+    @Threads(8)
+    public AtomicConcept internEightThreads(ThreadState state) {
+        return AtomicConcept.create(state.nextIRI());
+    }
+}
@@ -0,0 +1,65 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+import org.semanticweb.owlapi.reasoner.NodeSet;
+
+/**
+ * End-to-end classification and realisation of synthetic ontologies. Every invocation starts from a fresh
+ * reasoner, so the measured time includes loading and clausification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(3)
+@Warmup(iterations=5,time=5)
+@Measurement(iterations=10,time=5)
+public class ReasonerBenchmark {
+    @Param({ "100","200" })
+    public int size;
+
+    protected OWLOntology m_ontology;
+
+    @Setup
+    public void createOntology() {
+        m_ontology=SyntheticOntologies.createOntology(size,size/4);
+    }
+    @Benchmark
+    public NodeSet<OWLClass> classifyClasses() {
+        Reasoner reasoner=new Reasoner(new Configuration(),m_ontology);
+        try {
+            reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+            return reasoner.getSubClasses(reasoner.getTopClassNode().getRepresentativeElement(),true);
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+    @Benchmark
+    public boolean realise() {
+        Reasoner reasoner=new Reasoner(new Configuration(),m_ontology);
+        try {
+            reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS);
+            return reasoner.isPrecomputed(InferenceType.CLASS_ASSERTIONS);
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+}
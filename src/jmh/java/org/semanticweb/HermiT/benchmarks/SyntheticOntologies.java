@@ -0,0 +1,66 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+/**
+ * Generates ontologies of a given size for the benchmarks. The class hierarchy is a binary tree with additional
+ * existential restrictions, disjunctions and defined classes, so that classification needs real tableau tests;
+ * the ABox links the individuals into chains of eight. The result depends only on the parameters.
+ */
+public class SyntheticOntologies {
+    public static final String NS="http://benchmarks.hermit-reasoner.com/synthetic#";
+
+    public static OWLOntology createOntology(int numberOfClasses,int numberOfIndividuals) {
+        OWLOntologyManager manager=OWLManager.createOWLOntologyManager();
+        OWLDataFactory factory=manager.getOWLDataFactory();
+        OWLClass[] classes=new OWLClass[numberOfClasses];
+        for (int index=0;index<numberOfClasses;index++)
+            classes[index]=factory.getOWLClass(IRI.create(NS+"C"+index));
+        OWLClass[] markers=new OWLClass[8];
+        for (int index=0;index<markers.length;index++)
+            markers[index]=factory.getOWLClass(IRI.create(NS+"M"+index));
+        OWLObjectProperty r=factory.getOWLObjectProperty(IRI.create(NS+"r"));
+        OWLObjectProperty s=factory.getOWLObjectProperty(IRI.create(NS+"s"));
+        Set<OWLAxiom> axioms=new HashSet<OWLAxiom>();
+        axioms.add(factory.getOWLSubObjectPropertyOfAxiom(s,r));
+        for (int index=1;index<numberOfClasses;index++) {
+            OWLClass parent=classes[(index-1)/2];
+            if (index%10==0)
+                axioms.add(factory.getOWLEquivalentClassesAxiom(classes[index],factory.getOWLObjectIntersectionOf(parent,factory.getOWLObjectSomeValuesFrom(s,markers[index%markers.length]))));
+            else
+                axioms.add(factory.getOWLSubClassOfAxiom(classes[index],parent));
+            if (index%3==0)
+                axioms.add(factory.getOWLSubClassOfAxiom(classes[index],factory.getOWLObjectSomeValuesFrom(s,classes[(index*7+3)%numberOfClasses])));
+            if (index%4==1)
+                axioms.add(factory.getOWLSubClassOfAxiom(classes[index],factory.getOWLObjectUnionOf(markers[index%markers.length],markers[(index+3)%markers.length])));
+            if (index%5==2)
+                axioms.add(factory.getOWLSubClassOfAxiom(factory.getOWLObjectSomeValuesFrom(r,classes[index]),markers[(index+5)%markers.length]));
+        }
+        OWLNamedIndividual[] individuals=new OWLNamedIndividual[numberOfIndividuals];
+        for (int index=0;index<numberOfIndividuals;index++)
+            individuals[index]=factory.getOWLNamedIndividual(IRI.create(NS+"i"+index));
+        for (int index=0;index<numberOfIndividuals;index++) {
+            axioms.add(factory.getOWLClassAssertionAxiom(classes[(index*13)%numberOfClasses],individuals[index]));
+            if (index%8!=7 && index+1<numberOfIndividuals)
+                axioms.add(factory.getOWLObjectPropertyAssertionAxiom(index%2==0 ? s : r,individuals[index],individuals[index+1]));
+        }
+        try {
+            return manager.createOntology(axioms,IRI.create("http://benchmarks.hermit-reasoner.com/synthetic-"+numberOfClasses+"-"+numberOfIndividuals));
+        }
+        catch (OWLOntologyCreationException e) {
+            throw new IllegalStateException("Cannot create the synthetic ontology.",e);
+        }
+    }
+}
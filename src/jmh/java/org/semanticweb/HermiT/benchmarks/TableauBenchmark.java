@@ -0,0 +1,65 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.HermiT.model.Atom;
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.model.Individual;
+import org.semanticweb.HermiT.tableau.ReasoningTaskDescription;
+import org.semanticweb.HermiT.tableau.Tableau;
+
+/**
+ * Concept satisfiability tests run directly on the tableau of a synthetic ontology. This exercises the
+ * hyperresolution, the extension tables and blocking without the classification algorithms on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations=5,time=5)
+@Measurement(iterations=10,time=5)
+public class TableauBenchmark {
+    @Param({ "200","1000" })
+    public int size;
+
+    protected Reasoner m_reasoner;
+    protected Tableau m_tableau;
+    protected AtomicConcept[] m_concepts;
+    protected Individual m_individual;
+    protected int m_nextConcept;
+
+    @Setup
+    public void createTableau() {
+        m_reasoner=new Reasoner(new Configuration(),SyntheticOntologies.createOntology(size,0));
+        m_tableau=m_reasoner.getTableau();
+        m_concepts=new AtomicConcept[size];
+        for (int index=0;index<size;index++)
+            m_concepts[index]=AtomicConcept.create(SyntheticOntologies.NS+"C"+index);
+        m_individual=Individual.createAnonymous("benchmark-individual");
+    }
+    @TearDown
+    public void disposeReasoner() {
+        m_reasoner.dispose();
+    }
+    @Benchmark
+    public boolean isSatisfiable() {
+        AtomicConcept concept=m_concepts[m_nextConcept];
+        m_nextConcept=(m_nextConcept+1)%m_concepts.length;
+        return m_tableau.isSatisfiable(true,Collections.singleton(Atom.create(concept,m_individual)),null,null,null,null,ReasoningTaskDescription.isConceptSatisfiable(concept));
+    }
+}
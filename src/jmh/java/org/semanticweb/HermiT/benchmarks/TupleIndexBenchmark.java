@@ -0,0 +1,66 @@
+package org.semanticweb.HermiT.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.HermiT.model.AtomicRole;
+import org.semanticweb.HermiT.model.Individual;
+import org.semanticweb.HermiT.tableau.TupleIndex;
+
+/**
+ * Insertion into and lookup in a TupleIndex with the shape of a ternary extension table index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations=5,time=5)
+@Measurement(iterations=10,time=5)
+public class TupleIndexBenchmark {
+    @Param({ "1000","100000" })
+    public int numberOfTuples;
+
+    protected Object[][] m_tuples;
+    protected TupleIndex m_filledIndex;
+
+    @Setup
+    public void createTuples() {
+        AtomicRole[] roles=new AtomicRole[16];
+        for (int index=0;index<roles.length;index++)
+            roles[index]=AtomicRole.create(SyntheticOntologies.NS+"r"+index);
+        Individual[] individuals=new Individual[(int)Math.sqrt(numberOfTuples)+1];
+        for (int index=0;index<individuals.length;index++)
+            individuals[index]=Individual.create(SyntheticOntologies.NS+"i"+index);
+        m_tuples=new Object[numberOfTuples][];
+        for (int index=0;index<numberOfTuples;index++)
+            m_tuples[index]=new Object[] { roles[index%roles.length],individuals[index%individuals.length],individuals[(index/individuals.length)%individuals.length] };
+        m_filledIndex=new TupleIndex(new int[] { 0,1,2 });
+        for (int index=0;index<numberOfTuples;index++)
+            m_filledIndex.addTuple(m_tuples[index],index);
+    }
+    @Benchmark
+    public TupleIndex addTuples() {
+        TupleIndex tupleIndex=new TupleIndex(new int[] { 0,1,2 });
+        for (int index=0;index<m_tuples.length;index++)
+            tupleIndex.addTuple(m_tuples[index],index);
+        return tupleIndex;
+    }
+    @Benchmark
+    public int retrieveTuples() {
+        int found=0;
+        for (int index=0;index<m_tuples.length;index++)
+            if (m_filledIndex.getTupleIndex(m_tuples[index])!=-1)
+                found++;
+        return found;
+    }
+}
@@ -27,8 +27,14 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.semanticweb.HermiT.hierarchy.QuasiOrderClassification;
 import org.semanticweb.HermiT.model.AtomicConcept;
 import org.semanticweb.HermiT.monitor.TableauMonitor;
+import org.semanticweb.HermiT.tableau.DLClauseEvaluator;
+import org.semanticweb.HermiT.tableau.DependencySetFactory;
+import org.semanticweb.HermiT.tableau.ExtensionManager;
+import org.semanticweb.HermiT.tableau.HyperresolutionManager;
+import org.semanticweb.HermiT.tableau.Tableau;
 import org.semanticweb.owlapi.reasoner.FreshEntityPolicy;
 import org.semanticweb.owlapi.reasoner.IndividualNodeSetPolicy;
 import org.semanticweb.owlapi.reasoner.OWLReasonerConfiguration;
@@ -232,6 +238,70 @@ public class Configuration implements Serializable,Cloneable,OWLReasonerConfigur
      */
     public boolean forceQuasiOrderClassification;
 
+    /**
+     * The default value is 1. If set to a larger value and the ontology is not deterministic (or forceQuasiOrderClassification is set),
+     * then HermiT classifies classes and data properties using that many threads. Each thread uses its own tableau, which costs additional
+     * memory. Parallel classification is not used when a tableau monitor is configured.
+     */
+    public int numberOfClassificationThreads;
+    /**
+     * The default value is 1. If set to a larger value, then HermiT checks the possible instances of classes and object
+     * properties during realisation using that many threads, each with its own tableau. As for classification, this is not
+     * done when a tableau monitor is configured.
+     */
+    public int numberOfRealisationThreads;
+
+    /**
+     * The default value is null. If set to a directory, HermiT stores the result of preprocessing (normalization and
+     * clausification) of each loaded ontology in that directory and reuses it when an ontology with the same axioms is
+     * loaded again with the same options. Ontologies with description graphs are never cached.
+     */
+    public File preprocessingCacheDirectory;
+    /**
+     * The default value is null. If set to a directory, HermiT stores the class and property hierarchies and the class
+     * instances it computes in that directory, and a reasoner for a DL-ontology with the same clauses and facts starts
+     * from these results instead of recomputing them.
+     */
+    public File reasoningSnapshotDirectory;
+    /**
+     * The default value is null. If set to a file, the numbers of backtrackings learned by disjunction learning are loaded
+     * from that file when the reasoner is created and saved to it when the reasoner is disposed, so that later reasoners
+     * start with the disjunct order learned so far. The numbers are kept across flushes and shared by all tableaux of a
+     * reasoner regardless of this option.
+     */
+    public File disjunctionStatisticsFile;
+    /**
+     * The default value is false. If set to true, HermiT reuses the class hierarchy when changes to the TBox are flushed: only
+     * the classes whose subsumers can be influenced by the added or removed axioms are reclassified. Ontologies with nominals or
+     * description graphs are always classified from scratch.
+     */
+    public boolean incrementalClassification;
+    /**
+     * The default value is false. If set to true, HermiT classifies deterministic ontologies whose DL-clauses are in the EL family
+     * (no inverse roles, universals, number restrictions, nominals, or datatypes) by consequence-based saturation in one pass
+     * instead of one tableau test per class. Other ontologies are classified with the tableau regardless of this option.
+     */
+    public boolean useConsequenceBasedClassification;
+    /**
+     * The maximal number of nogoods that HermiT learns from clashes and keeps between tests. A nogood is a set of concepts on
+     * individuals that the tableau has chosen in disjunctions and that together led to a clash; a disjunct that would complete
+     * a nogood is rejected immediately. The default value is 0, which disables nogood learning.
+     */
+    public int nogoodStoreCapacity;
+    /**
+     * The maximal number of DL-ontologies clausified from the axioms of complex class expression queries that HermiT keeps
+     * so that repeated queries for the same class expression skip normalization and clausification. The cache is cleared
+     * whenever changes are flushed. The default value is 256; 0 disables the cache.
+     */
+    public int deltaDLOntologyCacheSize;
+    /**
+     * The number of candidate individuals that HermiT tests in one tableau run when it retrieves the instances of a complex
+     * class expression. The negated class expression is asserted for all candidates of a batch at once: if the ABox remains
+     * satisfiable, none of them is an instance, and otherwise the clashes are traced back to the candidates that caused them.
+     * The default value is 1, which tests each candidate separately.
+     */
+    public int instanceRetrievalBatchSize;
+
     public Configuration() {
         warningMonitor=null;
         reasonerProgressMonitor=null;
@@ -251,6 +321,16 @@ public class Configuration implements Serializable,Cloneable,OWLReasonerConfigur
         throwInconsistentOntologyException=true;
         prepareReasonerInferences=null;
         forceQuasiOrderClassification=false;
+        numberOfClassificationThreads=1;
+        numberOfRealisationThreads=1;
+        preprocessingCacheDirectory=null;
+        reasoningSnapshotDirectory=null;
+        disjunctionStatisticsFile=null;
+        incrementalClassification=false;
+        useConsequenceBasedClassification=false;
+        nogoodStoreCapacity=0;
+        deltaDLOntologyCacheSize=256;
+        instanceRetrievalBatchSize=1;
     }
     protected void setIndividualReuseStrategyReuseAlways(Set<? extends AtomicConcept> concepts) {
         parameters.put("IndividualReuseStrategy.reuseAlways",concepts);
@@ -266,6 +346,62 @@ public class Configuration implements Serializable,Cloneable,OWLReasonerConfigur
         Set<AtomicConcept> concepts=loadConceptsFromFile(file);
         setIndividualReuseStrategyReuseNever(concepts);
     }
+    /**
+     * If set to true, the tableau stores concept and role assertions as integer IDs of predicates and nodes rather than
+     * as object references, which reduces the memory used by large ABoxes. The default is false.
+     */
+    public void setUseIntEncodedExtensionTables(boolean useIntEncodedExtensionTables) {
+        parameters.put(ExtensionManager.INT_ENCODED_TUPLES_PARAMETER,Boolean.valueOf(useIntEncodedExtensionTables));
+    }
+    /**
+     * If set to true, each test that involves the ABox starts from a checkpoint of the ABox saturated with the deterministic
+     * rules, which is kept between tests, instead of loading and saturating the ABox again. The default is false.
+     */
+    public void setUseABoxCheckpoint(boolean useABoxCheckpoint) {
+        parameters.put(Tableau.ABOX_CHECKPOINT_PARAMETER,Boolean.valueOf(useABoxCheckpoint));
+    }
+    /**
+     * If set to true, the extension tables count the tuples of each predicate, and the body atoms of DL-clauses are
+     * ordered and periodically reordered by the estimated number of matching tuples, which speeds up rule application
+     * on large ABoxes. The default is false.
+     */
+    public void setUseAdaptiveJoinOrdering(boolean useAdaptiveJoinOrdering) {
+        parameters.put(HyperresolutionManager.ADAPTIVE_JOIN_ORDERING_PARAMETER,Boolean.valueOf(useAdaptiveJoinOrdering));
+    }
+    /**
+     * If set to true, the body atoms of a DL-clause that bind variables used neither in the head nor later in the body
+     * are evaluated as existence checks rather than enumerating all of their matches. The option has no effect with
+     * BlockingStrategyType.COMPLEX_CORE, where the core variables are computed from each match. The default is false.
+     */
+    public void setUseHeadFreeVariableProjection(boolean useHeadFreeVariableProjection) {
+        parameters.put(DLClauseEvaluator.HEAD_FREE_VARIABLE_PROJECTION_PARAMETER,Boolean.valueOf(useHeadFreeVariableProjection));
+    }
+    /**
+     * If set to a number greater than one, rule application splits large sets of newly derived facts among that many
+     * threads; the derived facts are added to the tableau in the same deterministic order regardless of thread
+     * scheduling. The reasoner keeps a pool of one thread less than that number, which it shuts down on dispose(). The
+     * default is 1, which applies the rules on the calling thread only.
+     */
+    public void setNumberOfHyperresolutionThreads(int numberOfHyperresolutionThreads) {
+        parameters.put(HyperresolutionManager.PARALLEL_THREADS_PARAMETER,Integer.valueOf(numberOfHyperresolutionThreads));
+    }
+    /**
+     * If set to true, dependency sets are additionally represented as bit sets, so that unions of dependency sets are
+     * computed word by word; this speeds up reasoning on problems with thousands of open branching points at the
+     * expense of some memory. The default is false.
+     */
+    public void setUseBitSetDependencySets(boolean useBitSetDependencySets) {
+        parameters.put(DependencySetFactory.BIT_SET_DEPENDENCY_SETS_PARAMETER,Boolean.valueOf(useBitSetDependencySets));
+    }
+    /**
+     * Sets the number of classes whose satisfiability classification tests in one run of the tableau. Each class is
+     * checked in a separate part of the tableau, so a clash in one part does not affect the others, and the tableau
+     * need not be cleared and restarted for each class. Batches are used only for ontologies without nominals and
+     * description graphs. The default is 1, which tests each class on its own.
+     */
+    public void setSatisfiabilityTestBatchSize(int batchSize) {
+        parameters.put(QuasiOrderClassification.BATCH_SIZE_PARAMETER,Integer.valueOf(batchSize));
+    }
     protected Set<AtomicConcept> loadConceptsFromFile(File file) throws IOException {
         Set<AtomicConcept> result=new HashSet<AtomicConcept>();
         BufferedReader reader=new BufferedReader(new FileReader(file));
@@ -0,0 +1,403 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.semanticweb.HermiT.tableau.InterruptFlag;
+import org.semanticweb.HermiT.tableau.Tableau;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+import org.semanticweb.owlapi.reasoner.ReasonerProgressMonitor;
+import org.semanticweb.owlapi.reasoner.TimeOutException;
+
+/**
+ * An asynchronous precomputation of inferences as started by Reasoner.precomputeInferencesAsync(). The reasoner is first
+ * prepared (changes are flushed and consistency is checked) and then each requested inference type is computed by a stage
+ * with a future of its own. The stages that build the object and data property hierarchies run on tableaux of their own
+ * concurrently with the class hierarchy; all other stages share the tableau of the reasoner and run one after the other in
+ * the order of InferenceType. A stage fails if the preparation or the stage that it builds on fails (class assertions build
+ * on the class hierarchy, object property assertions on the object property hierarchy, and same individuals on class
+ * assertions).
+ *
+ * Stages are stopped cooperatively: cancel() and setDeadline() interrupt the tableau of a running stage, and a stage that has
+ * not started yet does not run at all. A stopped stage completes with a CancellationException or a TimeOutException, and its
+ * future is completed only once the stage no longer runs.
+ */
+public class InferencePrecomputation {
+    protected static ExecutorService s_defaultExecutor;
+    protected static ScheduledThreadPoolExecutor s_deadlineScheduler;
+
+    protected final Reasoner m_reasoner;
+    protected final Executor m_executor;
+    protected final Listener m_listener;
+    protected final Stage m_preparation;
+    protected final Map<InferenceType,Stage> m_stages;
+    protected final CompletableFuture<Void> m_future;
+
+    protected InferencePrecomputation(Reasoner reasoner,Executor executor,Listener listener,InferenceType... inferenceTypes) {
+        m_reasoner=reasoner;
+        m_executor=executor;
+        m_listener=listener;
+        m_preparation=new Stage(null,false);
+        m_stages=new EnumMap<InferenceType,Stage>(InferenceType.class);
+        // Tableau monitors are not thread-safe, so the property hierarchies get their own tableaux only if there is no monitor.
+        boolean useOwnTableaux=m_reasoner.canUseWorkerTableaux(2);
+        for (InferenceType inferenceType : inferenceTypes)
+            m_stages.put(inferenceType,new Stage(inferenceType,useOwnTableaux && (inferenceType==InferenceType.OBJECT_PROPERTY_HIERARCHY || inferenceType==InferenceType.DATA_PROPERTY_HIERARCHY)));
+        List<Stage> precedingStages=new ArrayList<Stage>();
+        List<CompletableFuture<Void>> stageFutures=new ArrayList<CompletableFuture<Void>>();
+        for (Stage stage : m_stages.values()) {
+            stage.m_requiredStages.add(m_preparation);
+            Stage requiredStage=m_stages.get(getRequiredInferenceType(stage.m_inferenceType));
+            if (requiredStage!=null)
+                stage.m_requiredStages.add(requiredStage);
+            if (!stage.m_usesOwnTableau)
+                stage.m_precedingStages.addAll(precedingStages);
+            precedingStages.add(stage);
+            stageFutures.add(stage.m_future);
+        }
+        m_future=CompletableFuture.allOf(stageFutures.toArray(new CompletableFuture<?>[stageFutures.size()]));
+    }
+    protected void start() {
+        m_executor.execute(m_preparation);
+        for (Stage stage : m_stages.values())
+            stage.schedule();
+    }
+    /**
+     * Returns the future of the stage for the given inference type. Cancelling the future does not stop the stage; use
+     * cancel(InferenceType) for that.
+     */
+    public CompletableFuture<Void> getFuture(InferenceType inferenceType) {
+        return getStage(inferenceType).m_future;
+    }
+    /**
+     * Returns a future that completes once all stages are done.
+     */
+    public CompletableFuture<Void> getFuture() {
+        return m_future;
+    }
+    public Set<InferenceType> getInferenceTypes() {
+        return Collections.unmodifiableSet(m_stages.keySet());
+    }
+    public boolean isDone() {
+        return m_future.isDone();
+    }
+    public void cancel(InferenceType inferenceType) {
+        getStage(inferenceType).stop(Event.Type.CANCELLED);
+    }
+    public void cancel() {
+        m_preparation.stop(Event.Type.CANCELLED);
+        for (Stage stage : m_stages.values())
+            stage.stop(Event.Type.CANCELLED);
+    }
+    /**
+     * Stops the stage for the given inference type with a TimeOutException if it has not completed once the given time elapsed.
+     */
+    public void setDeadline(InferenceType inferenceType,long timeout,TimeUnit unit) {
+        getStage(inferenceType).setDeadline(timeout,unit);
+    }
+    public void setDeadline(long timeout,TimeUnit unit) {
+        m_preparation.setDeadline(timeout,unit);
+        for (Stage stage : m_stages.values())
+            stage.setDeadline(timeout,unit);
+    }
+    protected Stage getStage(InferenceType inferenceType) {
+        Stage stage=m_stages.get(inferenceType);
+        if (stage==null)
+            throw new IllegalArgumentException("The inference type "+inferenceType+" is not precomputed.");
+        return stage;
+    }
+    protected void notifyListener(Event event) {
+        if (m_listener!=null)
+            m_listener.handleEvent(event);
+    }
+    protected static InferenceType getRequiredInferenceType(InferenceType inferenceType) {
+        switch (inferenceType) {
+        case CLASS_ASSERTIONS:
+            return InferenceType.CLASS_HIERARCHY;
+        case OBJECT_PROPERTY_ASSERTIONS:
+            return InferenceType.OBJECT_PROPERTY_HIERARCHY;
+        case SAME_INDIVIDUAL:
+            return InferenceType.CLASS_ASSERTIONS;
+        default:
+            return null;
+        }
+    }
+    protected static synchronized Executor getDefaultExecutor() {
+        if (s_defaultExecutor==null)
+            s_defaultExecutor=Executors.newCachedThreadPool(new DaemonThreadFactory("HermiT Precomputation"));
+        return s_defaultExecutor;
+    }
+    protected static synchronized ScheduledThreadPoolExecutor getDeadlineScheduler() {
+        if (s_deadlineScheduler==null) {
+            s_deadlineScheduler=new ScheduledThreadPoolExecutor(1,new DaemonThreadFactory("HermiT Precomputation Deadline"));
+            s_deadlineScheduler.setRemoveOnCancelPolicy(true);
+        }
+        return s_deadlineScheduler;
+    }
+
+    /**
+     * Computes one inference type, or prepares the reasoner if the inference type is null. A stage first waits for the stages
+     * that it depends on and then occupies a thread of the executor while it runs. Progress reported by the reasoner is passed
+     * on to the listener.
+     */
+    protected final class Stage implements Runnable,ReasonerProgressMonitor {
+        private static final long serialVersionUID=-4618512853052273496L;
+
+        protected final InferenceType m_inferenceType;
+        protected final boolean m_usesOwnTableau;
+        protected final List<Stage> m_requiredStages;
+        protected final List<Stage> m_precedingStages;
+        protected final CompletableFuture<Void> m_future;
+        protected Event.Type m_stopType;
+        protected InterruptFlag m_runningInterruptFlag;
+        protected volatile String m_taskName;
+
+        public Stage(InferenceType inferenceType,boolean usesOwnTableau) {
+            m_inferenceType=inferenceType;
+            m_usesOwnTableau=usesOwnTableau;
+            m_requiredStages=new ArrayList<Stage>();
+            m_precedingStages=new ArrayList<Stage>();
+            m_future=new CompletableFuture<Void>();
+        }
+        protected void schedule() {
+            List<CompletableFuture<Void>> futures=new ArrayList<CompletableFuture<Void>>();
+            for (Stage stage : m_requiredStages)
+                futures.add(stage.m_future);
+            for (Stage stage : m_precedingStages)
+                futures.add(stage.m_future);
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).whenComplete(new BiConsumer<Void,Throwable>() {
+                public void accept(Void result,Throwable error) {
+                    try {
+                        m_executor.execute(Stage.this);
+                    }
+                    catch (Throwable executionError) {
+                        finish(executionError);
+                    }
+                }
+            });
+        }
+        protected void setDeadline(long timeout,TimeUnit unit) {
+            final ScheduledFuture<?> deadline=getDeadlineScheduler().schedule(new Runnable() {
+                public void run() {
+                    stop(Event.Type.TIMED_OUT);
+                }
+            },timeout,unit);
+            m_future.whenComplete(new BiConsumer<Void,Throwable>() {
+                public void accept(Void result,Throwable error) {
+                    deadline.cancel(false);
+                }
+            });
+        }
+        protected synchronized void stop(Event.Type stopType) {
+            if (m_stopType==null && !m_future.isDone()) {
+                m_stopType=stopType;
+                if (m_runningInterruptFlag!=null)
+                    m_runningInterruptFlag.cancel(stopType==Event.Type.TIMED_OUT);
+            }
+        }
+        public void run() {
+            Throwable failure=null;
+            for (int index=0;failure==null && index<m_requiredStages.size();index++)
+                failure=getFailure(m_requiredStages.get(index).m_future);
+            Tableau tableau=null;
+            if (failure==null && m_usesOwnTableau) {
+                try {
+                    tableau=m_reasoner.createPrecomputationTableau();
+                }
+                catch (Throwable error) {
+                    failure=error;
+                }
+            }
+            InterruptFlag interruptFlag=(tableau==null ? m_reasoner.m_interruptFlag : tableau.getInterruptFlag());
+            synchronized (this) {
+                if (failure==null && m_stopType!=null)
+                    failure=createStopException(m_stopType);
+                if (failure==null)
+                    m_runningInterruptFlag=interruptFlag;
+            }
+            if (failure==null) {
+                if (m_inferenceType!=null)
+                    notifyListener(new Event(Event.Type.STARTED,m_inferenceType,null,0,0,null));
+                try {
+                    if (m_inferenceType==null)
+                        m_reasoner.checkPreConditions();
+                    else
+                        m_reasoner.precomputeInferences(m_inferenceType,tableau,this);
+                }
+                catch (Throwable error) {
+                    failure=error;
+                }
+                finally {
+                    synchronized (this) {
+                        m_runningInterruptFlag=null;
+                        if (failure!=null && m_stopType!=null)
+                            failure=createStopException(m_stopType);
+                        interruptFlag.reset();
+                    }
+                }
+            }
+            if (tableau!=null)
+                tableau.getInterruptFlag().dispose();
+            finish(failure);
+        }
+        protected void finish(Throwable failure) {
+            if (m_inferenceType!=null) {
+                Event.Type eventType;
+                if (failure==null)
+                    eventType=Event.Type.COMPLETED;
+                else if (failure instanceof CancellationException)
+                    eventType=Event.Type.CANCELLED;
+                else if (failure instanceof TimeOutException)
+                    eventType=Event.Type.TIMED_OUT;
+                else
+                    eventType=Event.Type.FAILED;
+                try {
+                    notifyListener(new Event(eventType,m_inferenceType,m_taskName,0,0,failure));
+                }
+                catch (Throwable error) {
+                    // the future must be completed even if the listener fails
+                }
+            }
+            if (failure==null)
+                m_future.complete(null);
+            else
+                m_future.completeExceptionally(failure);
+        }
+        protected Throwable getFailure(CompletableFuture<Void> future) {
+            try {
+                future.join();
+                return null;
+            }
+            catch (CancellationException error) {
+                return error;
+            }
+            catch (CompletionException error) {
+                return error.getCause();
+            }
+        }
+        protected Throwable createStopException(Event.Type stopType) {
+            if (stopType==Event.Type.TIMED_OUT)
+                return new TimeOutException();
+            else
+                return new CancellationException("The precomputation of "+(m_inferenceType==null ? "the reasoner" : m_inferenceType.toString())+" has been cancelled.");
+        }
+        public void reasonerTaskStarted(String taskName) {
+            m_taskName=taskName;
+            notifyListener(new Event(Event.Type.PROGRESS,m_inferenceType,taskName,0,0,null));
+        }
+        public void reasonerTaskStopped() {
+        }
+        public void reasonerTaskProgressChanged(int value,int max) {
+            notifyListener(new Event(Event.Type.PROGRESS,m_inferenceType,m_taskName,value,max,null));
+        }
+        public void reasonerTaskBusy() {
+        }
+    }
+
+    /**
+     * Receives the events of a precomputation. Events are sent from the threads that run the stages, possibly from several
+     * threads at the same time, so listeners must be thread-safe.
+     */
+    public static interface Listener {
+        void handleEvent(Event event);
+    }
+
+    public static class Event {
+        public static enum Type { STARTED,PROGRESS,COMPLETED,FAILED,CANCELLED,TIMED_OUT };
+
+        protected final Type m_type;
+        protected final InferenceType m_inferenceType;
+        protected final String m_taskName;
+        protected final int m_value;
+        protected final int m_max;
+        protected final Throwable m_failure;
+
+        public Event(Type type,InferenceType inferenceType,String taskName,int value,int max,Throwable failure) {
+            m_type=type;
+            m_inferenceType=inferenceType;
+            m_taskName=taskName;
+            m_value=value;
+            m_max=max;
+            m_failure=failure;
+        }
+        public Type getType() {
+            return m_type;
+        }
+        public InferenceType getInferenceType() {
+            return m_inferenceType;
+        }
+        /**
+         * Returns the name of the task that the reasoner reported last for the stage, or null if it reported none.
+         */
+        public String getTaskName() {
+            return m_taskName;
+        }
+        public int getValue() {
+            return m_value;
+        }
+        public int getMax() {
+            return m_max;
+        }
+        /**
+         * Returns the exception with which the stage completed for FAILED, CANCELLED, and TIMED_OUT events, and null otherwise.
+         */
+        public Throwable getFailure() {
+            return m_failure;
+        }
+        public String toString() {
+            StringBuffer buffer=new StringBuffer();
+            buffer.append(m_type).append(' ').append(m_inferenceType);
+            if (m_taskName!=null)
+                buffer.append(" (").append(m_taskName).append(')');
+            if (m_type==Type.PROGRESS && m_max>0)
+                buffer.append(' ').append(m_value).append('/').append(m_max);
+            return buffer.toString();
+        }
+    }
+
+    protected static class DaemonThreadFactory implements ThreadFactory {
+        protected final String m_threadName;
+        protected int m_nextThreadIndex;
+
+        public DaemonThreadFactory(String threadName) {
+            m_threadName=threadName;
+        }
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread=new Thread(runnable,m_threadName+" "+(m_nextThreadIndex++));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
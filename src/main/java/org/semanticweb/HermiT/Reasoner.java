@@ -25,11 +25,18 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.semanticweb.HermiT.Configuration.BlockingStrategyType;
+import org.semanticweb.HermiT.Configuration.TableauMonitorType;
 import org.semanticweb.HermiT.blocking.AncestorBlocking;
 import org.semanticweb.HermiT.blocking.AnywhereBlocking;
 import org.semanticweb.HermiT.blocking.AnywhereValidatedBlocking;
@@ -51,9 +58,12 @@ import org.semanticweb.HermiT.hierarchy.HierarchyDumperFSS;
 import org.semanticweb.HermiT.hierarchy.HierarchyNode;
 import org.semanticweb.HermiT.hierarchy.HierarchyPrinterFSS;
 import org.semanticweb.HermiT.hierarchy.HierarchySearch;
+import org.semanticweb.HermiT.hierarchy.IncrementalQuasiOrderClassification;
 import org.semanticweb.HermiT.hierarchy.InstanceManager;
+import org.semanticweb.HermiT.hierarchy.ParallelQuasiOrderClassification;
 import org.semanticweb.HermiT.hierarchy.QuasiOrderClassification;
 import org.semanticweb.HermiT.hierarchy.QuasiOrderClassificationForRoles;
+import org.semanticweb.HermiT.hierarchy.ReasoningSnapshot;
 import org.semanticweb.HermiT.model.Atom;
 import org.semanticweb.HermiT.model.AtomicConcept;
 import org.semanticweb.HermiT.model.AtomicRole;
@@ -70,15 +80,22 @@ import org.semanticweb.HermiT.monitor.TableauMonitorFork;
 import org.semanticweb.HermiT.monitor.Timer;
 import org.semanticweb.HermiT.monitor.TimerWithPause;
 import org.semanticweb.HermiT.structural.BuiltInPropertyManager;
+import org.semanticweb.HermiT.structural.DLOntologyCache;
+import org.semanticweb.HermiT.structural.DeltaDLOntologyCache;
 import org.semanticweb.HermiT.structural.OWLAxioms;
 import org.semanticweb.HermiT.structural.OWLAxiomsExpressivity;
 import org.semanticweb.HermiT.structural.OWLClausification;
 import org.semanticweb.HermiT.structural.OWLNormalization;
 import org.semanticweb.HermiT.structural.ObjectPropertyInclusionManager;
 import org.semanticweb.HermiT.structural.ReducedABoxOnlyClausification;
+import org.semanticweb.HermiT.tableau.DisjunctionStatistics;
+import org.semanticweb.HermiT.tableau.HyperresolutionManager;
 import org.semanticweb.HermiT.tableau.InterruptFlag;
+import org.semanticweb.HermiT.tableau.NogoodStore;
 import org.semanticweb.HermiT.tableau.ReasoningTaskDescription;
 import org.semanticweb.HermiT.tableau.Tableau;
+import org.semanticweb.HermiT.tableau.TableauPool;
+import org.semanticweb.HermiT.tableau.TableauWorkerPool;
 import org.semanticweb.owlapi.model.AddAxiom;
 import org.semanticweb.owlapi.model.AddOntologyAnnotation;
 import org.semanticweb.owlapi.model.AxiomType;
@@ -129,6 +146,7 @@ import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.reasoner.OWLReasonerConfiguration;
 import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
 import org.semanticweb.owlapi.reasoner.ReasonerInterruptedException;
+import org.semanticweb.owlapi.reasoner.ReasonerProgressMonitor;
 import org.semanticweb.owlapi.reasoner.TimeOutException;
 import org.semanticweb.owlapi.reasoner.impl.OWLClassNode;
 import org.semanticweb.owlapi.reasoner.impl.OWLClassNodeSet;
@@ -151,6 +169,13 @@ public class Reasoner implements OWLReasoner {
     protected final List<OWLOntologyChange> m_pendingChanges;
     protected final Collection<DescriptionGraph> m_descriptionGraphs;
     protected final InterruptFlag m_interruptFlag;
+    protected final DisjunctionStatistics m_disjunctionStatistics;
+    protected final ExecutorService m_hyperresolutionExecutor;
+    protected final DeltaDLOntologyCache m_deltaDLOntologyCache;
+    protected final Object m_clausificationLock;
+    protected final ThreadLocal<Tableau> m_borrowedTableau;
+    protected final ThreadLocal<ReasonerProgressMonitor> m_stageProgressMonitor;
+    protected volatile TableauPool m_tableauPool;
     protected ObjectPropertyInclusionManager m_objectPropertyInclusionManager;
     protected DLOntology m_dlOntology;
     protected Prefixes m_prefixes;
@@ -164,6 +189,9 @@ public class Reasoner implements OWLReasoner {
     protected Map<AtomicRole,Set<HierarchyNode<AtomicConcept>>> m_directDataRoleDomains;
     protected Map<HierarchyNode<AtomicConcept>,Set<HierarchyNode<AtomicConcept>>> m_directDisjointClasses;
     protected InstanceManager m_instanceManager;
+    protected ReasoningSnapshot m_reasoningSnapshot;
+    protected DLOntology m_previousDLOntology;
+    protected Hierarchy<AtomicConcept> m_previousAtomicConceptHierarchy;
 
     /**
      * Creates a new reasoner object with standard parameters for blocking, expansion strategy etc. Then the given manager is used to find all required imports for the given ontology and the ontology with the imports is loaded into the reasoner and the data factory of the manager is used to create fresh concepts during the preprocessing phase if necessary.
@@ -208,7 +236,15 @@ public class Reasoner implements OWLReasoner {
         else
             m_descriptionGraphs=descriptionGraphs;
         m_interruptFlag=new InterruptFlag(configuration.individualTaskTimeout);
-        m_directDisjointClasses=new HashMap<HierarchyNode<AtomicConcept>,Set<HierarchyNode<AtomicConcept>>>();
+        m_directDisjointClasses=new ConcurrentHashMap<HierarchyNode<AtomicConcept>,Set<HierarchyNode<AtomicConcept>>>();
+        m_disjunctionStatistics=new DisjunctionStatistics();
+        if (m_configuration.disjunctionStatisticsFile!=null)
+            m_disjunctionStatistics.load(m_configuration.disjunctionStatisticsFile);
+        m_hyperresolutionExecutor=createHyperresolutionExecutor(m_configuration);
+        m_deltaDLOntologyCache=(m_configuration.deltaDLOntologyCacheSize>0 ? new DeltaDLOntologyCache(m_configuration.deltaDLOntologyCacheSize) : null);
+        m_clausificationLock=new Object();
+        m_borrowedTableau=new ThreadLocal<Tableau>();
+        m_stageProgressMonitor=new ThreadLocal<ReasonerProgressMonitor>();
         loadOntology();
     }
 
@@ -216,15 +252,62 @@ public class Reasoner implements OWLReasoner {
 
     protected void loadOntology() {
         clearState();
-        // Convert OWLOntology into DLOntology
         OWLClausification clausifier=new OWLClausification(m_configuration);
-        Object[] result=clausifier.preprocessAndClausify(m_rootOntology,m_descriptionGraphs);
-        m_objectPropertyInclusionManager=(ObjectPropertyInclusionManager)result[0];
-        m_dlOntology=(DLOntology)result[1];
+        DLOntologyCache cache=null;
+        String cacheKey=null;
+        if (m_configuration.preprocessingCacheDirectory!=null && m_descriptionGraphs.isEmpty()) {
+            cache=new DLOntologyCache(m_configuration.preprocessingCacheDirectory);
+            cacheKey=cache.computeKey(m_rootOntology,m_configuration);
+            Object[] cached=cache.load(cacheKey);
+            if (cached!=null) {
+                m_dlOntology=(DLOntology)cached[0];
+                m_prefixes=(Prefixes)cached[1];
+                m_objectPropertyInclusionManager=clausifier.createObjectPropertyInclusionManager(m_rootOntology,m_dlOntology);
+            }
+        }
+        if (m_dlOntology==null) {
+            // Convert OWLOntology into DLOntology
+            Object[] result=clausifier.preprocessAndClausify(m_rootOntology,m_descriptionGraphs);
+            m_objectPropertyInclusionManager=(ObjectPropertyInclusionManager)result[0];
+            m_dlOntology=(DLOntology)result[1];
+            createPrefixes();
+            if (cache!=null)
+                cache.store(cacheKey,m_dlOntology,m_prefixes);
+        }
         // Load the DLOntology
-        createPrefixes();
-        m_tableau=createTableau(m_interruptFlag,m_configuration,m_dlOntology,null,m_prefixes);
+        m_tableau=createTableau(m_interruptFlag,m_configuration,m_disjunctionStatistics,m_hyperresolutionExecutor,m_dlOntology,null,m_prefixes);
         m_instanceManager=null;
+        if (m_configuration.reasoningSnapshotDirectory!=null)
+            loadReasoningSnapshot();
+    }
+    /**
+     * Restores the results of reasoning that have been stored for the current DL-ontology by a previous reasoner.
+     */
+    protected void loadReasoningSnapshot() {
+        m_reasoningSnapshot=new ReasoningSnapshot(m_configuration.reasoningSnapshotDirectory,m_dlOntology);
+        if (m_reasoningSnapshot.load()) {
+            if (m_reasoningSnapshot.isConsistent()!=null)
+                m_isConsistent=m_reasoningSnapshot.isConsistent();
+            if (m_reasoningSnapshot.getAtomicConceptHierarchy()!=null)
+                m_atomicConceptHierarchy=m_reasoningSnapshot.getAtomicConceptHierarchy();
+            if (m_reasoningSnapshot.getObjectRoleHierarchy()!=null)
+                m_objectRoleHierarchy=m_reasoningSnapshot.getObjectRoleHierarchy();
+            if (m_reasoningSnapshot.getDataRoleHierarchy()!=null)
+                m_dataRoleHierarchy=m_reasoningSnapshot.getDataRoleHierarchy();
+            if (m_reasoningSnapshot.hasClassInstances() && m_atomicConceptHierarchy==m_reasoningSnapshot.getAtomicConceptHierarchy()) {
+                m_instanceManager=new InstanceManager(m_interruptFlag,this,m_atomicConceptHierarchy,m_objectRoleHierarchy);
+                m_reasoningSnapshot.restoreClassInstances(m_instanceManager);
+            }
+        }
+    }
+    protected void storeReasoningSnapshot() {
+        ReasoningSnapshot reasoningSnapshot=m_reasoningSnapshot;
+        if (reasoningSnapshot!=null) {
+            // the stages of an asynchronous precomputation can finish at the same time
+            synchronized (reasoningSnapshot) {
+                reasoningSnapshot.store(m_isConsistent,m_atomicConceptHierarchy,m_objectRoleHierarchy,m_dataRoleHierarchy,m_instanceManager);
+            }
+        }
     }
     protected void createPrefixes() {
         m_prefixes=new Prefixes();
@@ -269,9 +352,26 @@ public class Reasoner implements OWLReasoner {
     public void dispose() {
         m_rootOntology.getOWLOntologyManager().removeOntologyChangeListener(m_ontologyChangeListener);
         clearState();
+        if (m_configuration.disjunctionStatisticsFile!=null)
+            m_disjunctionStatistics.save(m_configuration.disjunctionStatisticsFile);
+        if (m_hyperresolutionExecutor!=null)
+            m_hyperresolutionExecutor.shutdown();
         m_interruptFlag.dispose();
     }
+    /**
+     * Creates the threads on which the tableaux of this reasoner apply DL-clauses in parallel, or returns null if the
+     * configuration does not ask for parallel hyperresolution. The calling thread evaluates one chunk itself, so the pool
+     * has one thread less than the number of chunks; it is shared by all tableaux of the reasoner.
+     */
+    protected static ExecutorService createHyperresolutionExecutor(Configuration configuration) {
+        Object numberOfThreads=configuration.parameters.get(HyperresolutionManager.PARALLEL_THREADS_PARAMETER);
+        if (numberOfThreads instanceof Integer && ((Integer)numberOfThreads).intValue()>1)
+            return Executors.newFixedThreadPool(((Integer)numberOfThreads).intValue()-1,new InferencePrecomputation.DaemonThreadFactory("HermiT Hyperresolution"));
+        else
+            return null;
+    }
     protected void clearState() {
+        stopConcurrentQueries();
         m_pendingChanges.clear();
         m_dlOntology=null;
         m_prefixes=null;
@@ -280,14 +380,91 @@ public class Reasoner implements OWLReasoner {
         m_atomicConceptHierarchy=null;
         m_objectRoleHierarchy=null;
         m_dataRoleHierarchy=null;
-        m_directObjectRoleDomains=new HashMap<Role,Set<HierarchyNode<AtomicConcept>>>();
-        m_directObjectRoleRanges=new HashMap<Role,Set<HierarchyNode<AtomicConcept>>>();
-        m_directDataRoleDomains=new HashMap<AtomicRole,Set<HierarchyNode<AtomicConcept>>>();
-        m_directDisjointClasses=new HashMap<HierarchyNode<AtomicConcept>,Set<HierarchyNode<AtomicConcept>>>();
+        m_directObjectRoleDomains=new ConcurrentHashMap<Role,Set<HierarchyNode<AtomicConcept>>>();
+        m_directObjectRoleRanges=new ConcurrentHashMap<Role,Set<HierarchyNode<AtomicConcept>>>();
+        m_directDataRoleDomains=new ConcurrentHashMap<AtomicRole,Set<HierarchyNode<AtomicConcept>>>();
+        m_directDisjointClasses=new ConcurrentHashMap<HierarchyNode<AtomicConcept>,Set<HierarchyNode<AtomicConcept>>>();
         m_instanceManager=null;
+        m_reasoningSnapshot=null;
+        m_previousDLOntology=null;
+        m_previousAtomicConceptHierarchy=null;
+        if (m_deltaDLOntologyCache!=null)
+            m_deltaDLOntologyCache.clear();
     }
     public void interrupt() {
         m_interruptFlag.interrupt();
+        TableauPool tableauPool=m_tableauPool;
+        if (tableauPool!=null)
+            tableauPool.interrupt();
+    }
+    /**
+     * Precomputes all inferences and switches the reasoner into the concurrent query mode, in which the query methods can be
+     * called from several threads at once. Queries that are answered from the class and property hierarchies or from the
+     * realised instances only read these data structures, which are no longer modified, so they run without locking. Queries
+     * that need tableau tests, such as queries for complex class expressions, borrow one of the given number of tableaux
+     * for their duration and wait if all of them are in use. Pending changes are not flushed implicitly in this mode; the mode
+     * ends with the next flush that applies changes, with stopConcurrentQueries() or with dispose(), none of which may be
+     * called while queries are running.
+     *
+     * @param numberOfTableaux
+     *            - the maximal number of queries that run tableau tests at the same time
+     * @throws IllegalStateException
+     *             - if a tableau monitor is configured, since monitors are not thread-safe
+     */
+    public void startConcurrentQueries(int numberOfTableaux) {
+        if (numberOfTableaux<1)
+            throw new IllegalArgumentException("At least one tableau is required for concurrent queries.");
+        if (m_configuration.monitor!=null || m_configuration.tableauMonitorType!=TableauMonitorType.NONE)
+            throw new IllegalStateException("Concurrent queries are not supported if a tableau monitor is used.");
+        stopConcurrentQueries();
+        checkPreConditions();
+        classifyClasses();
+        classifyObjectProperties();
+        classifyDataProperties();
+        realise();
+        realiseObjectProperties();
+        precomputeSameAsEquivalenceClasses();
+        List<Tableau> tableaux=new ArrayList<Tableau>(numberOfTableaux);
+        while (tableaux.size()<numberOfTableaux)
+            tableaux.add(createTableau(new InterruptFlag(m_configuration.individualTaskTimeout),m_configuration,m_disjunctionStatistics,m_hyperresolutionExecutor,m_dlOntology,null,m_prefixes));
+        m_tableauPool=new TableauPool(tableaux);
+    }
+    public void stopConcurrentQueries() {
+        TableauPool tableauPool=m_tableauPool;
+        if (tableauPool!=null) {
+            m_tableauPool=null;
+            tableauPool.dispose();
+        }
+    }
+    public boolean isInConcurrentQueryMode() {
+        return m_tableauPool!=null;
+    }
+    /**
+     * Returns the pool of the tableaux used by concurrent queries, or null if the reasoner is not in the concurrent query mode.
+     */
+    public TableauPool getTableauPool() {
+        return m_tableauPool;
+    }
+    /**
+     * In the concurrent query mode, borrows a tableau from the pool for the current thread, which getTableau() then returns
+     * until the tableau is passed to returnTableau(). Returns null if the reasoner is not in that mode or if the current
+     * thread already holds a tableau, so nested queries keep using the tableau of the outermost one.
+     */
+    protected Tableau borrowTableau() {
+        TableauPool tableauPool=m_tableauPool;
+        if (tableauPool==null || m_borrowedTableau.get()!=null)
+            return null;
+        Tableau tableau=tableauPool.borrow();
+        m_borrowedTableau.set(tableau);
+        return tableau;
+    }
+    protected void returnTableau(Tableau tableau) {
+        if (tableau!=null) {
+            m_borrowedTableau.remove();
+            TableauPool tableauPool=m_tableauPool;
+            if (tableauPool!=null && tableauPool.getTableaux().contains(tableau))
+                tableauPool.giveBack(tableau);
+        }
     }
     public OWLDataFactory getDataFactory() {
         return m_rootOntology.getOWLOntologyManager().getOWLDataFactory();
@@ -373,6 +550,9 @@ public class Reasoner implements OWLReasoner {
     }
     public void flush() {
         if (!m_pendingChanges.isEmpty()) {
+            stopConcurrentQueries();
+            if (m_deltaDLOntologyCache!=null)
+                m_deltaDLOntologyCache.clear();
             // check if we can only reload the ABox
             if (canProcessPendingChangesIncrementally()) {
                 Set<OWLOntology> rootOntologyImportsClosure=m_rootOntology.getImportsClosure();
@@ -404,9 +584,25 @@ public class Reasoner implements OWLReasoner {
                 for (Atom atom : negativeFacts)
                     atom.getIndividuals(allIndividuals);
                 m_dlOntology=new DLOntology(m_dlOntology.getOntologyIRI(),m_dlOntology.getDLClauses(),positiveFacts,negativeFacts,allAtomicConcepts,allAtomicObjectRoles,m_dlOntology.getAllComplexObjectRoles(),allAtomicDataRoles,m_dlOntology.getAllUnknownDatatypeRestrictions(),m_dlOntology.getDefinedDatatypeIRIs(),allIndividuals,m_dlOntology.hasInverseRoles(),m_dlOntology.hasAtMostRestrictions(),m_dlOntology.hasNominals(),m_dlOntology.hasDatatypes());
-                m_tableau=new Tableau(m_interruptFlag,m_tableau.getTableauMonitor(),m_tableau.getExistentialsExpansionStrategy(),m_configuration.useDisjunctionLearning,m_dlOntology,null,m_configuration.parameters);
+                m_tableau=new Tableau(m_interruptFlag,m_tableau.getTableauMonitor(),m_tableau.getExistentialsExpansionStrategy(),m_configuration.useDisjunctionLearning,m_dlOntology,null,m_tableau.getParameters());
                 m_instanceManager=null;
                 m_isConsistent=null;
+                if (m_configuration.reasoningSnapshotDirectory!=null)
+                    loadReasoningSnapshot();
+            }
+            else if (m_configuration.incrementalClassification) {
+                // Keep the class hierarchy of the last consistent version so that classifyClasses() can reuse it.
+                DLOntology previousDLOntology=m_previousDLOntology;
+                Hierarchy<AtomicConcept> previousAtomicConceptHierarchy=m_previousAtomicConceptHierarchy;
+                if (m_atomicConceptHierarchy!=null && Boolean.TRUE.equals(m_isConsistent)) {
+                    previousDLOntology=m_dlOntology;
+                    previousAtomicConceptHierarchy=m_atomicConceptHierarchy;
+                }
+                loadOntology();
+                if (m_atomicConceptHierarchy==null) {
+                    m_previousDLOntology=previousDLOntology;
+                    m_previousAtomicConceptHierarchy=previousAtomicConceptHierarchy;
+                }
             }
             else
                 loadOntology();
@@ -552,6 +748,53 @@ public class Reasoner implements OWLReasoner {
         }
         return false;
     }
+    /**
+     * Starts to precompute the given inferences in the background and returns at once. Each inference type is computed by a
+     * stage with a future of its own, and stages that do not depend on each other run at the same time; in particular, the
+     * object and data property hierarchies are computed on tableaux of their own alongside the class hierarchy. The stages
+     * report their progress to the given listener (which can be null) instead of the configured progress monitor, and they
+     * can be cancelled or given deadlines separately. Apart from the methods of the returned object, the reasoner must not be
+     * used until the precomputation is done.
+     *
+     * @param executor
+     *            - runs the stages; a stage occupies a thread only while it runs
+     */
+    public InferencePrecomputation precomputeInferencesAsync(Executor executor,InferencePrecomputation.Listener listener,InferenceType... inferenceTypes) {
+        InferencePrecomputation precomputation=new InferencePrecomputation(this,executor,listener,inferenceTypes);
+        precomputation.start();
+        return precomputation;
+    }
+    public InferencePrecomputation precomputeInferencesAsync(InferenceType... inferenceTypes) {
+        return precomputeInferencesAsync(InferencePrecomputation.getDefaultExecutor(),null,inferenceTypes);
+    }
+    /**
+     * Runs a stage of an asynchronous precomputation in the current thread: while the stage runs, getTableau() returns the
+     * given tableau unless it is null, and progress is reported to the given monitor.
+     */
+    protected void precomputeInferences(InferenceType inferenceType,Tableau tableau,ReasonerProgressMonitor progressMonitor) {
+        if (tableau!=null)
+            m_borrowedTableau.set(tableau);
+        m_stageProgressMonitor.set(progressMonitor);
+        try {
+            precomputeInferences(inferenceType);
+        }
+        finally {
+            m_stageProgressMonitor.remove();
+            if (tableau!=null)
+                m_borrowedTableau.remove();
+        }
+    }
+    protected Tableau createPrecomputationTableau() {
+        return createTableau(new InterruptFlag(m_configuration.individualTaskTimeout),m_configuration,m_disjunctionStatistics,m_hyperresolutionExecutor,m_dlOntology,null,m_prefixes);
+    }
+    /**
+     * Returns the monitor to which the current thread reports progress: the monitor of the precomputation stage that the thread
+     * runs, or the configured monitor otherwise.
+     */
+    protected ReasonerProgressMonitor getReasonerProgressMonitor() {
+        ReasonerProgressMonitor progressMonitor=m_stageProgressMonitor.get();
+        return (progressMonitor==null ? m_configuration.reasonerProgressMonitor : progressMonitor);
+    }
     public void precomputeInferences(InferenceType... inferenceTypes) throws ReasonerInterruptedException,TimeOutException,InconsistentOntologyException {
         checkPreConditions();
         boolean doAll=m_configuration.prepareReasonerInferences==null;
@@ -589,9 +832,10 @@ public class Reasoner implements OWLReasoner {
         // precomputeDisjointClasses();
     }
     protected void initialisePropertiesInstanceManager() {
+        ReasonerProgressMonitor reasonerProgressMonitor=getReasonerProgressMonitor();
         if (m_instanceManager==null || !m_instanceManager.arePropertiesInitialised()) {
-            if (m_configuration.reasonerProgressMonitor!=null)
-                m_configuration.reasonerProgressMonitor.reasonerTaskStarted("Initializing property instance data structures");
+            if (reasonerProgressMonitor!=null)
+                reasonerProgressMonitor.reasonerTaskStarted("Initializing property instance data structures");
             if (m_instanceManager==null)
                 m_instanceManager=new InstanceManager(m_interruptFlag,this,m_atomicConceptHierarchy,m_objectRoleHierarchy);
             boolean isConsistent=true;
@@ -611,41 +855,42 @@ public class Reasoner implements OWLReasoner {
                 int steps=stepsAdditionalAxioms+(chunks*stepsRewritingAdditionalAxioms)+(chunks*stepsTableauExpansion)+stepsInitialiseKnownPossible;
                 int startIndividualIndex=0;
                 int completedSteps=0;
-                OWLAxiom[] additionalAxioms=m_instanceManager.getAxiomsForReadingOffCompexProperties(getDataFactory(),m_configuration.reasonerProgressMonitor,completedSteps,steps);
+                OWLAxiom[] additionalAxioms=m_instanceManager.getAxiomsForReadingOffCompexProperties(getDataFactory(),reasonerProgressMonitor,completedSteps,steps);
                 completedSteps+=stepsAdditionalAxioms/chunks;
                 boolean moreWork=true;
                 while (moreWork) {
                     Tableau tableau=getTableau(additionalAxioms);
                     completedSteps+=stepsRewritingAdditionalAxioms;
-                    if (m_configuration.reasonerProgressMonitor!=null)
-                        m_configuration.reasonerProgressMonitor.reasonerTaskProgressChanged(completedSteps,steps);
+                    if (reasonerProgressMonitor!=null)
+                        reasonerProgressMonitor.reasonerTaskProgressChanged(completedSteps,steps);
                     isConsistent=tableau.isSatisfiable(true,true,null,null,null,null,m_instanceManager.getNodesForIndividuals(),new ReasoningTaskDescription(false,"Initial consistency check plus reading-off known and possible class and property instances (individual "+startIndividualIndex+" to "+m_instanceManager.getCurrentIndividualIndex()+")."));
                     completedSteps+=stepsTableauExpansion;
-                    if (m_configuration.reasonerProgressMonitor!=null)
-                        m_configuration.reasonerProgressMonitor.reasonerTaskProgressChanged(completedSteps,steps);
+                    if (reasonerProgressMonitor!=null)
+                        reasonerProgressMonitor.reasonerTaskProgressChanged(completedSteps,steps);
                     if (!isConsistent) {
                         m_instanceManager.setInconsistent();
                         break;
                     }
                     else
-                        completedSteps=m_instanceManager.initializeKnowAndPossiblePropertyInstances(tableau,m_configuration.reasonerProgressMonitor,startIndividualIndex,completedSteps,steps);
+                        completedSteps=m_instanceManager.initializeKnowAndPossiblePropertyInstances(tableau,reasonerProgressMonitor,startIndividualIndex,completedSteps,steps);
                     tableau.clearAdditionalDLOntology();
                     startIndividualIndex=m_instanceManager.getCurrentIndividualIndex();
-                    additionalAxioms=m_instanceManager.getAxiomsForReadingOffCompexProperties(getDataFactory(),m_configuration.reasonerProgressMonitor,completedSteps,steps);
+                    additionalAxioms=m_instanceManager.getAxiomsForReadingOffCompexProperties(getDataFactory(),reasonerProgressMonitor,completedSteps,steps);
                     completedSteps+=stepsAdditionalAxioms/chunks;
                     moreWork=additionalAxioms.length>0;
                 }
                 if (m_isConsistent==null)
                     m_isConsistent=isConsistent;
             }
-            if (m_configuration.reasonerProgressMonitor!=null)
-                m_configuration.reasonerProgressMonitor.reasonerTaskStopped();
+            if (reasonerProgressMonitor!=null)
+                reasonerProgressMonitor.reasonerTaskStopped();
         }
     }
     protected void initialiseClassInstanceManager() {
+        ReasonerProgressMonitor reasonerProgressMonitor=getReasonerProgressMonitor();
         if (m_instanceManager==null || !m_instanceManager.areClassesInitialised()) {
-            if (m_configuration.reasonerProgressMonitor!=null)
-                m_configuration.reasonerProgressMonitor.reasonerTaskStarted("Initializing class instance data structures");
+            if (reasonerProgressMonitor!=null)
+                reasonerProgressMonitor.reasonerTaskStarted("Initializing class instance data structures");
             if (m_instanceManager==null)
                 m_instanceManager=new InstanceManager(m_interruptFlag,this,m_atomicConceptHierarchy,m_objectRoleHierarchy);
             boolean isConsistent=true;
@@ -661,18 +906,18 @@ public class Reasoner implements OWLReasoner {
                 Tableau tableau=getTableau();
                 isConsistent=tableau.isSatisfiable(true,true,null,null,null,null,m_instanceManager.getNodesForIndividuals(),new ReasoningTaskDescription(false,"Initial tableau for reading-off known and possible class instances."));
                 completedSteps+=stepsTableauExpansion;
-                if (m_configuration.reasonerProgressMonitor!=null)
-                    m_configuration.reasonerProgressMonitor.reasonerTaskProgressChanged(completedSteps,steps);
+                if (reasonerProgressMonitor!=null)
+                    reasonerProgressMonitor.reasonerTaskProgressChanged(completedSteps,steps);
                 if (!isConsistent)
                     m_instanceManager.setInconsistent();
                 else
-                    m_instanceManager.initializeKnowAndPossibleClassInstances(tableau,m_configuration.reasonerProgressMonitor,completedSteps,steps);
+                    m_instanceManager.initializeKnowAndPossibleClassInstances(tableau,reasonerProgressMonitor,completedSteps,steps);
                 if (m_isConsistent==null)
                     m_isConsistent=isConsistent;
                 tableau.clearAdditionalDLOntology();
             }
-            if (m_configuration.reasonerProgressMonitor!=null)
-                m_configuration.reasonerProgressMonitor.reasonerTaskStopped();
+            if (reasonerProgressMonitor!=null)
+                reasonerProgressMonitor.reasonerTaskStopped();
         }
     }
     public boolean isConsistent() {
@@ -689,14 +934,26 @@ public class Reasoner implements OWLReasoner {
         if (!isConsistent())
             return true;
         EntailmentChecker checker=new EntailmentChecker(this,getDataFactory());
-        return checker.entails(axiom);
+        Tableau borrowedTableau=borrowTableau();
+        try {
+            return checker.entails(axiom);
+        }
+        finally {
+            returnTableau(borrowedTableau);
+        }
     }
     public boolean isEntailed(Set<? extends OWLAxiom> axioms) {
         checkPreConditions(axioms.toArray(new OWLObject[0]));
         if (!m_isConsistent)
             return true;
         EntailmentChecker checker=new EntailmentChecker(this,getDataFactory());
-        return checker.entails(axioms);
+        Tableau borrowedTableau=borrowTableau();
+        try {
+            return checker.entails(axioms);
+        }
+        finally {
+            returnTableau(borrowedTableau);
+        }
     }
 
     // Concept inferences
@@ -709,6 +966,7 @@ public class Reasoner implements OWLReasoner {
         classifyClasses();
     }
     public void classifyClasses() {
+        final ReasonerProgressMonitor reasonerProgressMonitor=getReasonerProgressMonitor();
         checkPreConditions();
         if (m_atomicConceptHierarchy==null) {
             Set<AtomicConcept> relevantAtomicConcepts=new HashSet<AtomicConcept>();
@@ -722,25 +980,33 @@ public class Reasoner implements OWLReasoner {
             else {
                 try {
                     final int numRelevantConcepts=relevantAtomicConcepts.size();
-                    if (m_configuration.reasonerProgressMonitor!=null)
-                        m_configuration.reasonerProgressMonitor.reasonerTaskStarted("Building the class hierarchy...");
+                    if (reasonerProgressMonitor!=null)
+                        reasonerProgressMonitor.reasonerTaskStarted("Building the class hierarchy...");
                     ClassificationProgressMonitor progressMonitor=new ClassificationProgressMonitor() {
                         protected int m_processedConcepts=0;
                         public void elementClassified(AtomicConcept element) {
                             m_processedConcepts++;
-                            if (m_configuration.reasonerProgressMonitor!=null)
-                                m_configuration.reasonerProgressMonitor.reasonerTaskProgressChanged(m_processedConcepts,numRelevantConcepts);
+                            if (reasonerProgressMonitor!=null)
+                                reasonerProgressMonitor.reasonerTaskProgressChanged(m_processedConcepts,numRelevantConcepts);
                         }
                     };
-                    m_atomicConceptHierarchy=classifyAtomicConcepts(getTableau(),progressMonitor,AtomicConcept.THING,AtomicConcept.NOTHING,relevantAtomicConcepts,m_configuration.forceQuasiOrderClassification);
+                    if (m_previousAtomicConceptHierarchy!=null && IncrementalQuasiOrderClassification.canClassifyIncrementally(m_previousDLOntology,m_dlOntology)) {
+                        Set<AtomicConcept> affectedAtomicConcepts=IncrementalQuasiOrderClassification.getAffectedElements(m_previousDLOntology,m_previousAtomicConceptHierarchy,m_dlOntology,relevantAtomicConcepts);
+                        m_atomicConceptHierarchy=new IncrementalQuasiOrderClassification(getTableau(),progressMonitor,AtomicConcept.THING,AtomicConcept.NOTHING,relevantAtomicConcepts,m_previousAtomicConceptHierarchy,affectedAtomicConcepts).classify();
+                    }
+                    else
+                        m_atomicConceptHierarchy=classifyAtomicConcepts(getTableau(),progressMonitor,AtomicConcept.THING,AtomicConcept.NOTHING,relevantAtomicConcepts,m_configuration.forceQuasiOrderClassification);
+                    m_previousDLOntology=null;
+                    m_previousAtomicConceptHierarchy=null;
                     if (m_instanceManager!=null)
                         m_instanceManager.setToClassifiedConceptHierarchy(m_atomicConceptHierarchy);
                 }
                 finally {
-                    if (m_configuration.reasonerProgressMonitor!=null)
-                        m_configuration.reasonerProgressMonitor.reasonerTaskStopped();
+                    if (reasonerProgressMonitor!=null)
+                        reasonerProgressMonitor.reasonerTaskStopped();
                 }
             }
+            storeReasoningSnapshot();
         }
     }
     public Node<OWLClass> getTopClassNode() {
@@ -764,8 +1030,14 @@ public class Reasoner implements OWLReasoner {
             OWLDataFactory factory=getDataFactory();
             OWLIndividual freshIndividual=factory.getOWLAnonymousIndividual("fresh-individual");
             OWLClassAssertionAxiom assertClassExpression=factory.getOWLClassAssertionAxiom(classExpression,freshIndividual);
-            Tableau tableau=getTableau(assertClassExpression);
-            return tableau.isSatisfiable(true,null,null,null,null,null,ReasoningTaskDescription.isConceptSatisfiable(classExpression));
+            Tableau borrowedTableau=borrowTableau();
+            try {
+                Tableau tableau=getTableau(assertClassExpression);
+                return tableau.isSatisfiable(true,null,null,null,null,null,ReasoningTaskDescription.isConceptSatisfiable(classExpression));
+            }
+            finally {
+                returnTableau(borrowedTableau);
+            }
         }
     }
     protected boolean isSubClassOf(OWLClassExpression subClassExpression,OWLClassExpression superClassExpression) {
@@ -777,7 +1049,8 @@ public class Reasoner implements OWLReasoner {
             AtomicConcept superconcept=H((OWLClass)superClassExpression);
             if (m_atomicConceptHierarchy!=null && !containsFreshEntities(subClassExpression,superClassExpression)) {
                 HierarchyNode<AtomicConcept> subconceptNode=m_atomicConceptHierarchy.getNodeForElement(subconcept);
-                return subconceptNode.isEquivalentElement(superconcept) || subconceptNode.isAncestorElement(superconcept);
+                HierarchyNode<AtomicConcept> superconceptNode=m_atomicConceptHierarchy.getNodeForElement(superconcept);
+                return superconceptNode!=null && m_atomicConceptHierarchy.isAncestorNode(subconceptNode,superconceptNode);
             }
             else {
                 Tableau tableau=getTableau();
@@ -807,10 +1080,8 @@ public class Reasoner implements OWLReasoner {
         Set<HierarchyNode<AtomicConcept>> result;
         if (direct)
             result=node.getParentNodes();
-        else {
-            result=new HashSet<HierarchyNode<AtomicConcept>>(node.getAncestorNodes());
-            result.remove(node);
-        }
+        else
+            result=m_atomicConceptHierarchy.getAncestorNodes(node,false);
         return atomicConceptHierarchyNodesToNodeSet(result);
     }
     public NodeSet<OWLClass> getSubClasses(OWLClassExpression classExpression,boolean direct) {
@@ -818,10 +1089,8 @@ public class Reasoner implements OWLReasoner {
         Set<HierarchyNode<AtomicConcept>> result;
         if (direct)
             result=node.getChildNodes();
-        else {
-            result=new HashSet<HierarchyNode<AtomicConcept>>(node.getDescendantNodes());
-            result.remove(node);
-        }
+        else
+            result=m_atomicConceptHierarchy.getDescendantNodes(node,false);
         return atomicConceptHierarchyNodesToNodeSet(result);
     }
     public Node<OWLClass> getUnsatisfiableClasses() {
@@ -889,6 +1158,7 @@ public class Reasoner implements OWLReasoner {
         }
     }
     public void precomputeDisjointClasses() {
+        ReasonerProgressMonitor reasonerProgressMonitor=getReasonerProgressMonitor();
         checkPreConditions();
         if (!m_isConsistent)
             return;
@@ -900,15 +1170,15 @@ public class Reasoner implements OWLReasoner {
             nodes.removeAll(m_directDisjointClasses.keySet());
             int steps=nodes.size();
             int step=0;
-            if (m_configuration.reasonerProgressMonitor!=null)
-                m_configuration.reasonerProgressMonitor.reasonerTaskStarted("Compute disjoint classes");
+            if (reasonerProgressMonitor!=null)
+                reasonerProgressMonitor.reasonerTaskStarted("Compute disjoint classes");
             for (HierarchyNode<AtomicConcept> node : nodes) {
                 getDisjointConceptNodes(node);
-                if (m_configuration.reasonerProgressMonitor!=null)
-                    m_configuration.reasonerProgressMonitor.reasonerTaskProgressChanged(++step,steps);
+                if (reasonerProgressMonitor!=null)
+                    reasonerProgressMonitor.reasonerTaskProgressChanged(++step,steps);
             }
-            if (m_configuration.reasonerProgressMonitor!=null)
-                m_configuration.reasonerProgressMonitor.reasonerTaskStopped();
+            if (reasonerProgressMonitor!=null)
+                reasonerProgressMonitor.reasonerTaskStopped();
         }
     }
     protected HierarchyNode<AtomicConcept> getHierarchyNode(OWLClassExpression classExpression) {
@@ -927,22 +1197,29 @@ public class Reasoner implements OWLReasoner {
             OWLDataFactory factory=getDataFactory();
             OWLClass queryConcept=factory.getOWLClass(IRI.create("internal:query-concept"));
             OWLAxiom classDefinitionAxiom=factory.getOWLEquivalentClassesAxiom(queryConcept,classExpression);
-            final Tableau tableau=getTableau(classDefinitionAxiom);
-            HierarchySearch.Relation<AtomicConcept> hierarchyRelation=new HierarchySearch.Relation<AtomicConcept>() {
-                public boolean doesSubsume(AtomicConcept parent,AtomicConcept child) {
-                    Individual freshIndividual=Individual.createAnonymous("fresh-individual");
-                    return !tableau.isSatisfiable(true,Collections.singleton(Atom.create(child,freshIndividual)),null,null,Collections.singleton(Atom.create(parent,freshIndividual)),null,ReasoningTaskDescription.isConceptSubsumedBy(child,parent));
-                }
-            };
-            HierarchyNode<AtomicConcept> extendedHierarchy=HierarchySearch.findPosition(hierarchyRelation,AtomicConcept.create("internal:query-concept"),m_atomicConceptHierarchy.getTopNode(),m_atomicConceptHierarchy.getBottomNode());
-            tableau.clearAdditionalDLOntology();
-            return extendedHierarchy;
+            Tableau borrowedTableau=borrowTableau();
+            try {
+                final Tableau tableau=getTableau(classDefinitionAxiom);
+                HierarchySearch.Relation<AtomicConcept> hierarchyRelation=new HierarchySearch.Relation<AtomicConcept>() {
+                    public boolean doesSubsume(AtomicConcept parent,AtomicConcept child) {
+                        Individual freshIndividual=Individual.createAnonymous("fresh-individual");
+                        return !tableau.isSatisfiable(true,Collections.singleton(Atom.create(child,freshIndividual)),null,null,Collections.singleton(Atom.create(parent,freshIndividual)),null,ReasoningTaskDescription.isConceptSubsumedBy(child,parent));
+                    }
+                };
+                HierarchyNode<AtomicConcept> extendedHierarchy=HierarchySearch.findPosition(hierarchyRelation,AtomicConcept.create("internal:query-concept"),m_atomicConceptHierarchy.getTopNode(),m_atomicConceptHierarchy.getBottomNode());
+                tableau.clearAdditionalDLOntology();
+                return extendedHierarchy;
+            }
+            finally {
+                returnTableau(borrowedTableau);
+            }
         }
     }
 
     // Object property inferences
 
     public void classifyObjectProperties() {
+        final ReasonerProgressMonitor reasonerProgressMonitor=getReasonerProgressMonitor();
         checkPreConditions();
         if (m_objectRoleHierarchy==null) {
             Set<Role> relevantObjectRoles=new HashSet<Role>();
@@ -997,14 +1274,14 @@ public class Reasoner implements OWLReasoner {
                 Tableau tableau=getTableau(additionalAxiomsArray);
                 try {
                     final int numberOfRoles=relevantObjectRoles.size();
-                    if (m_configuration.reasonerProgressMonitor!=null)
-                        m_configuration.reasonerProgressMonitor.reasonerTaskStarted("Classifying object properties...");
+                    if (reasonerProgressMonitor!=null)
+                        reasonerProgressMonitor.reasonerTaskStarted("Classifying object properties...");
                     ClassificationProgressMonitor progressMonitor=new ClassificationProgressMonitor() {
                         protected int m_processedRoles=0;
                         public void elementClassified(AtomicConcept element) {
                             m_processedRoles++;
-                            if (m_configuration.reasonerProgressMonitor!=null)
-                                m_configuration.reasonerProgressMonitor.reasonerTaskProgressChanged(m_processedRoles,numberOfRoles);
+                            if (reasonerProgressMonitor!=null)
+                                reasonerProgressMonitor.reasonerTaskProgressChanged(m_processedRoles,numberOfRoles);
                         }
                     };
                     Hierarchy<AtomicConcept> atomicConceptHierarchyForRoles=classifyAtomicConceptsForRoles(tableau,progressMonitor,conceptsForRoles.get(AtomicRole.TOP_OBJECT_ROLE),conceptsForRoles.get(AtomicRole.BOTTOM_OBJECT_ROLE),rolesForConcepts.keySet(),m_dlOntology.hasInverseRoles(),conceptsForRoles,rolesForConcepts,m_configuration.forceQuasiOrderClassification);
@@ -1022,10 +1299,11 @@ public class Reasoner implements OWLReasoner {
                 }
                 finally {
                     tableau.clearAdditionalDLOntology();
-                    if (m_configuration.reasonerProgressMonitor!=null)
-                        m_configuration.reasonerProgressMonitor.reasonerTaskStopped();
+                    if (reasonerProgressMonitor!=null)
+                        reasonerProgressMonitor.reasonerTaskStopped();
                 }
             }
+            storeReasoningSnapshot();
         }
     }
     public Node<OWLObjectPropertyExpression> getTopObjectPropertyNode() {
@@ -1044,7 +1322,8 @@ public class Reasoner implements OWLReasoner {
         Role superrole=H(superObjectPropertyExpression);
         if (m_objectRoleHierarchy!=null && !containsFreshEntities(subObjectPropertyExpression,superObjectPropertyExpression)) {
             HierarchyNode<Role> subroleNode=m_objectRoleHierarchy.getNodeForElement(subrole);
-            return subroleNode.isEquivalentElement(superrole) || subroleNode.isAncestorElement(superrole);
+            HierarchyNode<Role> superroleNode=m_objectRoleHierarchy.getNodeForElement(superrole);
+            return superroleNode!=null && m_objectRoleHierarchy.isAncestorNode(subroleNode,superroleNode);
         }
         else {
             OWLDataFactory factory=getDataFactory();
@@ -1090,26 +1369,20 @@ public class Reasoner implements OWLReasoner {
     }
     public NodeSet<OWLObjectPropertyExpression> getSuperObjectProperties(OWLObjectPropertyExpression propertyExpression,boolean direct) {
         HierarchyNode<Role> node=getHierarchyNode(propertyExpression);
-        Set<HierarchyNode<Role>> result=new HashSet<HierarchyNode<Role>>();
+        Set<HierarchyNode<Role>> result;
         if (direct)
-            for (HierarchyNode<Role> n : node.getParentNodes())
-                result.add(n);
-        else {
-            result=node.getAncestorNodes();
-            result.remove(node);
-        }
+            result=node.getParentNodes();
+        else
+            result=m_objectRoleHierarchy.getAncestorNodes(node,false);
         return objectPropertyHierarchyNodesToNodeSet(result);
     }
     public NodeSet<OWLObjectPropertyExpression> getSubObjectProperties(OWLObjectPropertyExpression propertyExpression,boolean direct) {
         HierarchyNode<Role> node=getHierarchyNode(propertyExpression);
-        Set<HierarchyNode<Role>> result=new HashSet<HierarchyNode<Role>>();
+        Set<HierarchyNode<Role>> result;
         if (direct)
-            for (HierarchyNode<Role> n : node.getChildNodes())
-                result.add(n);
-        else {
-            result=node.getDescendantNodes();
-            result.remove(node);
-        }
+            result=node.getChildNodes();
+        else
+            result=m_objectRoleHierarchy.getDescendantNodes(node,false);
         return objectPropertyHierarchyNodesToNodeSet(result);
     }
     public Node<OWLObjectPropertyExpression> getEquivalentObjectProperties(OWLObjectPropertyExpression propertyExpression) {
@@ -1126,20 +1399,26 @@ public class Reasoner implements OWLReasoner {
             final Individual freshIndividualA=Individual.createAnonymous("fresh-individual-A");
             final Individual freshIndividualB=Individual.createAnonymous("fresh-individual-B");
             final Set<Atom> roleAssertion=Collections.singleton(role.getRoleAssertion(freshIndividualA,freshIndividualB));
-            final Tableau tableau=getTableau();
-            HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>> searchPredicate=new HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>>() {
-                public Set<HierarchyNode<AtomicConcept>> getSuccessorElements(HierarchyNode<AtomicConcept> u) {
-                    return u.getChildNodes();
-                }
-                public Set<HierarchyNode<AtomicConcept>> getPredecessorElements(HierarchyNode<AtomicConcept> u) {
-                    return u.getParentNodes();
-                }
-                public boolean trueOf(HierarchyNode<AtomicConcept> u) {
-                    AtomicConcept potentialDomainConcept=u.getRepresentative();
-                    return !tableau.isSatisfiable(false,roleAssertion,Collections.singleton(Atom.create(potentialDomainConcept,freshIndividualA)),null,null,null,ReasoningTaskDescription.isDomainOf(potentialDomainConcept,role));
-                }
-            };
-            nodes=HierarchySearch.search(searchPredicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+            Tableau borrowedTableau=borrowTableau();
+            try {
+                final Tableau tableau=getTableau();
+                HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>> searchPredicate=new HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>>() {
+                    public Set<HierarchyNode<AtomicConcept>> getSuccessorElements(HierarchyNode<AtomicConcept> u) {
+                        return u.getChildNodes();
+                    }
+                    public Set<HierarchyNode<AtomicConcept>> getPredecessorElements(HierarchyNode<AtomicConcept> u) {
+                        return u.getParentNodes();
+                    }
+                    public boolean trueOf(HierarchyNode<AtomicConcept> u) {
+                        AtomicConcept potentialDomainConcept=u.getRepresentative();
+                        return !tableau.isSatisfiable(false,roleAssertion,Collections.singleton(Atom.create(potentialDomainConcept,freshIndividualA)),null,null,null,ReasoningTaskDescription.isDomainOf(potentialDomainConcept,role));
+                    }
+                };
+                nodes=HierarchySearch.search(searchPredicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+            }
+            finally {
+                returnTableau(borrowedTableau);
+            }
             m_directObjectRoleDomains.put(role,nodes);
         }
         if (!direct)
@@ -1157,20 +1436,26 @@ public class Reasoner implements OWLReasoner {
             final Individual freshIndividualA=Individual.createAnonymous("fresh-individual-A");
             final Individual freshIndividualB=Individual.createAnonymous("fresh-individual-B");
             final Set<Atom> roleAssertion=Collections.singleton(role.getRoleAssertion(freshIndividualA,freshIndividualB));
-            final Tableau tableau=getTableau();
-            HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>> searchPredicate=new HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>>() {
-                public Set<HierarchyNode<AtomicConcept>> getSuccessorElements(HierarchyNode<AtomicConcept> u) {
-                    return u.getChildNodes();
-                }
-                public Set<HierarchyNode<AtomicConcept>> getPredecessorElements(HierarchyNode<AtomicConcept> u) {
-                    return u.getParentNodes();
-                }
-                public boolean trueOf(HierarchyNode<AtomicConcept> u) {
-                    AtomicConcept potentialRangeConcept=u.getRepresentative();
-                    return !tableau.isSatisfiable(false,roleAssertion,Collections.singleton(Atom.create(potentialRangeConcept,freshIndividualB)),null,null,null,ReasoningTaskDescription.isRangeOf(potentialRangeConcept,role));
-                }
-            };
-            nodes=HierarchySearch.search(searchPredicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+            Tableau borrowedTableau=borrowTableau();
+            try {
+                final Tableau tableau=getTableau();
+                HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>> searchPredicate=new HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>>() {
+                    public Set<HierarchyNode<AtomicConcept>> getSuccessorElements(HierarchyNode<AtomicConcept> u) {
+                        return u.getChildNodes();
+                    }
+                    public Set<HierarchyNode<AtomicConcept>> getPredecessorElements(HierarchyNode<AtomicConcept> u) {
+                        return u.getParentNodes();
+                    }
+                    public boolean trueOf(HierarchyNode<AtomicConcept> u) {
+                        AtomicConcept potentialRangeConcept=u.getRepresentative();
+                        return !tableau.isSatisfiable(false,roleAssertion,Collections.singleton(Atom.create(potentialRangeConcept,freshIndividualB)),null,null,null,ReasoningTaskDescription.isRangeOf(potentialRangeConcept,role));
+                    }
+                };
+                nodes=HierarchySearch.search(searchPredicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+            }
+            finally {
+                returnTableau(borrowedTableau);
+            }
             m_directObjectRoleRanges.put(role,nodes);
         }
         if (!direct)
@@ -1200,27 +1485,33 @@ public class Reasoner implements OWLReasoner {
         Individual freshIndividualA=Individual.createAnonymous("fresh-individual-A");
         Individual freshIndividualB=Individual.createAnonymous("fresh-individual-B");
         Atom roleAssertion=role.getRoleAssertion(freshIndividualA,freshIndividualB);
-        Tableau tableau=getTableau();
-        Set<HierarchyNode<Role>> nodesToTest=new HashSet<HierarchyNode<Role>>();
-        nodesToTest.addAll(m_objectRoleHierarchy.getTopNode().getChildNodes());
-        while (!nodesToTest.isEmpty()) {
-            HierarchyNode<Role> nodeToTest=nodesToTest.iterator().next();
-            nodesToTest.remove(nodeToTest);
-            Role roleToTest=nodeToTest.getRepresentative();
-            Atom roleToTestAssertion=roleToTest.getRoleAssertion(freshIndividualA,freshIndividualB);
-            Set<Atom> perTestAtoms=new HashSet<Atom>(2);
-            perTestAtoms.add(roleAssertion);
-            perTestAtoms.add(roleToTestAssertion);
-            if (!tableau.isSatisfiable(false,perTestAtoms,null,null,null,null,new ReasoningTaskDescription(true,"disjointness of {0} and {1}",role,roleToTest)))
-                // disjoint
-                result.addAll(nodeToTest.getDescendantNodes());
-            else
-                // maybe some children are disjoint
-                nodesToTest.addAll(nodeToTest.getChildNodes());
+        Tableau borrowedTableau=borrowTableau();
+        try {
+            Tableau tableau=getTableau();
+            Set<HierarchyNode<Role>> nodesToTest=new HashSet<HierarchyNode<Role>>();
+            nodesToTest.addAll(m_objectRoleHierarchy.getTopNode().getChildNodes());
+            while (!nodesToTest.isEmpty()) {
+                HierarchyNode<Role> nodeToTest=nodesToTest.iterator().next();
+                nodesToTest.remove(nodeToTest);
+                Role roleToTest=nodeToTest.getRepresentative();
+                Atom roleToTestAssertion=roleToTest.getRoleAssertion(freshIndividualA,freshIndividualB);
+                Set<Atom> perTestAtoms=new HashSet<Atom>(2);
+                perTestAtoms.add(roleAssertion);
+                perTestAtoms.add(roleToTestAssertion);
+                if (!tableau.isSatisfiable(false,perTestAtoms,null,null,null,null,new ReasoningTaskDescription(true,"disjointness of {0} and {1}",role,roleToTest)))
+                    // disjoint
+                    result.addAll(nodeToTest.getDescendantNodes());
+                else
+                    // maybe some children are disjoint
+                    nodesToTest.addAll(nodeToTest.getChildNodes());
+            }
+            if (result.isEmpty())
+                result.add(m_objectRoleHierarchy.getBottomNode());
+            return objectPropertyHierarchyNodesToNodeSet(result);
+        }
+        finally {
+            returnTableau(borrowedTableau);
         }
-        if (result.isEmpty())
-            result.add(m_objectRoleHierarchy.getBottomNode());
-        return objectPropertyHierarchyNodesToNodeSet(result);
     }
     protected boolean isDisjointObjectProperty(OWLObjectPropertyExpression propertyExpression1,OWLObjectPropertyExpression propertyExpression2) {
         checkPreConditions(propertyExpression1,propertyExpression2);
@@ -1355,6 +1646,7 @@ public class Reasoner implements OWLReasoner {
     // Data property inferences
 
     public void classifyDataProperties() {
+        final ReasonerProgressMonitor reasonerProgressMonitor=getReasonerProgressMonitor();
         checkPreConditions();
         if (m_dataRoleHierarchy==null) {
             Set<AtomicRole> relevantDataRoles=new HashSet<AtomicRole>();
@@ -1393,14 +1685,14 @@ public class Reasoner implements OWLReasoner {
                     Tableau tableau=getTableau(additionalAxiomsArray);
                     try {
                         final int numberOfRoles=relevantDataRoles.size();
-                        if (m_configuration.reasonerProgressMonitor!=null)
-                            m_configuration.reasonerProgressMonitor.reasonerTaskStarted("Classifying data properties...");
+                        if (reasonerProgressMonitor!=null)
+                            reasonerProgressMonitor.reasonerTaskStarted("Classifying data properties...");
                         ClassificationProgressMonitor progressMonitor=new ClassificationProgressMonitor() {
                             protected int m_processedRoles=0;
                             public void elementClassified(AtomicConcept element) {
                                 m_processedRoles++;
-                                if (m_configuration.reasonerProgressMonitor!=null)
-                                    m_configuration.reasonerProgressMonitor.reasonerTaskProgressChanged(m_processedRoles,numberOfRoles);
+                                if (reasonerProgressMonitor!=null)
+                                    reasonerProgressMonitor.reasonerTaskProgressChanged(m_processedRoles,numberOfRoles);
                             }
                         };
                         Hierarchy<AtomicConcept> atomicConceptHierarchyForRoles=classifyAtomicConcepts(tableau,progressMonitor,conceptsForRoles.get(AtomicRole.TOP_DATA_ROLE),conceptsForRoles.get(AtomicRole.BOTTOM_DATA_ROLE),rolesForConcepts.keySet(),m_configuration.forceQuasiOrderClassification);
@@ -1416,13 +1708,14 @@ public class Reasoner implements OWLReasoner {
                     }
                     finally {
                         tableau.clearAdditionalDLOntology();
-                        if (m_configuration.reasonerProgressMonitor!=null)
-                            m_configuration.reasonerProgressMonitor.reasonerTaskStopped();
+                        if (reasonerProgressMonitor!=null)
+                            reasonerProgressMonitor.reasonerTaskStopped();
                     }
                 }
                 else
                     m_dataRoleHierarchy=Hierarchy.trivialHierarchy(AtomicRole.TOP_DATA_ROLE,AtomicRole.BOTTOM_DATA_ROLE);
             }
+            storeReasoningSnapshot();
         }
     }
     public Node<OWLDataProperty> getTopDataPropertyNode() {
@@ -1441,7 +1734,8 @@ public class Reasoner implements OWLReasoner {
         AtomicRole superrole=H(superDataProperty);
         if (m_dataRoleHierarchy!=null && !containsFreshEntities(subDataProperty,superDataProperty)) {
             HierarchyNode<AtomicRole> subroleNode=m_dataRoleHierarchy.getNodeForElement(subrole);
-            return subroleNode.isEquivalentElement(superrole) || subroleNode.isAncestorElement(superrole);
+            HierarchyNode<AtomicRole> superroleNode=m_dataRoleHierarchy.getNodeForElement(superrole);
+            return superroleNode!=null && m_dataRoleHierarchy.isAncestorNode(subroleNode,superroleNode);
         }
         else {
             OWLDataFactory factory=getDataFactory();
@@ -1462,10 +1756,8 @@ public class Reasoner implements OWLReasoner {
         Set<HierarchyNode<AtomicRole>> result;
         if (direct)
             result=node.getParentNodes();
-        else {
-            result=new HashSet<HierarchyNode<AtomicRole>>(node.getAncestorNodes());
-            result.remove(node);
-        }
+        else
+            result=m_dataRoleHierarchy.getAncestorNodes(node,false);
         return dataPropertyHierarchyNodesToNodeSet(result);
     }
     public NodeSet<OWLDataProperty> getSubDataProperties(OWLDataProperty property,boolean direct) {
@@ -1473,10 +1765,8 @@ public class Reasoner implements OWLReasoner {
         Set<HierarchyNode<AtomicRole>> result;
         if (direct)
             result=node.getChildNodes();
-        else {
-            result=new HashSet<HierarchyNode<AtomicRole>>(node.getDescendantNodes());
-            result.remove(node);
-        }
+        else
+            result=m_dataRoleHierarchy.getDescendantNodes(node,false);
         return dataPropertyHierarchyNodesToNodeSet(result);
     }
     public Node<OWLDataProperty> getEquivalentDataProperties(OWLDataProperty property) {
@@ -1493,20 +1783,26 @@ public class Reasoner implements OWLReasoner {
             final Individual freshIndividual=Individual.createAnonymous("fresh-individual");
             final Constant freshConstant=Constant.createAnonymous("fresh-constant");
             final Set<Atom> roleAssertion=Collections.singleton(atomicRole.getRoleAssertion(freshIndividual,freshConstant));
-            final Tableau tableau=getTableau();
-            HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>> searchPredicate=new HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>>() {
-                public Set<HierarchyNode<AtomicConcept>> getSuccessorElements(HierarchyNode<AtomicConcept> u) {
-                    return u.getChildNodes();
-                }
-                public Set<HierarchyNode<AtomicConcept>> getPredecessorElements(HierarchyNode<AtomicConcept> u) {
-                    return u.getParentNodes();
-                }
-                public boolean trueOf(HierarchyNode<AtomicConcept> u) {
-                    AtomicConcept potentialDomainConcept=u.getRepresentative();
-                    return !tableau.isSatisfiable(false,roleAssertion,Collections.singleton(Atom.create(potentialDomainConcept,freshIndividual)),null,null,null,ReasoningTaskDescription.isDomainOf(potentialDomainConcept,atomicRole));
-                }
-            };
-            nodes=HierarchySearch.search(searchPredicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+            Tableau borrowedTableau=borrowTableau();
+            try {
+                final Tableau tableau=getTableau();
+                HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>> searchPredicate=new HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>>() {
+                    public Set<HierarchyNode<AtomicConcept>> getSuccessorElements(HierarchyNode<AtomicConcept> u) {
+                        return u.getChildNodes();
+                    }
+                    public Set<HierarchyNode<AtomicConcept>> getPredecessorElements(HierarchyNode<AtomicConcept> u) {
+                        return u.getParentNodes();
+                    }
+                    public boolean trueOf(HierarchyNode<AtomicConcept> u) {
+                        AtomicConcept potentialDomainConcept=u.getRepresentative();
+                        return !tableau.isSatisfiable(false,roleAssertion,Collections.singleton(Atom.create(potentialDomainConcept,freshIndividual)),null,null,null,ReasoningTaskDescription.isDomainOf(potentialDomainConcept,atomicRole));
+                    }
+                };
+                nodes=HierarchySearch.search(searchPredicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+            }
+            finally {
+                returnTableau(borrowedTableau);
+            }
             m_directDataRoleDomains.put(atomicRole,nodes);
         }
         if (!direct)
@@ -1534,27 +1830,33 @@ public class Reasoner implements OWLReasoner {
             Individual freshIndividual=Individual.create("fresh-individual");
             Constant freshConstant=Constant.createAnonymous("fresh-constant");
             Atom atomicRoleAssertion=atomicRole.getRoleAssertion(freshIndividual,freshConstant);
-            Tableau tableau=getTableau();
-            Set<HierarchyNode<AtomicRole>> nodesToTest=new HashSet<HierarchyNode<AtomicRole>>();
-            nodesToTest.addAll(m_dataRoleHierarchy.getTopNode().getChildNodes());
-            while (!nodesToTest.isEmpty()) {
-                HierarchyNode<AtomicRole> nodeToTest=nodesToTest.iterator().next();
-                nodesToTest.remove(nodeToTest);
-                AtomicRole atomicRoleToTest=nodeToTest.getRepresentative();
-                Atom atomicRoleToTestAssertion=atomicRoleToTest.getRoleAssertion(freshIndividual,freshConstant);
-                Set<Atom> perTestAtoms=new HashSet<Atom>(2);
-                perTestAtoms.add(atomicRoleAssertion);
-                perTestAtoms.add(atomicRoleToTestAssertion);
-                if (!tableau.isSatisfiable(false,perTestAtoms,null,null,null,null,new ReasoningTaskDescription(true,"disjointness of {0} and {1}",atomicRole,atomicRoleToTest)))
-                    // disjoint
-                    result.addAll(nodeToTest.getDescendantNodes());
-                else
-                    // maybe some children are disjoint
-                    nodesToTest.addAll(nodeToTest.getChildNodes());
+            Tableau borrowedTableau=borrowTableau();
+            try {
+                Tableau tableau=getTableau();
+                Set<HierarchyNode<AtomicRole>> nodesToTest=new HashSet<HierarchyNode<AtomicRole>>();
+                nodesToTest.addAll(m_dataRoleHierarchy.getTopNode().getChildNodes());
+                while (!nodesToTest.isEmpty()) {
+                    HierarchyNode<AtomicRole> nodeToTest=nodesToTest.iterator().next();
+                    nodesToTest.remove(nodeToTest);
+                    AtomicRole atomicRoleToTest=nodeToTest.getRepresentative();
+                    Atom atomicRoleToTestAssertion=atomicRoleToTest.getRoleAssertion(freshIndividual,freshConstant);
+                    Set<Atom> perTestAtoms=new HashSet<Atom>(2);
+                    perTestAtoms.add(atomicRoleAssertion);
+                    perTestAtoms.add(atomicRoleToTestAssertion);
+                    if (!tableau.isSatisfiable(false,perTestAtoms,null,null,null,null,new ReasoningTaskDescription(true,"disjointness of {0} and {1}",atomicRole,atomicRoleToTest)))
+                        // disjoint
+                        result.addAll(nodeToTest.getDescendantNodes());
+                    else
+                        // maybe some children are disjoint
+                        nodesToTest.addAll(nodeToTest.getChildNodes());
+                }
+                if (result.isEmpty())
+                    result.add(m_dataRoleHierarchy.getBottomNode());
+                return dataPropertyHierarchyNodesToNodeSet(result);
+            }
+            finally {
+                returnTableau(borrowedTableau);
             }
-            if (result.isEmpty())
-                result.add(m_dataRoleHierarchy.getBottomNode());
-            return dataPropertyHierarchyNodesToNodeSet(result);
         }
         else {
             OWLDataFactory factory=getDataFactory();
@@ -1600,8 +1902,21 @@ public class Reasoner implements OWLReasoner {
         checkPreConditions();
         if (m_dlOntology.getAllIndividuals().size()>0) {
             classifyClasses();
+            boolean realised=m_instanceManager!=null && m_instanceManager.realizationCompleted();
             initialiseClassInstanceManager();
-            m_instanceManager.realize(m_configuration.reasonerProgressMonitor);
+            if (!m_instanceManager.realizationCompleted() && canUseWorkerTableaux(m_configuration.numberOfRealisationThreads)) {
+                TableauWorkerPool workerPool=createTableauWorkerPool(getTableau(),m_configuration.numberOfRealisationThreads,"HermiT Realisation Worker");
+                try {
+                    m_instanceManager.realize(getReasonerProgressMonitor(),workerPool);
+                }
+                finally {
+                    disposeTableauWorkerPool(workerPool);
+                }
+            }
+            else
+                m_instanceManager.realize(getReasonerProgressMonitor());
+            if (!realised)
+                storeReasoningSnapshot();
         }
     }
     public void realiseObjectProperties() {
@@ -1609,14 +1924,24 @@ public class Reasoner implements OWLReasoner {
         if (m_dlOntology.getAllIndividuals().size()>0) {
             classifyObjectProperties();
             initialisePropertiesInstanceManager();
-            m_instanceManager.realizeObjectRoles(m_configuration.reasonerProgressMonitor);
+            if (!m_instanceManager.objectPropertyRealizationCompleted() && canUseWorkerTableaux(m_configuration.numberOfRealisationThreads)) {
+                TableauWorkerPool workerPool=createTableauWorkerPool(getTableau(),m_configuration.numberOfRealisationThreads,"HermiT Realisation Worker");
+                try {
+                    m_instanceManager.realizeObjectRoles(getReasonerProgressMonitor(),workerPool);
+                }
+                finally {
+                    disposeTableauWorkerPool(workerPool);
+                }
+            }
+            else
+                m_instanceManager.realizeObjectRoles(getReasonerProgressMonitor());
         }
     }
     public void precomputeSameAsEquivalenceClasses() {
         checkPreConditions();
         if (m_dlOntology.getAllIndividuals().size()>0) {
             initialiseClassInstanceManager();
-            m_instanceManager.computeSameAsEquivalenceClasses(m_configuration.reasonerProgressMonitor);
+            m_instanceManager.computeSameAsEquivalenceClasses(getReasonerProgressMonitor());
         }
     }
     public NodeSet<OWLClass> getTypes(OWLNamedIndividual namedIndividual,boolean direct) {
@@ -1655,10 +1980,16 @@ public class Reasoner implements OWLReasoner {
             else {
                 OWLDataFactory factory=getDataFactory();
                 OWLAxiom negatedAssertionAxiom=factory.getOWLClassAssertionAxiom(type.getObjectComplementOf(),namedIndividual);
-                Tableau tableau=getTableau(negatedAssertionAxiom);
-                boolean result=tableau.isSatisfiable(true,true,null,null,null,null,null,ReasoningTaskDescription.isInstanceOf(namedIndividual,type));
-                tableau.clearAdditionalDLOntology();
-                return !result;
+                Tableau borrowedTableau=borrowTableau();
+                try {
+                    Tableau tableau=getTableau(negatedAssertionAxiom);
+                    boolean result=tableau.isSatisfiable(true,true,null,null,null,null,null,ReasoningTaskDescription.isInstanceOf(namedIndividual,type));
+                    tableau.clearAdditionalDLOntology();
+                    return !result;
+                }
+                finally {
+                    returnTableau(borrowedTableau);
+                }
             }
         }
     }
@@ -1682,21 +2013,33 @@ public class Reasoner implements OWLReasoner {
                 OWLClass queryClass=factory.getOWLClass(IRI.create("internal:query-concept"));
                 OWLAxiom queryClassDefinition=factory.getOWLSubClassOfAxiom(queryClass,classExpression.getObjectComplementOf());
                 AtomicConcept queryConcept=AtomicConcept.create("internal:query-concept");
+                Set<Individual> candidates=new LinkedHashSet<Individual>();
                 Set<HierarchyNode<AtomicConcept>> visitedNodes=new HashSet<HierarchyNode<AtomicConcept>>(hierarchyNode.getChildNodes());
                 List<HierarchyNode<AtomicConcept>> toVisit=new ArrayList<HierarchyNode<AtomicConcept>>(hierarchyNode.getParentNodes()); //look for (direct) sibling nodes
                 while (!toVisit.isEmpty()) {
                     HierarchyNode<AtomicConcept> node=toVisit.remove(toVisit.size()-1);
                     if (visitedNodes.add(node)) {
                         Set<Individual> realizationForNodeConcept=m_instanceManager.getInstances(node,true);
-                        if (realizationForNodeConcept!=null) {
-                            Tableau tableau=getTableau(queryClassDefinition);
+                        if (realizationForNodeConcept!=null)
                             for (Individual individual : realizationForNodeConcept)
                                 if (isResultRelevantIndividual(individual))
-                                    if (!tableau.isSatisfiable(true,true,Collections.singleton(Atom.create(queryConcept,individual)),null,null,null,null,ReasoningTaskDescription.isInstanceOf(individual,classExpression)))
-                                        result.add(individual);
+                                    candidates.add(individual);
+                        toVisit.addAll(node.getChildNodes());
+                    }
+                }
+                if (!candidates.isEmpty()) {
+                    Tableau borrowedTableau=borrowTableau();
+                    try {
+                        Tableau tableau=getTableau(queryClassDefinition);
+                        try {
+                            addQueryConceptInstances(tableau,queryConcept,new ArrayList<Individual>(candidates),classExpression,result);
+                        }
+                        finally {
                             tableau.clearAdditionalDLOntology();
                         }
-                        toVisit.addAll(node.getChildNodes());
+                    }
+                    finally {
+                        returnTableau(borrowedTableau);
                     }
                 }
             }
@@ -1705,6 +2048,74 @@ public class Reasoner implements OWLReasoner {
         else
             return new OWLNamedIndividualNodeSet(new HashSet<Node<OWLNamedIndividual>>());
     }
+    /**
+     * Adds the candidates that are instances of the query concept to the given collection; the additional DL-ontology of the
+     * tableau must define the query concept as the negation of the class expression. The candidates are tested in batches of
+     * the configured size, on several tableaux if several realisation threads are configured.
+     */
+    protected void addQueryConceptInstances(Tableau tableau,final AtomicConcept queryConcept,final List<Individual> candidates,final OWLClassExpression classExpression,final Collection<Individual> instances) {
+        final int batchSize=Math.max(1,m_configuration.instanceRetrievalBatchSize);
+        if (candidates.size()>batchSize && canUseWorkerTableaux(m_configuration.numberOfRealisationThreads)) {
+            final TableauWorkerPool workerPool=createTableauWorkerPool(tableau,m_configuration.numberOfRealisationThreads,"HermiT Instance Retrieval Worker");
+            try {
+                final AtomicInteger nextIndex=new AtomicInteger();
+                workerPool.runOnAllWorkers(new TableauWorkerPool.Worker() {
+                    public void run(Tableau workerTableau) {
+                        List<Individual> workerInstances=new ArrayList<Individual>();
+                        int index;
+                        while (!workerPool.isCancelled() && (index=nextIndex.getAndAdd(batchSize))<candidates.size())
+                            addQueryConceptInstancesInBatch(workerTableau,queryConcept,candidates.subList(index,Math.min(index+batchSize,candidates.size())),classExpression,workerInstances);
+                        synchronized (instances) {
+                            instances.addAll(workerInstances);
+                        }
+                    }
+                });
+            }
+            finally {
+                disposeTableauWorkerPool(workerPool);
+            }
+        }
+        else
+            for (int index=0;index<candidates.size();index+=batchSize)
+                addQueryConceptInstancesInBatch(tableau,queryConcept,candidates.subList(index,Math.min(index+batchSize,candidates.size())),classExpression,instances);
+    }
+    /**
+     * Tests the given candidates together by asserting the query concept for all of them in one tableau run. A candidate
+     * for which the run cannot decide whether it is an instance is tested again together with the other such candidates,
+     * and the candidates of a run that decided none of them are split into two halves.
+     */
+    protected void addQueryConceptInstancesInBatch(Tableau tableau,AtomicConcept queryConcept,List<Individual> candidates,OWLClassExpression classExpression,Collection<Individual> instances) {
+        List<List<Individual>> toTest=new ArrayList<List<Individual>>();
+        toTest.add(candidates);
+        while (!toTest.isEmpty()) {
+            List<Individual> batch=toTest.remove(toTest.size()-1);
+            if (batch.size()==1) {
+                Individual individual=batch.get(0);
+                if (!tableau.isSatisfiable(true,true,Collections.singleton(Atom.create(queryConcept,individual)),null,null,null,null,ReasoningTaskDescription.isInstanceOf(individual,classExpression)))
+                    instances.add(individual);
+            }
+            else {
+                List<Atom> facts=new ArrayList<Atom>(batch.size());
+                for (Individual individual : batch)
+                    facts.add(Atom.create(queryConcept,individual));
+                Boolean[] results=tableau.isSatisfiableWithFacts(true,true,facts,ReasoningTaskDescription.isInstanceOfForEach(classExpression,batch.toArray()));
+                List<Individual> undecided=new ArrayList<Individual>();
+                for (int index=0;index<results.length;index++) {
+                    if (results[index]==null)
+                        undecided.add(batch.get(index));
+                    else if (!results[index].booleanValue())
+                        instances.add(batch.get(index));
+                }
+                if (undecided.size()==batch.size()) {
+                    int middle=undecided.size()/2;
+                    toTest.add(undecided.subList(middle,undecided.size()));
+                    toTest.add(undecided.subList(0,middle));
+                }
+                else if (!undecided.isEmpty())
+                    toTest.add(undecided);
+            }
+        }
+    }
     public boolean isSameIndividual(OWLNamedIndividual namedIndividual1,OWLNamedIndividual namedIndividual2) {
         checkPreConditions(namedIndividual1,namedIndividual2);
         if (!m_isConsistent)
@@ -1713,8 +2124,14 @@ public class Reasoner implements OWLReasoner {
             return false;
         else {
             initialiseClassInstanceManager();
-            m_instanceManager.computeSameAsEquivalenceClasses(m_configuration.reasonerProgressMonitor);
-            return m_instanceManager.isSameIndividual(H(namedIndividual1),H(namedIndividual2));
+            m_instanceManager.computeSameAsEquivalenceClasses(getReasonerProgressMonitor());
+            Tableau borrowedTableau=borrowTableau();
+            try {
+                return m_instanceManager.isSameIndividual(H(namedIndividual1),H(namedIndividual2));
+            }
+            finally {
+                returnTableau(borrowedTableau);
+            }
         }
     }
     public Node<OWLNamedIndividual> getSameIndividuals(OWLNamedIndividual namedIndividual) {
@@ -1740,13 +2157,19 @@ public class Reasoner implements OWLReasoner {
             return new OWLNamedIndividualNodeSet(Collections.singleton(node));
         }
         Individual individual=H(namedIndividual);
-        Tableau tableau=getTableau();
-        Set<Individual> result=new HashSet<Individual>();
-        for (Individual potentiallyDifferentIndividual : m_dlOntology.getAllIndividuals())
-            if (isResultRelevantIndividual(potentiallyDifferentIndividual) && !individual.equals(potentiallyDifferentIndividual))
-                if (!tableau.isSatisfiable(true,true,Collections.singleton(Atom.create(Equality.INSTANCE,individual,potentiallyDifferentIndividual)),null,null,null,null,new ReasoningTaskDescription(true,"is {0} different from {1}",individual,potentiallyDifferentIndividual)))
-                    result.add(potentiallyDifferentIndividual);
-        return sortBySameAsIfNecessary(result);
+        Tableau borrowedTableau=borrowTableau();
+        try {
+            Tableau tableau=getTableau();
+            Set<Individual> result=new HashSet<Individual>();
+            for (Individual potentiallyDifferentIndividual : m_dlOntology.getAllIndividuals())
+                if (isResultRelevantIndividual(potentiallyDifferentIndividual) && !individual.equals(potentiallyDifferentIndividual))
+                    if (!tableau.isSatisfiable(true,true,Collections.singleton(Atom.create(Equality.INSTANCE,individual,potentiallyDifferentIndividual)),null,null,null,null,new ReasoningTaskDescription(true,"is {0} different from {1}",individual,potentiallyDifferentIndividual)))
+                        result.add(potentiallyDifferentIndividual);
+            return sortBySameAsIfNecessary(result);
+        }
+        finally {
+            returnTableau(borrowedTableau);
+        }
     }
     public NodeSet<OWLNamedIndividual> getObjectPropertyValues(OWLNamedIndividual namedIndividual,OWLObjectPropertyExpression propertyExpression) {
         checkPreConditions(namedIndividual,propertyExpression);
@@ -1804,7 +2227,13 @@ public class Reasoner implements OWLReasoner {
         AtomicRole role=H(property);
         Individual subj=H(subject);
         Individual obj=H(object);
-        return m_instanceManager.hasObjectRoleRelationship(role,subj,obj);
+        Tableau borrowedTableau=borrowTableau();
+        try {
+            return m_instanceManager.hasObjectRoleRelationship(role,subj,obj);
+        }
+        finally {
+            returnTableau(borrowedTableau);
+        }
     }
     public Set<OWLLiteral> getDataPropertyValues(OWLNamedIndividual namedIndividual,OWLDataProperty property) {
         checkPreConditions(namedIndividual,property);
@@ -1848,10 +2277,16 @@ public class Reasoner implements OWLReasoner {
             return true;
         OWLDataFactory factory=getDataFactory();
         OWLAxiom notAssertion=factory.getOWLNegativeDataPropertyAssertionAxiom(property,subject,object);
-        Tableau tableau=getTableau(notAssertion);
-        boolean result=tableau.isSatisfiable(true,true,null,null,null,null,null,new ReasoningTaskDescription(true,"is {0} connected to {1} via {2}",H(subject),object,H(property)));
-        tableau.clearAdditionalDLOntology();
-        return !result;
+        Tableau borrowedTableau=borrowTableau();
+        try {
+            Tableau tableau=getTableau(notAssertion);
+            boolean result=tableau.isSatisfiable(true,true,null,null,null,null,null,new ReasoningTaskDescription(true,"is {0} connected to {1} via {2}",H(subject),object,H(property)));
+            tableau.clearAdditionalDLOntology();
+            return !result;
+        }
+        finally {
+            returnTableau(borrowedTableau);
+        }
     }
     protected Set<HierarchyNode<AtomicConcept>> getDirectSuperConceptNodes(final Individual individual) {
         HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>> predicate=new HierarchySearch.SearchPredicate<HierarchyNode<AtomicConcept>>() {
@@ -1869,7 +2304,13 @@ public class Reasoner implements OWLReasoner {
                     return !getTableau().isSatisfiable(true,true,null,Collections.singleton(Atom.create(atomicConcept,individual)),null,null,null,ReasoningTaskDescription.isInstanceOf(atomicConcept,individual));
             }
         };
-        return HierarchySearch.search(predicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+        Tableau borrowedTableau=borrowTableau();
+        try {
+            return HierarchySearch.search(predicate,Collections.singleton(m_atomicConceptHierarchy.getTopNode()),null);
+        }
+        finally {
+            returnTableau(borrowedTableau);
+        }
     }
     protected NodeSet<OWLNamedIndividual> sortBySameAsIfNecessary(Set<Individual> individuals) {
         OWLDataFactory factory=getDataFactory();
@@ -1908,8 +2349,16 @@ public class Reasoner implements OWLReasoner {
     // Various creation methods
 
     public Tableau getTableau() {
-        m_tableau.clearAdditionalDLOntology();
-        return m_tableau;
+        Tableau tableau=getCurrentTableau();
+        tableau.clearAdditionalDLOntology();
+        return tableau;
+    }
+    /**
+     * Returns the tableau borrowed by the current thread in the concurrent query mode, or the permanent tableau otherwise.
+     */
+    protected Tableau getCurrentTableau() {
+        Tableau tableau=m_borrowedTableau.get();
+        return (tableau==null ? m_tableau : tableau);
     }
 
     /**
@@ -1925,16 +2374,48 @@ public class Reasoner implements OWLReasoner {
         if (additionalAxioms==null || additionalAxioms.length==0)
             return getTableau();
         else {
-            DLOntology deltaDLOntology=createDeltaDLOntology(m_configuration,m_dlOntology,additionalAxioms);
-            if (m_tableau.supportsAdditionalDLOntology(deltaDLOntology)) {
-                m_tableau.setAdditionalDLOntology(deltaDLOntology);
-                return m_tableau;
+            DLOntology deltaDLOntology=getDeltaDLOntology(additionalAxioms);
+            Tableau tableau=getCurrentTableau();
+            if (tableau.supportsAdditionalDLOntology(deltaDLOntology)) {
+                tableau.setAdditionalDLOntology(deltaDLOntology);
+                return tableau;
             }
             else
-                return createTableau(m_interruptFlag,m_configuration,m_dlOntology,deltaDLOntology,m_prefixes);
+                return createTableau(tableau.getInterruptFlag(),m_configuration,m_disjunctionStatistics,m_hyperresolutionExecutor,m_dlOntology,deltaDLOntology,m_prefixes);
+        }
+    }
+    /**
+     * A mostly internal method. Clausifies the given axioms into a DL-ontology that can be used as the additional DL-ontology
+     * of a tableau for the axioms in the given ontology manager. The DL-ontologies for recently used sets of axioms are
+     * cached until the next change is flushed, so the same DL-ontology object can be returned for equal sets of axioms.
+     *
+     * @throws IllegalArgumentException
+     *             - if the axioms lead to non-admissible clauses
+     */
+    public DLOntology getDeltaDLOntology(OWLAxiom... additionalAxioms) throws IllegalArgumentException {
+        // The clausification rewrites the axioms using the object property inclusion manager, which is not thread-safe.
+        if (m_deltaDLOntologyCache==null) {
+            synchronized (m_clausificationLock) {
+                return createDeltaDLOntology(m_configuration,m_dlOntology,additionalAxioms);
+            }
+        }
+        Set<OWLAxiom> key=new HashSet<OWLAxiom>(Arrays.asList(additionalAxioms));
+        DLOntology deltaDLOntology=m_deltaDLOntologyCache.get(key);
+        if (deltaDLOntology==null) {
+            synchronized (m_clausificationLock) {
+                deltaDLOntology=createDeltaDLOntology(m_configuration,m_dlOntology,additionalAxioms);
+            }
+            m_deltaDLOntologyCache.put(key,deltaDLOntology);
         }
+        return deltaDLOntology;
+    }
+    /**
+     * Returns the cache of the DL-ontologies clausified from additional axioms, or null if caching is disabled.
+     */
+    public DeltaDLOntologyCache getDeltaDLOntologyCache() {
+        return m_deltaDLOntologyCache;
     }
-    protected static Tableau createTableau(InterruptFlag interruptFlag,Configuration configuration,DLOntology permanentDLOntology,DLOntology additionalDLOntology,Prefixes prefixes) throws IllegalArgumentException {
+    protected static Tableau createTableau(InterruptFlag interruptFlag,Configuration configuration,DisjunctionStatistics disjunctionStatistics,ExecutorService hyperresolutionExecutor,DLOntology permanentDLOntology,DLOntology additionalDLOntology,Prefixes prefixes) throws IllegalArgumentException {
         boolean hasInverseRoles=(permanentDLOntology.hasInverseRoles() || (additionalDLOntology!=null && additionalDLOntology.hasInverseRoles()));
         boolean hasNominals=(permanentDLOntology.hasNominals() || (additionalDLOntology!=null && additionalDLOntology.hasNominals()));
 
@@ -2043,17 +2524,53 @@ public class Reasoner implements OWLReasoner {
             throw new IllegalArgumentException("Unknown expansion strategy type.");
         }
 
-        return new Tableau(interruptFlag,tableauMonitor,existentialsExpansionStrategy,configuration.useDisjunctionLearning,permanentDLOntology,additionalDLOntology,configuration.parameters);
+        // The options that belong to a reasoner rather than to the configuration are added to a copy of the parameters.
+        Map<String,Object> parameters=new HashMap<String,Object>(configuration.parameters);
+        parameters.put(NogoodStore.CAPACITY_PARAMETER,Integer.valueOf(configuration.nogoodStoreCapacity));
+        if (disjunctionStatistics!=null)
+            parameters.put(DisjunctionStatistics.SHARED_STATISTICS_PARAMETER,disjunctionStatistics);
+        if (hyperresolutionExecutor!=null)
+            parameters.put(HyperresolutionManager.EXECUTOR_PARAMETER,hyperresolutionExecutor);
+        return new Tableau(interruptFlag,tableauMonitor,existentialsExpansionStrategy,configuration.useDisjunctionLearning,permanentDLOntology,additionalDLOntology,parameters);
     }
     protected Hierarchy<AtomicConcept> classifyAtomicConcepts(Tableau tableau,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements,boolean forceQuasiOrder) {
         if (tableau.isDeterministic() && !forceQuasiOrder)
-            return new DeterministicClassification(tableau,progressMonitor,topElement,bottomElement,elements).classify();
+            return new DeterministicClassification(tableau,progressMonitor,topElement,bottomElement,elements,m_configuration.useConsequenceBasedClassification).classify();
+        else if (canUseWorkerTableaux(m_configuration.numberOfClassificationThreads)) {
+            TableauWorkerPool workerPool=createTableauWorkerPool(tableau,m_configuration.numberOfClassificationThreads,"HermiT Classification Worker");
+            try {
+                return new ParallelQuasiOrderClassification(workerPool,progressMonitor,topElement,bottomElement,elements).classify();
+            }
+            finally {
+                disposeTableauWorkerPool(workerPool);
+            }
+        }
         else
             return new QuasiOrderClassification(tableau,progressMonitor,topElement,bottomElement,elements).classify();
     }
+    protected boolean canUseWorkerTableaux(int numberOfThreads) {
+        // Tableau monitors are not thread-safe, so worker tableaux are used only if there is no monitor.
+        return numberOfThreads>1 && m_configuration.monitor==null && m_configuration.tableauMonitorType==TableauMonitorType.NONE;
+    }
+    /**
+     * Creates a worker pool whose first tableau is the given one; the remaining tableaux are built for the same DL-ontologies,
+     * but each of them gets its own interrupt flag.
+     */
+    protected TableauWorkerPool createTableauWorkerPool(Tableau tableau,int numberOfWorkers,String threadName) {
+        List<Tableau> tableaux=new ArrayList<Tableau>(numberOfWorkers);
+        tableaux.add(tableau);
+        while (tableaux.size()<numberOfWorkers)
+            tableaux.add(createTableau(new InterruptFlag(m_configuration.individualTaskTimeout),m_configuration,m_disjunctionStatistics,m_hyperresolutionExecutor,tableau.getPermanentDLOntology(),tableau.getAdditionalDLOntology(),m_prefixes));
+        return new TableauWorkerPool(tableaux,threadName);
+    }
+    protected void disposeTableauWorkerPool(TableauWorkerPool workerPool) {
+        List<Tableau> tableaux=workerPool.getTableaux();
+        for (int index=1;index<tableaux.size();index++)
+            tableaux.get(index).getInterruptFlag().dispose();
+    }
     protected Hierarchy<AtomicConcept> classifyAtomicConceptsForRoles(Tableau tableau,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements,boolean hasInverses,Map<Role,AtomicConcept> conceptsForRoles,Map<AtomicConcept,Role> rolesForConcepts,boolean forceQuasiOrder) {
         if (tableau.isDeterministic() && !forceQuasiOrder)
-            return new DeterministicClassification(tableau,progressMonitor,topElement,bottomElement,elements).classify();
+            return new DeterministicClassification(tableau,progressMonitor,topElement,bottomElement,elements,m_configuration.useConsequenceBasedClassification).classify();
         else
             return new QuasiOrderClassificationForRoles(tableau,progressMonitor,topElement,bottomElement,elements,hasInverses,conceptsForRoles,rolesForConcepts).classify();
     }
@@ -2179,7 +2696,7 @@ public class Reasoner implements OWLReasoner {
         throwInconsistentOntologyExceptionIfNecessary();
     }
     protected void flushChangesIfRequired() {
-        if (!m_configuration.bufferChanges && !m_pendingChanges.isEmpty())
+        if (!m_configuration.bufferChanges && !m_pendingChanges.isEmpty() && m_tableauPool==null)
             flush();
     }
     protected void throwInconsistentOntologyExceptionIfNecessary() {
@@ -149,6 +149,9 @@ public class AncestorBlocking implements BlockingStrategy,Serializable {
     public boolean isExact() {
         return true;
     }
+    public boolean computesCoreVariablesPerMatch() {
+        return false;
+    }
     public void dlClauseBodyCompiled(List<DLClauseEvaluator.Worker> workers,DLClause dlClause,List<Variable> variables,Object[] valuesBuffer,boolean[] coreVariables) {
         for (int i=0;i<coreVariables.length;i++) {
             coreVariables[i]=true;
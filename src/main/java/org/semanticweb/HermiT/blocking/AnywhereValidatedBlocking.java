@@ -345,6 +345,9 @@ public class AnywhereValidatedBlocking implements BlockingStrategy {
     public boolean isExact() {
         return false;
     }
+    public boolean computesCoreVariablesPerMatch() {
+        return !m_useSimpleCore;
+    }
     public void dlClauseBodyCompiled(List<DLClauseEvaluator.Worker> workers,DLClause dlClause,List<Variable> variables,Object[] valuesBuffer,boolean[] coreVariables) {
         if (m_useSimpleCore) {
             for (int i=0;i<coreVariables.length;i++) {
@@ -54,4 +54,9 @@ public interface BlockingStrategy {
     void modelFound();
     boolean isExact();
     void dlClauseBodyCompiled(List<DLClauseEvaluator.Worker> workers,DLClause dlClause,List<Variable> variables,Object[] valuesBuffer,boolean[] coreVariables);
+    /**
+     * Returns true if the workers added by dlClauseBodyCompiled() compute the core variables from each match of the body,
+     * in which case every match must be evaluated even if it binds no variable occurring in the head.
+     */
+    boolean computesCoreVariablesPerMatch();
 }
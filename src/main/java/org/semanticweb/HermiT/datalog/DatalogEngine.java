@@ -139,6 +139,9 @@ public final class DatalogEngine {
         public boolean isExact() {
             return true;
         }
+        public boolean computesCoreVariablesPerMatch() {
+            return false;
+        }
         public void dlClauseBodyCompiled(List<DLClauseEvaluator.Worker> workers,DLClause dlClause,List<Variable> variables,Object[] valuesBuffer,boolean[] coreVariables) {
         }
     }
@@ -202,6 +202,9 @@ public abstract class AbstractExpansionStrategy implements ExistentialExpansionS
     public boolean isExact() {
         return m_blockingStrategy.isExact();
     }
+    public boolean computesCoreVariablesPerMatch() {
+        return m_blockingStrategy.computesCoreVariablesPerMatch();
+    }
     public void dlClauseBodyCompiled(List<DLClauseEvaluator.Worker> workers,DLClause dlClause,List<Variable> variables,Object[] valuesBuffer,boolean[] coreVariables) {
         m_blockingStrategy.dlClauseBodyCompiled(workers,dlClause,variables,valuesBuffer,coreVariables);
     }
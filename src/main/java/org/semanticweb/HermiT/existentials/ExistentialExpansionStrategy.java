@@ -62,4 +62,5 @@ public interface ExistentialExpansionStrategy {
     boolean isDeterministic();
     boolean isExact();
     void dlClauseBodyCompiled(List<DLClauseEvaluator.Worker> workers,DLClause dlClause,List<Variable> variables,Object[] valuesBuffer,boolean[] coreVariables);
+    boolean computesCoreVariablesPerMatch();
 }
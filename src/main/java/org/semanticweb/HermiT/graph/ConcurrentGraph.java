@@ -0,0 +1,59 @@
+/* Copyright 2008, 2009, 2010 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package org.semanticweb.HermiT.graph;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A graph that can be read and extended by several threads at once. The successor sets returned by getSuccessors()
+ * are live and concurrent, so they can also be modified in place (e.g., pruned) while other threads use the graph;
+ * iteration over them is weakly consistent.
+ */
+public class ConcurrentGraph<T> extends Graph<T> {
+    private static final long serialVersionUID=-2215961429368510932L;
+
+    public ConcurrentGraph() {
+        super(ConcurrentGraph.<T>createConcurrentSet(),new ConcurrentHashMap<T,Set<T>>());
+    }
+    public void addEdge(T from,T to) {
+        getSuccessorsForUpdate(from).add(to);
+        m_elements.add(from);
+        m_elements.add(to);
+    }
+    public void addEdges(T from,Set<T> to) {
+        getSuccessorsForUpdate(from).addAll(to);
+        m_elements.add(from);
+        m_elements.addAll(to);
+    }
+    protected Set<T> getSuccessorsForUpdate(T node) {
+        Set<T> successors=m_successorsByNodes.get(node);
+        if (successors==null) {
+            Set<T> newSuccessors=createConcurrentSet();
+            successors=((ConcurrentMap<T,Set<T>>)m_successorsByNodes).putIfAbsent(node,newSuccessors);
+            if (successors==null)
+                successors=newSuccessors;
+        }
+        return successors;
+    }
+    protected static <T> Set<T> createConcurrentSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<T,Boolean>());
+    }
+}
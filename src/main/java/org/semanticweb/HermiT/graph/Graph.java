@@ -35,8 +35,11 @@ public class Graph<T> implements Serializable {
     protected final Map<T,Set<T>> m_successorsByNodes;
 
     public Graph() {
-        m_elements=new HashSet<T>();
-        m_successorsByNodes=new HashMap<T,Set<T>>();
+        this(new HashSet<T>(),new HashMap<T,Set<T>>());
+    }
+    protected Graph(Set<T> elements,Map<T,Set<T>> successorsByNodes) {
+        m_elements=elements;
+        m_successorsByNodes=successorsByNodes;
     }
     public void addEdge(T from,T to) {
         Set<T> successors=m_successorsByNodes.get(from);
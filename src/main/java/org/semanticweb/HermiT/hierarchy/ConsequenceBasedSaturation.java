@@ -0,0 +1,589 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package org.semanticweb.HermiT.hierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.HermiT.model.AtLeastConcept;
+import org.semanticweb.HermiT.model.Atom;
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.model.AtomicRole;
+import org.semanticweb.HermiT.model.DLClause;
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.HermiT.model.DLPredicate;
+import org.semanticweb.HermiT.model.Term;
+import org.semanticweb.HermiT.model.Variable;
+import org.semanticweb.HermiT.tableau.InterruptFlag;
+
+/**
+ * A consequence-based saturation engine for Horn ontologies in the EL family. The engine works directly on the
+ * DL-clauses and supports clauses of the following shapes, where all variables other than X occur in exactly one
+ * role atom:
+ * <ul>
+ * <li>H(X) :- A1(X), ..., An(X), r1(X,Y1), B11(Y1), ..., rm(X,Ym), Bm1(Ym), ...,</li>
+ * <li>s(X,Y) :- r(X,Y),</li>
+ * </ul>
+ * where H(X) is an atomic concept, an at-least concept with an atomic role and an atomic concept, or the empty
+ * head, and all roles are atomic object roles. For such clauses, the subsumers of a concept A do not depend on the
+ * concepts that A occurs in, so each concept gets one context that is saturated once and is shared by all concepts
+ * that have an A-successor. All concepts and roles are numbered and contexts store their subsumers in open hash
+ * sets of ints, so that SNOMED-sized ontologies can be classified in one pass. The method create() returns null if
+ * some DL-clause is not supported; the caller then has to use the tableau.
+ */
+public class ConsequenceBasedSaturation {
+    protected static final int HEAD_BOTTOM=0;
+    protected static final int HEAD_CONCEPT=1;
+    protected static final int HEAD_EXISTS=2;
+
+    protected final AtomicConcept[] m_concepts;
+    protected final Map<AtomicConcept,Integer> m_conceptIndexes;
+    protected final int m_thing;
+    protected final int m_nothing;
+    protected final int[][] m_superRoles;
+    protected final SaturationRule[][] m_rulesByCentralConcept;
+    protected final SaturationRule[][] m_rulesBySuccessorConcept;
+    protected final Context[] m_contexts;
+    protected int[] m_queue;
+    protected int m_queueStart;
+    protected int m_queueEnd;
+
+    protected ConsequenceBasedSaturation(AtomicConcept[] concepts,Map<AtomicConcept,Integer> conceptIndexes,int[][] superRoles,List<SaturationRule> rules) {
+        m_concepts=concepts;
+        m_conceptIndexes=conceptIndexes;
+        m_thing=conceptIndexes.get(AtomicConcept.THING);
+        m_nothing=conceptIndexes.get(AtomicConcept.NOTHING);
+        m_superRoles=superRoles;
+        List<List<SaturationRule>> rulesByCentralConcept=createIndex(concepts.length);
+        List<List<SaturationRule>> rulesBySuccessorConcept=createIndex(concepts.length);
+        for (SaturationRule rule : rules) {
+            if (rule.m_centralConcepts.length==0)
+                addToIndex(rulesByCentralConcept,m_thing,rule);
+            for (int concept : rule.m_centralConcepts)
+                addToIndex(rulesByCentralConcept,concept,rule);
+            for (int branchIndex=0;branchIndex<rule.m_branchRoles.length;branchIndex++) {
+                // Every context contains owl:Thing, so branches without concepts are indexed by owl:Thing.
+                if (rule.m_branchConcepts[branchIndex].length==0)
+                    addToIndex(rulesBySuccessorConcept,m_thing,rule);
+                for (int concept : rule.m_branchConcepts[branchIndex])
+                    addToIndex(rulesBySuccessorConcept,concept,rule);
+            }
+        }
+        m_rulesByCentralConcept=toArrays(rulesByCentralConcept);
+        m_rulesBySuccessorConcept=toArrays(rulesBySuccessorConcept);
+        m_contexts=new Context[concepts.length];
+        m_queue=new int[64];
+    }
+    /**
+     * Saturates the contexts of the given concepts and of all concepts that they (indirectly) need as successors.
+     */
+    public void saturate(Set<AtomicConcept> concepts,InterruptFlag interruptFlag) {
+        getContext(m_thing);
+        for (AtomicConcept concept : concepts) {
+            Integer index=m_conceptIndexes.get(concept);
+            if (index!=null)
+                getContext(index.intValue());
+        }
+        int processed=0;
+        while (m_queueStart!=m_queueEnd) {
+            int contextIndex=m_queue[m_queueStart];
+            int concept=m_queue[m_queueStart+1];
+            m_queueStart=(m_queueStart+2)&(m_queue.length-1);
+            process(m_contexts[contextIndex],concept);
+            if ((++processed&0xFFF)==0 && interruptFlag!=null)
+                interruptFlag.checkInterrupt();
+        }
+    }
+    public boolean isSatisfiable(AtomicConcept concept) {
+        Integer index=m_conceptIndexes.get(concept);
+        if (index==null)
+            return !m_contexts[m_thing].m_subsumers.contains(m_nothing);
+        Context context=m_contexts[index.intValue()];
+        if (context==null)
+            throw new IllegalStateException("Internal error: the concept "+concept+" has not been saturated.");
+        return !context.m_subsumers.contains(m_nothing);
+    }
+    /**
+     * Adds to the given set the subsumers of the given satisfiable concept that are contained in the given elements.
+     */
+    public void getSubsumers(AtomicConcept concept,Set<AtomicConcept> elements,Set<AtomicConcept> subsumers) {
+        Integer index=m_conceptIndexes.get(concept);
+        Context context=m_contexts[index==null ? m_thing : index.intValue()];
+        if (index!=null && context==null)
+            throw new IllegalStateException("Internal error: the concept "+concept+" has not been saturated.");
+        subsumers.add(concept);
+        int[] values=context.m_subsumers.m_values;
+        for (int valueIndex=0;valueIndex<values.length;valueIndex++) {
+            int value=values[valueIndex];
+            if (value!=IntSet.EMPTY && elements.contains(m_concepts[value]))
+                subsumers.add(m_concepts[value]);
+        }
+    }
+    protected Context getContext(int concept) {
+        Context context=m_contexts[concept];
+        if (context==null) {
+            context=new Context(concept);
+            m_contexts[concept]=context;
+            addSubsumer(context,concept);
+            addSubsumer(context,m_thing);
+        }
+        return context;
+    }
+    protected void addSubsumer(Context context,int concept) {
+        if (context.m_subsumers.add(concept)) {
+            m_queue[m_queueEnd]=context.m_concept;
+            m_queue[m_queueEnd+1]=concept;
+            m_queueEnd=(m_queueEnd+2)&(m_queue.length-1);
+            if (m_queueEnd==m_queueStart) {
+                int[] newQueue=new int[m_queue.length*2];
+                System.arraycopy(m_queue,m_queueStart,newQueue,0,m_queue.length-m_queueStart);
+                System.arraycopy(m_queue,0,newQueue,m_queue.length-m_queueStart,m_queueStart);
+                m_queueStart=0;
+                m_queueEnd=m_queue.length;
+                m_queue=newQueue;
+            }
+        }
+    }
+    protected void process(Context context,int concept) {
+        if (concept==m_nothing) {
+            // Once a context is unsatisfiable, all its predecessors are unsatisfiable as well.
+            int[] predecessors=context.m_predecessors;
+            for (int index=0;index<context.m_numberOfPredecessors;index+=2)
+                addSubsumer(m_contexts[predecessors[index]],m_nothing);
+            return;
+        }
+        if (context.m_subsumers.contains(m_nothing))
+            return;
+        SaturationRule[] rules=m_rulesByCentralConcept[concept];
+        if (rules!=null)
+            for (SaturationRule rule : rules)
+                applyRule(context,rule);
+        rules=m_rulesBySuccessorConcept[concept];
+        if (rules!=null) {
+            // Applying a rule can add predecessors to this context, so the array is not cached.
+            for (int index=0;index<context.m_numberOfPredecessors;index+=2) {
+                Context predecessor=m_contexts[context.m_predecessors[index]];
+                int role=context.m_predecessors[index+1];
+                for (SaturationRule rule : rules)
+                    if (rule.hasBranchFor(m_superRoles[role]))
+                        applyRule(predecessor,rule);
+            }
+        }
+    }
+    protected void addSuccessor(Context context,int role,int concept) {
+        if (!context.addSuccessor(role,concept))
+            return;
+        Context successor=getContext(concept);
+        successor.addPredecessor(context.m_concept,role);
+        if (successor.m_subsumers.contains(m_nothing)) {
+            addSubsumer(context,m_nothing);
+            return;
+        }
+        // Only the rules that mention a subsumer of the successor can match the new successor. Applying a rule can
+        // resize the set if the successor is the context itself, but then the new subsumers are processed later anyway.
+        int[] superRoles=m_superRoles[role];
+        int[] values=successor.m_subsumers.m_values;
+        for (int valueIndex=0;valueIndex<values.length;valueIndex++) {
+            int value=values[valueIndex];
+            if (value!=IntSet.EMPTY) {
+                SaturationRule[] rules=m_rulesBySuccessorConcept[value];
+                if (rules!=null)
+                    for (SaturationRule rule : rules)
+                        if (rule.hasBranchFor(superRoles))
+                            applyRule(context,rule);
+            }
+        }
+    }
+    protected void applyRule(Context context,SaturationRule rule) {
+        if (context.m_subsumers.contains(m_nothing))
+            return;
+        for (int concept : rule.m_centralConcepts)
+            if (!context.m_subsumers.contains(concept))
+                return;
+        for (int branchIndex=0;branchIndex<rule.m_branchRoles.length;branchIndex++)
+            if (!hasMatchingSuccessor(context,rule.m_branchRoles[branchIndex],rule.m_branchConcepts[branchIndex]))
+                return;
+        switch (rule.m_headType) {
+        case HEAD_BOTTOM:
+            addSubsumer(context,m_nothing);
+            break;
+        case HEAD_CONCEPT:
+            addSubsumer(context,rule.m_headConcept);
+            break;
+        case HEAD_EXISTS:
+            addSuccessor(context,rule.m_headRole,rule.m_headConcept);
+            break;
+        }
+    }
+    protected boolean hasMatchingSuccessor(Context context,int role,int[] concepts) {
+        int[] successors=context.m_successors;
+        for (int index=0;index<context.m_numberOfSuccessors;index+=2)
+            if (Arrays.binarySearch(m_superRoles[successors[index]],role)>=0) {
+                IntSet successorSubsumers=m_contexts[successors[index+1]].m_subsumers;
+                boolean matches=true;
+                for (int concept : concepts)
+                    if (!successorSubsumers.contains(concept)) {
+                        matches=false;
+                        break;
+                    }
+                if (matches)
+                    return true;
+            }
+        return false;
+    }
+    protected static <T> List<List<T>> createIndex(int size) {
+        List<List<T>> index=new ArrayList<List<T>>(size);
+        for (int i=0;i<size;i++)
+            index.add(null);
+        return index;
+    }
+    protected static void addToIndex(List<List<SaturationRule>> index,int key,SaturationRule rule) {
+        List<SaturationRule> rules=index.get(key);
+        if (rules==null) {
+            rules=new ArrayList<SaturationRule>(2);
+            index.set(key,rules);
+        }
+        if (!rules.contains(rule))
+            rules.add(rule);
+    }
+    protected static SaturationRule[][] toArrays(List<List<SaturationRule>> index) {
+        SaturationRule[][] result=new SaturationRule[index.size()][];
+        for (int key=0;key<result.length;key++) {
+            List<SaturationRule> rules=index.get(key);
+            if (rules!=null)
+                result[key]=rules.toArray(new SaturationRule[rules.size()]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an engine for the DL-clauses of the given ontology, or null if the ontology is not Horn or contains
+     * DL-clauses that the engine does not support.
+     */
+    public static ConsequenceBasedSaturation create(DLOntology dlOntology) {
+        if (!dlOntology.isHorn() || dlOntology.hasNominals() || dlOntology.hasAtMostRestrictions() || dlOntology.hasDatatypes() || !dlOntology.getAllDescriptionGraphs().isEmpty())
+            return null;
+        Map<AtomicConcept,Integer> conceptIndexes=new HashMap<AtomicConcept,Integer>();
+        List<AtomicConcept> concepts=new ArrayList<AtomicConcept>();
+        getConceptIndex(AtomicConcept.THING,conceptIndexes,concepts);
+        getConceptIndex(AtomicConcept.NOTHING,conceptIndexes,concepts);
+        for (AtomicConcept concept : dlOntology.getAllAtomicConcepts())
+            getConceptIndex(concept,conceptIndexes,concepts);
+        Map<AtomicRole,Integer> roleIndexes=new HashMap<AtomicRole,Integer>();
+        for (AtomicRole role : dlOntology.getAllAtomicObjectRoles())
+            if (role!=AtomicRole.TOP_OBJECT_ROLE && role!=AtomicRole.BOTTOM_OBJECT_ROLE)
+                roleIndexes.put(role,roleIndexes.size());
+        List<SaturationRule> rules=new ArrayList<SaturationRule>();
+        List<int[]> roleInclusions=new ArrayList<int[]>();
+        for (DLClause dlClause : dlOntology.getDLClauses()) {
+            if (dlClause.getHeadLength()==1 && dlClause.getHeadAtom(0).getArity()==2) {
+                int[] roleInclusion=getRoleInclusion(dlClause,roleIndexes);
+                if (roleInclusion==null)
+                    return null;
+                roleInclusions.add(roleInclusion);
+            }
+            else {
+                SaturationRule rule=getSaturationRule(dlClause,conceptIndexes,concepts,roleIndexes);
+                if (rule==null)
+                    return null;
+                rules.add(rule);
+            }
+        }
+        return new ConsequenceBasedSaturation(concepts.toArray(new AtomicConcept[concepts.size()]),conceptIndexes,getSuperRoles(roleIndexes.size(),roleInclusions),rules);
+    }
+    protected static int getConceptIndex(AtomicConcept concept,Map<AtomicConcept,Integer> conceptIndexes,List<AtomicConcept> concepts) {
+        Integer index=conceptIndexes.get(concept);
+        if (index==null) {
+            index=concepts.size();
+            conceptIndexes.put(concept,index);
+            concepts.add(concept);
+        }
+        return index.intValue();
+    }
+    protected static int getRoleIndex(Object role,Map<AtomicRole,Integer> roleIndexes) {
+        Integer index=roleIndexes.get(role);
+        return index==null ? -1 : index.intValue();
+    }
+    protected static int[] getRoleInclusion(DLClause dlClause,Map<AtomicRole,Integer> roleIndexes) {
+        if (dlClause.getBodyLength()!=1)
+            return null;
+        Atom headAtom=dlClause.getHeadAtom(0);
+        Atom bodyAtom=dlClause.getBodyAtom(0);
+        int subRole=getRoleIndex(bodyAtom.getDLPredicate(),roleIndexes);
+        int superRole=getRoleIndex(headAtom.getDLPredicate(),roleIndexes);
+        if (subRole==-1 || superRole==-1 || bodyAtom.getArity()!=2)
+            return null;
+        Term x=bodyAtom.getArgument(0);
+        Term y=bodyAtom.getArgument(1);
+        if (!(x instanceof Variable) || !(y instanceof Variable) || x.equals(y) || !x.equals(headAtom.getArgument(0)) || !y.equals(headAtom.getArgument(1)))
+            return null;
+        return new int[] { subRole,superRole };
+    }
+    protected static SaturationRule getSaturationRule(DLClause dlClause,Map<AtomicConcept,Integer> conceptIndexes,List<AtomicConcept> concepts,Map<AtomicRole,Integer> roleIndexes) {
+        // Determine the central variable: the first argument of the role atoms or, without role atoms, the only variable.
+        Variable x=null;
+        for (int bodyIndex=0;bodyIndex<dlClause.getBodyLength() && x==null;bodyIndex++) {
+            Atom atom=dlClause.getBodyAtom(bodyIndex);
+            if (atom.getArity()==2 && atom.getArgument(0) instanceof Variable)
+                x=atom.getArgumentVariable(0);
+        }
+        for (int bodyIndex=0;bodyIndex<dlClause.getBodyLength() && x==null;bodyIndex++) {
+            Atom atom=dlClause.getBodyAtom(bodyIndex);
+            if (atom.getArgument(0) instanceof Variable)
+                x=atom.getArgumentVariable(0);
+        }
+        if (x==null && dlClause.getHeadLength()==1 && dlClause.getHeadAtom(0).getArgument(0) instanceof Variable)
+            x=dlClause.getHeadAtom(0).getArgumentVariable(0);
+        if (x==null)
+            return null;
+        Set<Integer> centralConcepts=new HashSet<Integer>();
+        List<Variable> branchVariables=new ArrayList<Variable>();
+        List<Integer> branchRoles=new ArrayList<Integer>();
+        for (int bodyIndex=0;bodyIndex<dlClause.getBodyLength();bodyIndex++) {
+            Atom atom=dlClause.getBodyAtom(bodyIndex);
+            if (atom.getArity()==2) {
+                int role=getRoleIndex(atom.getDLPredicate(),roleIndexes);
+                Term y=atom.getArgument(1);
+                if (role==-1 || !x.equals(atom.getArgument(0)) || !(y instanceof Variable) || y.equals(x) || branchVariables.contains(y))
+                    return null;
+                branchVariables.add((Variable)y);
+                branchRoles.add(role);
+            }
+        }
+        List<Set<Integer>> branchConcepts=new ArrayList<Set<Integer>>();
+        for (int branchIndex=0;branchIndex<branchVariables.size();branchIndex++)
+            branchConcepts.add(new HashSet<Integer>());
+        for (int bodyIndex=0;bodyIndex<dlClause.getBodyLength();bodyIndex++) {
+            Atom atom=dlClause.getBodyAtom(bodyIndex);
+            if (atom.getArity()==1) {
+                if (!(atom.getDLPredicate() instanceof AtomicConcept))
+                    return null;
+                int concept=getConceptIndex((AtomicConcept)atom.getDLPredicate(),conceptIndexes,concepts);
+                Term argument=atom.getArgument(0);
+                if (x.equals(argument))
+                    centralConcepts.add(concept);
+                else {
+                    int branchIndex=branchVariables.indexOf(argument);
+                    if (branchIndex==-1)
+                        return null;
+                    branchConcepts.get(branchIndex).add(concept);
+                }
+            }
+            else if (atom.getArity()!=2)
+                return null;
+        }
+        SaturationRule rule;
+        if (dlClause.getHeadLength()==0)
+            rule=new SaturationRule(HEAD_BOTTOM,-1,-1);
+        else {
+            Atom headAtom=dlClause.getHeadAtom(0);
+            DLPredicate headPredicate=headAtom.getDLPredicate();
+            if (headAtom.getArity()!=1 || !x.equals(headAtom.getArgument(0)))
+                return null;
+            if (headPredicate instanceof AtomicConcept) {
+                int concept=getConceptIndex((AtomicConcept)headPredicate,conceptIndexes,concepts);
+                rule=new SaturationRule(AtomicConcept.NOTHING.equals(headPredicate) ? HEAD_BOTTOM : HEAD_CONCEPT,concept,-1);
+            }
+            else if (headPredicate instanceof AtLeastConcept) {
+                AtLeastConcept atLeastConcept=(AtLeastConcept)headPredicate;
+                int role=getRoleIndex(atLeastConcept.getOnRole(),roleIndexes);
+                // Without at-most restrictions, an at-least restriction has the same consequences as an existential.
+                if (role==-1 || atLeastConcept.getNumber()<1 || !(atLeastConcept.getToConcept() instanceof AtomicConcept))
+                    return null;
+                AtomicConcept toConcept=(AtomicConcept)atLeastConcept.getToConcept();
+                if (AtomicConcept.NOTHING.equals(toConcept))
+                    rule=new SaturationRule(HEAD_BOTTOM,-1,-1);
+                else
+                    rule=new SaturationRule(HEAD_EXISTS,getConceptIndex(toConcept,conceptIndexes,concepts),role);
+            }
+            else
+                return null;
+        }
+        rule.m_centralConcepts=toIntArray(centralConcepts);
+        rule.m_branchRoles=new int[branchRoles.size()];
+        rule.m_branchConcepts=new int[branchRoles.size()][];
+        for (int branchIndex=0;branchIndex<branchRoles.size();branchIndex++) {
+            rule.m_branchRoles[branchIndex]=branchRoles.get(branchIndex);
+            rule.m_branchConcepts[branchIndex]=toIntArray(branchConcepts.get(branchIndex));
+        }
+        return rule;
+    }
+    protected static int[] toIntArray(Set<Integer> set) {
+        int[] result=new int[set.size()];
+        int index=0;
+        for (Integer value : set)
+            result[index++]=value.intValue();
+        Arrays.sort(result);
+        return result;
+    }
+    /**
+     * Computes for each role the sorted array of its reflexive and transitive super-roles.
+     */
+    protected static int[][] getSuperRoles(int numberOfRoles,List<int[]> roleInclusions) {
+        List<List<Integer>> directSuperRoles=createIndex(numberOfRoles);
+        for (int[] roleInclusion : roleInclusions) {
+            List<Integer> superRoles=directSuperRoles.get(roleInclusion[0]);
+            if (superRoles==null) {
+                superRoles=new ArrayList<Integer>(2);
+                directSuperRoles.set(roleInclusion[0],superRoles);
+            }
+            superRoles.add(roleInclusion[1]);
+        }
+        int[][] result=new int[numberOfRoles][];
+        Set<Integer> visited=new HashSet<Integer>();
+        List<Integer> toVisit=new ArrayList<Integer>();
+        for (int role=0;role<numberOfRoles;role++) {
+            visited.clear();
+            toVisit.add(role);
+            while (!toVisit.isEmpty()) {
+                Integer current=toVisit.remove(toVisit.size()-1);
+                if (visited.add(current)) {
+                    List<Integer> superRoles=directSuperRoles.get(current.intValue());
+                    if (superRoles!=null)
+                        toVisit.addAll(superRoles);
+                }
+            }
+            result[role]=toIntArray(visited);
+        }
+        return result;
+    }
+
+    protected static class SaturationRule {
+        protected final int m_headType;
+        protected final int m_headConcept;
+        protected final int m_headRole;
+        protected int[] m_centralConcepts;
+        protected int[] m_branchRoles;
+        protected int[][] m_branchConcepts;
+
+        public SaturationRule(int headType,int headConcept,int headRole) {
+            m_headType=headType;
+            m_headConcept=headConcept;
+            m_headRole=headRole;
+        }
+        public boolean hasBranchFor(int[] roles) {
+            for (int role : m_branchRoles)
+                if (Arrays.binarySearch(roles,role)>=0)
+                    return true;
+            return false;
+        }
+    }
+
+    protected static class Context {
+        protected final int m_concept;
+        protected final IntSet m_subsumers;
+        // pairs (role, concept) of the existentials derived in this context
+        protected int[] m_successors;
+        protected int m_numberOfSuccessors;
+        // pairs (context, role) of the contexts that have this context as a successor
+        protected int[] m_predecessors;
+        protected int m_numberOfPredecessors;
+
+        public Context(int concept) {
+            m_concept=concept;
+            m_subsumers=new IntSet();
+            m_successors=new int[4];
+            m_predecessors=new int[4];
+        }
+        public boolean addSuccessor(int role,int concept) {
+            for (int index=0;index<m_numberOfSuccessors;index+=2)
+                if (m_successors[index]==role && m_successors[index+1]==concept)
+                    return false;
+            if (m_numberOfSuccessors==m_successors.length)
+                m_successors=Arrays.copyOf(m_successors,m_successors.length*2);
+            m_successors[m_numberOfSuccessors++]=role;
+            m_successors[m_numberOfSuccessors++]=concept;
+            return true;
+        }
+        public void addPredecessor(int context,int role) {
+            if (m_numberOfPredecessors==m_predecessors.length)
+                m_predecessors=Arrays.copyOf(m_predecessors,m_predecessors.length*2);
+            m_predecessors[m_numberOfPredecessors++]=context;
+            m_predecessors[m_numberOfPredecessors++]=role;
+        }
+    }
+
+    /**
+     * An open-addressing hash set of non-negative ints.
+     */
+    protected static class IntSet {
+        protected static final int EMPTY=-1;
+
+        protected int[] m_values;
+        protected int m_size;
+
+        public IntSet() {
+            m_values=new int[8];
+            Arrays.fill(m_values,EMPTY);
+        }
+        public boolean contains(int value) {
+            int mask=m_values.length-1;
+            int index=hash(value)&mask;
+            while (true) {
+                int current=m_values[index];
+                if (current==value)
+                    return true;
+                if (current==EMPTY)
+                    return false;
+                index=(index+1)&mask;
+            }
+        }
+        public boolean add(int value) {
+            int mask=m_values.length-1;
+            int index=hash(value)&mask;
+            while (true) {
+                int current=m_values[index];
+                if (current==value)
+                    return false;
+                if (current==EMPTY)
+                    break;
+                index=(index+1)&mask;
+            }
+            m_values[index]=value;
+            m_size++;
+            if (m_size*4>m_values.length*3)
+                resize();
+            return true;
+        }
+        public int size() {
+            return m_size;
+        }
+        protected void resize() {
+            int[] oldValues=m_values;
+            m_values=new int[oldValues.length*2];
+            Arrays.fill(m_values,EMPTY);
+            int mask=m_values.length-1;
+            for (int value : oldValues)
+                if (value!=EMPTY) {
+                    int index=hash(value)&mask;
+                    while (m_values[index]!=EMPTY)
+                        index=(index+1)&mask;
+                    m_values[index]=value;
+                }
+        }
+        protected static int hash(int value) {
+            int hash=value*0x9E3779B9;
+            return hash^(hash>>>16);
+        }
+    }
+}
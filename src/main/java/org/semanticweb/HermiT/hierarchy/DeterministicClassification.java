@@ -31,6 +31,7 @@ import org.semanticweb.HermiT.model.Atom;
 import org.semanticweb.HermiT.model.AtomicConcept;
 import org.semanticweb.HermiT.model.Individual;
 import org.semanticweb.HermiT.tableau.ExtensionTable;
+import org.semanticweb.HermiT.tableau.InterruptFlag;
 import org.semanticweb.HermiT.tableau.Node;
 import org.semanticweb.HermiT.tableau.ReasoningTaskDescription;
 import org.semanticweb.HermiT.tableau.Tableau;
@@ -41,39 +42,117 @@ public class DeterministicClassification {
     protected final AtomicConcept m_topElement;
     protected final AtomicConcept m_bottomElement;
     protected final Set<AtomicConcept> m_elements;
+    protected final boolean m_useConsequenceBasedSaturation;
 
     public DeterministicClassification(Tableau tableau,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements) {
+        this(tableau,progressMonitor,topElement,bottomElement,elements,true);
+    }
+    public DeterministicClassification(Tableau tableau,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements,boolean useConsequenceBasedSaturation) {
         m_tableau=tableau;
         m_progressMonitor=progressMonitor;
         m_topElement=topElement;
         m_bottomElement=bottomElement;
         m_elements=elements;
+        m_useConsequenceBasedSaturation=useConsequenceBasedSaturation;
     }
     public Hierarchy<AtomicConcept> classify() {
         if (!m_tableau.isDeterministic())
             throw new IllegalStateException("Internal error: DeterministicClassificationManager can be used only with a deterministic tableau.");
+        if (m_useConsequenceBasedSaturation && m_tableau.getAdditionalDLOntology()==null) {
+            ConsequenceBasedSaturation saturation=ConsequenceBasedSaturation.create(m_tableau.getPermanentDLOntology());
+            if (saturation!=null)
+                return classify(saturation);
+        }
         Individual freshIndividual=Individual.createAnonymous("fresh-individual");
         if (!m_tableau.isSatisfiable(true,Collections.singleton(Atom.create(m_topElement,freshIndividual)),null,null,null,null,ReasoningTaskDescription.isConceptSatisfiable(m_topElement)))
             return Hierarchy.emptyHierarchy(m_elements,m_topElement,m_bottomElement);
+        int batchSize=(m_tableau.getAdditionalDLOntology()==null ? QuasiOrderClassification.getBatchSize(m_tableau) : 1);
+        if (batchSize>1)
+            return classifyInBatches(batchSize,freshIndividual);
+        Map<AtomicConcept,GraphNode<AtomicConcept>> allSubsumers=new HashMap<AtomicConcept,GraphNode<AtomicConcept>>();
+        for (AtomicConcept element : m_elements) {
+            allSubsumers.put(element,new GraphNode<AtomicConcept>(element,getSubsumers(element,freshIndividual)));
+            m_progressMonitor.elementClassified(element);
+        }
+        return buildHierarchy(m_topElement,m_bottomElement,allSubsumers);
+    }
+    /**
+     * Classifies the elements by testing the given number of elements in each run of the tableau. Since the tableau is
+     * deterministic, the label of the node for each satisfiable element contains exactly the subsumers of the element.
+     * A deterministic tableau cannot tell which element caused a clash, so the elements of a batch that has a clash are
+     * tested one by one.
+     */
+    protected Hierarchy<AtomicConcept> classifyInBatches(int batchSize,Individual freshIndividual) {
+        Map<AtomicConcept,GraphNode<AtomicConcept>> allSubsumers=new HashMap<AtomicConcept,GraphNode<AtomicConcept>>();
+        List<AtomicConcept> elements=new ArrayList<AtomicConcept>(m_elements);
+        Node[] rootNodes=new Node[batchSize];
+        for (int batchStart=0;batchStart<elements.size();batchStart+=batchSize) {
+            List<AtomicConcept> batch=elements.subList(batchStart,Math.min(batchStart+batchSize,elements.size()));
+            boolean[] results=m_tableau.isSatisfiable(batch,rootNodes,ReasoningTaskDescription.isConceptListSatisfiable(batch.toArray()));
+            if (results==null) {
+                for (AtomicConcept element : batch) {
+                    allSubsumers.put(element,new GraphNode<AtomicConcept>(element,getSubsumers(element,freshIndividual)));
+                    m_progressMonitor.elementClassified(element);
+                }
+            }
+            else {
+                for (int index=0;index<batch.size();index++) {
+                    AtomicConcept element=batch.get(index);
+                    Set<AtomicConcept> subsumers=(results[index] ? getSubsumers(rootNodes[index]) : m_elements);
+                    allSubsumers.put(element,new GraphNode<AtomicConcept>(element,subsumers));
+                    m_progressMonitor.elementClassified(element);
+                }
+            }
+        }
+        return buildHierarchy(m_topElement,m_bottomElement,allSubsumers);
+    }
+    protected Set<AtomicConcept> getSubsumers(AtomicConcept element,Individual freshIndividual) {
+        Map<Individual,Node> nodesForIndividuals=new HashMap<Individual,Node>();
+        nodesForIndividuals.put(freshIndividual,null);
+        if (!m_tableau.isSatisfiable(true,Collections.singleton(Atom.create(element,freshIndividual)),null,null,null,nodesForIndividuals,ReasoningTaskDescription.isConceptSatisfiable(element)))
+            return m_elements;
+        else
+            return getSubsumers(nodesForIndividuals.get(freshIndividual));
+    }
+    protected Set<AtomicConcept> getSubsumers(Node node) {
+        Set<AtomicConcept> subsumers=new HashSet<AtomicConcept>();
+        subsumers.add(m_topElement);
+        ExtensionTable.Retrieval retrieval=m_tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,true },ExtensionTable.View.TOTAL);
+        retrieval.getBindingsBuffer()[1]=node.getCanonicalNode();
+        retrieval.open();
+        while (!retrieval.afterLast()) {
+            Object subsumer=retrieval.getTupleBuffer()[0];
+            if (subsumer instanceof AtomicConcept && m_elements.contains(subsumer))
+                subsumers.add((AtomicConcept)subsumer);
+            retrieval.next();
+        }
+        return subsumers;
+    }
+    /**
+     * Classifies the elements in one pass using the given saturation engine instead of one tableau test per element.
+     * The ABox is not considered: without nominals, it cannot affect the subsumers of a concept unless it is
+     * inconsistent, which the caller checks before classifying.
+     */
+    protected Hierarchy<AtomicConcept> classify(ConsequenceBasedSaturation saturation) {
+        InterruptFlag interruptFlag=m_tableau.getInterruptFlag();
+        interruptFlag.startTask();
+        try {
+            saturation.saturate(m_elements,interruptFlag);
+        }
+        finally {
+            interruptFlag.endTask();
+        }
+        if (!saturation.isSatisfiable(m_topElement))
+            return Hierarchy.emptyHierarchy(m_elements,m_topElement,m_bottomElement);
         Map<AtomicConcept,GraphNode<AtomicConcept>> allSubsumers=new HashMap<AtomicConcept,GraphNode<AtomicConcept>>();
         for (AtomicConcept element : m_elements) {
             Set<AtomicConcept> subsumers;
-            Map<Individual,Node> nodesForIndividuals=new HashMap<Individual,Node>();
-            nodesForIndividuals.put(freshIndividual,null);
-            if (!m_tableau.isSatisfiable(true,Collections.singleton(Atom.create(element,freshIndividual)),null,null,null,nodesForIndividuals,ReasoningTaskDescription.isConceptSatisfiable(element)))
+            if (!saturation.isSatisfiable(element))
                 subsumers=m_elements;
             else {
                 subsumers=new HashSet<AtomicConcept>();
                 subsumers.add(m_topElement);
-                ExtensionTable.Retrieval retrieval=m_tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,true },ExtensionTable.View.TOTAL);
-                retrieval.getBindingsBuffer()[1]=nodesForIndividuals.get(freshIndividual).getCanonicalNode();
-                retrieval.open();
-                while (!retrieval.afterLast()) {
-                    Object subsumer=retrieval.getTupleBuffer()[0];
-                    if (subsumer instanceof AtomicConcept && m_elements.contains(subsumer))
-                        subsumers.add((AtomicConcept)subsumer);
-                    retrieval.next();
-                }
+                saturation.getSubsumers(element,m_elements,subsumers);
             }
             allSubsumers.put(element,new GraphNode<AtomicConcept>(element,subsumers));
             m_progressMonitor.elementClassified(element);
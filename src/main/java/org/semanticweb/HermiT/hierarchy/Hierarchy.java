@@ -19,12 +19,19 @@ package org.semanticweb.HermiT.hierarchy;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -32,6 +39,12 @@ public class Hierarchy<E> {
     protected final HierarchyNode<E> m_topNode;
     protected final HierarchyNode<E> m_bottomNode;
     protected final Map<E,HierarchyNode<E>> m_nodesByElements;
+    protected volatile HierarchyNode<E>[] m_nodesByIndex;
+    // Closures are sorted index arrays. These take 32 bits per entry, whereas a bit set takes one bit per node of the
+    // hierarchy, so an array is smaller only if its closure has fewer than about 1/32 of all nodes. This usually holds
+    // for ancestors, but not for the descendants of nodes near the top, where arrays use up to 32 times more memory.
+    protected int[][] m_ancestorIndices;
+    protected int[][] m_descendantIndices;
 
     public Hierarchy(HierarchyNode<E> topNode,HierarchyNode<E> bottomNode) {
         m_topNode=topNode;
@@ -62,6 +75,128 @@ public class Hierarchy<E> {
     }
     public Set<E> getAllElements() {
         return Collections.unmodifiableSet(m_nodesByElements.keySet());
+    }
+    /**
+     * Checks whether ancestorNode is node or one of its ancestors. The first call builds the transitive closure
+     * index of the hierarchy, so the hierarchy must not be modified afterwards.
+     */
+    public boolean isAncestorNode(HierarchyNode<E> node,HierarchyNode<E> ancestorNode) {
+        if (node==ancestorNode)
+            return true;
+        ensureTransitiveClosureIndex();
+        if (!isIndexed(node) || !isIndexed(ancestorNode))
+            return node.getAncestorNodes().contains(ancestorNode);
+        // Indexes are assigned in topological order, so ancestors always have smaller indexes.
+        return ancestorNode.m_index<node.m_index && Arrays.binarySearch(m_ancestorIndices[node.m_index],ancestorNode.m_index)>=0;
+    }
+    /**
+     * Returns the ancestors of the given node as a view of the transitive closure index; the node itself is
+     * contained in the result only if reflexive is true.
+     */
+    public Set<HierarchyNode<E>> getAncestorNodes(HierarchyNode<E> node,boolean reflexive) {
+        ensureTransitiveClosureIndex();
+        if (isIndexed(node))
+            return new IndexedNodeSet(m_ancestorIndices[node.m_index],reflexive ? -1 : node.m_index);
+        else
+            return unindexedNodes(node.getAncestorNodes(),node,reflexive);
+    }
+    /**
+     * Returns the descendants of the given node as a view of the transitive closure index; the node itself is
+     * contained in the result only if reflexive is true.
+     */
+    public Set<HierarchyNode<E>> getDescendantNodes(HierarchyNode<E> node,boolean reflexive) {
+        ensureTransitiveClosureIndex();
+        if (isIndexed(node))
+            return new IndexedNodeSet(m_descendantIndices[node.m_index],reflexive ? -1 : node.m_index);
+        else
+            return unindexedNodes(node.getDescendantNodes(),node,reflexive);
+    }
+    protected Set<HierarchyNode<E>> unindexedNodes(Set<HierarchyNode<E>> nodes,HierarchyNode<E> node,boolean reflexive) {
+        if (!reflexive)
+            nodes.remove(node);
+        return Collections.unmodifiableSet(nodes);
+    }
+    protected boolean isIndexed(HierarchyNode<E> node) {
+        HierarchyNode<E>[] nodesByIndex=m_nodesByIndex;
+        return nodesByIndex!=null && node.m_index>=0 && node.m_index<nodesByIndex.length && nodesByIndex[node.m_index]==node;
+    }
+    protected void ensureTransitiveClosureIndex() {
+        if (m_nodesByIndex==null) {
+            synchronized (this) {
+                if (m_nodesByIndex==null)
+                    buildTransitiveClosureIndex();
+            }
+        }
+    }
+    protected void buildTransitiveClosureIndex() {
+        Set<HierarchyNode<E>> nodes=new HashSet<HierarchyNode<E>>(m_nodesByElements.values());
+        nodes.add(m_topNode);
+        nodes.add(m_bottomNode);
+        Map<HierarchyNode<E>,Integer> numberOfUnprocessedParents=new HashMap<HierarchyNode<E>,Integer>();
+        List<HierarchyNode<E>> topologicalOrder=new ArrayList<HierarchyNode<E>>(nodes.size());
+        for (HierarchyNode<E> node : nodes) {
+            int numberOfParents=0;
+            for (HierarchyNode<E> parentNode : node.m_parentNodes)
+                if (nodes.contains(parentNode))
+                    numberOfParents++;
+            if (numberOfParents==0)
+                topologicalOrder.add(node);
+            else
+                numberOfUnprocessedParents.put(node,numberOfParents);
+        }
+        for (int index=0;index<topologicalOrder.size();index++)
+            for (HierarchyNode<E> childNode : topologicalOrder.get(index).m_childNodes) {
+                Integer numberOfParents=numberOfUnprocessedParents.get(childNode);
+                if (numberOfParents!=null) {
+                    if (numberOfParents.intValue()==1) {
+                        numberOfUnprocessedParents.remove(childNode);
+                        topologicalOrder.add(childNode);
+                    }
+                    else
+                        numberOfUnprocessedParents.put(childNode,numberOfParents.intValue()-1);
+                }
+            }
+        HierarchyNode<E>[] nodesByIndex=createNodeArray(topologicalOrder.size());
+        if (numberOfUnprocessedParents.isEmpty()) {
+            topologicalOrder.toArray(nodesByIndex);
+            for (int index=0;index<nodesByIndex.length;index++)
+                nodesByIndex[index].m_index=index;
+            int[] buffer=new int[nodesByIndex.length];
+            BitSet seen=new BitSet(nodesByIndex.length);
+            m_ancestorIndices=new int[nodesByIndex.length][];
+            for (int index=0;index<nodesByIndex.length;index++)
+                m_ancestorIndices[index]=closeOver(index,nodesByIndex[index].m_parentNodes,nodesByIndex,m_ancestorIndices,buffer,seen);
+            m_descendantIndices=new int[nodesByIndex.length][];
+            for (int index=nodesByIndex.length-1;index>=0;--index)
+                m_descendantIndices[index]=closeOver(index,nodesByIndex[index].m_childNodes,nodesByIndex,m_descendantIndices,buffer,seen);
+        }
+        else {
+            // The hierarchy is not acyclic, so queries fall back to traversing the nodes.
+            nodesByIndex=createNodeArray(0);
+        }
+        m_nodesByIndex=nodesByIndex;
+    }
+    @SuppressWarnings("unchecked")
+    protected static <E> HierarchyNode<E>[] createNodeArray(int size) {
+        return (HierarchyNode<E>[])new HierarchyNode<?>[size];
+    }
+    protected static <E> int[] closeOver(int index,Set<HierarchyNode<E>> neighbourNodes,HierarchyNode<E>[] nodesByIndex,int[][] closures,int[] buffer,BitSet seen) {
+        int size=0;
+        buffer[size++]=index;
+        seen.set(index);
+        for (HierarchyNode<E> neighbourNode : neighbourNodes)
+            if (neighbourNode.m_index>=0 && neighbourNode.m_index<nodesByIndex.length && nodesByIndex[neighbourNode.m_index]==neighbourNode)
+                for (int neighbourIndex : closures[neighbourNode.m_index])
+                    if (!seen.get(neighbourIndex)) {
+                        seen.set(neighbourIndex);
+                        buffer[size++]=neighbourIndex;
+                    }
+        int[] closure=new int[size];
+        System.arraycopy(buffer,0,closure,0,size);
+        Arrays.sort(closure);
+        for (int closureIndex : closure)
+            seen.clear(closureIndex);
+        return closure;
     }
     public int getDepth() {
         HierarchyDepthFinder<E> depthFinder=new HierarchyDepthFinder<E>(m_bottomNode);
@@ -213,6 +348,49 @@ public class Hierarchy<E> {
         T determineRepresentative(E oldRepresentative,Set<T> newEquivalentElements);
     }
 
+    protected class IndexedNodeSet extends AbstractSet<HierarchyNode<E>> {
+        protected final int[] m_indices;
+        protected final int m_excludedIndex;
+
+        public IndexedNodeSet(int[] indices,int excludedIndex) {
+            m_indices=indices;
+            m_excludedIndex=excludedIndex;
+        }
+        public int size() {
+            return m_excludedIndex<0 ? m_indices.length : m_indices.length-1;
+        }
+        public boolean contains(Object object) {
+            if (!(object instanceof HierarchyNode))
+                return false;
+            HierarchyNode<?> node=(HierarchyNode<?>)object;
+            return node.m_index>=0 && node.m_index!=m_excludedIndex && node.m_index<m_nodesByIndex.length && m_nodesByIndex[node.m_index]==node && Arrays.binarySearch(m_indices,node.m_index)>=0;
+        }
+        public Iterator<HierarchyNode<E>> iterator() {
+            return new Iterator<HierarchyNode<E>>() {
+                protected int m_position=skipExcluded(0);
+
+                public boolean hasNext() {
+                    return m_position<m_indices.length;
+                }
+                public HierarchyNode<E> next() {
+                    if (m_position>=m_indices.length)
+                        throw new NoSuchElementException();
+                    HierarchyNode<E> node=m_nodesByIndex[m_indices[m_position]];
+                    m_position=skipExcluded(m_position+1);
+                    return node;
+                }
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+                protected int skipExcluded(int position) {
+                    if (position<m_indices.length && m_indices[position]==m_excludedIndex)
+                        position++;
+                    return position;
+                }
+            };
+        }
+    }
+
     protected static class HierarchyNodeComparator<E> implements Comparator<HierarchyNode<E>> {
         protected final Comparator<E> m_elementComparator;
 
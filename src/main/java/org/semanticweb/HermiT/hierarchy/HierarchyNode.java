@@ -28,6 +28,7 @@ public class HierarchyNode<E> {
     protected final Set<E> m_equivalentElements;
     protected final Set<HierarchyNode<E>> m_parentNodes;
     protected final Set<HierarchyNode<E>> m_childNodes;
+    protected int m_index;
 
     public HierarchyNode(E representative) {
         m_representative=representative;
@@ -35,12 +36,14 @@ public class HierarchyNode<E> {
         m_equivalentElements.add(m_representative);
         m_parentNodes=new HashSet<HierarchyNode<E>>();
         m_childNodes=new HashSet<HierarchyNode<E>>();
+        m_index=-1;
     }
     public HierarchyNode(E element,Set<E> equivalentElements,Set<HierarchyNode<E>> parentNodes,Set<HierarchyNode<E>> childNodes) {
         m_representative=element;
         m_equivalentElements=equivalentElements;
         m_parentNodes=parentNodes;
         m_childNodes=childNodes;
+        m_index=-1;
     }
     public E getRepresentative() {
         return m_representative;
@@ -0,0 +1,245 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.hierarchy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.semanticweb.HermiT.model.AtLeast;
+import org.semanticweb.HermiT.model.AtLeastConcept;
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.model.AtomicRole;
+import org.semanticweb.HermiT.model.DLClause;
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.HermiT.model.DLPredicate;
+import org.semanticweb.HermiT.model.InverseRole;
+import org.semanticweb.HermiT.model.Role;
+import org.semanticweb.HermiT.tableau.Node;
+import org.semanticweb.HermiT.tableau.Tableau;
+
+/**
+ * Reclassifies the atomic concepts of a changed DL-ontology by reusing the hierarchy of the previous version of the
+ * DL-ontology. A tableau test for a concept C can only ever use the DL-clauses whose body atoms are all over predicates
+ * that are reachable from C, where a clause makes the predicates of its head atoms (including the roles and concepts of
+ * existentials) reachable. If none of these clauses has been added or removed, then C has exactly the same subsumers as
+ * before. Only the remaining (affected) concepts are tested; the subsumers of the unaffected ones are read off the previous
+ * hierarchy.
+ *
+ * The argument relies on the tableau tests not loading the ABox, so the DL-ontologies must not contain nominals; they
+ * must not contain description graphs either, and the datatype definitions must not have changed.
+ */
+public class IncrementalQuasiOrderClassification extends QuasiOrderClassification {
+    protected final Set<AtomicConcept> m_affectedElements;
+
+    public IncrementalQuasiOrderClassification(Tableau tableau,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements,Hierarchy<AtomicConcept> previousHierarchy,Set<AtomicConcept> affectedElements) {
+        super(tableau,progressMonitor,topElement,bottomElement,elements);
+        m_affectedElements=affectedElements;
+        for (AtomicConcept element : m_elements)
+            if (!m_affectedElements.contains(element)) {
+                HierarchyNode<AtomicConcept> node=previousHierarchy.getNodeForElement(element);
+                if (node==previousHierarchy.getBottomNode())
+                    addKnownSubsumption(element,m_bottomElement);
+                else
+                    for (HierarchyNode<AtomicConcept> ancestorNode : node.getAncestorNodes())
+                        for (AtomicConcept ancestor : ancestorNode.getEquivalentElements())
+                            if (m_elements.contains(ancestor))
+                                addKnownSubsumption(element,ancestor);
+            }
+    }
+    protected double updateSubsumptionsUsingLeafNodeStrategy(double totalNumberOfTasks) {
+        // The known subsumptions of the unaffected concepts are complete, so we build a model only for each affected concept.
+        double conceptsProcessed=0;
+        for (AtomicConcept element : m_affectedElements) {
+            m_progressMonitor.elementClassified(element);
+            conceptsProcessed++;
+            if (!conceptHasBeenProcessedAlready(element)) {
+                Node rootNodeOfModel=buildModelForConcept(m_tableau,element);
+                if (rootNodeOfModel==null)
+                    makeConceptUnsatisfiable(element);
+                else {
+                    readKnownSubsumersFromRootNode(m_tableau,element,rootNodeOfModel);
+                    updatePossibleSubsumers(m_tableau);
+                }
+            }
+        }
+        return conceptsProcessed;
+    }
+    protected void readPossibleSubsumersFromNodeLabel(Tableau tableau,AtomicConcept atomicConcept,Node node) {
+        if (m_affectedElements.contains(atomicConcept))
+            super.readPossibleSubsumersFromNodeLabel(tableau,atomicConcept,node);
+    }
+
+    /**
+     * Checks whether the hierarchy of the previous DL-ontology can be reused for classifying the current one.
+     */
+    public static boolean canClassifyIncrementally(DLOntology previousDLOntology,DLOntology dlOntology) {
+        return !previousDLOntology.hasNominals() && !dlOntology.hasNominals()
+            && previousDLOntology.getAllDescriptionGraphs().isEmpty() && dlOntology.getAllDescriptionGraphs().isEmpty()
+            && previousDLOntology.getAllUnknownDatatypeRestrictions().equals(dlOntology.getAllUnknownDatatypeRestrictions())
+            && previousDLOntology.getDefinedDatatypeIRIs().equals(dlOntology.getDefinedDatatypeIRIs());
+    }
+    /**
+     * Returns the elements whose subsumers might differ between the two DL-ontologies, that is, all elements that are not
+     * in the previous hierarchy or from which an added or a removed DL-clause is reachable.
+     */
+    public static Set<AtomicConcept> getAffectedElements(DLOntology previousDLOntology,Hierarchy<AtomicConcept> previousHierarchy,DLOntology dlOntology,Set<AtomicConcept> elements) {
+        Set<String> previousDLClauses=getDLClausesAsText(previousDLOntology);
+        Set<String> dlClauses=getDLClausesAsText(dlOntology);
+        Set<AtomicConcept> affectedElements=new HashSet<AtomicConcept>();
+        for (AtomicConcept element : elements)
+            if (previousHierarchy.getNodeForElement(element)==null)
+                affectedElements.add(element);
+        new ClauseReachability(dlOntology,previousDLClauses).addElementsReachingChangedClauses(elements,affectedElements);
+        new ClauseReachability(previousDLOntology,dlClauses).addElementsReachingChangedClauses(elements,affectedElements);
+        return affectedElements;
+    }
+    protected static Set<String> getDLClausesAsText(DLOntology dlOntology) {
+        // DL-clauses do not implement equality, so they are compared by their textual form.
+        Set<String> result=new HashSet<String>();
+        for (DLClause dlClause : dlOntology.getDLClauses())
+            result.add(dlClause.toString());
+        return result;
+    }
+
+    /**
+     * Determines which DL-clauses of a DL-ontology can fire in a tableau test for a concept. Only atomic concepts and
+     * atomic roles need to be derived before a body atom can be matched; all other body atoms are conservatively assumed
+     * to be matchable.
+     */
+    protected static class ClauseReachability {
+        protected final Map<DLPredicate,List<DLClause>> m_dlClausesByBodyPredicate;
+        protected final Set<DLClause> m_changedDLClauses;
+        protected final Set<DLPredicate> m_initiallyReachable;
+        protected boolean m_changedDLClauseInitiallyReachable;
+
+        public ClauseReachability(DLOntology dlOntology,Set<String> otherDLClauses) {
+            m_dlClausesByBodyPredicate=new HashMap<DLPredicate,List<DLClause>>();
+            m_changedDLClauses=new HashSet<DLClause>();
+            List<DLClause> unconditionalDLClauses=new ArrayList<DLClause>();
+            for (DLClause dlClause : dlOntology.getDLClauses()) {
+                if (!otherDLClauses.contains(dlClause.toString()))
+                    m_changedDLClauses.add(dlClause);
+                boolean hasRequiredBodyAtom=false;
+                for (int bodyIndex=0;bodyIndex<dlClause.getBodyLength();bodyIndex++) {
+                    DLPredicate bodyPredicate=dlClause.getBodyAtom(bodyIndex).getDLPredicate();
+                    if (isRequired(bodyPredicate)) {
+                        List<DLClause> dlClauses=m_dlClausesByBodyPredicate.get(bodyPredicate);
+                        if (dlClauses==null) {
+                            dlClauses=new ArrayList<DLClause>();
+                            m_dlClausesByBodyPredicate.put(bodyPredicate,dlClauses);
+                        }
+                        dlClauses.add(dlClause);
+                        hasRequiredBodyAtom=true;
+                    }
+                }
+                if (!hasRequiredBodyAtom)
+                    unconditionalDLClauses.add(dlClause);
+            }
+            m_initiallyReachable=new HashSet<DLPredicate>();
+            Queue<DLPredicate> toProcess=new LinkedList<DLPredicate>();
+            for (DLClause dlClause : unconditionalDLClauses) {
+                if (m_changedDLClauses.contains(dlClause))
+                    m_changedDLClauseInitiallyReachable=true;
+                addHeadPredicates(dlClause,m_initiallyReachable,toProcess);
+            }
+            if (m_initiallyReachable.add(AtomicConcept.THING))
+                toProcess.add(AtomicConcept.THING);
+            if (propagate(m_initiallyReachable,toProcess,null))
+                m_changedDLClauseInitiallyReachable=true;
+        }
+        public void addElementsReachingChangedClauses(Set<AtomicConcept> elements,Set<AtomicConcept> affectedElements) {
+            if (m_changedDLClauses.isEmpty())
+                return;
+            if (m_changedDLClauseInitiallyReachable) {
+                affectedElements.addAll(elements);
+                return;
+            }
+            // If an element reaches a changed DL-clause, then so does every element from which it is reachable.
+            Set<AtomicConcept> reachingElements=new HashSet<AtomicConcept>();
+            for (AtomicConcept element : elements)
+                if (!affectedElements.contains(element) && !m_initiallyReachable.contains(element)) {
+                    Set<DLPredicate> reachable=new HashSet<DLPredicate>(m_initiallyReachable);
+                    Queue<DLPredicate> toProcess=new LinkedList<DLPredicate>();
+                    reachable.add(element);
+                    toProcess.add(element);
+                    if (propagate(reachable,toProcess,reachingElements))
+                        reachingElements.add(element);
+                }
+            affectedElements.addAll(reachingElements);
+        }
+        /**
+         * Extends the set of reachable predicates to a fixpoint and returns true as soon as a changed DL-clause can fire
+         * or one of the given elements that are already known to reach a changed DL-clause becomes reachable.
+         */
+        protected boolean propagate(Set<DLPredicate> reachable,Queue<DLPredicate> toProcess,Set<AtomicConcept> reachingElements) {
+            while (!toProcess.isEmpty()) {
+                DLPredicate predicate=toProcess.poll();
+                if (reachingElements!=null && reachingElements.contains(predicate))
+                    return true;
+                List<DLClause> dlClauses=m_dlClausesByBodyPredicate.get(predicate);
+                if (dlClauses!=null)
+                    for (DLClause dlClause : dlClauses)
+                        if (isBodyReachable(dlClause,reachable)) {
+                            if (m_changedDLClauses.contains(dlClause))
+                                return true;
+                            addHeadPredicates(dlClause,reachable,toProcess);
+                        }
+            }
+            return false;
+        }
+        protected boolean isBodyReachable(DLClause dlClause,Set<DLPredicate> reachable) {
+            for (int bodyIndex=0;bodyIndex<dlClause.getBodyLength();bodyIndex++) {
+                DLPredicate bodyPredicate=dlClause.getBodyAtom(bodyIndex).getDLPredicate();
+                if (isRequired(bodyPredicate) && !reachable.contains(bodyPredicate))
+                    return false;
+            }
+            return true;
+        }
+        protected void addHeadPredicates(DLClause dlClause,Set<DLPredicate> reachable,Queue<DLPredicate> toProcess) {
+            for (int headIndex=0;headIndex<dlClause.getHeadLength();headIndex++) {
+                DLPredicate headPredicate=dlClause.getHeadAtom(headIndex).getDLPredicate();
+                if (headPredicate instanceof AtLeast) {
+                    addReachable(getAtomicRole(((AtLeast)headPredicate).getOnRole()),reachable,toProcess);
+                    if (headPredicate instanceof AtLeastConcept)
+                        addReachable(((AtLeastConcept)headPredicate).getToConcept(),reachable,toProcess);
+                }
+                else
+                    addReachable(headPredicate,reachable,toProcess);
+            }
+        }
+        protected void addReachable(Object predicate,Set<DLPredicate> reachable,Queue<DLPredicate> toProcess) {
+            if (isRequired(predicate) && reachable.add((DLPredicate)predicate))
+                toProcess.add((DLPredicate)predicate);
+        }
+        protected static boolean isRequired(Object predicate) {
+            return predicate instanceof AtomicConcept || predicate instanceof AtomicRole;
+        }
+        protected static AtomicRole getAtomicRole(Role role) {
+            if (role instanceof AtomicRole)
+                return (AtomicRole)role;
+            else
+                return ((InverseRole)role).getInverseOf();
+        }
+    }
+}
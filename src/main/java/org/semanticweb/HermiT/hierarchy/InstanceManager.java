@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.semanticweb.HermiT.Prefixes;
 import org.semanticweb.HermiT.Reasoner;
@@ -52,6 +53,7 @@ import org.semanticweb.HermiT.tableau.Node;
 import org.semanticweb.HermiT.tableau.NodeType;
 import org.semanticweb.HermiT.tableau.ReasoningTaskDescription;
 import org.semanticweb.HermiT.tableau.Tableau;
+import org.semanticweb.HermiT.tableau.TableauWorkerPool;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -838,6 +840,13 @@ public class InstanceManager {
         m_currentRoleHierarchy=null;
     }
     public void realize(ReasonerProgressMonitor monitor) {
+        realize(monitor,null);
+    }
+    /**
+     * Realises all classes. If a worker pool is given, then the tests for the possible instances of a class are distributed
+     * over the tableaux of the pool; the tableaux must have been built for the DL-ontology of the reasoner.
+     */
+    public void realize(ReasonerProgressMonitor monitor,TableauWorkerPool workerPool) {
         assert m_usesClassifiedConceptHierarchy==true;
         if (m_readingOffFoundPossibleConceptInstance && !m_realizationCompleted) {
             if (monitor!=null)
@@ -856,42 +865,65 @@ public class InstanceManager {
                 AtomicConcept atomicConcept=current.getRepresentative();
                 AtomicConceptElement atomicConceptElement=m_conceptToElement.get(atomicConcept);
                 if (atomicConceptElement!=null) {
-                    Set<HierarchyNode<AtomicConcept>> parents=current.getParentNodes();
-                    for (HierarchyNode<AtomicConcept> parent : parents) {
+                    for (HierarchyNode<AtomicConcept> parent : current.getParentNodes()) {
                         if (!visited.contains(parent) && !toProcess.contains(parent))
                             toProcess.add(parent);
                     }
-                    if (atomicConceptElement.hasPossibles()) {
-                        Set<Individual> nonInstances=new HashSet<Individual>();
-                        for (Individual individual : atomicConceptElement.getPossibleInstances()) {
-                            if (isInstance(individual, atomicConcept))
-                                atomicConceptElement.m_knownInstances.add(individual);
-                            else
-                                nonInstances.add(individual);
-                        }
-                        atomicConceptElement.m_possibleInstances.clear();
-                        for (HierarchyNode<AtomicConcept> parent : parents) {
-                            AtomicConcept parentRepresentative=parent.getRepresentative();
-                            AtomicConceptElement parentElement=m_conceptToElement.get(parentRepresentative);
-                            if (parentElement==null) {
-                                parentElement=new AtomicConceptElement(null, nonInstances);
-                                m_conceptToElement.put(parentRepresentative, parentElement);
-                            }
-                            else if (parentRepresentative.equals(m_topConcept))
-                                m_conceptToElement.get(m_topConcept).m_knownInstances.addAll(nonInstances);
-                            else
-                                parentElement.addPossibles(nonInstances);
-                        }
-                    }
+                    if (atomicConceptElement.hasPossibles())
+                        checkPossibleInstances(current,atomicConceptElement,workerPool);
                 }
                 m_interruptFlag.checkInterrupt();
             }
+            // A node can get possible instances from a child after it has been processed, so we check these as well.
+            boolean hasPossibles=true;
+            while (hasPossibles) {
+                hasPossibles=false;
+                for (HierarchyNode<AtomicConcept> node : m_currentConceptHierarchy.getAllNodesSet()) {
+                    AtomicConceptElement atomicConceptElement=m_conceptToElement.get(node.getRepresentative());
+                    if (node!=m_currentConceptHierarchy.m_bottomNode && atomicConceptElement!=null && atomicConceptElement.hasPossibles()) {
+                        checkPossibleInstances(node,atomicConceptElement,workerPool);
+                        hasPossibles=true;
+                    }
+                    m_interruptFlag.checkInterrupt();
+                }
+            }
             if (monitor!=null)
                 monitor.reasonerTaskStopped();
         }
         m_realizationCompleted=true;
     }
+    protected void checkPossibleInstances(HierarchyNode<AtomicConcept> node,AtomicConceptElement atomicConceptElement,TableauWorkerPool workerPool) {
+        Set<Individual> nonInstances=new HashSet<Individual>();
+        Individual[] possibleInstances=atomicConceptElement.getPossibleInstances().toArray(new Individual[0]);
+        boolean[] areInstances=checkPossibleInstances(node.getRepresentative(),possibleInstances,workerPool);
+        for (int index=0;index<possibleInstances.length;index++) {
+            if (areInstances[index])
+                atomicConceptElement.m_knownInstances.add(possibleInstances[index]);
+            else
+                nonInstances.add(possibleInstances[index]);
+        }
+        atomicConceptElement.m_possibleInstances.clear();
+        for (HierarchyNode<AtomicConcept> parent : node.getParentNodes()) {
+            AtomicConcept parentRepresentative=parent.getRepresentative();
+            AtomicConceptElement parentElement=m_conceptToElement.get(parentRepresentative);
+            if (parentElement==null) {
+                parentElement=new AtomicConceptElement(null, nonInstances);
+                m_conceptToElement.put(parentRepresentative, parentElement);
+            }
+            else if (parentRepresentative.equals(m_topConcept))
+                m_conceptToElement.get(m_topConcept).m_knownInstances.addAll(nonInstances);
+            else
+                parentElement.addPossibles(nonInstances);
+        }
+    }
     public void realizeObjectRoles(ReasonerProgressMonitor monitor) {
+        realizeObjectRoles(monitor,null);
+    }
+    /**
+     * Realises all object properties. If a worker pool is given, then the tests for the possible successors of an individual
+     * are distributed over the tableaux of the pool; the tableaux must have been built for the DL-ontology of the reasoner.
+     */
+    public void realizeObjectRoles(ReasonerProgressMonitor monitor,TableauWorkerPool workerPool) {
         if (m_readingOffFoundPossiblePropertyInstance && !m_roleRealizationCompleted) {
             if (monitor!=null)
                 monitor.reasonerTaskStarted("Computing instances for all object properties...");
@@ -906,37 +938,51 @@ public class InstanceManager {
                 HierarchyNode<RoleElement> current=toProcess.remove();
                 visited.add(current);
                 currentHierarchyNode++;
-                RoleElement roleElement=current.getRepresentative();
-                Role role=roleElement.getRole();
-                Set<HierarchyNode<RoleElement>> parents=current.getParentNodes();
-                for (HierarchyNode<RoleElement> parent : parents)
+                for (HierarchyNode<RoleElement> parent : current.getParentNodes())
                     if (!toProcess.contains(parent) && !visited.contains(parent))
                         toProcess.add(parent);
-                if (roleElement.hasPossibles()) {
-                    for (Individual individual : roleElement.m_possibleRelations.keySet()) {
-                        Set<Individual> nonInstances=new HashSet<Individual>();
-                        for (Individual successor : roleElement.m_possibleRelations.get(individual)) {
-                            if (isRoleInstance(role, individual, successor))
-                                roleElement.addKnown(individual, successor);
-                            else {
-                                nonInstances.add(individual);
-                            }
-                        }
-                        for (HierarchyNode<RoleElement> parent : parents) {
-                            RoleElement parentRepresentative=parent.getRepresentative();
-                            if (!parentRepresentative.equals(m_topRoleElement))
-                                parentRepresentative.addPossibles(individual, nonInstances);
-                        }
+                if (current.getRepresentative().hasPossibles())
+                    checkPossibleRoleInstances(current,workerPool);
+                m_interruptFlag.checkInterrupt();
+            }
+            // As for classes, a node can get possible instances from a child after it has been processed.
+            boolean hasPossibles=true;
+            while (hasPossibles) {
+                hasPossibles=false;
+                for (HierarchyNode<RoleElement> node : m_currentRoleHierarchy.getAllNodesSet()) {
+                    if (node.getRepresentative().hasPossibles()) {
+                        checkPossibleRoleInstances(node,workerPool);
+                        hasPossibles=true;
                     }
-                    roleElement.m_possibleRelations.clear();
+                    m_interruptFlag.checkInterrupt();
                 }
-                m_interruptFlag.checkInterrupt();
             }
             if (monitor!=null)
                 monitor.reasonerTaskStopped();
         }
         m_roleRealizationCompleted=true;
     }
+    protected void checkPossibleRoleInstances(HierarchyNode<RoleElement> node,TableauWorkerPool workerPool) {
+        RoleElement roleElement=node.getRepresentative();
+        Role role=roleElement.getRole();
+        for (Individual individual : roleElement.m_possibleRelations.keySet()) {
+            Set<Individual> nonInstances=new HashSet<Individual>();
+            Individual[] possibleSuccessors=roleElement.m_possibleRelations.get(individual).toArray(new Individual[0]);
+            boolean[] areSuccessors=checkPossibleRoleInstances(role,individual,possibleSuccessors,workerPool);
+            for (int index=0;index<possibleSuccessors.length;index++) {
+                if (areSuccessors[index])
+                    roleElement.addKnown(individual,possibleSuccessors[index]);
+                else
+                    nonInstances.add(possibleSuccessors[index]);
+            }
+            for (HierarchyNode<RoleElement> parent : node.getParentNodes()) {
+                RoleElement parentRepresentative=parent.getRepresentative();
+                if (!parentRepresentative.equals(m_topRoleElement))
+                    parentRepresentative.addPossibles(individual, nonInstances);
+            }
+        }
+        roleElement.m_possibleRelations.clear();
+    }
     public Set<HierarchyNode<AtomicConcept>> getTypes(Individual individual,boolean direct) {
         if (m_isInconsistent)
             return Collections.singleton(m_currentConceptHierarchy.m_bottomNode);
@@ -1127,12 +1173,16 @@ public class InstanceManager {
         List<Individual> individuals=Arrays.asList(m_individuals);
         boolean containsUnknown=!individuals.contains(individual1) || !individuals.contains(individual2);
         if (representativeElement.isPossible(individual1,individual2) || containsUnknown) {
+            // Concurrent queries share the role elements, so they must not record the results of their tests; the
+            // results for unknown individuals are not recorded either, since the role elements only cover the
+            // individuals of the DL-ontology.
+            boolean recordResult=!containsUnknown && !m_reasoner.isInConcurrentQueryMode();
             if (isRoleInstance(representativeElement.getRole(),individual1,individual2)) {
-                if (!containsUnknown)
+                if (recordResult)
                     representativeElement.setToKnown(individual1,individual2);
                 return true;
             }
-            else
+            else if (recordResult)
                 for (HierarchyNode<RoleElement> parent : node.getParentNodes())
                     parent.getRepresentative().addPossible(individual1,individual2);
         }
@@ -1315,8 +1365,66 @@ public class InstanceManager {
                 progressMonitor.reasonerTaskStopped();
         }
     }
+    protected boolean[] checkPossibleInstances(final AtomicConcept atomicConcept,final Individual[] individuals,final TableauWorkerPool workerPool) {
+        final boolean[] result=new boolean[individuals.length];
+        if (workerPool==null || individuals.length<2) {
+            for (int index=0;index<individuals.length;index++)
+                result[index]=isInstance(individuals[index],atomicConcept);
+        }
+        else {
+            final AtomicInteger nextIndex=new AtomicInteger();
+            workerPool.runOnAllWorkers(new TableauWorkerPool.Worker() {
+                public void run(Tableau tableau) {
+                    int index;
+                    while (!workerPool.isCancelled() && (index=nextIndex.getAndIncrement())<individuals.length)
+                        result[index]=isInstance(tableau,individuals[index],atomicConcept);
+                }
+            });
+        }
+        return result;
+    }
+    protected boolean[] checkPossibleRoleInstances(final Role role,final Individual individual,final Individual[] successors,final TableauWorkerPool workerPool) {
+        final boolean[] result=new boolean[successors.length];
+        if (workerPool==null || successors.length<2) {
+            for (int index=0;index<successors.length;index++)
+                result[index]=isRoleInstance(role,individual,successors[index]);
+        }
+        else {
+            // The additional DL-ontologies are built here because the clausification is not thread-safe.
+            final DLOntology[] testDLOntologies=new DLOntology[successors.length];
+            for (int index=0;index<successors.length;index++)
+                testDLOntologies[index]=m_reasoner.getDeltaDLOntology(getRoleInstanceTestAxioms(role,individual,successors[index]));
+            final boolean[] unsupported=new boolean[successors.length];
+            final AtomicInteger nextIndex=new AtomicInteger();
+            workerPool.runOnAllWorkers(new TableauWorkerPool.Worker() {
+                public void run(Tableau tableau) {
+                    int index;
+                    while (!workerPool.isCancelled() && (index=nextIndex.getAndIncrement())<successors.length) {
+                        if (tableau.supportsAdditionalDLOntology(testDLOntologies[index])) {
+                            tableau.setAdditionalDLOntology(testDLOntologies[index]);
+                            try {
+                                result[index]=isRoleInstance(tableau,role,individual,successors[index]);
+                            }
+                            finally {
+                                tableau.clearAdditionalDLOntology();
+                            }
+                        }
+                        else
+                            unsupported[index]=true;
+                    }
+                }
+            });
+            for (int index=0;index<successors.length;index++)
+                if (unsupported[index])
+                    result[index]=isRoleInstance(role,individual,successors[index]);
+        }
+        return result;
+    }
     protected boolean isInstance(Individual individual,AtomicConcept atomicConcept) {
-        boolean result = !m_reasoner.getTableau().isSatisfiable(true,false,null,Collections.singleton(Atom.create(atomicConcept,individual)),null,null,null,ReasoningTaskDescription.isInstanceOf(atomicConcept,individual));
+        return isInstance(m_reasoner.getTableau(),individual,atomicConcept);
+    }
+    protected boolean isInstance(Tableau tableau,Individual individual,AtomicConcept atomicConcept) {
+        boolean result = !tableau.isSatisfiable(true,false,null,Collections.singleton(Atom.create(atomicConcept,individual)),null,null,null,ReasoningTaskDescription.isInstanceOf(atomicConcept,individual));
         if (m_tableauMonitor!=null) {
             if (result)
                 m_tableauMonitor.possibleInstanceIsInstance();
@@ -1326,6 +1434,14 @@ public class InstanceManager {
         return result;
     }
     protected boolean isRoleInstance(Role role, Individual individual1, Individual individual2) {
+        Tableau tableau=m_reasoner.getTableau(getRoleInstanceTestAxioms(role,individual1,individual2));
+        return isRoleInstance(tableau,role,individual1,individual2);
+    }
+    /**
+     * Returns the axioms that are added to the ontology for checking whether individual2 is a role successor of individual1:
+     * individual2 is marked with a fresh pseudo-nominal, which individual1 must not reach via the role.
+     */
+    protected OWLAxiom[] getRoleInstanceTestAxioms(Role role,Individual individual1,Individual individual2) {
         OWLDataFactory factory=m_reasoner.getDataFactory();
         AtomicRole atomicRole;
         if (role instanceof InverseRole) {
@@ -1343,7 +1459,19 @@ public class InstanceManager {
         OWLClassExpression allNotPseudoNominal=factory.getOWLObjectAllValuesFrom(property,pseudoNominal.getObjectComplementOf());
         OWLAxiom allNotPseudoNominalAssertion=factory.getOWLClassAssertionAxiom(allNotPseudoNominal,namedIndividual1);
         OWLAxiom pseudoNominalAssertion=factory.getOWLClassAssertionAxiom(pseudoNominal,namedIndividual2);
-        Tableau tableau=m_reasoner.getTableau(allNotPseudoNominalAssertion,pseudoNominalAssertion);
+        return new OWLAxiom[] { allNotPseudoNominalAssertion,pseudoNominalAssertion };
+    }
+    protected boolean isRoleInstance(Tableau tableau,Role role,Individual individual1,Individual individual2) {
+        // The tableau must contain the axioms returned by getRoleInstanceTestAxioms() as its additional DL-ontology.
+        AtomicRole atomicRole;
+        if (role instanceof InverseRole) {
+            Individual tmp=individual1;
+            individual1=individual2;
+            individual2=tmp;
+            atomicRole=((InverseRole)role).getInverseOf();
+        }
+        else
+            atomicRole=(AtomicRole)role;
         boolean result=!tableau.isSatisfiable(true,true,null,null,null,null,null,new ReasoningTaskDescription(true,"is {0} connected to {1} via {2}",individual1,individual2,atomicRole));
         if (m_tableauMonitor!=null) {
             if (result)
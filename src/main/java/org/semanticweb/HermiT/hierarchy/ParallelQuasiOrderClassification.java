@@ -0,0 +1,139 @@
+/* Copyright 2008, 2009, 2010 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.hierarchy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.semanticweb.HermiT.graph.ConcurrentGraph;
+import org.semanticweb.HermiT.hierarchy.HierarchySearch.Relation;
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.tableau.Node;
+import org.semanticweb.HermiT.tableau.Tableau;
+import org.semanticweb.HermiT.tableau.TableauWorkerPool;
+
+/**
+ * A variant of the quasi-order classification that distributes the satisfiability and subsumption tests over the
+ * tableaux of a worker pool. All tableaux must have been built for the same DL-ontology. Each worker takes the next
+ * concept off a shared queue, runs the test on its own tableau, and records the outcome in the shared (concurrent)
+ * known and possible subsumption graphs. Only sound information is ever recorded, so the interleaving of the workers
+ * influences the number of tests that are needed, but not the computed hierarchy.
+ */
+public class ParallelQuasiOrderClassification extends QuasiOrderClassification {
+    protected final TableauWorkerPool m_workerPool;
+    protected int m_numberOfReportedElements;
+
+    public ParallelQuasiOrderClassification(TableauWorkerPool workerPool,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements) {
+        super(workerPool.getTableaux().get(0),progressMonitor,topElement,bottomElement,elements,new ConcurrentGraph<AtomicConcept>(),new ConcurrentGraph<AtomicConcept>());
+        m_workerPool=workerPool;
+    }
+    public Hierarchy<AtomicConcept> classify() {
+        makeConceptUnsatisfiable(m_bottomElement);
+        initialiseKnownSubsumptionsUsingToldSubsumers();
+        final Hierarchy<AtomicConcept> toldHierarchy=buildTransitivelyReducedHierarchy(m_knownSubsumptions,m_elements);
+        final int modelBuildingReportLimit=(int)Math.ceil(m_elements.size()*0.85);
+        final Queue<AtomicConcept> conceptsToTest=new ConcurrentLinkedQueue<AtomicConcept>(getConceptsBottomUp(toldHierarchy));
+        m_workerPool.runOnAllWorkers(new TableauWorkerPool.Worker() {
+            public void run(Tableau tableau) {
+                AtomicConcept concept;
+                while (!m_workerPool.isCancelled() && (concept=conceptsToTest.poll())!=null) {
+                    updateSubsumptionsUsingModelForConcept(tableau,concept,toldHierarchy);
+                    reportElementClassified(concept,modelBuildingReportLimit);
+                }
+            }
+        });
+        final int totalNumberOfElements=m_elements.size();
+        final Queue<AtomicConcept> unclassifiedElements=new ConcurrentLinkedQueue<AtomicConcept>();
+        for (AtomicConcept element : m_elements) {
+            if (!isUnsatisfiable(element)) {
+                m_possibleSubsumptions.getSuccessors(element).removeAll(getAllKnownSubsumers(element));
+                if (!m_possibleSubsumptions.getSuccessors(element).isEmpty()) {
+                    unclassifiedElements.add(element);
+                    continue;
+                }
+            }
+            reportElementClassified(element,totalNumberOfElements);
+        }
+        m_workerPool.runOnAllWorkers(new TableauWorkerPool.Worker() {
+            public void run(Tableau tableau) {
+                Relation<AtomicConcept> hierarchyRelation=createSubsumptionRelation(tableau);
+                AtomicConcept element;
+                while (!m_workerPool.isCancelled() && (element=unclassifiedElements.poll())!=null) {
+                    checkPossibleSubsumers(tableau,hierarchyRelation,element);
+                    reportElementClassified(element,totalNumberOfElements);
+                }
+            }
+        });
+        return buildTransitivelyReducedHierarchy(m_knownSubsumptions,m_elements);
+    }
+    protected List<AtomicConcept> getConceptsBottomUp(Hierarchy<AtomicConcept> hierarchy) {
+        List<AtomicConcept> result=new ArrayList<AtomicConcept>();
+        Set<HierarchyNode<AtomicConcept>> visited=new HashSet<HierarchyNode<AtomicConcept>>();
+        Queue<HierarchyNode<AtomicConcept>> toVisit=new LinkedList<HierarchyNode<AtomicConcept>>(hierarchy.getBottomNode().getParentNodes());
+        while (!toVisit.isEmpty()) {
+            HierarchyNode<AtomicConcept> current=toVisit.poll();
+            if (visited.add(current)) {
+                result.add(current.getRepresentative());
+                toVisit.addAll(current.getParentNodes());
+            }
+        }
+        return result;
+    }
+    protected void updateSubsumptionsUsingModelForConcept(Tableau tableau,AtomicConcept concept,Hierarchy<AtomicConcept> toldHierarchy) {
+        if (!conceptHasBeenProcessedAlready(concept)) {
+            Node rootNodeOfModel=buildModelForConcept(tableau,concept);
+            if (rootNodeOfModel==null) {
+                // All told subconcepts of an unsatisfiable concept are unsatisfiable as well.
+                for (HierarchyNode<AtomicConcept> descendantNode : toldHierarchy.getNodeForElement(concept).getDescendantNodes())
+                    for (AtomicConcept descendant : descendantNode.getEquivalentElements())
+                        makeConceptUnsatisfiable(descendant);
+            }
+            else {
+                readKnownSubsumersFromRootNode(tableau,concept,rootNodeOfModel);
+                updatePossibleSubsumers(tableau);
+            }
+        }
+    }
+    protected void checkPossibleSubsumers(Tableau tableau,Relation<AtomicConcept> hierarchyRelation,AtomicConcept element) {
+        Set<AtomicConcept> possibleSubsumers=m_possibleSubsumptions.getSuccessors(element);
+        possibleSubsumers.removeAll(getAllKnownSubsumers(element));
+        // Other workers can prune the possible subsumers concurrently, so we work on snapshots of the set.
+        Set<AtomicConcept> unknownPossibleSubsumers=new HashSet<AtomicConcept>(possibleSubsumers);
+        if (!unknownPossibleSubsumers.isEmpty() && !isEveryPossibleSubsumerNonSubsumer(tableau,unknownPossibleSubsumers,element,2,7)) {
+            unknownPossibleSubsumers=new HashSet<AtomicConcept>(possibleSubsumers);
+            if (!unknownPossibleSubsumers.isEmpty()) {
+                Hierarchy<AtomicConcept> smallHierarchy=buildHierarchyOfUnknownPossible(unknownPossibleSubsumers);
+                checkUnknownSubsumersUsingEnhancedTraversal(hierarchyRelation,smallHierarchy.getTopNode(),element);
+            }
+        }
+        possibleSubsumers.clear();
+    }
+    protected void reportElementClassified(AtomicConcept element,int reportLimit) {
+        synchronized (m_progressMonitor) {
+            if (m_numberOfReportedElements<reportLimit) {
+                m_progressMonitor.elementClassified(element);
+                m_numberOfReportedElements++;
+            }
+        }
+    }
+}
@@ -17,10 +17,12 @@
  */
 package org.semanticweb.HermiT.hierarchy;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
@@ -40,6 +42,8 @@ import org.semanticweb.HermiT.tableau.ReasoningTaskDescription;
 import org.semanticweb.HermiT.tableau.Tableau;
 
 public class QuasiOrderClassification {
+    public static final String BATCH_SIZE_PARAMETER="QuasiOrderClassification.batchSize";
+
     protected final Tableau m_tableau;
     protected final ClassificationProgressMonitor m_progressMonitor;
     protected final AtomicConcept m_topElement;
@@ -47,18 +51,37 @@ public class QuasiOrderClassification {
     protected final Set<AtomicConcept> m_elements;
     protected final Graph<AtomicConcept> m_knownSubsumptions;
     protected final Graph<AtomicConcept> m_possibleSubsumptions;
+    protected final int m_batchSize;
 
     public QuasiOrderClassification(Tableau tableau,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements) {
+        this(tableau,progressMonitor,topElement,bottomElement,elements,new Graph<AtomicConcept>(),new Graph<AtomicConcept>());
+    }
+    protected QuasiOrderClassification(Tableau tableau,ClassificationProgressMonitor progressMonitor,AtomicConcept topElement,AtomicConcept bottomElement,Set<AtomicConcept> elements,Graph<AtomicConcept> knownSubsumptions,Graph<AtomicConcept> possibleSubsumptions) {
         m_tableau=tableau;
         m_progressMonitor=progressMonitor;
         m_topElement=topElement;
         m_bottomElement=bottomElement;
         m_elements=elements;
-        m_knownSubsumptions=new Graph<AtomicConcept>();
-        m_possibleSubsumptions=new Graph<AtomicConcept>();
+        m_knownSubsumptions=knownSubsumptions;
+        m_possibleSubsumptions=possibleSubsumptions;
+        m_batchSize=getBatchSize(tableau);
+    }
+    /**
+     * Returns the number of concepts whose satisfiability is tested in one run of the given tableau: the value of
+     * the batch size parameter if the tableau supports batched tests, and 1 otherwise.
+     */
+    public static int getBatchSize(Tableau tableau) {
+        Object batchSize=tableau.getParameters().get(BATCH_SIZE_PARAMETER);
+        if (batchSize instanceof Integer && tableau.supportsBatchedTests())
+            return Math.max(1,((Integer)batchSize).intValue());
+        else
+            return 1;
     }
     public Hierarchy<AtomicConcept> classify() {
-        Relation<AtomicConcept> relation=new Relation<AtomicConcept>() {
+        return buildHierarchy(createSubsumptionRelation(m_tableau));
+    }
+    protected Relation<AtomicConcept> createSubsumptionRelation(final Tableau tableau) {
+        return new Relation<AtomicConcept>() {
             public boolean doesSubsume(AtomicConcept parent,AtomicConcept child) {
                 Set<AtomicConcept> allKnownSubsumers=getAllKnownSubsumers(child);
                 if (allKnownSubsumers.contains(parent))
@@ -68,15 +91,14 @@ public class QuasiOrderClassification {
                 Individual freshIndividual=Individual.createAnonymous("fresh-individual");
                 Map<Individual,Node> checkedNode=new HashMap<Individual,Node>();
                 checkedNode.put(freshIndividual,null);
-                boolean isSubsumedBy=!m_tableau.isSatisfiable(true,Collections.singleton(Atom.create(child,freshIndividual)),null,null,Collections.singleton(Atom.create(parent,freshIndividual)),checkedNode,getSubsumptionTestDescription(child,parent));
+                boolean isSubsumedBy=!tableau.isSatisfiable(true,Collections.singleton(Atom.create(child,freshIndividual)),null,null,Collections.singleton(Atom.create(parent,freshIndividual)),checkedNode,getSubsumptionTestDescription(child,parent));
                 if (!isSubsumedBy)
-                    prunePossibleSubsumers();
-                readKnownSubsumersFromRootNode(child, checkedNode.get(freshIndividual));
+                    prunePossibleSubsumers(tableau);
+                readKnownSubsumersFromRootNode(tableau,child,checkedNode.get(freshIndividual));
                 m_possibleSubsumptions.getSuccessors(child).removeAll(getAllKnownSubsumers(child));
                 return isSubsumedBy;
             }
         };
-        return buildHierarchy(relation);
     }
     protected Hierarchy<AtomicConcept> buildHierarchy(Relation<AtomicConcept> hierarchyRelation) {
     	double totalNumberOfTasks=m_elements.size();
@@ -113,7 +135,7 @@ public class QuasiOrderClassification {
             if (unclassifiedElements.isEmpty())
                 break;
             Set<AtomicConcept> unknownPossibleSubsumers=m_possibleSubsumptions.getSuccessors(unclassifiedElement);
-            if (!isEveryPossibleSubsumerNonSubsumer(unknownPossibleSubsumers,unclassifiedElement,2,7) && !unknownPossibleSubsumers.isEmpty()) {
+            if (!isEveryPossibleSubsumerNonSubsumer(m_tableau,unknownPossibleSubsumers,unclassifiedElement,2,7) && !unknownPossibleSubsumers.isEmpty()) {
 	            Hierarchy<AtomicConcept> smallHierarchy=buildHierarchyOfUnknownPossible(unknownPossibleSubsumers);
 	            checkUnknownSubsumersUsingEnhancedTraversal(hierarchyRelation,smallHierarchy.getTopNode(),unclassifiedElement);
             }
@@ -142,19 +164,44 @@ public class QuasiOrderClassification {
         Stack<HierarchyNode<AtomicConcept>> toProcess=new Stack<HierarchyNode<AtomicConcept>>();
         toProcess.addAll(hierarchy.getBottomNode().getParentNodes());
         Set<HierarchyNode<AtomicConcept>> unsatHierarchyNodes=new HashSet<HierarchyNode<AtomicConcept>>();
+        List<HierarchyNode<AtomicConcept>> batch=new ArrayList<HierarchyNode<AtomicConcept>>(m_batchSize);
+        List<AtomicConcept> batchConcepts=new ArrayList<AtomicConcept>(m_batchSize);
+        int numberOfConceptsToTestSeparately=0;
         while (!toProcess.empty()) {
-        	HierarchyNode<AtomicConcept> currentHierarchyElement=toProcess.pop();
-            AtomicConcept currentHierarchyConcept=currentHierarchyElement.getRepresentative();
-            if (conceptsProcessed < Math.ceil(totalNumberOfTasks*0.85)) {
-	            m_progressMonitor.elementClassified(currentHierarchyConcept);
-	            conceptsProcessed++;
+            batch.clear();
+            batchConcepts.clear();
+            int batchSize=(numberOfConceptsToTestSeparately>0 ? 1 : m_batchSize);
+            while (!toProcess.empty() && batch.size()<batchSize) {
+                HierarchyNode<AtomicConcept> currentHierarchyElement=toProcess.pop();
+                AtomicConcept currentHierarchyConcept=currentHierarchyElement.getRepresentative();
+                if (conceptsProcessed < Math.ceil(totalNumberOfTasks*0.85)) {
+                    m_progressMonitor.elementClassified(currentHierarchyConcept);
+                    conceptsProcessed++;
+                }
+                if (!conceptHasBeenProcessedAlready(currentHierarchyConcept) && !batchConcepts.contains(currentHierarchyConcept)) {
+                    batch.add(currentHierarchyElement);
+                    batchConcepts.add(currentHierarchyConcept);
+                }
+            }
+            if (batch.isEmpty())
+                continue;
+            if (numberOfConceptsToTestSeparately>0)
+                numberOfConceptsToTestSeparately--;
+            Node[] rootNodesOfModels=buildModelsForConcepts(m_tableau,batchConcepts);
+            if (rootNodesOfModels==null) {
+                // The batch could not be tested in one run, so its concepts are put back and tested one by one.
+                for (int index=batch.size()-1;index>=0;--index)
+                    toProcess.push(batch.get(index));
+                numberOfConceptsToTestSeparately=batch.size();
+                continue;
             }
-            if (!conceptHasBeenProcessedAlready(currentHierarchyConcept)) {
-                Node rootNodeOfModel=buildModelForConcept(currentHierarchyConcept);
+            boolean hasModel=false;
+            for (int index=0;index<batch.size();index++) {
+                HierarchyNode<AtomicConcept> currentHierarchyElement=batch.get(index);
                 // If the leaf was unsatisfable we go up to explore its parents, until a satisfiable parent is discovered. Each time a node is unsat this information is propagated downwards.
-                if (rootNodeOfModel==null) {
-                	makeConceptUnsatisfiable(currentHierarchyConcept);
-                	unsatHierarchyNodes.add(currentHierarchyElement);
+                if (rootNodesOfModels[index]==null) {
+                    makeConceptUnsatisfiable(batchConcepts.get(index));
+                    unsatHierarchyNodes.add(currentHierarchyElement);
                     toProcess.addAll(currentHierarchyElement.getParentNodes());
                     Set<HierarchyNode<AtomicConcept>> visited=new HashSet<HierarchyNode<AtomicConcept>>();
                     Queue<HierarchyNode<AtomicConcept>> toVisit=new LinkedList<HierarchyNode<AtomicConcept>>(currentHierarchyElement.getChildNodes());
@@ -175,21 +222,37 @@ public class QuasiOrderClassification {
                     // We cannot do rootNodeOfModel.getCanonicalNode() here. This is done
                     // in readKnownSubsumersFromRootNode(), but only if rootNodeOfModel
                     // has not been merged into another node, or if the merge was deterministic.
-                    readKnownSubsumersFromRootNode(currentHierarchyConcept,rootNodeOfModel);
-                    updatePossibleSubsumers();
+                    readKnownSubsumersFromRootNode(m_tableau,batchConcepts.get(index),rootNodesOfModels[index]);
+                    hasModel=true;
                 }
             }
+            // The tableau holds the models for all satisfiable concepts of the batch.
+            if (hasModel)
+                updatePossibleSubsumers(m_tableau);
         }
         return conceptsProcessed;
     }
-    private boolean conceptHasBeenProcessedAlready(AtomicConcept atConcept) {
+    protected boolean conceptHasBeenProcessedAlready(AtomicConcept atConcept) {
 		return !m_possibleSubsumptions.getSuccessors(atConcept).isEmpty() || isUnsatisfiable(atConcept);
 	}
-	protected Node buildModelForConcept(AtomicConcept concept) {
+    /**
+     * Builds models for the given concepts, in one run of the tableau if there are several concepts, and returns the
+     * root node of the model of each concept, or null if the concept is unsatisfiable. Returns null if the concepts
+     * could not be tested in one run.
+     */
+    protected Node[] buildModelsForConcepts(Tableau tableau,List<AtomicConcept> concepts) {
+        Node[] rootNodes=new Node[concepts.size()];
+        if (concepts.size()==1)
+            rootNodes[0]=buildModelForConcept(tableau,concepts.get(0));
+        else if (tableau.isSatisfiable(concepts,rootNodes,getBatchSatTestDescription(concepts))==null)
+            return null;
+        return rootNodes;
+    }
+	protected Node buildModelForConcept(Tableau tableau,AtomicConcept concept) {
         Individual freshIndividual=Individual.createAnonymous("fresh-individual");
         Map<Individual,Node> checkedNode=new HashMap<Individual,Node>();
         checkedNode.put(freshIndividual,null);
-        if (m_tableau.isSatisfiable(false,Collections.singleton(Atom.create(concept,freshIndividual)),null,null,null,checkedNode,getSatTestDescription(concept)))
+        if (tableau.isSatisfiable(false,Collections.singleton(Atom.create(concept,freshIndividual)),null,null,null,checkedNode,getSatTestDescription(concept)))
         	return checkedNode.get(freshIndividual);
         else
         	return null;
@@ -201,22 +264,22 @@ public class QuasiOrderClassification {
     protected boolean isUnsatisfiable(AtomicConcept concept) {
         return m_knownSubsumptions.getSuccessors(concept).contains(m_bottomElement);
     }
-    protected void readKnownSubsumersFromRootNode(AtomicConcept subconcept,Node checkedNode) {
-        if (checkedNode.getCanonicalNodeDependencySet().isEmpty()) {
+    protected void readKnownSubsumersFromRootNode(Tableau tableau,AtomicConcept subconcept,Node checkedNode) {
+        if (tableau.isDeterministicConsequence(checkedNode.getCanonicalNodeDependencySet())) {
             checkedNode=checkedNode.getCanonicalNode();
-            ExtensionTable.Retrieval retrieval=m_tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,true },ExtensionTable.View.TOTAL);
+            ExtensionTable.Retrieval retrieval=tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,true },ExtensionTable.View.TOTAL);
             retrieval.getBindingsBuffer()[1]=checkedNode;
             retrieval.open();
             while (!retrieval.afterLast()) {
                 Object conceptObject=retrieval.getTupleBuffer()[0];
-                if (conceptObject instanceof AtomicConcept && retrieval.getDependencySet().isEmpty() && m_elements.contains(conceptObject))
+                if (conceptObject instanceof AtomicConcept && tableau.isDeterministicConsequence(retrieval.getDependencySet()) && m_elements.contains(conceptObject))
                     addKnownSubsumption(subconcept,(AtomicConcept)conceptObject);
                 retrieval.next();
             }
         }
     }
-    protected void updatePossibleSubsumers() {
-        ExtensionTable.Retrieval retrieval=m_tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,false },ExtensionTable.View.TOTAL);
+    protected void updatePossibleSubsumers(Tableau tableau) {
+        ExtensionTable.Retrieval retrieval=tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,false },ExtensionTable.View.TOTAL);
         retrieval.open();
         Object[] tupleBuffer=retrieval.getTupleBuffer();
         while (!retrieval.afterLast()) {
@@ -226,16 +289,16 @@ public class QuasiOrderClassification {
                 Node node=(Node)tupleBuffer[1];
                 if (node.isActive() && !node.isBlocked()) {
                     if (m_possibleSubsumptions.getSuccessors(atomicConcept).isEmpty())
-                        readPossibleSubsumersFromNodeLabel(atomicConcept,node);
+                        readPossibleSubsumersFromNodeLabel(tableau,atomicConcept,node);
                     else
-                        prunePossibleSubsumersOfConcept(atomicConcept,node);
+                        prunePossibleSubsumersOfConcept(tableau,atomicConcept,node);
                 }
             }
             retrieval.next();
         }
     }
-    protected void prunePossibleSubsumers() {
-        ExtensionTable.Retrieval retrieval=m_tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,false },ExtensionTable.View.TOTAL);
+    protected void prunePossibleSubsumers(Tableau tableau) {
+        ExtensionTable.Retrieval retrieval=tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,false },ExtensionTable.View.TOTAL);
         retrieval.open();
         Object[] tupleBuffer=retrieval.getTupleBuffer();
         while (!retrieval.afterLast()) {
@@ -243,19 +306,19 @@ public class QuasiOrderClassification {
             if (conceptObject instanceof AtomicConcept && m_elements.contains(conceptObject)) {
                 Node node=(Node)tupleBuffer[1];
                 if (node.isActive() && !node.isBlocked())
-                    prunePossibleSubsumersOfConcept((AtomicConcept)conceptObject,node);
+                    prunePossibleSubsumersOfConcept(tableau,(AtomicConcept)conceptObject,node);
             }
             retrieval.next();
         }
     }
-    protected void prunePossibleSubsumersOfConcept(AtomicConcept atomicConcept,Node node) {
+    protected void prunePossibleSubsumersOfConcept(Tableau tableau,AtomicConcept atomicConcept,Node node) {
         Set<AtomicConcept> possibleSubsumersOfConcept=new HashSet<AtomicConcept>(m_possibleSubsumptions.getSuccessors(atomicConcept));
         for (AtomicConcept atomicCon : possibleSubsumersOfConcept)
-            if (!m_tableau.getExtensionManager().containsConceptAssertion(atomicCon,node))
+            if (!tableau.getExtensionManager().containsConceptAssertion(atomicCon,node))
                 m_possibleSubsumptions.getSuccessors(atomicConcept).remove(atomicCon);
     }
-    protected void readPossibleSubsumersFromNodeLabel(AtomicConcept atomicConcept,Node node) {
-        ExtensionTable.Retrieval retrieval=m_tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,true },ExtensionTable.View.TOTAL);
+    protected void readPossibleSubsumersFromNodeLabel(Tableau tableau,AtomicConcept atomicConcept,Node node) {
+        ExtensionTable.Retrieval retrieval=tableau.getExtensionManager().getBinaryExtensionTable().createRetrieval(new boolean[] { false,true },ExtensionTable.View.TOTAL);
         retrieval.getBindingsBuffer()[1]=node;
         retrieval.open();
         while (!retrieval.afterLast()) {
@@ -314,7 +377,7 @@ public class QuasiOrderClassification {
             }
         }
     }
-    protected boolean isEveryPossibleSubsumerNonSubsumer(Set<AtomicConcept> unknownPossibleSubsumers,AtomicConcept pickedElement,int lowerBound,int upperBound) {
+    protected boolean isEveryPossibleSubsumerNonSubsumer(Tableau tableau,Set<AtomicConcept> unknownPossibleSubsumers,AtomicConcept pickedElement,int lowerBound,int upperBound) {
         if (unknownPossibleSubsumers.size()>lowerBound && unknownPossibleSubsumers.size()<upperBound) {
             Individual freshIndividual=Individual.createAnonymous("fresh-individual");
             Atom subconceptAssertion=Atom.create(pickedElement,freshIndividual);
@@ -328,11 +391,11 @@ public class QuasiOrderClassification {
             }
             Map<Individual,Node> checkedNode=new HashMap<Individual,Node>();
             checkedNode.put(freshIndividual,null);
-            boolean isSubsumedBy=!m_tableau.isSatisfiable(false,Collections.singleton(subconceptAssertion),null,null,superconceptAssertions,checkedNode,getSubsumedByListTestDescription(pickedElement,superconcepts));
+            boolean isSubsumedBy=!tableau.isSatisfiable(false,Collections.singleton(subconceptAssertion),null,null,superconceptAssertions,checkedNode,getSubsumedByListTestDescription(pickedElement,superconcepts));
             if (!isSubsumedBy)
-                prunePossibleSubsumers();
+                prunePossibleSubsumers(tableau);
             else {
-            	readKnownSubsumersFromRootNode(pickedElement, checkedNode.get(freshIndividual));
+            	readKnownSubsumersFromRootNode(tableau,pickedElement,checkedNode.get(freshIndividual));
             	m_possibleSubsumptions.getSuccessors(pickedElement).removeAll(getAllKnownSubsumers(pickedElement));
             }
             return !isSubsumedBy;
@@ -354,6 +417,9 @@ public class QuasiOrderClassification {
     protected ReasoningTaskDescription getSatTestDescription(AtomicConcept atomicConcept) {
         return ReasoningTaskDescription.isConceptSatisfiable(atomicConcept);
     }
+    protected ReasoningTaskDescription getBatchSatTestDescription(List<AtomicConcept> atomicConcepts) {
+        return ReasoningTaskDescription.isConceptListSatisfiable(atomicConcepts.toArray());
+    }
     protected ReasoningTaskDescription getSubsumptionTestDescription(AtomicConcept subConcept,AtomicConcept superConcept) {
         return ReasoningTaskDescription.isConceptSubsumedBy(subConcept,superConcept);
     }
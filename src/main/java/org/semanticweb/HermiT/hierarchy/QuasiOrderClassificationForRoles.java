@@ -17,6 +17,7 @@
  */
 package org.semanticweb.HermiT.hierarchy;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -83,6 +84,12 @@ public class QuasiOrderClassificationForRoles extends QuasiOrderClassification {
     protected ReasoningTaskDescription getSatTestDescription(AtomicConcept atomicConcept) {
         return ReasoningTaskDescription.isRoleSatisfiable(m_rolesForConcepts.get(atomicConcept),true);
     }
+    protected ReasoningTaskDescription getBatchSatTestDescription(List<AtomicConcept> atomicConcepts) {
+        Object[] roles=new Object[atomicConcepts.size()];
+        for (int i=0;i<roles.length;i++)
+            roles[i]=m_rolesForConcepts.get(atomicConcepts.get(i));
+        return ReasoningTaskDescription.isRoleListSatisfiable(roles);
+    }
     protected ReasoningTaskDescription getSubsumptionTestDescription(AtomicConcept subConcept,AtomicConcept superConcept) {
         return ReasoningTaskDescription.isRoleSubsumedBy(m_rolesForConcepts.get(subConcept),m_rolesForConcepts.get(superConcept),true);
     }
@@ -0,0 +1,467 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.hierarchy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.HermiT.model.Atom;
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.model.AtomicRole;
+import org.semanticweb.HermiT.model.DLClause;
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.HermiT.model.Individual;
+import org.semanticweb.HermiT.model.InverseRole;
+import org.semanticweb.HermiT.model.Role;
+
+/**
+ * A binary snapshot of the results of reasoning with a DL-ontology: the consistency of the ontology, the class and
+ * property hierarchies, and the known and possible class instances and same-as equivalence classes of an instance
+ * manager. A snapshot is stored in a file whose name is a fingerprint of the DL-ontology, so that it is used only for
+ * a DL-ontology with the same clauses, facts, and signature.
+ */
+public class ReasoningSnapshot {
+    protected static final int FORMAT_VERSION=1;
+    protected static final String FILE_EXTENSION=".snapshot";
+    protected static final Charset UTF8=Charset.forName("UTF-8");
+
+    protected final File m_directory;
+    protected final String m_fingerprint;
+    protected Boolean m_isConsistent;
+    protected Hierarchy<AtomicConcept> m_atomicConceptHierarchy;
+    protected Hierarchy<Role> m_objectRoleHierarchy;
+    protected Hierarchy<AtomicRole> m_dataRoleHierarchy;
+    protected ClassInstances m_classInstances;
+
+    public ReasoningSnapshot(File directory,DLOntology dlOntology) {
+        m_directory=directory;
+        m_fingerprint=computeFingerprint(dlOntology);
+    }
+    public String getFingerprint() {
+        return m_fingerprint;
+    }
+    public Boolean isConsistent() {
+        return m_isConsistent;
+    }
+    public Hierarchy<AtomicConcept> getAtomicConceptHierarchy() {
+        return m_atomicConceptHierarchy;
+    }
+    public Hierarchy<Role> getObjectRoleHierarchy() {
+        return m_objectRoleHierarchy;
+    }
+    public Hierarchy<AtomicRole> getDataRoleHierarchy() {
+        return m_dataRoleHierarchy;
+    }
+    public boolean hasClassInstances() {
+        return m_classInstances!=null;
+    }
+    protected File getFile() {
+        return new File(m_directory,m_fingerprint+FILE_EXTENSION);
+    }
+    /**
+     * Reads the snapshot for the fingerprint of this object, if there is one. Returns true if the snapshot could be
+     * read; unreadable snapshots are removed.
+     */
+    public boolean load() {
+        File file=getFile();
+        if (!file.isFile())
+            return false;
+        try {
+            DataInputStream input=new DataInputStream(new BufferedInputStream(new FileInputStream(file),65536));
+            try {
+                if (input.readInt()!=FORMAT_VERSION || !m_fingerprint.equals(input.readUTF()))
+                    throw new IOException("Outdated snapshot.");
+                byte isConsistent=input.readByte();
+                m_isConsistent=(isConsistent==0 ? null : Boolean.valueOf(isConsistent==1));
+                m_atomicConceptHierarchy=readHierarchy(input,ATOMIC_CONCEPT_CODEC);
+                m_objectRoleHierarchy=readHierarchy(input,ROLE_CODEC);
+                m_dataRoleHierarchy=readHierarchy(input,ATOMIC_ROLE_CODEC);
+                if (input.readBoolean())
+                    m_classInstances=readClassInstances(input);
+                return true;
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (IOException e) {
+            m_isConsistent=null;
+            m_atomicConceptHierarchy=null;
+            m_objectRoleHierarchy=null;
+            m_dataRoleHierarchy=null;
+            m_classInstances=null;
+            file.delete();
+            return false;
+        }
+    }
+    /**
+     * Writes the given results to the snapshot file. Class instances are stored only if the instance manager has read
+     * them off w.r.t. the given class hierarchy. Failures are ignored because the snapshot is only an optimization.
+     */
+    public void store(Boolean isConsistent,Hierarchy<AtomicConcept> atomicConceptHierarchy,Hierarchy<Role> objectRoleHierarchy,Hierarchy<AtomicRole> dataRoleHierarchy,InstanceManager instanceManager) {
+        m_isConsistent=isConsistent;
+        m_atomicConceptHierarchy=atomicConceptHierarchy;
+        m_objectRoleHierarchy=objectRoleHierarchy;
+        m_dataRoleHierarchy=dataRoleHierarchy;
+        m_classInstances=null;
+        if (instanceManager!=null && atomicConceptHierarchy!=null && instanceManager.m_classesInitialised && !instanceManager.m_isInconsistent && instanceManager.m_currentConceptHierarchy==atomicConceptHierarchy)
+            m_classInstances=new ClassInstances(instanceManager);
+        File temporaryFile=null;
+        try {
+            if (!m_directory.isDirectory() && !m_directory.mkdirs())
+                return;
+            temporaryFile=File.createTempFile(m_fingerprint,".tmp",m_directory);
+            DataOutputStream output=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile),65536));
+            try {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(m_fingerprint);
+                output.writeByte(m_isConsistent==null ? 0 : (m_isConsistent.booleanValue() ? 1 : 2));
+                writeHierarchy(output,m_atomicConceptHierarchy,ATOMIC_CONCEPT_CODEC);
+                writeHierarchy(output,m_objectRoleHierarchy,ROLE_CODEC);
+                writeHierarchy(output,m_dataRoleHierarchy,ATOMIC_ROLE_CODEC);
+                output.writeBoolean(m_classInstances!=null);
+                if (m_classInstances!=null)
+                    writeClassInstances(output,m_classInstances);
+            }
+            finally {
+                output.close();
+            }
+            File file=getFile();
+            if (temporaryFile.renameTo(file) || (file.delete() && temporaryFile.renameTo(file)))
+                temporaryFile=null;
+        }
+        catch (IOException e) {
+            // The snapshot is only an optimization, so we just continue without storing it.
+        }
+        finally {
+            if (temporaryFile!=null)
+                temporaryFile.delete();
+        }
+    }
+    /**
+     * Initializes the class instances of the given instance manager from the snapshot. The instance manager must
+     * have been created with the class hierarchy of this snapshot.
+     */
+    public void restoreClassInstances(InstanceManager instanceManager) {
+        ClassInstances classInstances=m_classInstances;
+        instanceManager.m_conceptToElement.clear();
+        for (Map.Entry<AtomicConcept,AtomicConceptElement> entry : classInstances.m_conceptToElement.entrySet())
+            instanceManager.m_conceptToElement.put(entry.getKey(),new AtomicConceptElement(new HashSet<Individual>(entry.getValue().m_knownInstances),new HashSet<Individual>(entry.getValue().m_possibleInstances)));
+        Map<Set<Individual>,Set<Individual>> copies=new IdentityHashMap<Set<Individual>,Set<Individual>>();
+        for (Map.Entry<Individual,Set<Individual>> entry : classInstances.m_individualToEquivalenceClass.entrySet())
+            if (instanceManager.m_individualToEquivalenceClass.containsKey(entry.getKey()))
+                instanceManager.m_individualToEquivalenceClass.put(entry.getKey(),copy(entry.getValue(),copies));
+        instanceManager.m_individualToPossibleEquivalenceClass=new HashMap<Set<Individual>,Set<Set<Individual>>>();
+        for (Map.Entry<Set<Individual>,Set<Set<Individual>>> entry : classInstances.m_individualToPossibleEquivalenceClass.entrySet()) {
+            Set<Set<Individual>> possibleEquivalenceClasses=new HashSet<Set<Individual>>();
+            for (Set<Individual> possibleEquivalenceClass : entry.getValue())
+                possibleEquivalenceClasses.add(copy(possibleEquivalenceClass,copies));
+            instanceManager.m_individualToPossibleEquivalenceClass.put(copy(entry.getKey(),copies),possibleEquivalenceClasses);
+        }
+        instanceManager.m_readingOffFoundPossibleConceptInstance=classInstances.m_readingOffFoundPossibleConceptInstance;
+        instanceManager.m_realizationCompleted=classInstances.m_realizationCompleted;
+        instanceManager.m_classesInitialised=true;
+    }
+    protected static Set<Individual> copy(Set<Individual> set,Map<Set<Individual>,Set<Individual>> copies) {
+        // equivalence classes are shared between individuals, so each set is copied only once
+        Set<Individual> copy=copies.get(set);
+        if (copy==null) {
+            copy=new HashSet<Individual>(set);
+            copies.put(set,copy);
+        }
+        return copy;
+    }
+    protected static <E> void writeHierarchy(DataOutputStream output,Hierarchy<E> hierarchy,ElementCodec<E> codec) throws IOException {
+        output.writeBoolean(hierarchy!=null);
+        if (hierarchy!=null) {
+            Map<HierarchyNode<E>,Integer> nodeIndexes=new HashMap<HierarchyNode<E>,Integer>();
+            List<HierarchyNode<E>> nodes=new ArrayList<HierarchyNode<E>>(hierarchy.getAllNodesSet());
+            for (int index=0;index<nodes.size();index++)
+                nodeIndexes.put(nodes.get(index),index);
+            output.writeInt(nodes.size());
+            output.writeInt(nodeIndexes.get(hierarchy.getTopNode()));
+            output.writeInt(nodeIndexes.get(hierarchy.getBottomNode()));
+            for (HierarchyNode<E> node : nodes) {
+                codec.write(output,node.m_representative);
+                output.writeInt(node.m_equivalentElements.size()-1);
+                for (E element : node.m_equivalentElements)
+                    if (!element.equals(node.m_representative))
+                        codec.write(output,element);
+            }
+            for (HierarchyNode<E> node : nodes) {
+                output.writeInt(node.m_parentNodes.size());
+                for (HierarchyNode<E> parentNode : node.m_parentNodes)
+                    output.writeInt(nodeIndexes.get(parentNode));
+            }
+        }
+    }
+    protected static <E> Hierarchy<E> readHierarchy(DataInputStream input,ElementCodec<E> codec) throws IOException {
+        if (!input.readBoolean())
+            return null;
+        int numberOfNodes=input.readInt();
+        int topNodeIndex=input.readInt();
+        int bottomNodeIndex=input.readInt();
+        List<HierarchyNode<E>> nodes=new ArrayList<HierarchyNode<E>>(numberOfNodes);
+        for (int index=0;index<numberOfNodes;index++) {
+            HierarchyNode<E> node=new HierarchyNode<E>(codec.read(input));
+            for (int numberOfElements=input.readInt();numberOfElements>0;--numberOfElements)
+                node.m_equivalentElements.add(codec.read(input));
+            nodes.add(node);
+        }
+        for (HierarchyNode<E> node : nodes) {
+            for (int numberOfParents=input.readInt();numberOfParents>0;--numberOfParents) {
+                HierarchyNode<E> parentNode=nodes.get(input.readInt());
+                node.m_parentNodes.add(parentNode);
+                parentNode.m_childNodes.add(node);
+            }
+        }
+        Hierarchy<E> hierarchy=new Hierarchy<E>(nodes.get(topNodeIndex),nodes.get(bottomNodeIndex));
+        for (HierarchyNode<E> node : nodes)
+            for (E element : node.m_equivalentElements)
+                hierarchy.m_nodesByElements.put(element,node);
+        return hierarchy;
+    }
+    protected static void writeClassInstances(DataOutputStream output,ClassInstances classInstances) throws IOException {
+        Map<Individual,Integer> individualIndexes=new HashMap<Individual,Integer>();
+        Map<Set<Individual>,Integer> setIndexes=new IdentityHashMap<Set<Individual>,Integer>();
+        List<Set<Individual>> sets=new ArrayList<Set<Individual>>();
+        for (Set<Individual> set : classInstances.m_individualToEquivalenceClass.values())
+            addSet(set,setIndexes,sets);
+        for (Map.Entry<Set<Individual>,Set<Set<Individual>>> entry : classInstances.m_individualToPossibleEquivalenceClass.entrySet()) {
+            addSet(entry.getKey(),setIndexes,sets);
+            for (Set<Individual> set : entry.getValue())
+                addSet(set,setIndexes,sets);
+        }
+        List<Individual> individuals=new ArrayList<Individual>(classInstances.m_individualToEquivalenceClass.keySet());
+        for (Set<Individual> set : sets)
+            individuals.addAll(set);
+        for (AtomicConceptElement element : classInstances.m_conceptToElement.values()) {
+            individuals.addAll(element.m_knownInstances);
+            individuals.addAll(element.m_possibleInstances);
+        }
+        List<Individual> individualTable=new ArrayList<Individual>();
+        for (Individual individual : individuals)
+            if (!individualIndexes.containsKey(individual)) {
+                individualIndexes.put(individual,individualTable.size());
+                individualTable.add(individual);
+            }
+        output.writeInt(individualTable.size());
+        for (Individual individual : individualTable)
+            output.writeUTF(individual.getIRI());
+        output.writeInt(sets.size());
+        for (Set<Individual> set : sets)
+            writeIndividuals(output,set,individualIndexes);
+        output.writeInt(classInstances.m_individualToEquivalenceClass.size());
+        for (Map.Entry<Individual,Set<Individual>> entry : classInstances.m_individualToEquivalenceClass.entrySet()) {
+            output.writeInt(individualIndexes.get(entry.getKey()));
+            output.writeInt(setIndexes.get(entry.getValue()));
+        }
+        output.writeInt(classInstances.m_individualToPossibleEquivalenceClass.size());
+        for (Map.Entry<Set<Individual>,Set<Set<Individual>>> entry : classInstances.m_individualToPossibleEquivalenceClass.entrySet()) {
+            output.writeInt(setIndexes.get(entry.getKey()));
+            output.writeInt(entry.getValue().size());
+            for (Set<Individual> set : entry.getValue())
+                output.writeInt(setIndexes.get(set));
+        }
+        output.writeInt(classInstances.m_conceptToElement.size());
+        for (Map.Entry<AtomicConcept,AtomicConceptElement> entry : classInstances.m_conceptToElement.entrySet()) {
+            output.writeUTF(entry.getKey().getIRI());
+            writeIndividuals(output,entry.getValue().m_knownInstances,individualIndexes);
+            writeIndividuals(output,entry.getValue().m_possibleInstances,individualIndexes);
+        }
+        output.writeBoolean(classInstances.m_readingOffFoundPossibleConceptInstance);
+        output.writeBoolean(classInstances.m_realizationCompleted);
+    }
+    protected static void addSet(Set<Individual> set,Map<Set<Individual>,Integer> setIndexes,List<Set<Individual>> sets) {
+        if (!setIndexes.containsKey(set)) {
+            setIndexes.put(set,sets.size());
+            sets.add(set);
+        }
+    }
+    protected static void writeIndividuals(DataOutputStream output,Collection<Individual> individuals,Map<Individual,Integer> individualIndexes) throws IOException {
+        output.writeInt(individuals.size());
+        for (Individual individual : individuals)
+            output.writeInt(individualIndexes.get(individual));
+    }
+    protected static ClassInstances readClassInstances(DataInputStream input) throws IOException {
+        ClassInstances classInstances=new ClassInstances();
+        Individual[] individualTable=new Individual[input.readInt()];
+        for (int index=0;index<individualTable.length;index++)
+            individualTable[index]=Individual.create(input.readUTF());
+        List<Set<Individual>> sets=new ArrayList<Set<Individual>>();
+        for (int numberOfSets=input.readInt();numberOfSets>0;--numberOfSets)
+            sets.add(readIndividuals(input,individualTable));
+        for (int numberOfEntries=input.readInt();numberOfEntries>0;--numberOfEntries) {
+            Individual individual=individualTable[input.readInt()];
+            classInstances.m_individualToEquivalenceClass.put(individual,sets.get(input.readInt()));
+        }
+        for (int numberOfEntries=input.readInt();numberOfEntries>0;--numberOfEntries) {
+            Set<Individual> key=sets.get(input.readInt());
+            Set<Set<Individual>> possibleEquivalenceClasses=new HashSet<Set<Individual>>();
+            for (int numberOfClasses=input.readInt();numberOfClasses>0;--numberOfClasses)
+                possibleEquivalenceClasses.add(sets.get(input.readInt()));
+            classInstances.m_individualToPossibleEquivalenceClass.put(key,possibleEquivalenceClasses);
+        }
+        for (int numberOfEntries=input.readInt();numberOfEntries>0;--numberOfEntries) {
+            AtomicConcept atomicConcept=AtomicConcept.create(input.readUTF());
+            Set<Individual> knownInstances=readIndividuals(input,individualTable);
+            Set<Individual> possibleInstances=readIndividuals(input,individualTable);
+            classInstances.m_conceptToElement.put(atomicConcept,new AtomicConceptElement(knownInstances,possibleInstances));
+        }
+        classInstances.m_readingOffFoundPossibleConceptInstance=input.readBoolean();
+        classInstances.m_realizationCompleted=input.readBoolean();
+        return classInstances;
+    }
+    protected static Set<Individual> readIndividuals(DataInputStream input,Individual[] individualTable) throws IOException {
+        Set<Individual> individuals=new HashSet<Individual>();
+        for (int numberOfIndividuals=input.readInt();numberOfIndividuals>0;--numberOfIndividuals)
+            individuals.add(individualTable[input.readInt()]);
+        return individuals;
+    }
+    /**
+     * Computes a fingerprint of the given DL-ontology that is independent of the iteration order of its sets.
+     */
+    public static String computeFingerprint(DLOntology dlOntology) {
+        MessageDigest digest;
+        try {
+            digest=MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The SHA-256 message digest is not available.",e);
+        }
+        update(digest,"HermiT reasoning snapshot "+FORMAT_VERSION);
+        update(digest,dlOntology.getOntologyIRI());
+        List<String> strings=new ArrayList<String>();
+        for (DLClause dlClause : dlOntology.getDLClauses())
+            strings.add(dlClause.toString());
+        update(digest,"clauses",strings);
+        for (Atom atom : dlOntology.getPositiveFacts())
+            strings.add(atom.toString());
+        update(digest,"positive facts",strings);
+        for (Atom atom : dlOntology.getNegativeFacts())
+            strings.add(atom.toString());
+        update(digest,"negative facts",strings);
+        for (AtomicConcept atomicConcept : dlOntology.getAllAtomicConcepts())
+            strings.add(atomicConcept.getIRI());
+        update(digest,"atomic concepts",strings);
+        for (AtomicRole atomicRole : dlOntology.getAllAtomicObjectRoles())
+            strings.add(atomicRole.getIRI());
+        update(digest,"atomic object roles",strings);
+        for (AtomicRole atomicRole : dlOntology.getAllAtomicDataRoles())
+            strings.add(atomicRole.getIRI());
+        update(digest,"atomic data roles",strings);
+        for (Individual individual : dlOntology.getAllIndividuals())
+            strings.add(individual.getIRI());
+        update(digest,"individuals",strings);
+        StringBuilder fingerprint=new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(Character.forDigit((b>>4) & 0xF,16));
+            fingerprint.append(Character.forDigit(b & 0xF,16));
+        }
+        return fingerprint.toString();
+    }
+    protected static void update(MessageDigest digest,String section,List<String> strings) {
+        Collections.sort(strings);
+        update(digest,section+" "+strings.size());
+        for (String string : strings)
+            update(digest,string);
+        strings.clear();
+    }
+    protected static void update(MessageDigest digest,String string) {
+        digest.update(string.getBytes(UTF8));
+        digest.update((byte)0);
+    }
+
+    protected static class ClassInstances {
+        protected final Map<AtomicConcept,AtomicConceptElement> m_conceptToElement;
+        protected final Map<Individual,Set<Individual>> m_individualToEquivalenceClass;
+        protected final Map<Set<Individual>,Set<Set<Individual>>> m_individualToPossibleEquivalenceClass;
+        protected boolean m_readingOffFoundPossibleConceptInstance;
+        protected boolean m_realizationCompleted;
+
+        public ClassInstances() {
+            m_conceptToElement=new HashMap<AtomicConcept,AtomicConceptElement>();
+            m_individualToEquivalenceClass=new HashMap<Individual,Set<Individual>>();
+            m_individualToPossibleEquivalenceClass=new HashMap<Set<Individual>,Set<Set<Individual>>>();
+        }
+        public ClassInstances(InstanceManager instanceManager) {
+            m_conceptToElement=instanceManager.m_conceptToElement;
+            m_individualToEquivalenceClass=instanceManager.m_individualToEquivalenceClass;
+            m_individualToPossibleEquivalenceClass=instanceManager.m_individualToPossibleEquivalenceClass;
+            m_readingOffFoundPossibleConceptInstance=instanceManager.m_readingOffFoundPossibleConceptInstance;
+            m_realizationCompleted=instanceManager.m_realizationCompleted;
+        }
+    }
+
+    protected static interface ElementCodec<E> {
+        void write(DataOutputStream output,E element) throws IOException;
+        E read(DataInputStream input) throws IOException;
+    }
+
+    protected static final ElementCodec<AtomicConcept> ATOMIC_CONCEPT_CODEC=new ElementCodec<AtomicConcept>() {
+        public void write(DataOutputStream output,AtomicConcept atomicConcept) throws IOException {
+            output.writeUTF(atomicConcept.getIRI());
+        }
+        public AtomicConcept read(DataInputStream input) throws IOException {
+            return AtomicConcept.create(input.readUTF());
+        }
+    };
+    protected static final ElementCodec<AtomicRole> ATOMIC_ROLE_CODEC=new ElementCodec<AtomicRole>() {
+        public void write(DataOutputStream output,AtomicRole atomicRole) throws IOException {
+            output.writeUTF(atomicRole.getIRI());
+        }
+        public AtomicRole read(DataInputStream input) throws IOException {
+            return AtomicRole.create(input.readUTF());
+        }
+    };
+    protected static final ElementCodec<Role> ROLE_CODEC=new ElementCodec<Role>() {
+        public void write(DataOutputStream output,Role role) throws IOException {
+            if (role instanceof InverseRole) {
+                output.writeBoolean(true);
+                output.writeUTF(((InverseRole)role).getInverseOf().getIRI());
+            }
+            else {
+                output.writeBoolean(false);
+                output.writeUTF(((AtomicRole)role).getIRI());
+            }
+        }
+        public Role read(DataInputStream input) throws IOException {
+            boolean isInverse=input.readBoolean();
+            AtomicRole atomicRole=AtomicRole.create(input.readUTF());
+            return isInverse ? atomicRole.getInverse() : atomicRole;
+        }
+    };
+}
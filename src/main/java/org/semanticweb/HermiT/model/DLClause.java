@@ -18,7 +18,10 @@
 package org.semanticweb.HermiT.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.semanticweb.HermiT.Prefixes;
@@ -212,6 +215,39 @@ public class DLClause implements Serializable {
         }
         return false;
     }
+    /**
+     * Checks whether the body consists of atoms over atomic concepts and atomic roles that are connected through their
+     * variables; the node ID atoms of at-most clauses only restrict the matches and do not connect anything. The
+     * facts that match such a body all belong to one connected part of a tableau.
+     */
+    public boolean hasConnectedBody() {
+        List<Atom> atoms=new ArrayList<Atom>();
+        for (Atom atom : m_bodyAtoms) {
+            DLPredicate dlPredicate=atom.getDLPredicate();
+            if (dlPredicate instanceof AtomicConcept || dlPredicate instanceof AtomicRole)
+                atoms.add(atom);
+            else if (!(dlPredicate instanceof NodeIDLessEqualThan) && !(dlPredicate instanceof NodeIDsAscendingOrEqual))
+                return false;
+        }
+        if (atoms.size()<=1)
+            return true;
+        Set<Variable> reachedVariables=new HashSet<Variable>();
+        atoms.get(0).getVariables(reachedVariables);
+        boolean changed=true;
+        while (changed) {
+            changed=false;
+            for (int atomIndex=atoms.size()-1;atomIndex>=0;--atomIndex) {
+                Set<Variable> variables=new HashSet<Variable>();
+                atoms.get(atomIndex).getVariables(variables);
+                if (!Collections.disjoint(variables,reachedVariables)) {
+                    reachedVariables.addAll(variables);
+                    atoms.remove(atomIndex);
+                    changed=true;
+                }
+            }
+        }
+        return atoms.isEmpty();
+    }
     public String toString(Prefixes prefixes) {
         StringBuffer buffer=new StringBuffer();
         for (int headIndex=0;headIndex<m_headAtoms.length;headIndex++) {
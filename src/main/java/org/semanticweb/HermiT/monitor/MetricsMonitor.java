@@ -0,0 +1,289 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package org.semanticweb.HermiT.monitor;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.semanticweb.HermiT.tableau.BranchingPoint;
+import org.semanticweb.HermiT.tableau.DLClauseEvaluator;
+import org.semanticweb.HermiT.tableau.Node;
+import org.semanticweb.HermiT.tableau.ReasoningTaskDescription;
+import org.semanticweb.HermiT.tableau.ReasoningTaskDescription.StandardTestType;
+
+/**
+ * A tableau monitor that aggregates metrics per type of reasoning task, where the type is the message pattern
+ * of the ReasoningTaskDescription (e.g., StandardTestType.CONCEPT_SUBSUMPTION.messagePattern). The counters of
+ * the running test are kept in plain fields and are added to the shared metrics only when the test finishes, so
+ * the per-event overhead is a field increment. The metrics can be read at any time from any thread, e.g., by a
+ * Prometheus or JMX exporter; reading never blocks the reasoner.
+ */
+public class MetricsMonitor extends TableauMonitorAdapter {
+    private static final long serialVersionUID=-4183760420452861339L;
+
+    protected final ConcurrentMap<String,TaskMetrics> m_taskMetrics;
+    // current test
+    protected TaskMetrics m_currentTaskMetrics;
+    protected long m_testStartTime;
+    protected long m_datatypeCheckingStartTime;
+    protected long m_datatypeCheckingTime;
+    protected int m_numberOfDatatypeChecks;
+    protected int m_numberOfClashes;
+    protected int m_numberOfBacktrackings;
+    protected int m_numberOfBranchingPoints;
+    protected int m_maximalBranchingPointDepth;
+    protected long m_numberOfDLClauseMatches;
+    protected int m_numberOfNodesCreated;
+
+    public MetricsMonitor() {
+        m_taskMetrics=new ConcurrentHashMap<String,TaskMetrics>();
+    }
+    /**
+     * Returns a live, read-only view of the metrics by task type.
+     */
+    public Map<String,TaskMetrics> getTaskMetrics() {
+        return Collections.unmodifiableMap(m_taskMetrics);
+    }
+    /**
+     * Returns the metrics of the given task type or null if no such task has finished yet.
+     */
+    public TaskMetrics getTaskMetrics(StandardTestType testType) {
+        return m_taskMetrics.get(testType.messagePattern);
+    }
+    public TaskMetrics getTaskMetrics(String messagePattern) {
+        return m_taskMetrics.get(messagePattern);
+    }
+    public void reset() {
+        m_taskMetrics.clear();
+    }
+    public void isSatisfiableStarted(ReasoningTaskDescription reasoningTaskDescription) {
+        String messagePattern=reasoningTaskDescription.getMessagePattern();
+        TaskMetrics taskMetrics=m_taskMetrics.get(messagePattern);
+        if (taskMetrics==null) {
+            taskMetrics=new TaskMetrics(messagePattern);
+            TaskMetrics existing=m_taskMetrics.putIfAbsent(messagePattern,taskMetrics);
+            if (existing!=null)
+                taskMetrics=existing;
+        }
+        m_currentTaskMetrics=taskMetrics;
+        m_datatypeCheckingTime=0;
+        m_numberOfDatatypeChecks=0;
+        m_numberOfClashes=0;
+        m_numberOfBacktrackings=0;
+        m_numberOfBranchingPoints=0;
+        m_maximalBranchingPointDepth=0;
+        m_numberOfDLClauseMatches=0;
+        m_numberOfNodesCreated=0;
+        m_testStartTime=System.nanoTime();
+    }
+    public void isSatisfiableFinished(ReasoningTaskDescription reasoningTaskDescription,boolean result) {
+        long time=System.nanoTime()-m_testStartTime;
+        TaskMetrics taskMetrics=m_currentTaskMetrics;
+        if (taskMetrics!=null) {
+            if (reasoningTaskDescription.flipSatisfiabilityResult())
+                result=!result;
+            taskMetrics.m_numberOfTasks.incrementAndGet();
+            if (result)
+                taskMetrics.m_numberOfPositiveResults.incrementAndGet();
+            taskMetrics.m_time.record(time);
+            taskMetrics.m_branchingPointDepth.record(m_maximalBranchingPointDepth);
+            taskMetrics.m_numberOfClashes.addAndGet(m_numberOfClashes);
+            taskMetrics.m_numberOfBacktrackings.addAndGet(m_numberOfBacktrackings);
+            taskMetrics.m_numberOfBranchingPoints.addAndGet(m_numberOfBranchingPoints);
+            taskMetrics.m_numberOfDLClauseMatches.addAndGet(m_numberOfDLClauseMatches);
+            taskMetrics.m_numberOfNodesCreated.addAndGet(m_numberOfNodesCreated);
+            taskMetrics.m_numberOfDatatypeChecks.addAndGet(m_numberOfDatatypeChecks);
+            taskMetrics.m_datatypeCheckingTime.addAndGet(m_datatypeCheckingTime);
+            m_currentTaskMetrics=null;
+        }
+    }
+    public void dlClauseMatchedStarted(DLClauseEvaluator dlClauseEvaluator,int dlClauseIndex) {
+        m_numberOfDLClauseMatches++;
+    }
+    public void clashDetected() {
+        m_numberOfClashes++;
+    }
+    public void backtrackToFinished(BranchingPoint newCurrentBrancingPoint) {
+        m_numberOfBacktrackings++;
+    }
+    public void pushBranchingPointFinished(BranchingPoint branchingPoint) {
+        m_numberOfBranchingPoints++;
+        int depth=branchingPoint.getLevel()+1;
+        if (depth>m_maximalBranchingPointDepth)
+            m_maximalBranchingPointDepth=depth;
+    }
+    public void nodeCreated(Node node) {
+        m_numberOfNodesCreated++;
+    }
+    public void datatypeCheckingStarted() {
+        m_numberOfDatatypeChecks++;
+        m_datatypeCheckingStartTime=System.nanoTime();
+    }
+    public void datatypeCheckingFinished(boolean result) {
+        m_datatypeCheckingTime+=System.nanoTime()-m_datatypeCheckingStartTime;
+    }
+
+    /**
+     * The metrics of one type of reasoning task. All values are cumulative since the monitor was created or reset;
+     * times are in nanoseconds.
+     */
+    public static class TaskMetrics implements Serializable {
+        private static final long serialVersionUID=-1436893047596312733L;
+
+        protected final String m_messagePattern;
+        protected final AtomicLong m_numberOfTasks;
+        protected final AtomicLong m_numberOfPositiveResults;
+        protected final Histogram m_time;
+        protected final Histogram m_branchingPointDepth;
+        protected final AtomicLong m_numberOfClashes;
+        protected final AtomicLong m_numberOfBacktrackings;
+        protected final AtomicLong m_numberOfBranchingPoints;
+        protected final AtomicLong m_numberOfDLClauseMatches;
+        protected final AtomicLong m_numberOfNodesCreated;
+        protected final AtomicLong m_numberOfDatatypeChecks;
+        protected final AtomicLong m_datatypeCheckingTime;
+
+        public TaskMetrics(String messagePattern) {
+            m_messagePattern=messagePattern;
+            m_numberOfTasks=new AtomicLong();
+            m_numberOfPositiveResults=new AtomicLong();
+            m_time=new Histogram(1000L,24);
+            m_branchingPointDepth=new Histogram(1L,16);
+            m_numberOfClashes=new AtomicLong();
+            m_numberOfBacktrackings=new AtomicLong();
+            m_numberOfBranchingPoints=new AtomicLong();
+            m_numberOfDLClauseMatches=new AtomicLong();
+            m_numberOfNodesCreated=new AtomicLong();
+            m_numberOfDatatypeChecks=new AtomicLong();
+            m_datatypeCheckingTime=new AtomicLong();
+        }
+        public String getMessagePattern() {
+            return m_messagePattern;
+        }
+        public long getNumberOfTasks() {
+            return m_numberOfTasks.get();
+        }
+        /**
+         * Returns the number of tasks whose answer was positive, e.g., the number of subsumption tests that
+         * found a subsumption, as opposed to the raw satisfiability results.
+         */
+        public long getNumberOfPositiveResults() {
+            return m_numberOfPositiveResults.get();
+        }
+        public Histogram getTime() {
+            return m_time;
+        }
+        /**
+         * The maximal depth of the branching point stack reached by each task.
+         */
+        public Histogram getBranchingPointDepth() {
+            return m_branchingPointDepth;
+        }
+        public long getNumberOfClashes() {
+            return m_numberOfClashes.get();
+        }
+        public long getNumberOfBacktrackings() {
+            return m_numberOfBacktrackings.get();
+        }
+        public long getNumberOfBranchingPoints() {
+            return m_numberOfBranchingPoints.get();
+        }
+        public long getNumberOfDLClauseMatches() {
+            return m_numberOfDLClauseMatches.get();
+        }
+        public long getNumberOfNodesCreated() {
+            return m_numberOfNodesCreated.get();
+        }
+        public long getNumberOfDatatypeChecks() {
+            return m_numberOfDatatypeChecks.get();
+        }
+        public long getDatatypeCheckingTime() {
+            return m_datatypeCheckingTime.get();
+        }
+        public String toString() {
+            return m_messagePattern+": "+getNumberOfTasks()+" tasks, "+m_time.getSum()/1000000L+" ms, "+getNumberOfClashes()+" clashes, "+getNumberOfBacktrackings()+" backtrackings, "+getNumberOfDLClauseMatches()+" DL-clause matches";
+        }
+    }
+
+    /**
+     * A histogram with exponentially growing buckets: bucket 0 holds values up to the given first bound, and every
+     * further bucket doubles the bound; the last bucket is unbounded. Recording is lock-free.
+     */
+    public static class Histogram implements Serializable {
+        private static final long serialVersionUID=3017745906950254066L;
+
+        protected final long m_firstBound;
+        protected final AtomicLongArray m_bucketCounts;
+        protected final AtomicLong m_count;
+        protected final AtomicLong m_sum;
+        protected final AtomicLong m_max;
+
+        public Histogram(long firstBound,int numberOfBuckets) {
+            m_firstBound=firstBound;
+            m_bucketCounts=new AtomicLongArray(numberOfBuckets);
+            m_count=new AtomicLong();
+            m_sum=new AtomicLong();
+            m_max=new AtomicLong();
+        }
+        public void record(long value) {
+            int bucket=0;
+            long bound=m_firstBound;
+            while (value>bound && bucket<m_bucketCounts.length()-1) {
+                bound<<=1;
+                bucket++;
+            }
+            m_bucketCounts.incrementAndGet(bucket);
+            m_count.incrementAndGet();
+            m_sum.addAndGet(value);
+            long max=m_max.get();
+            while (value>max && !m_max.compareAndSet(max,value))
+                max=m_max.get();
+        }
+        public long getCount() {
+            return m_count.get();
+        }
+        public long getSum() {
+            return m_sum.get();
+        }
+        public long getMax() {
+            return m_max.get();
+        }
+        public int getNumberOfBuckets() {
+            return m_bucketCounts.length();
+        }
+        /**
+         * Returns the inclusive upper bound of the given bucket, or Long.MAX_VALUE for the last bucket.
+         */
+        public long getBucketUpperBound(int bucket) {
+            if (bucket==m_bucketCounts.length()-1)
+                return Long.MAX_VALUE;
+            return m_firstBound<<bucket;
+        }
+        /**
+         * Returns the number of values in the given bucket (not the cumulative count).
+         */
+        public long getBucketCount(int bucket) {
+            return m_bucketCounts.get(bucket);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.structural;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Prefixes;
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.owlapi.formats.PrefixDocumentFormat;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+/**
+ * Stores the DL-ontologies produced by the clausification in a directory on the local disk so that the preprocessing
+ * can be skipped when the same ontology is loaded again. Entries are keyed by a SHA-256 digest of the axioms in the
+ * imports closure, the prefixes of the root ontology, and the configuration options that influence the clausification.
+ * The cache is only an optimization: entries that cannot be read or written are ignored.
+ */
+public class DLOntologyCache {
+    protected static final int FORMAT_VERSION=1;
+    protected static final String FILE_EXTENSION=".dlo";
+    protected static final Charset UTF8=Charset.forName("UTF-8");
+
+    protected final File m_directory;
+
+    public DLOntologyCache(File directory) {
+        m_directory=directory;
+    }
+    public File getDirectory() {
+        return m_directory;
+    }
+    /**
+     * Computes the key under which the clausification of the given ontology is stored. Anonymous individuals are
+     * rendered with their node IDs, which can differ between two loads of the same document; for such ontologies the
+     * cache may miss, but it never returns a DL-ontology for different axioms.
+     */
+    public String computeKey(OWLOntology rootOntology,Configuration configuration) {
+        MessageDigest digest;
+        try {
+            digest=MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The SHA-256 message digest is not available.",e);
+        }
+        update(digest,"HermiT DL-ontology cache "+FORMAT_VERSION);
+        update(digest,"ignoreUnsupportedDatatypes="+configuration.ignoreUnsupportedDatatypes);
+        update(digest,"root="+rootOntology.getOntologyID().toString());
+        Map<String,OWLOntology> importClosure=new TreeMap<String,OWLOntology>();
+        for (OWLOntology ontology : rootOntology.getImportsClosure())
+            importClosure.put(ontology.getOntologyID().toString(),ontology);
+        for (Map.Entry<String,OWLOntology> entry : importClosure.entrySet()) {
+            update(digest,"ontology="+entry.getKey());
+            List<String> axioms=new ArrayList<String>();
+            for (OWLAxiom axiom : entry.getValue().getAxioms())
+                axioms.add(axiom.toString());
+            Collections.sort(axioms);
+            for (String axiom : axioms)
+                update(digest,axiom);
+        }
+        OWLDocumentFormat format=rootOntology.getOWLOntologyManager().getOntologyFormat(rootOntology);
+        if (format instanceof PrefixDocumentFormat) {
+            Map<String,String> prefixes=new TreeMap<String,String>(((PrefixDocumentFormat)format).getPrefixName2PrefixMap());
+            for (Map.Entry<String,String> entry : prefixes.entrySet())
+                update(digest,"prefix "+entry.getKey()+"="+entry.getValue());
+        }
+        StringBuilder key=new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b>>4) & 0xF,16));
+            key.append(Character.forDigit(b & 0xF,16));
+        }
+        return key.toString();
+    }
+    protected void update(MessageDigest digest,String string) {
+        digest.update(string.getBytes(UTF8));
+        digest.update((byte)0);
+    }
+    protected File getFile(String key) {
+        return new File(m_directory,key+FILE_EXTENSION);
+    }
+    /**
+     * Returns an array containing the cached DLOntology and Prefixes for the given key, or null if there is no usable
+     * entry. Corrupt or outdated entries are removed.
+     */
+    public Object[] load(String key) {
+        File file=getFile(key);
+        if (!file.isFile())
+            return null;
+        try {
+            ObjectInputStream input=new ObjectInputStream(new BufferedInputStream(new FileInputStream(file),65536));
+            try {
+                if (input.readInt()!=FORMAT_VERSION || !key.equals(input.readUTF()))
+                    throw new IOException("Outdated cache entry.");
+                DLOntology dlOntology=(DLOntology)input.readObject();
+                Prefixes prefixes=(Prefixes)input.readObject();
+                return new Object[] { dlOntology,prefixes };
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (IOException e) {
+            file.delete();
+            return null;
+        }
+        catch (ClassNotFoundException e) {
+            file.delete();
+            return null;
+        }
+        catch (ClassCastException e) {
+            file.delete();
+            return null;
+        }
+    }
+    /**
+     * Stores the given DLOntology and Prefixes under the given key. The entry is first written to a temporary file
+     * and then renamed, so concurrent readers never see a partially written entry.
+     */
+    public void store(String key,DLOntology dlOntology,Prefixes prefixes) {
+        File temporaryFile=null;
+        try {
+            if (!m_directory.isDirectory() && !m_directory.mkdirs())
+                return;
+            temporaryFile=File.createTempFile(key,".tmp",m_directory);
+            ObjectOutputStream output=new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile),65536));
+            try {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(key);
+                output.writeObject(dlOntology);
+                output.writeObject(prefixes);
+            }
+            finally {
+                output.close();
+            }
+            File file=getFile(key);
+            if (temporaryFile.renameTo(file) || (file.delete() && temporaryFile.renameTo(file)))
+                temporaryFile=null;
+        }
+        catch (IOException e) {
+            // The cache is only an optimization, so we just continue without storing the entry.
+        }
+        finally {
+            if (temporaryFile!=null)
+                temporaryFile.delete();
+        }
+    }
+}
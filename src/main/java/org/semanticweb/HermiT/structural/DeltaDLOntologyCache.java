@@ -0,0 +1,77 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.structural;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+/**
+ * Keeps the DL-ontologies clausified from the additional axioms of recent queries, so that a query for a class
+ * expression that was seen before does not normalize and clausify the expression again. The cache holds at most the
+ * given number of entries and evicts the least recently used one. The entries depend on the DL-ontology of the reasoner,
+ * so the cache must be cleared whenever that DL-ontology changes. All methods are synchronized.
+ */
+public class DeltaDLOntologyCache {
+    protected final int m_capacity;
+    protected final LinkedHashMap<Set<OWLAxiom>,DLOntology> m_deltaDLOntologies;
+    protected int m_numberOfHits;
+    protected int m_numberOfMisses;
+
+    public DeltaDLOntologyCache(int capacity) {
+        m_capacity=capacity;
+        m_deltaDLOntologies=new LinkedHashMap<Set<OWLAxiom>,DLOntology>(16,0.75f,true);
+    }
+    public int getCapacity() {
+        return m_capacity;
+    }
+    /**
+     * Returns the DL-ontology cached for the given set of additional axioms, or null if there is none.
+     */
+    public synchronized DLOntology get(Set<OWLAxiom> additionalAxioms) {
+        DLOntology deltaDLOntology=m_deltaDLOntologies.get(additionalAxioms);
+        if (deltaDLOntology==null)
+            m_numberOfMisses++;
+        else
+            m_numberOfHits++;
+        return deltaDLOntology;
+    }
+    public synchronized void put(Set<OWLAxiom> additionalAxioms,DLOntology deltaDLOntology) {
+        m_deltaDLOntologies.put(additionalAxioms,deltaDLOntology);
+        if (m_deltaDLOntologies.size()>m_capacity) {
+            Iterator<Set<OWLAxiom>> iterator=m_deltaDLOntologies.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+    public synchronized void clear() {
+        m_deltaDLOntologies.clear();
+    }
+    public synchronized int size() {
+        return m_deltaDLOntologies.size();
+    }
+    public synchronized int getNumberOfHits() {
+        return m_numberOfHits;
+    }
+    public synchronized int getNumberOfMisses() {
+        return m_numberOfMisses;
+    }
+}
@@ -55,7 +55,9 @@ import org.semanticweb.HermiT.model.Role;
 import org.semanticweb.HermiT.model.Term;
 import org.semanticweb.HermiT.model.Variable;
 import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLClassExpression;
@@ -157,6 +159,25 @@ public class OWLClausification {
         DLOntology dlOntology=clausify(factory,ontologyIRI,axioms,axiomsExpressivity,descriptionGraphs);
         return new Object[] { objectPropertyInclusionManager,dlOntology };
     }
+    /**
+     * Recreates the object property inclusion manager for an ontology whose DL-ontology has been obtained without
+     * preprocessing (e.g., from a DLOntologyCache). The automata depend only on the object property axioms and on
+     * whether owl:topObjectProperty is used, so only the RBox axioms are normalized.
+     */
+    public ObjectPropertyInclusionManager createObjectPropertyInclusionManager(OWLOntology rootOntology,DLOntology dlOntology) {
+        OWLDataFactory factory=rootOntology.getOWLOntologyManager().getOWLDataFactory();
+        OWLAxioms axioms=new OWLAxioms();
+        OWLNormalization normalization=new OWLNormalization(factory,axioms,0);
+        List<OWLAxiom> rboxAxioms=new ArrayList<OWLAxiom>();
+        for (OWLOntology ontology : rootOntology.getImportsClosure())
+            for (OWLAxiom axiom : ontology.getLogicalAxioms())
+                if (axiom.isOfType(AxiomType.RBoxAxiomTypes))
+                    rboxAxioms.add(axiom);
+        normalization.processAxioms(rboxAxioms);
+        if (dlOntology.getAllAtomicObjectRoles().contains(AtomicRole.TOP_OBJECT_ROLE))
+            new BuiltInPropertyManager(factory).axiomatizeTopObjectProperty(axioms);
+        return new ObjectPropertyInclusionManager(axioms);
+    }
     public DLOntology clausify(OWLDataFactory factory,String ontologyIRI,OWLAxioms axioms,OWLAxiomsExpressivity axiomsExpressivity,Collection<DescriptionGraph> descriptionGraphs) {
         Set<DLClause> dlClauses=new LinkedHashSet<DLClause>();
         Set<Atom> positiveFacts=new HashSet<Atom>();
@@ -0,0 +1,41 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+/**
+ * The branching point of one fact in a batched test. The fact depends only on this branching point, so a clash whose
+ * latest branching point is this one shows that the fact cannot be kept together with the facts loaded before it.
+ * The next choice drops the fact and reloads the facts that were loaded after it, whose facts have been removed by
+ * backtracking to this branching point as well.
+ */
+public final class BatchBranchingPoint extends BranchingPoint {
+    private static final long serialVersionUID=2953771356093318212L;
+
+    protected final int m_factIndex;
+
+    public BatchBranchingPoint(Tableau tableau,int factIndex) {
+        super(tableau);
+        m_factIndex=factIndex;
+    }
+    public int getFactIndex() {
+        return m_factIndex;
+    }
+    public void startNextChoice(Tableau tableau,DependencySet clashDependencySet) {
+        tableau.batchFactUnsatisfiable(m_factIndex,clashDependencySet);
+    }
+}
@@ -38,6 +38,12 @@ import org.semanticweb.HermiT.monitor.TableauMonitor;
 public class DLClauseEvaluator implements Serializable {
     private static final long serialVersionUID=4639844159658590456L;
     protected static final String CRLF=System.getProperty("line.separator");
+    /**
+     * If this tableau parameter is Boolean.TRUE, the body atoms that bind variables occurring neither in the head nor
+     * in the remaining body atoms are evaluated as existence checks, that is, only their first match is considered.
+     * The projection is not applied if the existential expansion strategy computes the core variables for each match.
+     */
+    public static final String HEAD_FREE_VARIABLE_PROJECTION_PARAMETER="DLClauseEvaluator.headFreeVariableProjection";
 
     protected final InterruptFlag m_interruptFlag;
     protected final ExtensionManager m_extensionManager;
@@ -47,9 +53,17 @@ public class DLClauseEvaluator implements Serializable {
     protected final List<DLClause> m_headDLClauses;
 
     public DLClauseEvaluator(Tableau tableau,DLClause bodyDLClause,List<DLClause> headDLClauses,ExtensionTable.Retrieval firstAtomRetrieval,BufferSupply bufferSupply,ValuesBufferManager valuesBufferManager,GroundDisjunctionHeaderManager groundDisjunctionHeaderManager,Map<Integer,UnionDependencySet> unionDependencySetsBySize) {
+        this(tableau,bodyDLClause,headDLClauses,firstAtomRetrieval,bufferSupply,valuesBufferManager,groundDisjunctionHeaderManager,unionDependencySetsBySize,null);
+    }
+    /**
+     * If derivationBuffer is not null, the evaluator does not modify the tableau; instead, the derived facts, clashes,
+     * and ground disjunctions are recorded in the buffer so that the evaluator can run on a separate thread.
+     */
+    public DLClauseEvaluator(Tableau tableau,DLClause bodyDLClause,List<DLClause> headDLClauses,ExtensionTable.Retrieval firstAtomRetrieval,BufferSupply bufferSupply,ValuesBufferManager valuesBufferManager,GroundDisjunctionHeaderManager groundDisjunctionHeaderManager,Map<Integer,UnionDependencySet> unionDependencySetsBySize,DerivationBuffer derivationBuffer) {
         m_interruptFlag=tableau.m_interruptFlag;
         m_extensionManager=tableau.m_extensionManager;
-        DLClauseCompiler compiler=new DLClauseCompiler(bufferSupply,valuesBufferManager,groundDisjunctionHeaderManager,unionDependencySetsBySize,this,m_extensionManager,tableau.getExistentialsExpansionStrategy(),bodyDLClause,headDLClauses,firstAtomRetrieval);
+        boolean projectHeadFreeVariables=Boolean.TRUE.equals(tableau.getParameters().get(HEAD_FREE_VARIABLE_PROJECTION_PARAMETER)) && !tableau.getExistentialsExpansionStrategy().computesCoreVariablesPerMatch();
+        DLClauseCompiler compiler=new DLClauseCompiler(bufferSupply,valuesBufferManager,groundDisjunctionHeaderManager,unionDependencySetsBySize,this,m_extensionManager,tableau.getExistentialsExpansionStrategy(),bodyDLClause,headDLClauses,firstAtomRetrieval,derivationBuffer,projectHeadFreeVariables);
         m_retrievals=new ExtensionTable.Retrieval[compiler.m_retrievals.size()];
         compiler.m_retrievals.toArray(m_retrievals);
         m_workers=new Worker[compiler.m_workers.size()];
@@ -190,8 +204,16 @@ public class DLClauseEvaluator implements Serializable {
         protected GroundDisjunctionHeader[] m_buckets;
         protected int m_numberOfElements;
         protected int m_threshold;
+        protected final DisjunctionStatistics m_disjunctionStatistics;
 
         public GroundDisjunctionHeaderManager() {
+            this(null);
+        }
+        /**
+         * @param disjunctionStatistics     the store that new headers take their numbers of backtrackings from; may be null
+         */
+        public GroundDisjunctionHeaderManager(DisjunctionStatistics disjunctionStatistics) {
+            m_disjunctionStatistics=disjunctionStatistics;
             m_buckets=new GroundDisjunctionHeader[1024];
             m_threshold=(int)(m_buckets.length*0.75);
             m_numberOfElements=0;
@@ -207,7 +229,9 @@ public class DLClauseEvaluator implements Serializable {
                     return entry;
                 entry=entry.m_nextEntry;
             }
-            entry=new GroundDisjunctionHeader(dlPredicates,hashCode,entry);
+            entry=new GroundDisjunctionHeader(dlPredicates,hashCode,m_buckets[bucketIndex]);
+            if (m_disjunctionStatistics!=null)
+                entry.applyStatistics(m_disjunctionStatistics.getNumbersOfBacktrackings(dlPredicates));
             m_buckets[bucketIndex]=entry;
             m_numberOfElements++;
             if (m_numberOfElements>=m_threshold)
@@ -671,6 +695,96 @@ public class DLClauseEvaluator implements Serializable {
         }
     }
 
+    protected static final class BufferClash implements Worker,Serializable {
+        private static final long serialVersionUID=2316410237540213786L;
+
+        protected final DerivationBuffer m_derivationBuffer;
+        protected final DependencySet m_dependencySet;
+
+        public BufferClash(DerivationBuffer derivationBuffer,DependencySet dependencySet) {
+            m_derivationBuffer=derivationBuffer;
+            m_dependencySet=dependencySet;
+        }
+        public int execute(int programCounter) {
+            m_derivationBuffer.addClash(m_dependencySet);
+            return programCounter+1;
+        }
+        public String toString() {
+            return "Buffer clash";
+        }
+    }
+
+    protected static final class BufferFact implements Worker,Serializable {
+        private static final long serialVersionUID=-6402393216508617335L;
+
+        protected final DerivationBuffer m_derivationBuffer;
+        protected final Object[] m_valuesBuffer;
+        protected final boolean[] m_coreVariables;
+        protected final DependencySet m_dependencySet;
+        protected final DLPredicate m_dlPredicate;
+        protected final int[] m_argumentIndexes;
+
+        public BufferFact(DerivationBuffer derivationBuffer,Object[] valuesBuffer,boolean[] coreVariables,DependencySet dependencySet,DLPredicate dlPredicate,int[] argumentIndexes) {
+            m_derivationBuffer=derivationBuffer;
+            m_valuesBuffer=valuesBuffer;
+            m_coreVariables=coreVariables;
+            m_dependencySet=dependencySet;
+            m_dlPredicate=dlPredicate;
+            m_argumentIndexes=argumentIndexes;
+        }
+        public int execute(int programCounter) {
+            Node[] arguments=new Node[m_argumentIndexes.length];
+            for (int argumentIndex=m_argumentIndexes.length-1;argumentIndex>=0;--argumentIndex)
+                arguments[argumentIndex]=(Node)m_valuesBuffer[m_argumentIndexes[argumentIndex]];
+            boolean isCore=(m_argumentIndexes.length==1 ? m_coreVariables[m_argumentIndexes[0]] : true);
+            m_derivationBuffer.addFact(m_dlPredicate,arguments,m_dependencySet,isCore);
+            return programCounter+1;
+        }
+        public String toString() {
+            return "Buffer fact";
+        }
+    }
+
+    protected static final class BufferDisjunction implements Worker,Serializable {
+        private static final long serialVersionUID=4409825147719524068L;
+
+        protected final DerivationBuffer m_derivationBuffer;
+        protected final Object[] m_valuesBuffer;
+        protected final boolean[] m_coreVariables;
+        protected final DependencySet m_dependencySet;
+        protected final GroundDisjunctionHeader m_groundDisjunctionHeader;
+        protected final int[] m_copyIsCore;
+        protected final int[] m_copyValuesToArguments;
+
+        public BufferDisjunction(DerivationBuffer derivationBuffer,Object[] valuesBuffer,boolean[] coreVariables,DependencySet dependencySet,GroundDisjunctionHeader groundDisjunctionHeader,int[] copyIsCore,int[] copyValuesToArguments) {
+            m_derivationBuffer=derivationBuffer;
+            m_valuesBuffer=valuesBuffer;
+            m_coreVariables=coreVariables;
+            m_dependencySet=dependencySet;
+            m_groundDisjunctionHeader=groundDisjunctionHeader;
+            m_copyIsCore=copyIsCore;
+            m_copyValuesToArguments=copyValuesToArguments;
+        }
+        public int execute(int programCounter) {
+            Node[] arguments=new Node[m_copyValuesToArguments.length];
+            for (int argumentIndex=m_copyValuesToArguments.length-1;argumentIndex>=0;--argumentIndex)
+                arguments[argumentIndex]=(Node)m_valuesBuffer[m_copyValuesToArguments[argumentIndex]];
+            boolean[] isCore=new boolean[m_copyIsCore.length];
+            for (int copyIndex=m_copyIsCore.length-1;copyIndex>=0;--copyIndex) {
+                int copyFrom=m_copyIsCore[copyIndex];
+                if (copyFrom==-1)
+                    isCore[copyIndex]=true;
+                else
+                    isCore[copyIndex]=m_coreVariables[copyFrom];
+            }
+            m_derivationBuffer.addGroundDisjunction(m_groundDisjunctionHeader,arguments,isCore,m_dependencySet);
+            return programCounter+1;
+        }
+        public String toString() {
+            return "Buffer disjunction";
+        }
+    }
+
     protected static final class DLClauseCompiler extends ConjunctionCompiler {
         protected final DLClauseEvaluator m_dlClauseEvalautor;
         protected final GroundDisjunctionHeaderManager m_groundDisjunctionHeaderManager;
@@ -678,8 +792,9 @@ public class DLClauseEvaluator implements Serializable {
         protected final DLClause m_bodyDLClause;
         protected final List<DLClause> m_headDLClauses;
         protected final boolean[] m_coreVariables;
+        protected final DerivationBuffer m_derivationBuffer;
 
-        public DLClauseCompiler(BufferSupply bufferSupply,ValuesBufferManager valuesBufferManager,GroundDisjunctionHeaderManager groundDisjunctionHeaderManager,Map<Integer,UnionDependencySet> unionDependencySetsBySize,DLClauseEvaluator dlClauseEvalautor,ExtensionManager extensionManager,ExistentialExpansionStrategy existentialExpansionStrategy,DLClause bodyDLClause,List<DLClause> headDLClauses,ExtensionTable.Retrieval firstAtomRetrieval) {
+        public DLClauseCompiler(BufferSupply bufferSupply,ValuesBufferManager valuesBufferManager,GroundDisjunctionHeaderManager groundDisjunctionHeaderManager,Map<Integer,UnionDependencySet> unionDependencySetsBySize,DLClauseEvaluator dlClauseEvalautor,ExtensionManager extensionManager,ExistentialExpansionStrategy existentialExpansionStrategy,DLClause bodyDLClause,List<DLClause> headDLClauses,ExtensionTable.Retrieval firstAtomRetrieval,DerivationBuffer derivationBuffer,boolean projectHeadFreeVariables) {
             super(bufferSupply,valuesBufferManager,unionDependencySetsBySize,extensionManager,bodyDLClause.getBodyAtoms(),getHeadVariables(headDLClauses));
             m_groundDisjunctionHeaderManager=groundDisjunctionHeaderManager;
             m_dlClauseEvalautor=dlClauseEvalautor;
@@ -687,6 +802,8 @@ public class DLClauseEvaluator implements Serializable {
             m_bodyDLClause=bodyDLClause;
             m_headDLClauses=headDLClauses;
             m_coreVariables=new boolean[m_variables.size()];
+            m_derivationBuffer=derivationBuffer;
+            m_projectHeadFreeVariables=projectHeadFreeVariables;
             generateCode(1,firstAtomRetrieval);
         }
         protected int getNumberOfHeads() {
@@ -703,8 +820,21 @@ public class DLClauseEvaluator implements Serializable {
             for (int dlClauseIndex=0;dlClauseIndex<getNumberOfHeads();dlClauseIndex++) {
                 if (m_extensionManager.m_tableauMonitor!=null)
                     m_workers.add(new CallMatchStartedOnMonitor(m_extensionManager.m_tableauMonitor,m_dlClauseEvalautor,dlClauseIndex));
-                if (getHeadLength(dlClauseIndex)==0)
-                    m_workers.add(new SetClash(m_extensionManager,m_unionDependencySet));
+                if (getHeadLength(dlClauseIndex)==0) {
+                    if (m_derivationBuffer!=null)
+                        m_workers.add(new BufferClash(m_derivationBuffer,m_unionDependencySet));
+                    else
+                        m_workers.add(new SetClash(m_extensionManager,m_unionDependencySet));
+                }
+                else if (getHeadLength(dlClauseIndex)==1 && m_derivationBuffer!=null) {
+                    Atom atom=getHeadAtom(dlClauseIndex,0);
+                    if (atom.getArity()>3)
+                        throw new IllegalArgumentException("Unsupported atom arity.");
+                    int[] argumentIndexes=new int[atom.getArity()];
+                    for (int argumentIndex=0;argumentIndex<atom.getArity();argumentIndex++)
+                        argumentIndexes[argumentIndex]=m_variables.indexOf(atom.getArgumentVariable(argumentIndex));
+                    m_workers.add(new BufferFact(m_derivationBuffer,m_valuesBufferManager.m_valuesBuffer,m_coreVariables,m_unionDependencySet,atom.getDLPredicate(),argumentIndexes));
+                }
                 else if (getHeadLength(dlClauseIndex)==1) {
                     Atom atom=getHeadAtom(dlClauseIndex,0);
                     switch (atom.getArity()) {
@@ -746,7 +876,10 @@ public class DLClauseEvaluator implements Serializable {
                             copyIsCore[headIndex]=-1;
                     }
                     GroundDisjunctionHeader groundDisjunctionHeader=m_groundDisjunctionHeaderManager.get(headDLPredicates);
-                    m_workers.add(new DeriveDisjunction(m_valuesBufferManager.m_valuesBuffer,m_coreVariables,m_unionDependencySet,m_extensionManager.m_tableau,groundDisjunctionHeader,copyIsCore,copyValuesToArguments));
+                    if (m_derivationBuffer!=null)
+                        m_workers.add(new BufferDisjunction(m_derivationBuffer,m_valuesBufferManager.m_valuesBuffer,m_coreVariables,m_unionDependencySet,groundDisjunctionHeader,copyIsCore,copyValuesToArguments));
+                    else
+                        m_workers.add(new DeriveDisjunction(m_valuesBufferManager.m_valuesBuffer,m_coreVariables,m_unionDependencySet,m_extensionManager.m_tableau,groundDisjunctionHeader,copyIsCore,copyValuesToArguments));
                 }
                 if (m_extensionManager.m_tableauMonitor!=null)
                     m_workers.add(new CallMatchFinishedOnMonitor(m_extensionManager.m_tableauMonitor,m_dlClauseEvalautor,dlClauseIndex));
@@ -773,18 +906,23 @@ public class DLClauseEvaluator implements Serializable {
         protected final ValuesBufferManager m_valuesBufferManager;
         protected final ExtensionManager m_extensionManager;
         protected final Atom[] m_bodyAtoms;
+        protected final List<Variable> m_headVariables;
         protected final List<Variable> m_variables;
         protected final Set<Variable> m_boundSoFar;
         protected final UnionDependencySet m_unionDependencySet;
         protected final List<ExtensionTable.Retrieval> m_retrievals;
         public final List<Worker> m_workers;
         protected final List<Integer> m_labels;
+        protected boolean m_projectHeadFreeVariables;
+        protected int m_existentialBlockEnd;
+        protected int m_existentialBlockExit;
 
         public ConjunctionCompiler(BufferSupply bufferSupply,ValuesBufferManager valuesBufferManager,Map<Integer,UnionDependencySet> unionDependencySetsBySize,ExtensionManager extensionManager,Atom[] bodyAtoms,List<Variable> headVariables) {
             m_bufferSupply=bufferSupply;
             m_valuesBufferManager=valuesBufferManager;
             m_extensionManager=extensionManager;
             m_bodyAtoms=bodyAtoms;
+            m_headVariables=headVariables;
             m_variables=new ArrayList<Variable>();
             m_boundSoFar=new HashSet<Variable>();
             int numberOfRealAtoms=0;
@@ -815,6 +953,7 @@ public class DLClauseEvaluator implements Serializable {
             m_retrievals=new ArrayList<ExtensionTable.Retrieval>();
             m_workers=new ArrayList<Worker>();
             m_labels=new ArrayList<Integer>();
+            m_existentialBlockEnd=-1;
         }
         protected final void generateCode(int firstBodyAtomToCompile,ExtensionTable.Retrieval firstAtomRetrieval) {
             m_labels.add(null);
@@ -844,8 +983,44 @@ public class DLClauseEvaluator implements Serializable {
                     return true;
             return false;
         }
+        /**
+         * Returns the index of the last atom of the smallest block of atoms starting at the given atom such that
+         * the variables first bound in the block occur neither after the block nor in the head, or -1 if the atom
+         * binds no new variables or there is no such block. The remaining atoms and the heads do not depend on
+         * how the block is matched, so a single match of the block suffices.
+         */
+        protected final int getExistentialBlockEnd(int bodyAtomIndex) {
+            Set<Variable> blockVariables=new HashSet<Variable>();
+            for (int blockAtomIndex=bodyAtomIndex;blockAtomIndex<getBodyLength();blockAtomIndex++) {
+                Atom atom=getBodyAtom(blockAtomIndex);
+                for (int argumentIndex=0;argumentIndex<atom.getArity();argumentIndex++) {
+                    Variable variable=atom.getArgumentVariable(argumentIndex);
+                    if (variable!=null && !m_boundSoFar.contains(variable))
+                        blockVariables.add(variable);
+                }
+                if (blockVariables.isEmpty())
+                    return -1;
+                boolean blockVariableOccursLater=false;
+                for (Variable variable : blockVariables)
+                    if (m_headVariables.contains(variable) || occursInBodyAtomsAfter(variable,blockAtomIndex+1)) {
+                        blockVariableOccursLater=true;
+                        break;
+                    }
+                if (!blockVariableOccursLater)
+                    return blockAtomIndex;
+            }
+            return -1;
+        }
         protected final void compileBodyAtom(int bodyAtomIndex,int lastAtomNextElement) {
-            if (bodyAtomIndex==getBodyLength())
+            if (m_existentialBlockEnd!=-1 && bodyAtomIndex==m_existentialBlockEnd+1) {
+                // The code after an existential block is left as soon as it is done: a failure or a completed match
+                // leaves the loop of the block's first atom since another match of the block cannot change the outcome.
+                int existentialBlockExit=m_existentialBlockExit;
+                m_existentialBlockEnd=-1;
+                compileBodyAtom(bodyAtomIndex,existentialBlockExit);
+                m_workers.add(new JumpTo(existentialBlockExit));
+            }
+            else if (bodyAtomIndex==getBodyLength())
                 compileHeads();
             else if (getBodyAtom(bodyAtomIndex).getDLPredicate().equals(NodeIDLessEqualThan.INSTANCE)) {
                 Atom atom=getBodyAtom(bodyAtomIndex);
@@ -881,6 +1056,10 @@ public class DLClauseEvaluator implements Serializable {
                 //
                 // NodeIDLessEqualThan and NodeIDsAscendingOrEqual atoms are compiled such that they
                 // immediately jump to the next element of the previous regular atom.
+                //
+                // If the variables first bound by the atom (and possibly a few subsequent atoms) do not occur
+                // in the rest of the body or in the head, the atom starts an existential block: the code after
+                // the block is followed by a jump to afterLoop, so the block is evaluated as an existence check.
 
                 int afterLoop=addLabel();
                 int nextElement=addLabel();
@@ -898,6 +1077,13 @@ public class DLClauseEvaluator implements Serializable {
                     else
                         bindingPositions[argumentIndex+1]=m_valuesBufferManager.m_bodyNonvariableTermsToIndexes.get(term).intValue();
                 }
+                if (m_projectHeadFreeVariables && m_existentialBlockEnd==-1) {
+                    int existentialBlockEnd=getExistentialBlockEnd(bodyAtomIndex);
+                    if (existentialBlockEnd!=-1) {
+                        m_existentialBlockEnd=existentialBlockEnd;
+                        m_existentialBlockExit=afterLoop;
+                    }
+                }
                 ExtensionTable.Retrieval retrieval=m_extensionManager.getExtensionTable(atom.getArity()+1).createRetrieval(bindingPositions,m_valuesBufferManager.m_valuesBuffer,m_bufferSupply.getBuffer(atom.getArity()+1),false,ExtensionTable.View.EXTENSION_THIS);
                 m_retrievals.add(retrieval);
                 m_workers.add(new OpenRetrieval(retrieval));
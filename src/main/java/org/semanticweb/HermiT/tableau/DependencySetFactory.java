@@ -29,9 +29,22 @@ import java.util.List;
  * UnionDependencySet and they can be created directly. If a temporary 
  * dependency sets is used more frequently, it can be turned into a permanent 
  * one by this factory.
+ * 
+ * If the factory uses bit sets, the permanent dependency sets that take part in 
+ * unions also store their branching points as a bit set, and these sets are 
+ * additionally hash-consed by their bit sets. Unions, additions, and removals 
+ * of branching points are then computed word by word and looked up by their 
+ * bits rather than by merging the chains of the sets, which pays off when there 
+ * are thousands of open branching points. Bit sets are attached lazily since 
+ * storing one for every suffix of every chain would take quadratic memory.
  */
 public final class DependencySetFactory implements Serializable {
     private static final long serialVersionUID=8632867055646817311L;
+    /**
+     * If this tableau parameter is Boolean.TRUE, the factory uses bit sets to compute and intern dependency sets.
+     */
+    public static final String BIT_SET_DEPENDENCY_SETS_PARAMETER="DependencySetFactory.bitSetDependencySets";
+    protected static final long[] NO_BITS=new long[0];
 
     protected final IntegerArray m_mergeArray;
     protected final List<PermanentDependencySet> m_mergeSets;
@@ -42,15 +55,30 @@ public final class DependencySetFactory implements Serializable {
     protected PermanentDependencySet[] m_entries;
     protected int m_size;
     protected int m_resizeThreshold;
+    protected final boolean m_useBitSets;
+    protected PermanentDependencySet[] m_bitsEntries;
+    protected long[] m_bitsBuffer;
+    protected int m_bitsBufferLength;
+    protected int[] m_bitsPrefixHashCodes;
+    protected int m_sizeOfBits;
 
     public DependencySetFactory() {
+        this(false);
+    }
+    public DependencySetFactory(boolean useBitSets) {
+        m_useBitSets=useBitSets;
+        m_bitsBuffer=new long[16];
+        m_bitsPrefixHashCodes=new int[17];
         m_mergeArray=new IntegerArray();
         m_mergeSets=new ArrayList<PermanentDependencySet>();
         m_unprocessedSets=new ArrayList<UnionDependencySet>();
         clear();
     }
     public int sizeInMemory() {
-        return m_entries.length*4+m_size*20;
+        return m_entries.length*4+m_size*20+(m_useBitSets ? m_bitsEntries.length*4+m_size*8+m_sizeOfBits*8 : 0);
+    }
+    public boolean usesBitSets() {
+        return m_useBitSets;
     }
     public void clear() {
         m_mergeArray.clear();
@@ -62,11 +90,16 @@ public final class DependencySetFactory implements Serializable {
         m_emptySet.m_rest=null;
         m_emptySet.m_previousUnusedSet=null;
         m_emptySet.m_nextUnusedSet=null;
+        if (m_useBitSets)
+            m_emptySet.m_bits=NO_BITS;
         m_firstUnusedSet=null;
         m_firstDestroyedSet=null;
         m_entries=new PermanentDependencySet[16];
         m_resizeThreshold=(int)(m_entries.length*0.75);
         m_size=0;
+        if (m_useBitSets)
+            m_bitsEntries=new PermanentDependencySet[16];
+        m_sizeOfBits=0;
     }
     public PermanentDependencySet emptySet() {
         return m_emptySet;
@@ -96,6 +129,13 @@ public final class DependencySetFactory implements Serializable {
             return getDepdendencySet(permanentDependencySet,branchingPoint);
         else if (branchingPoint==permanentDependencySet.m_branchingPoint)
             return permanentDependencySet;
+        else if (m_useBitSets) {
+            if (getBits(permanentDependencySet).containsBranchingPoint(branchingPoint))
+                return permanentDependencySet;
+            copyToBitsBuffer(permanentDependencySet.m_bits);
+            m_bitsBuffer[branchingPoint >>> 6]|=(1L << branchingPoint);
+            return getDependencySetForBitsBuffer();
+        }
         else {
             m_mergeArray.clear();
             PermanentDependencySet rest=permanentDependencySet;
@@ -151,6 +191,8 @@ public final class DependencySetFactory implements Serializable {
         removeFromUnusedList(dependencySet);
         removeUsage(dependencySet.m_rest);
         removeFromEntries(dependencySet);
+        if (dependencySet.m_bits!=null)
+            removeFromBitsEntries(dependencySet);
         dependencySet.m_rest=null;
         dependencySet.m_branchingPoint=-2;
         dependencySet.m_nextEntry=m_firstDestroyedSet;
@@ -207,6 +249,165 @@ public final class DependencySetFactory implements Serializable {
         }
         m_entries=newEntries;
         m_resizeThreshold=(int)(m_entries.length*0.75);
+        if (m_useBitSets) {
+            PermanentDependencySet[] newBitsEntries=new PermanentDependencySet[newLength];
+            for (int oldIndex=0;oldIndex<m_bitsEntries.length;oldIndex++) {
+                PermanentDependencySet entry=m_bitsEntries[oldIndex];
+                while (entry!=null) {
+                    PermanentDependencySet nextEntry=entry.m_nextBitsEntry;
+                    int newIndex=entry.m_bitsHashCode & newLengthMinusOne;
+                    entry.m_nextBitsEntry=newBitsEntries[newIndex];
+                    newBitsEntries[newIndex]=entry;
+                    entry=nextEntry;
+                }
+            }
+            m_bitsEntries=newBitsEntries;
+        }
+    }
+    /**
+     * Attaches the bit set to the given dependency set if it does not have one yet and returns the set.
+     */
+    protected PermanentDependencySet getBits(PermanentDependencySet dependencySet) {
+        if (dependencySet.m_bits==null) {
+            long[] bits=new long[(dependencySet.m_branchingPoint >>> 6)+1];
+            PermanentDependencySet set=dependencySet;
+            while (set.m_bits==null) {
+                bits[set.m_branchingPoint >>> 6]|=(1L << set.m_branchingPoint);
+                set=set.m_rest;
+            }
+            for (int index=set.m_bits.length-1;index>=0;--index)
+                bits[index]|=set.m_bits[index];
+            addToBitsEntries(dependencySet,bits);
+        }
+        return dependencySet;
+    }
+    protected void addToBitsEntries(PermanentDependencySet dependencySet,long[] bits) {
+        dependencySet.m_bits=bits;
+        dependencySet.m_bitsHashCode=getBitsHashCode(bits,bits.length);
+        int index=dependencySet.m_bitsHashCode & (m_bitsEntries.length-1);
+        dependencySet.m_nextBitsEntry=m_bitsEntries[index];
+        m_bitsEntries[index]=dependencySet;
+        m_sizeOfBits+=bits.length;
+    }
+    protected void removeFromBitsEntries(PermanentDependencySet dependencySet) {
+        int index=dependencySet.m_bitsHashCode & (m_bitsEntries.length-1);
+        PermanentDependencySet lastEntry=null;
+        PermanentDependencySet entry=m_bitsEntries[index];
+        while (entry!=null) {
+            if (entry==dependencySet) {
+                if (lastEntry==null)
+                    m_bitsEntries[index]=dependencySet.m_nextBitsEntry;
+                else
+                    lastEntry.m_nextBitsEntry=dependencySet.m_nextBitsEntry;
+                m_sizeOfBits-=dependencySet.m_bits.length;
+                dependencySet.m_bits=null;
+                dependencySet.m_nextBitsEntry=null;
+                return;
+            }
+            lastEntry=entry;
+            entry=entry.m_nextBitsEntry;
+        }
+        throw new IllegalStateException("Internal error: dependency set not in the bit set entries table. Please inform HermiT authors about this.");
+    }
+    protected static int getBitsHashCode(long[] bits,int length) {
+        int hashCode=0;
+        for (int index=0;index<length;index++)
+            hashCode=hashCode*31+getWordHashCode(bits[index]);
+        return hashCode;
+    }
+    protected static int getWordHashCode(long word) {
+        return (int)(word ^ (word >>> 32));
+    }
+    protected static boolean isSubsetOf(long[] bits1,long[] bits2) {
+        if (bits1.length>bits2.length)
+            return false;
+        for (int index=bits1.length-1;index>=0;--index)
+            if ((bits1[index] & ~bits2[index])!=0L)
+                return false;
+        return true;
+    }
+    protected void copyToBitsBuffer(long[] bits) {
+        ensureBitsBufferLength(bits.length);
+        System.arraycopy(bits,0,m_bitsBuffer,0,bits.length);
+        m_bitsBufferLength=bits.length;
+    }
+    protected void orIntoBitsBuffer(long[] bits) {
+        ensureBitsBufferLength(bits.length);
+        if (bits.length>m_bitsBufferLength) {
+            for (int index=m_bitsBufferLength;index<bits.length;index++)
+                m_bitsBuffer[index]=0L;
+            m_bitsBufferLength=bits.length;
+        }
+        for (int index=bits.length-1;index>=0;--index)
+            m_bitsBuffer[index]|=bits[index];
+    }
+    protected void ensureBitsBufferLength(int length) {
+        if (length>m_bitsBuffer.length) {
+            long[] newBitsBuffer=new long[Math.max(length,m_bitsBuffer.length*3/2)];
+            System.arraycopy(m_bitsBuffer,0,newBitsBuffer,0,m_bitsBufferLength);
+            m_bitsBuffer=newBitsBuffer;
+            m_bitsPrefixHashCodes=new int[newBitsBuffer.length+1];
+        }
+    }
+    /**
+     * Returns the permanent dependency set with the branching points in the bits buffer and attaches the bit set to it.
+     * If no set with these bits is known, the largest branching points are removed from the buffer until a known set
+     * is found, and the remaining sets are then obtained by extending its chain. The hash codes of all prefixes of the
+     * buffer are computed upfront so that each step rehashes only the last word.
+     */
+    protected PermanentDependencySet getDependencySetForBitsBuffer() {
+        m_mergeArray.clear();
+        while (m_bitsBufferLength>0 && m_bitsBuffer[m_bitsBufferLength-1]==0L)
+            m_bitsBufferLength--;
+        int bitsLength=m_bitsBufferLength;
+        for (int index=0;index<bitsLength;index++)
+            m_bitsPrefixHashCodes[index+1]=m_bitsPrefixHashCodes[index]*31+getWordHashCode(m_bitsBuffer[index]);
+        PermanentDependencySet dependencySet=m_emptySet;
+        while (m_bitsBufferLength>0) {
+            int hashCode=m_bitsPrefixHashCodes[m_bitsBufferLength-1]*31+getWordHashCode(m_bitsBuffer[m_bitsBufferLength-1]);
+            PermanentDependencySet knownSet=getDependencySetForBits(m_bitsBuffer,m_bitsBufferLength,hashCode);
+            if (knownSet!=null) {
+                dependencySet=knownSet;
+                break;
+            }
+            int wordIndex=m_bitsBufferLength-1;
+            int bitIndex=63-Long.numberOfLeadingZeros(m_bitsBuffer[wordIndex]);
+            m_mergeArray.add((wordIndex << 6)+bitIndex);
+            m_bitsBuffer[wordIndex]&=~(1L << bitIndex);
+            while (m_bitsBufferLength>0 && m_bitsBuffer[m_bitsBufferLength-1]==0L)
+                m_bitsBufferLength--;
+        }
+        if (m_mergeArray.size()==0)
+            return dependencySet;
+        for (int index=m_mergeArray.size()-1;index>=0;--index) {
+            int branchingPoint=m_mergeArray.get(index);
+            m_bitsBuffer[branchingPoint >>> 6]|=(1L << branchingPoint);
+            dependencySet=getDepdendencySet(dependencySet,branchingPoint);
+        }
+        if (dependencySet.m_bits==null) {
+            long[] bits=new long[bitsLength];
+            System.arraycopy(m_bitsBuffer,0,bits,0,bitsLength);
+            addToBitsEntries(dependencySet,bits);
+        }
+        return dependencySet;
+    }
+    protected PermanentDependencySet getDependencySetForBits(long[] bits,int length,int hashCode) {
+        PermanentDependencySet dependencySet=m_bitsEntries[hashCode & (m_bitsEntries.length-1)];
+        while (dependencySet!=null) {
+            if (dependencySet.m_bitsHashCode==hashCode && hasBits(dependencySet,bits,length))
+                return dependencySet;
+            dependencySet=dependencySet.m_nextBitsEntry;
+        }
+        return null;
+    }
+    protected static boolean hasBits(PermanentDependencySet dependencySet,long[] bits,int length) {
+        long[] dependencySetBits=dependencySet.m_bits;
+        if (dependencySetBits.length!=length)
+            return false;
+        for (int index=length-1;index>=0;--index)
+            if (dependencySetBits[index]!=bits[index])
+                return false;
+        return true;
     }
     public PermanentDependencySet removeBranchingPoint(DependencySet dependencySet,int branchingPoint) {
         PermanentDependencySet permanentDependencySet=getPermanent(dependencySet);
@@ -214,6 +415,13 @@ public final class DependencySetFactory implements Serializable {
             return permanentDependencySet.m_rest;
         else if (branchingPoint>permanentDependencySet.m_branchingPoint)
             return permanentDependencySet;
+        else if (m_useBitSets) {
+            if (!getBits(permanentDependencySet).containsBranchingPoint(branchingPoint))
+                return permanentDependencySet;
+            copyToBitsBuffer(permanentDependencySet.m_bits);
+            m_bitsBuffer[branchingPoint >>> 6]&=~(1L << branchingPoint);
+            return getDependencySetForBitsBuffer();
+        }
         else {
             m_mergeArray.clear();
             PermanentDependencySet rest=permanentDependencySet;
@@ -236,6 +444,17 @@ public final class DependencySetFactory implements Serializable {
         PermanentDependencySet permanentSet2=getPermanent(set2);
         if (permanentSet1==permanentSet2)
             return permanentSet1;
+        if (m_useBitSets) {
+            getBits(permanentSet1);
+            getBits(permanentSet2);
+            if (isSubsetOf(permanentSet2.m_bits,permanentSet1.m_bits))
+                return permanentSet1;
+            if (isSubsetOf(permanentSet1.m_bits,permanentSet2.m_bits))
+                return permanentSet2;
+            copyToBitsBuffer(permanentSet1.m_bits);
+            orIntoBitsBuffer(permanentSet2.m_bits);
+            return getDependencySetForBitsBuffer();
+        }
         m_mergeArray.clear();
         while (permanentSet1!=permanentSet2) {
             if (permanentSet1.m_branchingPoint>permanentSet2.m_branchingPoint) {
@@ -274,6 +493,13 @@ public final class DependencySetFactory implements Serializable {
             }
         }
         int numberOfSets=m_mergeSets.size();
+        if (m_useBitSets) {
+            m_bitsBufferLength=0;
+            for (int index=0;index<numberOfSets;index++)
+                orIntoBitsBuffer(getBits(m_mergeSets.get(index)).m_bits);
+            m_mergeSets.clear();
+            return getDependencySetForBitsBuffer();
+        }
         m_mergeArray.clear();
         while (true) {
             PermanentDependencySet firstSet=m_mergeSets.get(0);
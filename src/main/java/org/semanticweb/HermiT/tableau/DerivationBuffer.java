@@ -0,0 +1,118 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.semanticweb.HermiT.model.DLPredicate;
+
+/**
+ * Collects the facts, clashes, and ground disjunctions derived by DL-clause evaluators that run on a worker thread. The
+ * evaluators only read the tableau; the derivations are committed to the tableau later on a single thread in the order
+ * in which they were recorded.
+ */
+public final class DerivationBuffer {
+    protected final List<Derivation> m_derivations;
+    protected boolean m_containsClash;
+
+    public DerivationBuffer() {
+        m_derivations=new ArrayList<Derivation>();
+    }
+    public int size() {
+        return m_derivations.size();
+    }
+    public boolean containsClash() {
+        return m_containsClash;
+    }
+    public void clear() {
+        m_derivations.clear();
+        m_containsClash=false;
+    }
+    public void addFact(DLPredicate dlPredicate,Node[] arguments,DependencySet dependencySet,boolean isCore) {
+        m_derivations.add(new Derivation(dlPredicate,null,arguments,null,copyDependencySet(dependencySet),isCore));
+    }
+    public void addClash(DependencySet dependencySet) {
+        m_derivations.add(new Derivation(null,null,null,null,copyDependencySet(dependencySet),true));
+        m_containsClash=true;
+    }
+    public void addGroundDisjunction(GroundDisjunctionHeader groundDisjunctionHeader,Node[] arguments,boolean[] isCore,DependencySet dependencySet) {
+        m_derivations.add(new Derivation(null,groundDisjunctionHeader,arguments,isCore,copyDependencySet(dependencySet),true));
+    }
+    /**
+     * Commits the derivations with indexes in [fromIndex, toIndex) to the tableau. Committing stops as soon as the
+     * tableau contains a clash.
+     */
+    public void commit(Tableau tableau,int fromIndex,int toIndex) {
+        ExtensionManager extensionManager=tableau.m_extensionManager;
+        for (int index=fromIndex;index<toIndex && !extensionManager.containsClash();index++) {
+            Derivation derivation=m_derivations.get(index);
+            if (derivation.m_groundDisjunctionHeader!=null) {
+                GroundDisjunction groundDisjunction=new GroundDisjunction(tableau,derivation.m_groundDisjunctionHeader,derivation.m_arguments,derivation.m_isCoreArguments,tableau.m_dependencySetFactory.getPermanent(derivation.m_dependencySet));
+                if (!groundDisjunction.isSatisfied(tableau))
+                    tableau.addGroundDisjunction(groundDisjunction);
+            }
+            else if (derivation.m_dlPredicate==null)
+                extensionManager.setClash(derivation.m_dependencySet);
+            else {
+                Node[] arguments=derivation.m_arguments;
+                switch (arguments.length) {
+                case 1:
+                    extensionManager.addAssertion(derivation.m_dlPredicate,arguments[0],derivation.m_dependencySet,derivation.m_isCore);
+                    break;
+                case 2:
+                    extensionManager.addAssertion(derivation.m_dlPredicate,arguments[0],arguments[1],derivation.m_dependencySet,derivation.m_isCore);
+                    break;
+                case 3:
+                    extensionManager.addAssertion(derivation.m_dlPredicate,arguments[0],arguments[1],arguments[2],derivation.m_dependencySet,derivation.m_isCore);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported atom arity.");
+                }
+            }
+        }
+    }
+    protected static DependencySet copyDependencySet(DependencySet dependencySet) {
+        if (dependencySet instanceof UnionDependencySet) {
+            UnionDependencySet unionDependencySet=(UnionDependencySet)dependencySet;
+            UnionDependencySet copy=new UnionDependencySet(unionDependencySet.m_numberOfConstituents);
+            System.arraycopy(unionDependencySet.m_dependencySets,0,copy.m_dependencySets,0,unionDependencySet.m_numberOfConstituents);
+            return copy;
+        }
+        else
+            return dependencySet;
+    }
+
+    protected static final class Derivation {
+        protected final DLPredicate m_dlPredicate;
+        protected final GroundDisjunctionHeader m_groundDisjunctionHeader;
+        protected final Node[] m_arguments;
+        protected final boolean[] m_isCoreArguments;
+        protected final DependencySet m_dependencySet;
+        protected final boolean m_isCore;
+
+        public Derivation(DLPredicate dlPredicate,GroundDisjunctionHeader groundDisjunctionHeader,Node[] arguments,boolean[] isCoreArguments,DependencySet dependencySet,boolean isCore) {
+            m_dlPredicate=dlPredicate;
+            m_groundDisjunctionHeader=groundDisjunctionHeader;
+            m_arguments=arguments;
+            m_isCoreArguments=isCoreArguments;
+            m_dependencySet=dependencySet;
+            m_isCore=isCore;
+        }
+    }
+}
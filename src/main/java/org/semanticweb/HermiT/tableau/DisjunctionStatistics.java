@@ -0,0 +1,198 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.semanticweb.HermiT.model.DLPredicate;
+
+/**
+ * Keeps the numbers of backtrackings of disjuncts learned by disjunction learning independently of a particular tableau.
+ * The numbers are stored per ground disjunction header, that is, per array of disjunct DL predicates, so a store can be
+ * shared by all tableaux of a reasoner: new headers start with the numbers learned so far, and the numbers learned by a
+ * tableau are immediately visible to all other tableaux. The counters are updated atomically, so several tableaux can
+ * use the same store in parallel.
+ */
+public final class DisjunctionStatistics {
+    /**
+     * If disjunction learning is enabled and this tableau parameter is set, the tableau keeps its numbers of backtrackings in
+     * the given DisjunctionStatistics; otherwise, the numbers are kept only in the tableau.
+     */
+    public static final String SHARED_STATISTICS_PARAMETER="DisjunctionStatistics.sharedStatistics";
+    protected static final int FORMAT_VERSION=1;
+
+    protected final ConcurrentMap<Signature,AtomicIntegerArray> m_numbersOfBacktrackings;
+
+    public DisjunctionStatistics() {
+        m_numbersOfBacktrackings=new ConcurrentHashMap<Signature,AtomicIntegerArray>();
+    }
+    /**
+     * Returns the numbers of backtrackings for the disjuncts of a disjunction with the given DL predicates; the array is
+     * indexed by the position of the disjunct in dlPredicates and is created if necessary.
+     */
+    public AtomicIntegerArray getNumbersOfBacktrackings(DLPredicate[] dlPredicates) {
+        Signature signature=new Signature(dlPredicates);
+        AtomicIntegerArray numbersOfBacktrackings=m_numbersOfBacktrackings.get(signature);
+        if (numbersOfBacktrackings==null) {
+            numbersOfBacktrackings=new AtomicIntegerArray(dlPredicates.length);
+            AtomicIntegerArray existing=m_numbersOfBacktrackings.putIfAbsent(signature,numbersOfBacktrackings);
+            if (existing!=null)
+                numbersOfBacktrackings=existing;
+        }
+        return numbersOfBacktrackings;
+    }
+    public int getNumberOfDisjunctions() {
+        return m_numbersOfBacktrackings.size();
+    }
+    public int getTotalNumberOfBacktrackings() {
+        int total=0;
+        for (AtomicIntegerArray numbersOfBacktrackings : m_numbersOfBacktrackings.values())
+            for (int index=0;index<numbersOfBacktrackings.length();index++)
+                total+=numbersOfBacktrackings.get(index);
+        return total;
+    }
+    /**
+     * Adds the numbers of backtrackings from the given store to the ones in this store.
+     */
+    public void addAll(DisjunctionStatistics statistics) {
+        for (Map.Entry<Signature,AtomicIntegerArray> entry : statistics.m_numbersOfBacktrackings.entrySet())
+            add(entry.getKey().m_dlPredicates,entry.getValue());
+    }
+    protected void add(DLPredicate[] dlPredicates,AtomicIntegerArray numbersOfBacktrackingsToAdd) {
+        AtomicIntegerArray numbersOfBacktrackings=getNumbersOfBacktrackings(dlPredicates);
+        for (int index=0;index<numbersOfBacktrackings.length();index++)
+            numbersOfBacktrackings.addAndGet(index,numbersOfBacktrackingsToAdd.get(index));
+    }
+    public void clear() {
+        m_numbersOfBacktrackings.clear();
+    }
+    /**
+     * Adds the numbers of backtrackings stored in the given file to this store. Returns false if the file does not exist or
+     * cannot be read; unreadable files are removed.
+     */
+    public boolean load(File file) {
+        if (!file.isFile())
+            return false;
+        try {
+            ObjectInputStream input=new ObjectInputStream(new BufferedInputStream(new FileInputStream(file),65536));
+            try {
+                if (input.readInt()!=FORMAT_VERSION)
+                    throw new IOException("Outdated statistics file.");
+                DisjunctionStatistics loaded=new DisjunctionStatistics();
+                int numberOfDisjunctions=input.readInt();
+                for (int disjunctionIndex=0;disjunctionIndex<numberOfDisjunctions;disjunctionIndex++) {
+                    DLPredicate[] dlPredicates=(DLPredicate[])input.readObject();
+                    int[] numbersOfBacktrackings=(int[])input.readObject();
+                    if (dlPredicates.length!=numbersOfBacktrackings.length)
+                        throw new IOException("Corrupt statistics file.");
+                    loaded.add(dlPredicates,new AtomicIntegerArray(numbersOfBacktrackings));
+                }
+                addAll(loaded);
+                return true;
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (IOException e) {
+            file.delete();
+            return false;
+        }
+        catch (ClassNotFoundException e) {
+            file.delete();
+            return false;
+        }
+        catch (ClassCastException e) {
+            file.delete();
+            return false;
+        }
+    }
+    /**
+     * Writes the numbers of backtrackings to the given file. The file is first written under a temporary name and then
+     * renamed, so concurrent readers never see a partially written file. The statistics are only an optimization, so
+     * errors are ignored.
+     */
+    public void save(File file) {
+        File temporaryFile=null;
+        try {
+            File directory=file.getAbsoluteFile().getParentFile();
+            if (directory!=null && !directory.isDirectory() && !directory.mkdirs())
+                return;
+            Map<Signature,AtomicIntegerArray> snapshot=new HashMap<Signature,AtomicIntegerArray>(m_numbersOfBacktrackings);
+            temporaryFile=File.createTempFile(file.getName(),".tmp",directory);
+            ObjectOutputStream output=new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile),65536));
+            try {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(snapshot.size());
+                for (Map.Entry<Signature,AtomicIntegerArray> entry : snapshot.entrySet()) {
+                    AtomicIntegerArray numbersOfBacktrackings=entry.getValue();
+                    int[] values=new int[numbersOfBacktrackings.length()];
+                    for (int index=0;index<values.length;index++)
+                        values[index]=numbersOfBacktrackings.get(index);
+                    output.writeObject(entry.getKey().m_dlPredicates);
+                    output.writeObject(values);
+                }
+            }
+            finally {
+                output.close();
+            }
+            if (temporaryFile.renameTo(file) || (file.delete() && temporaryFile.renameTo(file)))
+                temporaryFile=null;
+        }
+        catch (IOException e) {
+            // The statistics are only an optimization, so we just continue without storing them.
+        }
+        finally {
+            if (temporaryFile!=null)
+                temporaryFile.delete();
+        }
+    }
+
+    protected static final class Signature {
+        protected final DLPredicate[] m_dlPredicates;
+        protected final int m_hashCode;
+
+        public Signature(DLPredicate[] dlPredicates) {
+            m_dlPredicates=dlPredicates;
+            m_hashCode=Arrays.hashCode(dlPredicates);
+        }
+        public int hashCode() {
+            return m_hashCode;
+        }
+        public boolean equals(Object that) {
+            if (this==that)
+                return true;
+            if (!(that instanceof Signature))
+                return false;
+            return Arrays.equals(m_dlPredicates,((Signature)that).m_dlPredicates);
+        }
+    }
+}
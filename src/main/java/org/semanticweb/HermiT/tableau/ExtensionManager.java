@@ -37,6 +37,10 @@ import org.semanticweb.HermiT.monitor.TableauMonitor;
 
 public final class ExtensionManager implements Serializable {
     private static final long serialVersionUID=5900300914631070591L;
+    /**
+     * If this tableau parameter is Boolean.TRUE, the binary and ternary extension tables store tuples as integer IDs.
+     */
+    public static final String INT_ENCODED_TUPLES_PARAMETER="ExtensionManager.intEncodedTuples";
 
     protected final Tableau m_tableau;
     protected final TableauMonitor m_tableauMonitor;
@@ -45,6 +49,7 @@ public final class ExtensionManager implements Serializable {
     protected final ExtensionTable[] m_allExtensionTablesArray;
     protected final ExtensionTable m_binaryExtensionTable;
     protected final ExtensionTable m_ternaryExtensionTable;
+    protected final TupleObjectDictionary m_tupleObjectDictionary;
     protected final Object[] m_binaryAuxiliaryTupleContains;
     protected final Object[] m_binaryAuxiliaryTupleAdd;
     protected final Object[] m_ternaryAuxiliaryTupleContains;
@@ -59,41 +64,30 @@ public final class ExtensionManager implements Serializable {
         m_tableauMonitor=m_tableau.m_tableauMonitor;
         m_dependencySetFactory=m_tableau.m_dependencySetFactory;
         m_extensionTablesByArity=new HashMap<Integer,ExtensionTable>();
-        m_binaryExtensionTable=
-            new ExtensionTableWithTupleIndexes(m_tableau,2,!m_tableau.isDeterministic(),
-                new TupleIndex[] {
-                    new TupleIndex(new int[] { 1,0 }),
-                    new TupleIndex(new int[] { 0,1 })
-                }
-            ) {
-                private static final long serialVersionUID=1462821385000191875L;
-
-                public boolean isTupleActive(Object[] tuple) {
-                    return ((Node)tuple[1]).isActive();
-                }
-                public boolean isTupleActive(int tupleIndex) {
-                    return ((Node)m_tupleTable.getTupleObject(tupleIndex,1)).isActive();
-                }
-            };
+        if (Boolean.TRUE.equals(m_tableau.getParameters().get(INT_ENCODED_TUPLES_PARAMETER))) {
+            m_tupleObjectDictionary=new TupleObjectDictionary();
+            m_binaryExtensionTable=
+                new ExtensionTableWithIntTupleIndexes(m_tableau,2,!m_tableau.isDeterministic(),m_tupleObjectDictionary,
+                    new IntTupleIndex[] {
+                        new IntTupleIndex(new int[] { 1,0 }),
+                        new IntTupleIndex(new int[] { 0,1 })
+                    }
+                );
+            m_ternaryExtensionTable=
+                new ExtensionTableWithIntTupleIndexes(m_tableau,3,!m_tableau.isDeterministic(),m_tupleObjectDictionary,
+                    new IntTupleIndex[] {
+                        new IntTupleIndex(new int[] { 0,1,2 }),
+                        new IntTupleIndex(new int[] { 1,2,0 }),
+                        new IntTupleIndex(new int[] { 2,0,1 })
+                    }
+                );
+        }
+        else {
+            m_tupleObjectDictionary=null;
+            m_binaryExtensionTable=createBinaryExtensionTable();
+            m_ternaryExtensionTable=createTernaryExtensionTable();
+        }
         m_extensionTablesByArity.put(new Integer(2),m_binaryExtensionTable);
-        m_ternaryExtensionTable=
-            new ExtensionTableWithTupleIndexes(m_tableau,3,!m_tableau.isDeterministic(),
-                new TupleIndex[] {
-                    new TupleIndex(new int[] { 0,1,2 }),
-                    new TupleIndex(new int[] { 1,2,0 }),
-                    new TupleIndex(new int[] { 2,0,1 })
-                }
-            ) {
-                private static final long serialVersionUID=-731201626401421877L;
-
-                public boolean isTupleActive(Object[] tuple) {
-                    return ((Node)tuple[1]).isActive() && ((Node)tuple[2]).isActive();
-                }
-                public boolean isTupleActive(int tupleIndex) {
-                    return ((Node)m_tupleTable.getTupleObject(tupleIndex,1)).isActive()
-                        && ((Node)m_tupleTable.getTupleObject(tupleIndex,2)).isActive();
-                }
-            };
         m_extensionTablesByArity.put(new Integer(3),m_ternaryExtensionTable);
         for (DescriptionGraph descriptionGraph : m_tableau.m_permanentDLOntology.getAllDescriptionGraphs()) {
             Integer arityInteger=Integer.valueOf(descriptionGraph.getNumberOfVertices()+1);
@@ -102,6 +96,9 @@ public final class ExtensionManager implements Serializable {
         }
         m_allExtensionTablesArray=new ExtensionTable[m_extensionTablesByArity.size()];
         m_extensionTablesByArity.values().toArray(m_allExtensionTablesArray);
+        if (Boolean.TRUE.equals(m_tableau.getParameters().get(HyperresolutionManager.ADAPTIVE_JOIN_ORDERING_PARAMETER)))
+            for (ExtensionTable extensionTable : m_allExtensionTablesArray)
+                extensionTable.enableTupleCounting();
         m_binaryAuxiliaryTupleContains=new Object[2];
         m_binaryAuxiliaryTupleAdd=new Object[2];
         m_ternaryAuxiliaryTupleContains=new Object[3];
@@ -109,9 +106,47 @@ public final class ExtensionManager implements Serializable {
         m_fouraryAuxiliaryTupleContains=new Object[4];
         m_fouraryAuxiliaryTupleAdd=new Object[4];
     }
+    protected ExtensionTable createBinaryExtensionTable() {
+        return new ExtensionTableWithTupleIndexes(m_tableau,2,!m_tableau.isDeterministic(),
+            new TupleIndex[] {
+                new TupleIndex(new int[] { 1,0 }),
+                new TupleIndex(new int[] { 0,1 })
+            }
+        ) {
+            private static final long serialVersionUID=1462821385000191875L;
+
+            public boolean isTupleActive(Object[] tuple) {
+                return ((Node)tuple[1]).isActive();
+            }
+            public boolean isTupleActive(int tupleIndex) {
+                return ((Node)m_tupleTable.getTupleObject(tupleIndex,1)).isActive();
+            }
+        };
+    }
+    protected ExtensionTable createTernaryExtensionTable() {
+        return new ExtensionTableWithTupleIndexes(m_tableau,3,!m_tableau.isDeterministic(),
+            new TupleIndex[] {
+                new TupleIndex(new int[] { 0,1,2 }),
+                new TupleIndex(new int[] { 1,2,0 }),
+                new TupleIndex(new int[] { 2,0,1 })
+            }
+        ) {
+            private static final long serialVersionUID=-731201626401421877L;
+
+            public boolean isTupleActive(Object[] tuple) {
+                return ((Node)tuple[1]).isActive() && ((Node)tuple[2]).isActive();
+            }
+            public boolean isTupleActive(int tupleIndex) {
+                return ((Node)m_tupleTable.getTupleObject(tupleIndex,1)).isActive()
+                    && ((Node)m_tupleTable.getTupleObject(tupleIndex,2)).isActive();
+            }
+        };
+    }
     public void clear() {
         for (int index=m_allExtensionTablesArray.length-1;index>=0;--index)
             m_allExtensionTablesArray[index].clear();
+        if (m_tupleObjectDictionary!=null)
+            m_tupleObjectDictionary.clear();
         m_clashDependencySet=null;
         m_binaryAuxiliaryTupleContains[0]=null;
         m_binaryAuxiliaryTupleContains[1]=null;
@@ -157,6 +192,19 @@ public final class ExtensionManager implements Serializable {
             return m_extensionTablesByArity.get(arity);
         }
     }
+    /**
+     * Returns the number of tuples with the given predicate, or -1 if the extension tables do not count tuples.
+     */
+    public int getNumberOfTuples(DLPredicate dlPredicate) {
+        ExtensionTable extensionTable=getExtensionTable(dlPredicate.getArity()+1);
+        return extensionTable==null ? -1 : extensionTable.getNumberOfTuples(dlPredicate);
+    }
+    public int getNumberOfTuples() {
+        int numberOfTuples=0;
+        for (int index=0;index<m_allExtensionTablesArray.length;index++)
+            numberOfTuples+=m_allExtensionTablesArray[index].getNumberOfTuples();
+        return numberOfTuples;
+    }
     public Collection<ExtensionTable> getExtensionTables() {
         return m_extensionTablesByArity.values();
     }
@@ -18,6 +18,8 @@
 package org.semanticweb.HermiT.tableau;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.semanticweb.HermiT.model.AtomicConcept;
 import org.semanticweb.HermiT.model.AtomicNegationConcept;
@@ -56,12 +58,19 @@ public abstract class ExtensionTable implements Serializable {
     protected int m_afterExtensionThisTupleIndex;
     protected int m_afterDeltaNewTupleIndex;
     protected int[] m_indicesByBranchingPoint;
+    protected Map<Object,int[]> m_tupleCountsByDLPredicate;
 
     public ExtensionTable(Tableau tableau,int tupleArity,boolean needsDependencySets) {
+        this(tableau,tupleArity,needsDependencySets,new TupleTable(tupleArity+(needsDependencySets ? 1 : 0)));
+    }
+    /**
+     * The tuple table must store tupleArity objects per tuple, plus the dependency set if needsDependencySets is true.
+     */
+    protected ExtensionTable(Tableau tableau,int tupleArity,boolean needsDependencySets,TupleTable tupleTable) {
         m_tableau=tableau;
         m_tableauMonitor=m_tableau.m_tableauMonitor;
         m_tupleArity=tupleArity;
-        m_tupleTable=new TupleTable(m_tupleArity+(needsDependencySets ? 1 : 0));
+        m_tupleTable=tupleTable;
         m_dependencySetManager=needsDependencySets ? new LastObjectDependencySetManager(this) : new DeterministicDependencySetManager(this);
         if (m_tupleArity==2)
             m_coreManager=new RealCoreManager();
@@ -85,6 +94,29 @@ public abstract class ExtensionTable implements Serializable {
     public boolean isCore(int tupleIndex) {
         return m_coreManager.isCore(tupleIndex);
     }
+    /**
+     * Makes the table keep track of the number of tuples for each predicate (the first object of each tuple).
+     * The counts are maintained on addition and on backtracking, and they are used to estimate join costs.
+     */
+    public void enableTupleCounting() {
+        if (m_tupleCountsByDLPredicate==null)
+            m_tupleCountsByDLPredicate=new HashMap<Object,int[]>();
+    }
+    public boolean isCountingTuples() {
+        return m_tupleCountsByDLPredicate!=null;
+    }
+    /**
+     * Returns the number of tuples with the given predicate, or -1 if tuple counting is not enabled.
+     */
+    public int getNumberOfTuples(Object dlPredicate) {
+        if (m_tupleCountsByDLPredicate==null)
+            return -1;
+        int[] tupleCount=m_tupleCountsByDLPredicate.get(dlPredicate);
+        return tupleCount==null ? 0 : tupleCount[0];
+    }
+    public int getNumberOfTuples() {
+        return m_tupleTable.getFirstFreeTupleIndex();
+    }
     public abstract boolean addTuple(Object[] tuple,DependencySet dependencySet,boolean isCore);
     /**
      * This method is called each time a fresh tuple is added. The method is not called if the tuple
@@ -93,6 +125,14 @@ public abstract class ExtensionTable implements Serializable {
      */
     protected void postAdd(Object[] tuple,DependencySet dependencySet,int tupleIndex,boolean isCore) {
         Object dlPredicateObject=tuple[0];
+        if (m_tupleCountsByDLPredicate!=null) {
+            int[] tupleCount=m_tupleCountsByDLPredicate.get(dlPredicateObject);
+            if (tupleCount==null) {
+                tupleCount=new int[1];
+                m_tupleCountsByDLPredicate.put(dlPredicateObject,tupleCount);
+            }
+            tupleCount[0]++;
+        }
         if (dlPredicateObject instanceof Concept) {
             Node node=(Node)tuple[1];
             if (dlPredicateObject instanceof AtomicConcept)
@@ -131,6 +171,20 @@ public abstract class ExtensionTable implements Serializable {
         m_afterDeltaNewTupleIndex=m_tupleTable.getFirstFreeTupleIndex();
         return deltaNewNotEmpty;
     }
+    /**
+     * Extends the delta-old view to all tuples of extension-this, so that DL-clauses can be applied to all tuples of the
+     * table at once. Must be paired with restoreDelta(). This relies on delta-old being empty when it is called, as it is
+     * after propagateDeltaNew() has returned false; tuples added in the meantime are in delta-new and are unaffected.
+     */
+    public void resetDeltaToBeginning() {
+        m_afterExtensionOldTupleIndex=0;
+    }
+    /**
+     * Makes delta-old empty again after resetDeltaToBeginning(), restoring the state that held before that call.
+     */
+    public void restoreDelta() {
+        m_afterExtensionOldTupleIndex=m_afterExtensionThisTupleIndex;
+    }
     public void branchingPointPushed() {
         int start=m_tableau.getCurrentBranchingPoint().m_level*3;
         int requiredSize=start+3;
@@ -162,6 +216,11 @@ public abstract class ExtensionTable implements Serializable {
     protected abstract void removeTuple(int tupleIndex);
     protected void postRemove(Object[] tuple,int tupleIndex) {
         Object dlPredicateObject=tuple[0];
+        if (m_tupleCountsByDLPredicate!=null) {
+            int[] tupleCount=m_tupleCountsByDLPredicate.get(dlPredicateObject);
+            if (tupleCount!=null)
+                tupleCount[0]--;
+        }
         if (dlPredicateObject instanceof Concept) {
             Node node=(Node)tuple[1];
             m_tableau.m_existentialExpansionStrategy.assertionRemoved((Concept)dlPredicateObject,node,m_coreManager.isCore(tupleIndex));
@@ -183,6 +242,8 @@ public abstract class ExtensionTable implements Serializable {
     }
     public void clear() {
         m_tupleTable.clear();
+        if (m_tupleCountsByDLPredicate!=null)
+            m_tupleCountsByDLPredicate.clear();
         m_afterExtensionOldTupleIndex=0;
         m_afterExtensionThisTupleIndex=0;
         m_afterDeltaNewTupleIndex=0;
@@ -269,6 +330,21 @@ public abstract class ExtensionTable implements Serializable {
             return m_coreManager.isCore(m_currentTupleIndex);
         }
         public void open() {
+            openView();
+            moveToActiveTuple();
+        }
+        /**
+         * Opens the retrieval on the tuples of its view whose indexes are in [firstTupleIndex, afterLastTupleIndex).
+         */
+        public void open(int firstTupleIndex,int afterLastTupleIndex) {
+            openView();
+            if (m_currentTupleIndex<firstTupleIndex)
+                m_currentTupleIndex=firstTupleIndex;
+            if (m_afterLastTupleIndex>afterLastTupleIndex)
+                m_afterLastTupleIndex=afterLastTupleIndex;
+            moveToActiveTuple();
+        }
+        protected void openView() {
             switch (m_extensionView) {
             case EXTENSION_THIS:
                 m_currentTupleIndex=0;
@@ -287,6 +363,8 @@ public abstract class ExtensionTable implements Serializable {
                 m_afterLastTupleIndex=m_afterDeltaNewTupleIndex;
                 break;
             }
+        }
+        protected void moveToActiveTuple() {
             while (m_currentTupleIndex<m_afterLastTupleIndex) {
                 m_tupleTable.retrieveTuple(m_tupleBuffer,m_currentTupleIndex);
                 if (isTupleActive())
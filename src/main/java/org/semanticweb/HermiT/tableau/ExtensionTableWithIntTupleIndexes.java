@@ -0,0 +1,273 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+import java.io.Serializable;
+
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.model.AtomicRole;
+import org.semanticweb.HermiT.model.Concept;
+import org.semanticweb.HermiT.model.InternalDatatype;
+
+/**
+ * A variant of ExtensionTableWithTupleIndexes that stores the tuples and the indexes over them as integer IDs:
+ * DL-predicates are numbered by a TupleObjectDictionary and nodes are represented by their node IDs. Tuples are encoded
+ * once when they are added or looked up, tuple comparisons are primitive, and objects are resolved only when a retrieval
+ * fills its tuple buffer. This reduces the memory footprint of large ABoxes and the work of the garbage collector.
+ * @see ExtensionTableWithTupleIndexes
+ */
+public class ExtensionTableWithIntTupleIndexes extends ExtensionTable {
+    private static final long serialVersionUID=8237915040328542796L;
+
+    protected final TupleObjectDictionary m_dictionary;
+    protected final IntTupleTable m_intTupleTable;
+    protected final IntTupleIndex[] m_tupleIndexes;
+    protected final int[] m_encodedTuple;
+    protected final int[] m_auxiliaryEncodedTuple;
+    protected final Object[] m_auxiliaryTuple;
+
+    public ExtensionTableWithIntTupleIndexes(Tableau tableau,int tupleArity,boolean needsDependencySets,TupleObjectDictionary dictionary,IntTupleIndex[] tupleIndexes) {
+        super(tableau,tupleArity,needsDependencySets,new IntTupleTable(tupleArity,needsDependencySets ? 1 : 0,dictionary));
+        m_dictionary=dictionary;
+        m_intTupleTable=(IntTupleTable)m_tupleTable;
+        m_tupleIndexes=tupleIndexes;
+        m_encodedTuple=new int[m_tupleArity];
+        m_auxiliaryEncodedTuple=new int[m_tupleArity];
+        m_auxiliaryTuple=new Object[m_tupleArity];
+    }
+    public int sizeInMemory() {
+        int size=m_tupleTable.sizeInMemory();
+        for (int i=m_tupleIndexes.length-1;i>=0;--i)
+            size+=m_tupleIndexes[i].sizeInMemoy();
+        return size;
+    }
+    public boolean addTuple(Object[] tuple,DependencySet dependencySet,boolean isCore) {
+        if (m_tableauMonitor!=null)
+            m_tableauMonitor.addFactStarted(tuple,isCore);
+        if (isTupleActive(tuple) && (m_tableau.m_needsThingExtension || !AtomicConcept.THING.equals(tuple[0])) && (m_tableau.m_needsRDFSLiteralExtension || !InternalDatatype.RDFS_LITERAL.equals(tuple[0]))) {
+            for (int position=0;position<m_tupleArity;position++)
+                m_encodedTuple[position]=m_dictionary.encode(position,tuple[position]);
+            int firstFreeTupleIndex=m_tupleTable.getFirstFreeTupleIndex();
+            int addTupleIndex=m_tupleIndexes[0].addTuple(m_encodedTuple,firstFreeTupleIndex);
+            if (addTupleIndex==firstFreeTupleIndex) {
+                for (int index=1;index<m_tupleIndexes.length;index++)
+                    m_tupleIndexes[index].addTuple(m_encodedTuple,addTupleIndex);
+                m_intTupleTable.addEncodedTuple(m_encodedTuple);
+                m_dependencySetManager.setDependencySet(addTupleIndex,dependencySet);
+                m_coreManager.setCore(addTupleIndex,isCore);
+                m_afterDeltaNewTupleIndex=m_tupleTable.getFirstFreeTupleIndex();
+                if (m_tableauMonitor!=null)
+                    m_tableauMonitor.addFactFinished(tuple,isCore,true);
+                postAdd(tuple,dependencySet,addTupleIndex,isCore);
+                return true;
+            }
+            if (isCore && !m_coreManager.isCore(addTupleIndex)) {
+                m_coreManager.addCore(addTupleIndex);
+                Object dlPredicateObject=tuple[0];
+                if (dlPredicateObject instanceof Concept)
+                    m_tableau.m_existentialExpansionStrategy.assertionCoreSet((Concept)dlPredicateObject,(Node)tuple[1]);
+                else if (dlPredicateObject instanceof AtomicRole)
+                    m_tableau.m_existentialExpansionStrategy.assertionCoreSet((AtomicRole)dlPredicateObject,(Node)tuple[1],(Node)tuple[2]);
+            }
+        }
+        if (m_tableauMonitor!=null)
+            m_tableauMonitor.addFactFinished(tuple,isCore,false);
+        return false;
+    }
+    public boolean containsTuple(Object[] tuple) {
+        int tupleIndex=getTupleIndex(tuple);
+        return tupleIndex!=-1 && isTupleActive(tupleIndex);
+    }
+    public DependencySet getDependencySet(Object[] tuple) {
+        int tupleIndex=getTupleIndex(tuple);
+        // If the tuple is not in the tuple table, we'll get back -1; then, there is no dependency set.
+        if (tupleIndex==-1)
+            return null;
+        else
+            return m_dependencySetManager.getDependencySet(tupleIndex);
+    }
+    public boolean isCore(Object[] tuple) {
+        int tupleIndex=getTupleIndex(tuple);
+        if (tupleIndex==-1)
+            return false;
+        else
+            return m_coreManager.isCore(tupleIndex);
+    }
+    protected int getTupleIndex(Object[] tuple) {
+        for (int position=0;position<m_tupleArity;position++) {
+            int id=m_dictionary.getID(position,tuple[position]);
+            if (id==TupleObjectDictionary.UNKNOWN_ID)
+                return -1;
+            m_auxiliaryEncodedTuple[position]=id;
+        }
+        return m_tupleIndexes[0].getTupleIndex(m_auxiliaryEncodedTuple);
+    }
+    public boolean isTupleActive(int tupleIndex) {
+        for (int objectIndex=m_tupleArity-1;objectIndex>0;--objectIndex)
+            if (!((Node)m_dictionary.decode(objectIndex,m_intTupleTable.getTupleID(tupleIndex,objectIndex))).isActive())
+                return false;
+        return true;
+    }
+    public Retrieval createRetrieval(int[] bindingPositions,Object[] bindingsBuffer,Object[] tupleBuffer,boolean ownsBuffers,View extensionView) {
+        IntTupleIndex selectedTupleIndex=null;
+        int boundPrefixSizeInSelected=0;
+        for (int index=m_tupleIndexes.length-1;index>=0;--index) {
+            int[] indexingSequence=m_tupleIndexes[index].getIndexingSequence();
+            int boundPrefixSize=0;
+            for (int position=0;position<indexingSequence.length;position++)
+                if (bindingPositions[indexingSequence[position]]!=-1)
+                    boundPrefixSize++;
+                else
+                    break;
+            if (boundPrefixSize>boundPrefixSizeInSelected) {
+                selectedTupleIndex=m_tupleIndexes[index];
+                boundPrefixSizeInSelected=boundPrefixSize;
+            }
+        }
+        if (selectedTupleIndex==null)
+            return new UnindexedRetrieval(bindingPositions,bindingsBuffer,tupleBuffer,ownsBuffers,extensionView);
+        else
+            return new IndexedRetrieval(selectedTupleIndex,boundPrefixSizeInSelected,bindingPositions,bindingsBuffer,tupleBuffer,ownsBuffers,extensionView);
+    }
+    protected void removeTuple(int tupleIndex) {
+        for (int position=0;position<m_tupleArity;position++)
+            m_auxiliaryEncodedTuple[position]=m_intTupleTable.getTupleID(tupleIndex,position);
+        for (int index=m_tupleIndexes.length-1;index>=0;--index)
+            m_tupleIndexes[index].removeTuple(m_auxiliaryEncodedTuple);
+        m_tupleTable.retrieveTuple(m_auxiliaryTuple,tupleIndex);
+        postRemove(m_auxiliaryTuple,tupleIndex);
+    }
+    public void clear() {
+        super.clear();
+        for (int index=m_tupleIndexes.length-1;index>=0;--index)
+            m_tupleIndexes[index].clear();
+    }
+
+    protected class IndexedRetrieval extends IntTupleIndex.IntTupleIndexRetrieval implements Retrieval,Serializable {
+        private static final long serialVersionUID=-3690541871924613847L;
+
+        protected final int[] m_bindingPositions;
+        protected final Object[] m_bindingsBuffer;
+        protected final Object[] m_tupleBuffer;
+        protected final boolean m_ownsBuffers;
+        protected final ExtensionTable.View m_extensionView;
+        protected final int[] m_encodedBindings;
+        protected final boolean m_checkTupleSelection;
+        protected DependencySet m_dependencySet;
+        protected boolean m_isCore;
+        protected int m_firstTupleIndex;
+        protected int m_afterLastTupleIndex;
+
+        public IndexedRetrieval(IntTupleIndex tupleIndex,int boundPrefixSize,int[] bindingPositions,Object[] bindingsBuffer,Object[] tupleBuffer,boolean ownsBuffers,View extensionView) {
+            super(tupleIndex,createSelectionArray(boundPrefixSize,tupleIndex.m_indexingSequence));
+            m_bindingPositions=bindingPositions;
+            m_bindingsBuffer=bindingsBuffer;
+            m_tupleBuffer=tupleBuffer;
+            m_ownsBuffers=ownsBuffers;
+            m_extensionView=extensionView;
+            m_encodedBindings=new int[m_tupleArity];
+            int numberOfBoundPositions=0;
+            for (int index=m_bindingPositions.length-1;index>=0;--index)
+                if (m_bindingPositions[index]!=-1)
+                    numberOfBoundPositions++;
+            m_checkTupleSelection=(numberOfBoundPositions>m_selectionIndices.length);
+        }
+        public ExtensionTable getExtensionTable() {
+            return ExtensionTableWithIntTupleIndexes.this;
+        }
+        public ExtensionTable.View getExtensionView() {
+            return m_extensionView;
+        }
+        public void clear() {
+            if (m_ownsBuffers) {
+                for (int index=m_bindingsBuffer.length-1;index>=0;--index)
+                    m_bindingsBuffer[index]=null;
+                for (int index=m_tupleBuffer.length-1;index>=0;--index)
+                    m_tupleBuffer[index]=null;
+            }
+        }
+        public int[] getBindingPositions() {
+            return m_bindingPositions;
+        }
+        public Object[] getBindingsBuffer() {
+            return m_bindingsBuffer;
+        }
+        public Object[] getTupleBuffer() {
+            return m_tupleBuffer;
+        }
+        public DependencySet getDependencySet() {
+            return m_dependencySet;
+        }
+        public boolean isCore() {
+            return m_isCore;
+        }
+        public void open() {
+            switch (m_extensionView) {
+            case EXTENSION_THIS:
+                m_firstTupleIndex=0;
+                m_afterLastTupleIndex=m_afterExtensionThisTupleIndex;
+                break;
+            case EXTENSION_OLD:
+                m_firstTupleIndex=0;
+                m_afterLastTupleIndex=m_afterExtensionOldTupleIndex;
+                break;
+            case DELTA_OLD:
+                m_firstTupleIndex=m_afterExtensionOldTupleIndex;
+                m_afterLastTupleIndex=m_afterExtensionThisTupleIndex;
+                break;
+            case TOTAL:
+                m_firstTupleIndex=0;
+                m_afterLastTupleIndex=m_afterDeltaNewTupleIndex;
+                break;
+            }
+            for (int position=m_bindingPositions.length-1;position>=0;--position)
+                if (m_bindingPositions[position]!=-1)
+                    m_encodedBindings[position]=m_dictionary.getID(position,m_bindingsBuffer[m_bindingPositions[position]]);
+            super.open(m_encodedBindings);
+            moveToValidTuple();
+        }
+        public void next() {
+            super.next();
+            moveToValidTuple();
+        }
+        protected void moveToValidTuple() {
+            while (!afterLast()) {
+                int tupleIndex=getCurrentTupleIndex();
+                if (m_firstTupleIndex<=tupleIndex && tupleIndex<m_afterLastTupleIndex && isTupleValid(tupleIndex)) {
+                    m_tupleTable.retrieveTuple(m_tupleBuffer,tupleIndex);
+                    m_dependencySet=m_dependencySetManager.getDependencySet(tupleIndex);
+                    m_isCore=m_coreManager.isCore(tupleIndex);
+                    return;
+                }
+                super.next();
+            }
+        }
+        protected boolean isTupleValid(int tupleIndex) {
+            if (m_checkTupleSelection)
+                for (int position=m_bindingPositions.length-1;position>=0;--position)
+                    if (m_bindingPositions[position]!=-1 && m_encodedBindings[position]!=m_intTupleTable.getTupleID(tupleIndex,position))
+                        return false;
+            return ExtensionTableWithIntTupleIndexes.this.isTupleActive(tupleIndex);
+        }
+    }
+    protected static int[] createSelectionArray(int boundPrefixSize,int[] indexingSequence) {
+        int[] selection=new int[boundPrefixSize];
+        System.arraycopy(indexingSequence,0,selection,0,boundPrefixSize);
+        return selection;
+    }
+}
@@ -21,6 +21,7 @@ import java.io.Serializable;
 
 import org.semanticweb.HermiT.Prefixes;
 import org.semanticweb.HermiT.model.AnnotatedEquality;
+import org.semanticweb.HermiT.model.AtomicConcept;
 import org.semanticweb.HermiT.model.DLPredicate;
 import org.semanticweb.HermiT.model.Equality;
 
@@ -108,6 +109,8 @@ public final class GroundDisjunction implements Serializable {
         DLPredicate dlPredicate=getDLPredicate(disjunctIndex);
         switch (dlPredicate.getArity()) {
         case 1:
+            if (tableau.m_nogoodStore!=null && dlPredicate instanceof AtomicConcept && tableau.m_nogoodStore.checkNogoods((AtomicConcept)dlPredicate,getArgument(disjunctIndex,0),dependencySet))
+                return false;
             dependencySet=getArgument(disjunctIndex,0).addCanonicalNodeDependencySet(dependencySet);
             return tableau.m_extensionManager.addAssertion(dlPredicate,getArgument(disjunctIndex,0).getCanonicalNode(),dependencySet,isCore(disjunctIndex));
         case 2:
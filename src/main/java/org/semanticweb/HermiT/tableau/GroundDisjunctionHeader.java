@@ -17,6 +17,8 @@
 */
 package org.semanticweb.HermiT.tableau;
 
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 import org.semanticweb.HermiT.Prefixes;
 import org.semanticweb.HermiT.model.AtLeastConcept;
 import org.semanticweb.HermiT.model.AtomicNegationConcept;
@@ -29,6 +31,7 @@ public final class GroundDisjunctionHeader {
     protected final DisjunctIndexWithBacktrackings[] m_disjunctIndexesWithBacktrackings;
     protected final int m_firstAtLeastPositiveIndex;
     protected final int m_firstAtLeastNegativeIndex;
+    protected AtomicIntegerArray m_sharedNumbersOfBacktrackings;
     protected GroundDisjunctionHeader m_nextEntry;
 
     protected GroundDisjunctionHeader(DLPredicate[] dlPredicates,int hashCode,GroundDisjunctionHeader nextEntry) {
@@ -83,6 +86,30 @@ public final class GroundDisjunctionHeader {
                 return false;
         return true;
     }
+    /**
+     * Makes this header use and update the given numbers of backtrackings, which are shared with other headers for the
+     * same disjuncts (see DisjunctionStatistics). The disjuncts are reordered within their partitions accordingly.
+     */
+    public void applyStatistics(AtomicIntegerArray sharedNumbersOfBacktrackings) {
+        m_sharedNumbersOfBacktrackings=sharedNumbersOfBacktrackings;
+        for (DisjunctIndexWithBacktrackings disjunctIndexWithBacktrackings : m_disjunctIndexesWithBacktrackings)
+            disjunctIndexWithBacktrackings.m_numberOfBacktrackings=sharedNumbersOfBacktrackings.get(disjunctIndexWithBacktrackings.m_disjunctIndex);
+        sortPartition(0,m_firstAtLeastNegativeIndex);
+        sortPartition(m_firstAtLeastNegativeIndex,m_firstAtLeastPositiveIndex);
+        sortPartition(m_firstAtLeastPositiveIndex,m_disjunctIndexesWithBacktrackings.length);
+    }
+    protected void sortPartition(int partitionStart,int partitionEnd) {
+        // insertion sort keeps the initial order of disjuncts with the same number of backtrackings
+        for (int index=partitionStart+1;index<partitionEnd;index++) {
+            DisjunctIndexWithBacktrackings disjunctIndexWithBacktrackings=m_disjunctIndexesWithBacktrackings[index];
+            int currentIndex=index;
+            while (currentIndex>partitionStart && m_disjunctIndexesWithBacktrackings[currentIndex-1].m_numberOfBacktrackings>disjunctIndexWithBacktrackings.m_numberOfBacktrackings) {
+                m_disjunctIndexesWithBacktrackings[currentIndex]=m_disjunctIndexesWithBacktrackings[currentIndex-1];
+                currentIndex--;
+            }
+            m_disjunctIndexesWithBacktrackings[currentIndex]=disjunctIndexWithBacktrackings;
+        }
+    }
     public int[] getSortedDisjunctIndexes() {
         int[] sortedDisjunctIndexes=new int[m_disjunctIndexesWithBacktrackings.length];
         for (int index=m_disjunctIndexesWithBacktrackings.length-1;index>=0;--index)
@@ -94,6 +121,8 @@ public final class GroundDisjunctionHeader {
             DisjunctIndexWithBacktrackings disjunctIndexWithBacktrackings=m_disjunctIndexesWithBacktrackings[index];
             if (disjunctIndexWithBacktrackings.m_disjunctIndex==disjunctIndex) {
                 disjunctIndexWithBacktrackings.m_numberOfBacktrackings++;
+                if (m_sharedNumbersOfBacktrackings!=null)
+                    m_sharedNumbersOfBacktrackings.incrementAndGet(disjunctIndex);
                 // find the partition end, swapping of disjuncts stops when the number of backtrackings for the
                 // current disjunct is lower than the one for the next disjunct or when the partition end is reached
                 int partitionEnd;
@@ -25,6 +25,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.semanticweb.HermiT.model.Atom;
 import org.semanticweb.HermiT.model.AtomicConcept;
@@ -35,28 +38,84 @@ import org.semanticweb.HermiT.model.NodeIDLessEqualThan;
 import org.semanticweb.HermiT.model.NodeIDsAscendingOrEqual;
 import org.semanticweb.HermiT.model.Term;
 import org.semanticweb.HermiT.model.Variable;
+import org.semanticweb.owlapi.reasoner.ReasonerInterruptedException;
 
 /**
  * Applies the rules during the expansion of a tableau.
  */
 public final class HyperresolutionManager implements Serializable {
     private static final long serialVersionUID=-4880817508962130189L;
+    /**
+     * If this tableau parameter is Boolean.TRUE, the extension tables count tuples per predicate, the body atoms of
+     * DL clauses are ordered using these counts, and the evaluators are recompiled when the counts shift a lot.
+     */
+    public static final String ADAPTIVE_JOIN_ORDERING_PARAMETER="HyperresolutionManager.adaptiveJoinOrdering";
+    protected static final int MINIMUM_NUMBER_OF_TUPLES_FOR_STATISTICS=1000;
+    protected static final int MINIMUM_NUMBER_OF_TUPLES_FOR_SHIFT=64;
+    protected static final int SELECTIVITY_SHIFT_FACTOR=4;
+    /**
+     * If this tableau parameter is an Integer greater than one and EXECUTOR_PARAMETER is set, the delta-old tuples are
+     * split into that many chunks whose DL clauses are evaluated concurrently; the derivations are buffered and then
+     * committed on the calling thread in an order that does not depend on thread scheduling.
+     */
+    public static final String PARALLEL_THREADS_PARAMETER="HyperresolutionManager.parallelThreads";
+    /**
+     * The ExecutorService on which the chunks other than the first one are evaluated. The executor belongs to the creator
+     * of the tableau, which must shut it down; Reasoner creates one for each reasoner and shuts it down on dispose().
+     */
+    public static final String EXECUTOR_PARAMETER="HyperresolutionManager.executor";
+    protected static final int MINIMUM_NUMBER_OF_DELTA_TUPLES_PER_THREAD=128;
 
+    protected final Tableau m_tableau;
     protected final ExtensionManager m_extensionManager;
+    protected final Set<DLClause> m_dlClauses;
+    protected final DerivationBuffer m_derivationBuffer;
+    protected final int m_numberOfThreads;
+    protected final ExecutorService m_executor;
     protected final ExtensionTable.Retrieval[] m_deltaOldRetrievals;
     protected final ExtensionTable.Retrieval m_binaryTableRetrieval;
     protected final Map<DLPredicate,CompiledDLClauseInfo> m_tupleConsumersByDeltaPredicate;
     protected final Map<AtomicRole,CompiledDLClauseInfo> m_atomicRoleTupleConsumersUnguarded;
     protected final HashMap<AtomicRole,Map<AtomicConcept,CompiledDLClauseInfo>> m_atomicRoleTupleConsumersByGuardConcept1;
     protected final HashMap<AtomicRole,Map<AtomicConcept,CompiledDLClauseInfo>> m_atomicRoleTupleConsumersByGuardConcept2;
-    protected final Object[][] m_buffersToClear;
-    protected final UnionDependencySet[] m_unionDependencySetsToClear;
+    protected final DLClauseEvaluator.BufferSupply m_bufferSupply;
+    protected final DLClauseEvaluator.ValuesBufferManager m_valuesBufferManager;
+    protected final DLClauseEvaluator.GroundDisjunctionHeaderManager m_groundDisjunctionHeaderManager;
+    protected final Map<Integer,UnionDependencySet> m_unionDependencySetsBySize;
+    protected final AdaptiveEvaluator[] m_adaptiveEvaluators;
+    protected Object[][] m_buffersToClear;
+    protected UnionDependencySet[] m_unionDependencySetsToClear;
     protected final Object[] m_valuesBuffer;
     protected final int m_maxNumberOfVariables;
+    protected int m_numberOfTuplesAtLastAdaptation;
+    protected int m_numberOfRecompiledEvaluators;
+    protected transient HyperresolutionManager[] m_parallelCopies;
+    protected int[] m_derivationBufferMarks;
+    protected int m_numberOfParallelRounds;
 
     public HyperresolutionManager(Tableau tableau,Set<DLClause> dlClauses) {
+        this(tableau,dlClauses,null);
+    }
+    /**
+     * Creates a copy that evaluates the DL clauses on a separate thread and records the derivations in the given
+     * buffer rather than adding them to the tableau.
+     */
+    protected HyperresolutionManager(Tableau tableau,Set<DLClause> dlClauses,DerivationBuffer derivationBuffer) {
         InterruptFlag interruptFlag=tableau.m_interruptFlag;
+        m_tableau=tableau;
         m_extensionManager=tableau.m_extensionManager;
+        m_dlClauses=dlClauses;
+        m_derivationBuffer=derivationBuffer;
+        Object numberOfThreads=tableau.getParameters().get(PARALLEL_THREADS_PARAMETER);
+        Object executor=tableau.getParameters().get(EXECUTOR_PARAMETER);
+        if (derivationBuffer==null && numberOfThreads instanceof Integer && executor instanceof ExecutorService) {
+            m_numberOfThreads=((Integer)numberOfThreads).intValue();
+            m_executor=(ExecutorService)executor;
+        }
+        else {
+            m_numberOfThreads=1;
+            m_executor=null;
+        }
         m_tupleConsumersByDeltaPredicate=new HashMap<DLPredicate,CompiledDLClauseInfo>();
         m_atomicRoleTupleConsumersUnguarded=new HashMap<AtomicRole,CompiledDLClauseInfo>();
         m_atomicRoleTupleConsumersByGuardConcept1=new HashMap<AtomicRole,Map<AtomicConcept,CompiledDLClauseInfo>>();
@@ -78,13 +137,15 @@ public final class HyperresolutionManager implements Serializable {
         DLClauseEvaluator.BufferSupply bufferSupply=new DLClauseEvaluator.BufferSupply();
         Map<Term,Node> noTermsToNodes=Collections.emptyMap();
         DLClauseEvaluator.ValuesBufferManager valuesBufferManager=new DLClauseEvaluator.ValuesBufferManager(dlClauses,noTermsToNodes);
-        DLClauseEvaluator.GroundDisjunctionHeaderManager groundDisjunctionHeaderManager=new DLClauseEvaluator.GroundDisjunctionHeaderManager();
+        DLClauseEvaluator.GroundDisjunctionHeaderManager groundDisjunctionHeaderManager=new DLClauseEvaluator.GroundDisjunctionHeaderManager(tableau.m_disjunctionStatistics);
         Map<Integer,UnionDependencySet> unionDependencySetsBySize=new HashMap<Integer,UnionDependencySet>();
+        boolean adaptiveJoinOrdering=Boolean.TRUE.equals(tableau.getParameters().get(ADAPTIVE_JOIN_ORDERING_PARAMETER));
+        List<AdaptiveEvaluator> adaptiveEvaluators=new ArrayList<AdaptiveEvaluator>();
         ArrayList<Atom> guardingAtomicConceptAtoms1=new ArrayList<Atom>();
         ArrayList<Atom> guardingAtomicConceptAtoms2=new ArrayList<Atom>();
         for (Map.Entry<DLClauseBodyKey,List<DLClause>> entry : dlClausesByBody.entrySet()) {
             DLClause bodyDLClause=entry.getKey().m_dlClause;
-            BodyAtomsSwapper bodyAtomsSwapper=new BodyAtomsSwapper(bodyDLClause);
+            BodyAtomsSwapper bodyAtomsSwapper=new BodyAtomsSwapper(bodyDLClause,adaptiveJoinOrdering ? tableau : null);
             for (int bodyAtomIndex=0;bodyAtomIndex<bodyDLClause.getBodyLength();++bodyAtomIndex)
                 if (isPredicateWithExtension(bodyDLClause.getBodyAtom(bodyAtomIndex).getDLPredicate())) {
                     DLClause swappedDLClause=bodyAtomsSwapper.getSwappedDLClause(bodyAtomIndex);
@@ -97,9 +158,17 @@ public final class HyperresolutionManager implements Serializable {
                         firstTableRetrieval=extensionTable.createRetrieval(new boolean[extensionTable.getArity()],ExtensionTable.View.DELTA_OLD);
                         retrievalsByArity.put(arity,firstTableRetrieval);
                     }
-                    DLClauseEvaluator evaluator=new DLClauseEvaluator(tableau,swappedDLClause,entry.getValue(),firstTableRetrieval,bufferSupply,valuesBufferManager,groundDisjunctionHeaderManager,unionDependencySetsBySize);
+                    DLClauseEvaluator evaluator=new DLClauseEvaluator(tableau,swappedDLClause,entry.getValue(),firstTableRetrieval,bufferSupply,valuesBufferManager,groundDisjunctionHeaderManager,unionDependencySetsBySize,derivationBuffer);
+                    AdaptiveEvaluator adaptiveEvaluator=null;
+                    if (adaptiveJoinOrdering) {
+                        adaptiveEvaluator=new AdaptiveEvaluator(bodyDLClause,bodyAtomIndex,entry.getValue(),firstTableRetrieval,swappedDLClause);
+                        adaptiveEvaluator.recordNumbersOfTuples(m_extensionManager);
+                        adaptiveEvaluators.add(adaptiveEvaluator);
+                    }
                     CompiledDLClauseInfo normalTupleConsumer=new CompiledDLClauseInfo(evaluator,m_tupleConsumersByDeltaPredicate.get(deltaDLPredicate));
                     m_tupleConsumersByDeltaPredicate.put(deltaDLPredicate,normalTupleConsumer);
+                    if (adaptiveEvaluator!=null)
+                        adaptiveEvaluator.m_compiledDLClauseInfos.add(normalTupleConsumer);
                     if (deltaDLPredicate instanceof AtomicRole && deltaAtom.getArgument(0) instanceof Variable && deltaAtom.getArgument(1) instanceof Variable) {
                         AtomicRole deltaAtomicRole=(AtomicRole)deltaDLPredicate;
                         getAtomicRoleClauseGuards(swappedDLClause,guardingAtomicConceptAtoms1,guardingAtomicConceptAtoms2);
@@ -113,6 +182,8 @@ public final class HyperresolutionManager implements Serializable {
                                 AtomicConcept atomicConcept=(AtomicConcept)guardingAtom.getDLPredicate();
                                 CompiledDLClauseInfo optimizedTupleConsumer=new CompiledDLClauseInfo(evaluator,compiledDLClauseInfos.get(atomicConcept));
                                 compiledDLClauseInfos.put(atomicConcept,optimizedTupleConsumer);
+                                if (adaptiveEvaluator!=null)
+                                    adaptiveEvaluator.m_compiledDLClauseInfos.add(optimizedTupleConsumer);
                             }
                         }
                         if (!guardingAtomicConceptAtoms2.isEmpty()) {
@@ -125,11 +196,15 @@ public final class HyperresolutionManager implements Serializable {
                                 AtomicConcept atomicConcept=(AtomicConcept)guardingAtom.getDLPredicate();
                                 CompiledDLClauseInfo optimizedTupleConsumer=new CompiledDLClauseInfo(evaluator,compiledDLClauseInfos.get(atomicConcept));
                                 compiledDLClauseInfos.put(atomicConcept,optimizedTupleConsumer);
+                                if (adaptiveEvaluator!=null)
+                                    adaptiveEvaluator.m_compiledDLClauseInfos.add(optimizedTupleConsumer);
                             }
                         }
                         if (guardingAtomicConceptAtoms1.isEmpty() && guardingAtomicConceptAtoms2.isEmpty()) {
                             CompiledDLClauseInfo unguardedTupleConsumer=new CompiledDLClauseInfo(evaluator,m_atomicRoleTupleConsumersUnguarded.get(deltaAtomicRole));
                             m_atomicRoleTupleConsumersUnguarded.put(deltaAtomicRole,unguardedTupleConsumer);
+                            if (adaptiveEvaluator!=null)
+                                adaptiveEvaluator.m_compiledDLClauseInfos.add(unguardedTupleConsumer);
                         }
                     }
                     bufferSupply.reuseBuffers();
@@ -138,7 +213,18 @@ public final class HyperresolutionManager implements Serializable {
         }
         m_deltaOldRetrievals=new ExtensionTable.Retrieval[retrievalsByArity.size()];
         retrievalsByArity.values().toArray(m_deltaOldRetrievals);
+        m_derivationBufferMarks=new int[m_deltaOldRetrievals.length];
         m_binaryTableRetrieval=m_extensionManager.getExtensionTable(2).createRetrieval(new boolean[] { false,true },ExtensionTable.View.EXTENSION_THIS);
+        m_bufferSupply=bufferSupply;
+        m_valuesBufferManager=valuesBufferManager;
+        m_groundDisjunctionHeaderManager=groundDisjunctionHeaderManager;
+        m_unionDependencySetsBySize=unionDependencySetsBySize;
+        if (adaptiveJoinOrdering) {
+            m_adaptiveEvaluators=new AdaptiveEvaluator[adaptiveEvaluators.size()];
+            adaptiveEvaluators.toArray(m_adaptiveEvaluators);
+        }
+        else
+            m_adaptiveEvaluators=null;
         m_buffersToClear=bufferSupply.getAllBuffers();
         m_unionDependencySetsToClear=new UnionDependencySet[unionDependencySetsBySize.size()];
         unionDependencySetsBySize.values().toArray(m_unionDependencySetsToClear);
@@ -184,77 +270,226 @@ public final class HyperresolutionManager implements Serializable {
         }
         for (int variableIndex=0;variableIndex<m_maxNumberOfVariables;variableIndex++)
             m_valuesBuffer[variableIndex]=null;
+        if (m_derivationBuffer!=null)
+            m_derivationBuffer.clear();
+        if (m_parallelCopies!=null)
+            for (HyperresolutionManager parallelCopy : m_parallelCopies)
+                parallelCopy.clear();
+    }
+    public int getNumberOfRecompiledEvaluators() {
+        return m_numberOfRecompiledEvaluators;
+    }
+    public int getNumberOfParallelRounds() {
+        return m_numberOfParallelRounds;
+    }
+    /**
+     * Reorders the bodies of the DL clauses whose predicates changed their sizes considerably since the clauses were
+     * last ordered. The check is only performed when the total number of tuples has halved or doubled.
+     */
+    protected void adaptJoinOrders() {
+        int numberOfTuples=m_extensionManager.getNumberOfTuples();
+        if (numberOfTuples>=MINIMUM_NUMBER_OF_TUPLES_FOR_STATISTICS && (numberOfTuples>2*m_numberOfTuplesAtLastAdaptation || 2*numberOfTuples<m_numberOfTuplesAtLastAdaptation)) {
+            m_numberOfTuplesAtLastAdaptation=numberOfTuples;
+            boolean evaluatorsRecompiled=false;
+            for (AdaptiveEvaluator adaptiveEvaluator : m_adaptiveEvaluators)
+                if (adaptiveEvaluator.selectivitiesShifted(m_extensionManager)) {
+                    DLClause swappedDLClause=new BodyAtomsSwapper(adaptiveEvaluator.m_bodyDLClause,m_tableau).getSwappedDLClause(adaptiveEvaluator.m_deltaAtomIndex);
+                    adaptiveEvaluator.recordNumbersOfTuples(m_extensionManager);
+                    if (!adaptiveEvaluator.hasBodyOrder(swappedDLClause)) {
+                        m_bufferSupply.reuseBuffers();
+                        DLClauseEvaluator evaluator=new DLClauseEvaluator(m_tableau,swappedDLClause,adaptiveEvaluator.m_headDLClauses,adaptiveEvaluator.m_firstTableRetrieval,m_bufferSupply,m_valuesBufferManager,m_groundDisjunctionHeaderManager,m_unionDependencySetsBySize,m_derivationBuffer);
+                        adaptiveEvaluator.m_swappedDLClause=swappedDLClause;
+                        for (CompiledDLClauseInfo compiledDLClauseInfo : adaptiveEvaluator.m_compiledDLClauseInfos)
+                            compiledDLClauseInfo.m_evaluator=evaluator;
+                        m_numberOfRecompiledEvaluators++;
+                        evaluatorsRecompiled=true;
+                    }
+                }
+            if (evaluatorsRecompiled) {
+                m_buffersToClear=m_bufferSupply.getAllBuffers();
+                m_unionDependencySetsToClear=new UnionDependencySet[m_unionDependencySetsBySize.size()];
+                m_unionDependencySetsBySize.values().toArray(m_unionDependencySetsToClear);
+            }
+        }
     }
     public void applyDLClauses() {
-        for (int index=0;index<m_deltaOldRetrievals.length;index++) {
-            ExtensionTable.Retrieval deltaOldRetrieval=m_deltaOldRetrievals[index];
-            deltaOldRetrieval.open();
-            Object[] deltaOldTupleBuffer=deltaOldRetrieval.getTupleBuffer();
-            while (!deltaOldRetrieval.afterLast() && !m_extensionManager.containsClash()) {
-                Object deltaOldPredicate=deltaOldTupleBuffer[0];
-                CompiledDLClauseInfo unoptimizedCompiledDLClauseInfo=m_tupleConsumersByDeltaPredicate.get(deltaOldPredicate);
-                boolean applyUnoptimized=true;
-                if (unoptimizedCompiledDLClauseInfo!=null && deltaOldTupleBuffer[0] instanceof AtomicRole) {
-                    CompiledDLClauseInfo unguardedCompiledDLClauseInfo=m_atomicRoleTupleConsumersUnguarded.get(deltaOldPredicate);
-                    if (unoptimizedCompiledDLClauseInfo.m_indexInList>((Node)deltaOldTupleBuffer[1]).getNumberOfPositiveAtomicConcepts()+((Node)deltaOldTupleBuffer[2]).getNumberOfPositiveAtomicConcepts()+(unguardedCompiledDLClauseInfo==null ? 0 : unguardedCompiledDLClauseInfo.m_indexInList)) {
-                        applyUnoptimized=false;
-                        while (unguardedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
-                            unguardedCompiledDLClauseInfo.m_evaluator.evaluate();
-                            unguardedCompiledDLClauseInfo=unguardedCompiledDLClauseInfo.m_next;
-                        }
-                        if (!m_extensionManager.containsClash()) {
-                            Map<AtomicConcept,CompiledDLClauseInfo> compiledDLClauseInfos=m_atomicRoleTupleConsumersByGuardConcept1.get(deltaOldPredicate);
-                            if (compiledDLClauseInfos!=null) {
-                                m_binaryTableRetrieval.getBindingsBuffer()[1]=deltaOldTupleBuffer[1];
-                                m_binaryTableRetrieval.open();
-                                Object[] binaryTableTupleBuffer=m_binaryTableRetrieval.getTupleBuffer();
-                                while (!m_binaryTableRetrieval.afterLast() && !m_extensionManager.containsClash()) {
-                                    Object atomicConceptObject=binaryTableTupleBuffer[0];
-                                    if (atomicConceptObject instanceof AtomicConcept) {
-                                        CompiledDLClauseInfo optimizedCompiledDLClauseInfo=compiledDLClauseInfos.get(atomicConceptObject);
-                                        while (optimizedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
-                                            optimizedCompiledDLClauseInfo.m_evaluator.evaluate();
-                                            optimizedCompiledDLClauseInfo=optimizedCompiledDLClauseInfo.m_next;
-                                        }
+        if (m_adaptiveEvaluators!=null)
+            adaptJoinOrders();
+        if (m_numberOfThreads>1 && m_extensionManager.m_tableauMonitor==null && getNumberOfDeltaOldTuples()>=m_numberOfThreads*MINIMUM_NUMBER_OF_DELTA_TUPLES_PER_THREAD)
+            applyDLClausesInParallel();
+        else {
+            for (int index=0;index<m_deltaOldRetrievals.length;index++) {
+                ExtensionTable.Retrieval deltaOldRetrieval=m_deltaOldRetrievals[index];
+                deltaOldRetrieval.open();
+                applyDLClauses(deltaOldRetrieval);
+            }
+        }
+    }
+    protected void applyDLClauses(ExtensionTable.Retrieval deltaOldRetrieval) {
+        Object[] deltaOldTupleBuffer=deltaOldRetrieval.getTupleBuffer();
+        while (!deltaOldRetrieval.afterLast() && !containsClash()) {
+            Object deltaOldPredicate=deltaOldTupleBuffer[0];
+            CompiledDLClauseInfo unoptimizedCompiledDLClauseInfo=m_tupleConsumersByDeltaPredicate.get(deltaOldPredicate);
+            boolean applyUnoptimized=true;
+            if (unoptimizedCompiledDLClauseInfo!=null && deltaOldTupleBuffer[0] instanceof AtomicRole) {
+                CompiledDLClauseInfo unguardedCompiledDLClauseInfo=m_atomicRoleTupleConsumersUnguarded.get(deltaOldPredicate);
+                if (unoptimizedCompiledDLClauseInfo.m_indexInList>((Node)deltaOldTupleBuffer[1]).getNumberOfPositiveAtomicConcepts()+((Node)deltaOldTupleBuffer[2]).getNumberOfPositiveAtomicConcepts()+(unguardedCompiledDLClauseInfo==null ? 0 : unguardedCompiledDLClauseInfo.m_indexInList)) {
+                    applyUnoptimized=false;
+                    while (unguardedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
+                        unguardedCompiledDLClauseInfo.m_evaluator.evaluate();
+                        unguardedCompiledDLClauseInfo=unguardedCompiledDLClauseInfo.m_next;
+                    }
+                    if (!m_extensionManager.containsClash()) {
+                        Map<AtomicConcept,CompiledDLClauseInfo> compiledDLClauseInfos=m_atomicRoleTupleConsumersByGuardConcept1.get(deltaOldPredicate);
+                        if (compiledDLClauseInfos!=null) {
+                            m_binaryTableRetrieval.getBindingsBuffer()[1]=deltaOldTupleBuffer[1];
+                            m_binaryTableRetrieval.open();
+                            Object[] binaryTableTupleBuffer=m_binaryTableRetrieval.getTupleBuffer();
+                            while (!m_binaryTableRetrieval.afterLast() && !m_extensionManager.containsClash()) {
+                                Object atomicConceptObject=binaryTableTupleBuffer[0];
+                                if (atomicConceptObject instanceof AtomicConcept) {
+                                    CompiledDLClauseInfo optimizedCompiledDLClauseInfo=compiledDLClauseInfos.get(atomicConceptObject);
+                                    while (optimizedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
+                                        optimizedCompiledDLClauseInfo.m_evaluator.evaluate();
+                                        optimizedCompiledDLClauseInfo=optimizedCompiledDLClauseInfo.m_next;
                                     }
-                                    m_binaryTableRetrieval.next();
                                 }
+                                m_binaryTableRetrieval.next();
                             }
                         }
-                        if (!m_extensionManager.containsClash()) {
-                            Map<AtomicConcept,CompiledDLClauseInfo> compiledDLClauseInfos=m_atomicRoleTupleConsumersByGuardConcept2.get(deltaOldPredicate);
-                            if (compiledDLClauseInfos!=null) {
-                                m_binaryTableRetrieval.getBindingsBuffer()[1]=deltaOldTupleBuffer[2];
-                                m_binaryTableRetrieval.open();
-                                Object[] binaryTableTupleBuffer=m_binaryTableRetrieval.getTupleBuffer();
-                                while (!m_binaryTableRetrieval.afterLast() && !m_extensionManager.containsClash()) {
-                                    Object atomicConceptObject=binaryTableTupleBuffer[0];
-                                    if (atomicConceptObject instanceof AtomicConcept) {
-                                        CompiledDLClauseInfo optimizedCompiledDLClauseInfo=compiledDLClauseInfos.get(atomicConceptObject);
-                                        while (optimizedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
-                                            optimizedCompiledDLClauseInfo.m_evaluator.evaluate();
-                                            optimizedCompiledDLClauseInfo=optimizedCompiledDLClauseInfo.m_next;
-                                        }
+                    }
+                    if (!m_extensionManager.containsClash()) {
+                        Map<AtomicConcept,CompiledDLClauseInfo> compiledDLClauseInfos=m_atomicRoleTupleConsumersByGuardConcept2.get(deltaOldPredicate);
+                        if (compiledDLClauseInfos!=null) {
+                            m_binaryTableRetrieval.getBindingsBuffer()[1]=deltaOldTupleBuffer[2];
+                            m_binaryTableRetrieval.open();
+                            Object[] binaryTableTupleBuffer=m_binaryTableRetrieval.getTupleBuffer();
+                            while (!m_binaryTableRetrieval.afterLast() && !m_extensionManager.containsClash()) {
+                                Object atomicConceptObject=binaryTableTupleBuffer[0];
+                                if (atomicConceptObject instanceof AtomicConcept) {
+                                    CompiledDLClauseInfo optimizedCompiledDLClauseInfo=compiledDLClauseInfos.get(atomicConceptObject);
+                                    while (optimizedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
+                                        optimizedCompiledDLClauseInfo.m_evaluator.evaluate();
+                                        optimizedCompiledDLClauseInfo=optimizedCompiledDLClauseInfo.m_next;
                                     }
-                                    m_binaryTableRetrieval.next();
                                 }
+                                m_binaryTableRetrieval.next();
                             }
                         }
                     }
                 }
-                if (applyUnoptimized) {
-                    while (unoptimizedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
-                        unoptimizedCompiledDLClauseInfo.m_evaluator.evaluate();
-                        unoptimizedCompiledDLClauseInfo=unoptimizedCompiledDLClauseInfo.m_next;
-                    }
+            }
+            if (applyUnoptimized) {
+                while (unoptimizedCompiledDLClauseInfo!=null && !m_extensionManager.containsClash()) {
+                    unoptimizedCompiledDLClauseInfo.m_evaluator.evaluate();
+                    unoptimizedCompiledDLClauseInfo=unoptimizedCompiledDLClauseInfo.m_next;
+                }
+            }
+            deltaOldRetrieval.next();
+        }
+    }
+    protected boolean containsClash() {
+        return m_extensionManager.containsClash() || (m_derivationBuffer!=null && m_derivationBuffer.containsClash());
+    }
+    protected int getNumberOfDeltaOldTuples() {
+        int numberOfDeltaOldTuples=0;
+        for (ExtensionTable.Retrieval deltaOldRetrieval : m_deltaOldRetrievals) {
+            ExtensionTable extensionTable=deltaOldRetrieval.getExtensionTable();
+            numberOfDeltaOldTuples+=extensionTable.m_afterExtensionThisTupleIndex-extensionTable.m_afterExtensionOldTupleIndex;
+        }
+        return numberOfDeltaOldTuples;
+    }
+    /**
+     * Splits the delta-old tuples of each extension table into one chunk per thread and evaluates the chunks on copies
+     * of this manager; the calling thread evaluates the first chunk. The copies only read the tableau, so the
+     * derivations are committed afterwards: table by table, and within a table in the order of the chunks, which is
+     * the order in which the sequential evaluation would have produced them.
+     */
+    protected void applyDLClausesInParallel() {
+        if (m_parallelCopies==null) {
+            m_parallelCopies=new HyperresolutionManager[m_numberOfThreads];
+            for (int threadIndex=0;threadIndex<m_numberOfThreads;threadIndex++)
+                m_parallelCopies[threadIndex]=new HyperresolutionManager(m_tableau,m_dlClauses,new DerivationBuffer());
+        }
+        for (HyperresolutionManager parallelCopy : m_parallelCopies)
+            if (parallelCopy.m_adaptiveEvaluators!=null)
+                parallelCopy.adaptJoinOrders();
+        m_numberOfParallelRounds++;
+        List<Future<?>> futures=new ArrayList<Future<?>>();
+        for (int threadIndex=1;threadIndex<m_numberOfThreads;threadIndex++) {
+            final HyperresolutionManager parallelCopy=m_parallelCopies[threadIndex];
+            final int chunkIndex=threadIndex;
+            futures.add(m_executor.submit(new Runnable() {
+                public void run() {
+                    parallelCopy.applyDLClausesToChunk(chunkIndex,m_numberOfThreads);
+                }
+            }));
+        }
+        Throwable failure=null;
+        try {
+            m_parallelCopies[0].applyDLClausesToChunk(0,m_numberOfThreads);
+        }
+        catch (Throwable error) {
+            failure=error;
+        }
+        boolean interrupted=false;
+        for (Future<?> future : futures) {
+            boolean done=false;
+            while (!done) {
+                try {
+                    future.get();
+                    done=true;
+                }
+                catch (ExecutionException error) {
+                    if (failure==null)
+                        failure=error.getCause();
+                    done=true;
+                }
+                catch (InterruptedException error) {
+                    // The copies read the tableau, so we must not return before they are done.
+                    interrupted=true;
+                    if (failure==null)
+                        failure=new ReasonerInterruptedException(error);
                 }
-                deltaOldRetrieval.next();
             }
         }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        if (failure!=null) {
+            for (HyperresolutionManager parallelCopy : m_parallelCopies)
+                parallelCopy.m_derivationBuffer.clear();
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException)failure;
+            else if (failure instanceof Error)
+                throw (Error)failure;
+            else
+                throw new IllegalStateException("Internal error: a hyperresolution thread failed.",failure);
+        }
+        for (int index=0;index<m_deltaOldRetrievals.length && !m_extensionManager.containsClash();index++)
+            for (int threadIndex=0;threadIndex<m_numberOfThreads && !m_extensionManager.containsClash();threadIndex++) {
+                HyperresolutionManager parallelCopy=m_parallelCopies[threadIndex];
+                int fromIndex=(index==0 ? 0 : parallelCopy.m_derivationBufferMarks[index-1]);
+                parallelCopy.m_derivationBuffer.commit(m_tableau,fromIndex,parallelCopy.m_derivationBufferMarks[index]);
+            }
+        for (HyperresolutionManager parallelCopy : m_parallelCopies)
+            parallelCopy.m_derivationBuffer.clear();
+    }
+    protected void applyDLClausesToChunk(int chunkIndex,int numberOfChunks) {
+        m_derivationBuffer.clear();
+        for (int index=0;index<m_deltaOldRetrievals.length;index++) {
+            ExtensionTable.UnindexedRetrieval deltaOldRetrieval=(ExtensionTable.UnindexedRetrieval)m_deltaOldRetrievals[index];
+            ExtensionTable extensionTable=deltaOldRetrieval.getExtensionTable();
+            int firstTupleIndex=extensionTable.m_afterExtensionOldTupleIndex;
+            int chunkSize=(extensionTable.m_afterExtensionThisTupleIndex-firstTupleIndex+numberOfChunks-1)/numberOfChunks;
+            firstTupleIndex+=chunkIndex*chunkSize;
+            deltaOldRetrieval.open(firstTupleIndex,firstTupleIndex+chunkSize);
+            applyDLClauses(deltaOldRetrieval);
+            m_derivationBufferMarks[index]=m_derivationBuffer.size();
+        }
     }
 
     protected static final class CompiledDLClauseInfo {
-        protected final DLClauseEvaluator m_evaluator;
+        protected DLClauseEvaluator m_evaluator;
         protected final CompiledDLClauseInfo m_next;
         protected final int m_indexInList;
 
@@ -268,21 +503,78 @@ public final class HyperresolutionManager implements Serializable {
         }
     }
 
+    protected static final class AdaptiveEvaluator {
+        protected final DLClause m_bodyDLClause;
+        protected final int m_deltaAtomIndex;
+        protected final List<DLClause> m_headDLClauses;
+        protected final ExtensionTable.Retrieval m_firstTableRetrieval;
+        protected final List<CompiledDLClauseInfo> m_compiledDLClauseInfos;
+        protected final int[] m_numbersOfTuples;
+        protected DLClause m_swappedDLClause;
+
+        public AdaptiveEvaluator(DLClause bodyDLClause,int deltaAtomIndex,List<DLClause> headDLClauses,ExtensionTable.Retrieval firstTableRetrieval,DLClause swappedDLClause) {
+            m_bodyDLClause=bodyDLClause;
+            m_deltaAtomIndex=deltaAtomIndex;
+            m_headDLClauses=headDLClauses;
+            m_firstTableRetrieval=firstTableRetrieval;
+            m_compiledDLClauseInfos=new ArrayList<CompiledDLClauseInfo>(2);
+            m_numbersOfTuples=new int[bodyDLClause.getBodyLength()];
+            m_swappedDLClause=swappedDLClause;
+        }
+        public void recordNumbersOfTuples(ExtensionManager extensionManager) {
+            for (int bodyAtomIndex=0;bodyAtomIndex<m_numbersOfTuples.length;bodyAtomIndex++)
+                m_numbersOfTuples[bodyAtomIndex]=getNumberOfTuples(extensionManager,bodyAtomIndex);
+        }
+        public boolean selectivitiesShifted(ExtensionManager extensionManager) {
+            for (int bodyAtomIndex=0;bodyAtomIndex<m_numbersOfTuples.length;bodyAtomIndex++) {
+                int oldNumberOfTuples=m_numbersOfTuples[bodyAtomIndex];
+                int newNumberOfTuples=getNumberOfTuples(extensionManager,bodyAtomIndex);
+                if (Math.max(oldNumberOfTuples,newNumberOfTuples)>=MINIMUM_NUMBER_OF_TUPLES_FOR_SHIFT && (oldNumberOfTuples>SELECTIVITY_SHIFT_FACTOR*newNumberOfTuples || newNumberOfTuples>SELECTIVITY_SHIFT_FACTOR*oldNumberOfTuples))
+                    return true;
+            }
+            return false;
+        }
+        public boolean hasBodyOrder(DLClause swappedDLClause) {
+            for (int bodyAtomIndex=0;bodyAtomIndex<swappedDLClause.getBodyLength();bodyAtomIndex++)
+                if (!swappedDLClause.getBodyAtom(bodyAtomIndex).equals(m_swappedDLClause.getBodyAtom(bodyAtomIndex)))
+                    return false;
+            return true;
+        }
+        protected int getNumberOfTuples(ExtensionManager extensionManager,int bodyAtomIndex) {
+            DLPredicate dlPredicate=m_bodyDLClause.getBodyAtom(bodyAtomIndex).getDLPredicate();
+            if (bodyAtomIndex!=m_deltaAtomIndex && (dlPredicate instanceof AtomicConcept || dlPredicate instanceof AtomicRole))
+                return extensionManager.getNumberOfTuples(dlPredicate);
+            else
+                return 0;
+        }
+    }
+
     public static final class BodyAtomsSwapper {
         protected final DLClause m_dlClause;
         protected final List<Atom> m_nodeIDComparisonAtoms;
         protected final boolean[] m_usedAtoms;
         protected final List<Atom> m_reorderedAtoms;
         protected final Set<Variable> m_boundVariables;
+        protected final Tableau m_tableau;
+        protected boolean m_useNumbersOfTuples;
 
         public BodyAtomsSwapper(DLClause dlClause) {
+            this(dlClause,null);
+        }
+        /**
+         * If the tableau is not null and its extension tables count tuples, atoms with unbound variables are ordered
+         * by the estimated number of matching tuples rather than by the number of unbound variables alone.
+         */
+        public BodyAtomsSwapper(DLClause dlClause,Tableau tableau) {
             m_dlClause=dlClause;
             m_nodeIDComparisonAtoms=new ArrayList<Atom>(m_dlClause.getBodyLength());
             m_usedAtoms=new boolean[m_dlClause.getBodyLength()];
             m_reorderedAtoms=new ArrayList<Atom>(m_dlClause.getBodyLength());
             m_boundVariables=new HashSet<Variable>();
+            m_tableau=tableau;
         }
         public DLClause getSwappedDLClause(int bodyIndex) {
+            m_useNumbersOfTuples=(m_tableau!=null && m_tableau.m_extensionManager.getNumberOfTuples()>=MINIMUM_NUMBER_OF_TUPLES_FOR_STATISTICS);
             m_nodeIDComparisonAtoms.clear();
             for (int index=m_usedAtoms.length-1;index>=0;--index) {
                 m_usedAtoms[index]=false;
@@ -353,6 +645,11 @@ public final class HyperresolutionManager implements Serializable {
                     }
                 }
                 int goodness=numberOfBoundVariables*100-numberOfUnboundVariables*10;
+                if (m_useNumbersOfTuples && numberOfUnboundVariables>0 && (atom.getDLPredicate() instanceof AtomicConcept || atom.getDLPredicate() instanceof AtomicRole)) {
+                    int numberOfTuples=m_tableau.m_extensionManager.getNumberOfTuples(atom.getDLPredicate());
+                    if (numberOfTuples>=0)
+                        goodness=getEstimatedGoodness(numberOfTuples,numberOfBoundVariables);
+                }
                 if (atom.getDLPredicate().getArity()==2 && numberOfUnboundVariables==1 && !m_nodeIDComparisonAtoms.isEmpty()) {
                     Variable unboundVariable=atom.getArgumentVariable(0);
                     if (m_boundVariables.contains(unboundVariable))
@@ -371,6 +668,17 @@ public final class HyperresolutionManager implements Serializable {
                 }
                 return goodness;
             }
+        }
+        /**
+         * Converts the estimated number of tuples matching a partially bound atom into a goodness that is below
+         * the goodness of any fully bound atom and decreases logarithmically with the estimate.
+         */
+        protected int getEstimatedGoodness(int numberOfTuples,int numberOfBoundVariables) {
+            double estimatedNumberOfMatches=numberOfTuples;
+            int numberOfNodes=Math.max(1,m_tableau.getNumberOfNodesInTableau());
+            for (int index=0;index<numberOfBoundVariables;index++)
+                estimatedNumberOfMatches/=numberOfNodes;
+            return Math.max(-900,90-(int)(10.0*Math.log(1.0+estimatedNumberOfMatches)/Math.log(2.0)));
         }
     }
 
@@ -0,0 +1,136 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+/**
+ * A tuple table that stores the first encodedArity objects of each tuple as integer IDs in int[] pages. The remaining
+ * objects of a tuple (i.e., the dependency set, if any) are kept in the object pages inherited from TupleTable.
+ * Objects are resolved through the TupleObjectDictionary only when a tuple is retrieved.
+ */
+public final class IntTupleTable extends TupleTable {
+    private static final long serialVersionUID=3346262478532460207L;
+    protected static final Object[] NO_OBJECTS=new Object[0];
+
+    protected final int m_encodedArity;
+    protected final TupleObjectDictionary m_dictionary;
+    protected int[][] m_intPages;
+
+    public IntTupleTable(int encodedArity,int objectArity,TupleObjectDictionary dictionary) {
+        super(objectArity);
+        m_encodedArity=encodedArity;
+        m_dictionary=dictionary;
+        m_intPages=new int[10][];
+        m_intPages[0]=new int[m_encodedArity*PAGE_SIZE];
+    }
+    public int sizeInMemory() {
+        int size=super.sizeInMemory()+m_intPages.length*4;
+        for (int i=m_intPages.length-1;i>=0;--i)
+            if (m_intPages[i]!=null)
+                size+=m_intPages[i].length*4;
+        return size;
+    }
+    public int addTuple(Object[] tupleBuffer) {
+        int newTupleIndex=super.addTuple(NO_OBJECTS);
+        int[] page=getIntPageForNewTuple(newTupleIndex);
+        int tupleStartIndex=(newTupleIndex % PAGE_SIZE)*m_encodedArity;
+        for (int position=0;position<m_encodedArity;position++)
+            page[tupleStartIndex+position]=m_dictionary.encode(position,tupleBuffer[position]);
+        return newTupleIndex;
+    }
+    /**
+     * Stores a tuple whose objects have already been encoded; the objects must have been registered with the dictionary.
+     */
+    public int addEncodedTuple(int[] encodedTuple) {
+        int newTupleIndex=super.addTuple(NO_OBJECTS);
+        System.arraycopy(encodedTuple,0,getIntPageForNewTuple(newTupleIndex),(newTupleIndex % PAGE_SIZE)*m_encodedArity,m_encodedArity);
+        return newTupleIndex;
+    }
+    protected int[] getIntPageForNewTuple(int newTupleIndex) {
+        int pageIndex=newTupleIndex / PAGE_SIZE;
+        if (pageIndex==m_intPages.length) {
+            int[][] newIntPages=new int[m_intPages.length*3/2][];
+            System.arraycopy(m_intPages,0,newIntPages,0,m_intPages.length);
+            m_intPages=newIntPages;
+        }
+        int[] page=m_intPages[pageIndex];
+        if (page==null) {
+            page=new int[m_encodedArity*PAGE_SIZE];
+            m_intPages[pageIndex]=page;
+        }
+        return page;
+    }
+    public int getTupleID(int tupleIndex,int objectIndex) {
+        return m_intPages[tupleIndex / PAGE_SIZE][(tupleIndex % PAGE_SIZE)*m_encodedArity+objectIndex];
+    }
+    public boolean tupleEquals(Object[] tupleBuffer,int tupleIndex,int compareLength) {
+        int[] page=m_intPages[tupleIndex / PAGE_SIZE];
+        int tupleStartIndex=(tupleIndex % PAGE_SIZE)*m_encodedArity;
+        for (int index=compareLength-1;index>=0;--index) {
+            if (index<m_encodedArity) {
+                if (m_dictionary.getID(index,tupleBuffer[index])!=page[tupleStartIndex+index])
+                    return false;
+            }
+            else if (!tupleBuffer[index].equals(super.getTupleObject(tupleIndex,index-m_encodedArity)))
+                return false;
+        }
+        return true;
+    }
+    public boolean tupleEquals(Object[] tupleBuffer,int[] positionIndexes,int tupleIndex,int compareLength) {
+        int[] page=m_intPages[tupleIndex / PAGE_SIZE];
+        int tupleStartIndex=(tupleIndex % PAGE_SIZE)*m_encodedArity;
+        for (int index=compareLength-1;index>=0;--index) {
+            Object object=tupleBuffer[positionIndexes[index]];
+            if (index<m_encodedArity) {
+                if (m_dictionary.getID(index,object)!=page[tupleStartIndex+index])
+                    return false;
+            }
+            else if (!object.equals(super.getTupleObject(tupleIndex,index-m_encodedArity)))
+                return false;
+        }
+        return true;
+    }
+    public void retrieveTuple(Object[] tupleBuffer,int tupleIndex) {
+        int[] page=m_intPages[tupleIndex / PAGE_SIZE];
+        int tupleStartIndex=(tupleIndex % PAGE_SIZE)*m_encodedArity;
+        int length=Math.min(tupleBuffer.length,m_encodedArity);
+        for (int position=0;position<length;position++)
+            tupleBuffer[position]=m_dictionary.decode(position,page[tupleStartIndex+position]);
+        for (int position=m_encodedArity;position<tupleBuffer.length;position++)
+            tupleBuffer[position]=super.getTupleObject(tupleIndex,position-m_encodedArity);
+    }
+    public Object getTupleObject(int tupleIndex,int objectIndex) {
+        if (objectIndex<m_encodedArity)
+            return m_dictionary.decode(objectIndex,getTupleID(tupleIndex,objectIndex));
+        else
+            return super.getTupleObject(tupleIndex,objectIndex-m_encodedArity);
+    }
+    public void setTupleObject(int tupleIndex,int objectIndex,Object object) {
+        if (objectIndex<m_encodedArity)
+            m_intPages[tupleIndex / PAGE_SIZE][(tupleIndex % PAGE_SIZE)*m_encodedArity+objectIndex]=m_dictionary.encode(objectIndex,object);
+        else
+            super.setTupleObject(tupleIndex,objectIndex-m_encodedArity,object);
+    }
+    public void clear() {
+        super.clear();
+        // TupleTable's constructor calls clear() before our fields have been initialized.
+        if (m_intPages!=null) {
+            m_intPages=new int[10][];
+            m_intPages[0]=new int[m_encodedArity*PAGE_SIZE];
+        }
+    }
+}
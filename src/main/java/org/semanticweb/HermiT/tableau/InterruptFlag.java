@@ -29,6 +29,7 @@ public final class InterruptFlag implements Serializable {
 
     protected final InterruptTimer m_interruptTimer;
     protected volatile InterruptType m_interruptType;
+    protected volatile InterruptType m_cancellationType;
 
     public InterruptFlag(long individualTaskTimeout) {
         if (individualTaskTimeout>0)
@@ -49,13 +50,28 @@ public final class InterruptFlag implements Serializable {
         m_interruptType=InterruptType.INTERRUPTED;
     }
     public void startTask() {
-        m_interruptType=null;
+        m_interruptType=m_cancellationType;
         if (m_interruptTimer!=null)
             m_interruptTimer.startTiming();
     }
     public void endTask() {
         if (m_interruptTimer!=null)
             m_interruptTimer.stopTiming();
+        m_interruptType=m_cancellationType;
+    }
+    /**
+     * Interrupts the current task and all tasks that are started until reset() is called. Unlike interrupt(), this also stops
+     * a caller that runs a sequence of tasks if the caller is between two tasks when it is cancelled.
+     *
+     * @param timeout
+     *            - if true, the tasks fail with a TimeOutException instead of a ReasonerInterruptedException
+     */
+    public void cancel(boolean timeout) {
+        m_cancellationType=(timeout ? InterruptType.TIMEOUT : InterruptType.INTERRUPTED);
+        m_interruptType=m_cancellationType;
+    }
+    public void reset() {
+        m_cancellationType=null;
         m_interruptType=null;
     }
     public void dispose() {
@@ -0,0 +1,428 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package org.semanticweb.HermiT.tableau;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.HermiT.model.Atom;
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.HermiT.model.DLPredicate;
+import org.semanticweb.HermiT.model.Individual;
+import org.semanticweb.HermiT.model.Term;
+
+/**
+ * Stores nogoods learned from clashes. Whenever a clash depends only on disjunction branching points whose current
+ * choice is an atomic concept on a node of an individual, the conjunction of these choices is inconsistent with the
+ * facts that the test started with. Such a conjunction is recorded as a nogood over (individual, concept) literals,
+ * and whenever a disjunct would complete a nogood whose other literals hold, a clash is raised immediately instead
+ * of rederiving it. Nodes of individuals are created before any branching point and are never backtracked, so
+ * literals over them have a stable meaning within a test. A nogood that does not depend on the dummy facts of a test
+ * is also valid in all later tests that start with at least the same facts, so it is kept between tests. The store
+ * is bounded; when it overflows, the half of the nogoods with the lowest activity (a decaying count of how often a
+ * nogood was learned or used) is evicted.
+ */
+public final class NogoodStore implements Serializable {
+    private static final long serialVersionUID=-2613046329517482930L;
+    /**
+     * If this tableau parameter is an Integer greater than zero, the tableau learns nogoods and keeps at most that many.
+     */
+    public static final String CAPACITY_PARAMETER="NogoodStore.capacity";
+    protected static final int MAXIMAL_NOGOOD_LENGTH=8;
+    protected static final double ACTIVITY_DECAY=0.95;
+    protected static final double ACTIVITY_LIMIT=1e100;
+
+    protected final Tableau m_tableau;
+    protected final int m_capacity;
+    protected final List<Nogood> m_nogoods;
+    protected final Map<Nogood,Nogood> m_nogoodsByLiterals;
+    protected final Map<AtomicConcept,List<Nogood>> m_nogoodsByConcept;
+    protected final List<Individual> m_individualsBuffer;
+    protected final List<AtomicConcept> m_conceptsBuffer;
+    protected double m_activityIncrement;
+    protected int m_numberOfTestLocalNogoods;
+    protected long m_numberOfLearnedNogoods;
+    protected long m_numberOfPrunedDisjuncts;
+    // current test
+    protected final Map<Node,Individual> m_checkpointIndividualsForNodes;
+    protected final Map<Node,Individual> m_individualsForNodes;
+    protected Map<Term,Node> m_termsToNodes;
+    protected Base m_currentBase;
+    protected int m_testNumber;
+
+    public NogoodStore(Tableau tableau,int capacity) {
+        m_tableau=tableau;
+        m_capacity=capacity;
+        m_nogoods=new ArrayList<Nogood>();
+        m_nogoodsByLiterals=new HashMap<Nogood,Nogood>();
+        m_nogoodsByConcept=new HashMap<AtomicConcept,List<Nogood>>();
+        m_individualsBuffer=new ArrayList<Individual>();
+        m_conceptsBuffer=new ArrayList<AtomicConcept>();
+        m_activityIncrement=1.0;
+        m_checkpointIndividualsForNodes=new IdentityHashMap<Node,Individual>();
+        m_individualsForNodes=new IdentityHashMap<Node,Individual>();
+    }
+    public int getCapacity() {
+        return m_capacity;
+    }
+    public int getNumberOfNogoods() {
+        return m_nogoods.size();
+    }
+    public long getNumberOfLearnedNogoods() {
+        return m_numberOfLearnedNogoods;
+    }
+    public long getNumberOfPrunedDisjuncts() {
+        return m_numberOfPrunedDisjuncts;
+    }
+    /**
+     * Forgets the nodes of the previous test and the nogoods that were valid only in that test.
+     */
+    public void clear() {
+        m_checkpointIndividualsForNodes.clear();
+        checkpointRestored();
+    }
+    /**
+     * Records the nodes of the individuals in the checkpoint of the tableau, which survive all tests that start from it.
+     */
+    public void checkpointCreated(Map<Term,Node> termsToNodes) {
+        for (Map.Entry<Term,Node> entry : termsToNodes.entrySet())
+            if (entry.getKey() instanceof Individual)
+                m_checkpointIndividualsForNodes.put(entry.getValue(),(Individual)entry.getKey());
+    }
+    /**
+     * Forgets the nodes created after the checkpoint of the tableau and the nogoods that were valid only in the previous test.
+     */
+    public void checkpointRestored() {
+        m_testNumber++;
+        m_individualsForNodes.clear();
+        m_termsToNodes=null;
+        m_currentBase=null;
+        if (m_numberOfTestLocalNogoods>0) {
+            for (int index=m_nogoods.size()-1;index>=0;--index)
+                if (m_nogoods.get(index).m_isTestLocal)
+                    m_nogoods.remove(index);
+            m_numberOfTestLocalNogoods=0;
+            rebuildIndexes();
+        }
+    }
+    /**
+     * Drops the nogoods that were learned while the given additional DL-ontology was set.
+     */
+    public void additionalDLOntologyChanged(DLOntology previousAdditionalDLOntology) {
+        if (previousAdditionalDLOntology!=null) {
+            boolean hasChange=false;
+            for (int index=m_nogoods.size()-1;index>=0;--index)
+                if (m_nogoods.get(index).m_base.m_additionalDLOntology==previousAdditionalDLOntology) {
+                    m_nogoods.remove(index);
+                    hasChange=true;
+                }
+            if (hasChange)
+                rebuildIndexes();
+        }
+    }
+    /**
+     * Called once all facts of a test have been loaded; determines the nogoods that are applicable in the test and
+     * maps their individuals to the nodes of the test. If the test started from the checkpoint of the tableau, only the
+     * terms added after the checkpoint are given in termsAddedAfterCheckpoint; otherwise, this argument is null.
+     */
+    public void testStarted(boolean loadPermanentABox,boolean loadAdditionalABox,Set<Atom> perTestPositiveFactsNoDependency,Set<Atom> perTestNegativeFactsNoDependency,Map<Term,Node> termsToNodes,Collection<Term> termsAddedAfterCheckpoint) {
+        m_termsToNodes=termsToNodes;
+        if (termsAddedAfterCheckpoint==null) {
+            for (Map.Entry<Term,Node> entry : termsToNodes.entrySet())
+                if (entry.getKey() instanceof Individual)
+                    m_individualsForNodes.put(entry.getValue(),(Individual)entry.getKey());
+        }
+        else {
+            for (Term term : termsAddedAfterCheckpoint)
+                if (term instanceof Individual)
+                    m_individualsForNodes.put(termsToNodes.get(term),(Individual)term);
+        }
+        m_currentBase=new Base(loadPermanentABox,loadAdditionalABox && m_tableau.m_additionalDLOntology!=null,m_tableau.m_additionalDLOntology,perTestPositiveFactsNoDependency,perTestNegativeFactsNoDependency);
+        for (int index=m_nogoods.size()-1;index>=0;--index) {
+            Nogood nogood=m_nogoods.get(index);
+            Base base=nogood.m_base;
+            if (base.m_checkedInTest!=m_testNumber) {
+                base.m_checkedInTest=m_testNumber;
+                base.m_isApplicable=base.isWeakerThan(m_currentBase);
+            }
+            if (base.m_isApplicable && nogood.resolveNodes(termsToNodes))
+                nogood.m_activeInTest=m_testNumber;
+        }
+    }
+    /**
+     * Records the choices that the given clash depends on as a nogood, provided the clash depends only on
+     * disjunction branching points that chose an atomic concept on the node of an individual.
+     */
+    public void learn(PermanentDependencySet clashDependencySet) {
+        if (m_currentBase==null)
+            return;
+        m_individualsBuffer.clear();
+        m_conceptsBuffer.clear();
+        boolean isTestLocal=false;
+        for (PermanentDependencySet set=clashDependencySet;set.m_branchingPoint!=-1;set=set.m_rest) {
+            int level=set.m_branchingPoint;
+            if (level<=m_tableau.m_nonbacktrackableBranchingPoint)
+                isTestLocal=true;
+            else {
+                BranchingPoint branchingPoint=m_tableau.m_branchingPoints[level];
+                if (!(branchingPoint instanceof DisjunctionBranchingPoint))
+                    return;
+                DisjunctionBranchingPoint disjunctionBranchingPoint=(DisjunctionBranchingPoint)branchingPoint;
+                int disjunctIndex=disjunctionBranchingPoint.m_sortedDisjunctIndexes[disjunctionBranchingPoint.m_currentIndex];
+                DLPredicate dlPredicate=disjunctionBranchingPoint.m_groundDisjunction.getDLPredicate(disjunctIndex);
+                if (!(dlPredicate instanceof AtomicConcept))
+                    return;
+                Individual individual=getIndividualForNode(disjunctionBranchingPoint.m_groundDisjunction.getArgument(disjunctIndex,0));
+                if (individual==null || m_individualsBuffer.size()==MAXIMAL_NOGOOD_LENGTH)
+                    return;
+                m_individualsBuffer.add(individual);
+                m_conceptsBuffer.add((AtomicConcept)dlPredicate);
+            }
+        }
+        if (m_individualsBuffer.isEmpty())
+            return;
+        Nogood nogood=new Nogood(m_currentBase,isTestLocal,m_individualsBuffer.toArray(new Individual[m_individualsBuffer.size()]),m_conceptsBuffer.toArray(new AtomicConcept[m_conceptsBuffer.size()]));
+        Nogood existing=m_nogoodsByLiterals.get(nogood);
+        if (existing!=null) {
+            bumpActivity(existing);
+            return;
+        }
+        nogood.resolveNodes(m_termsToNodes);
+        nogood.m_activeInTest=m_testNumber;
+        if (isTestLocal)
+            m_numberOfTestLocalNogoods++;
+        m_numberOfLearnedNogoods++;
+        m_nogoods.add(nogood);
+        addToIndexes(nogood);
+        bumpActivity(nogood);
+        m_activityIncrement/=ACTIVITY_DECAY;
+        if (m_nogoods.size()>m_capacity)
+            evictLeastActiveHalf();
+    }
+    /**
+     * Checks whether adding the given concept to the given node completes a nogood whose other literals already hold.
+     * If so, a clash is raised whose dependency set is the union of the given dependency set and the dependency sets of
+     * the other literals, and true is returned.
+     */
+    public boolean checkNogoods(AtomicConcept concept,Node node,DependencySet dependencySet) {
+        List<Nogood> nogoods=m_nogoodsByConcept.get(concept);
+        if (nogoods==null || getIndividualForNode(node)==null)
+            return false;
+        ExtensionManager extensionManager=m_tableau.m_extensionManager;
+        DependencySetFactory dependencySetFactory=m_tableau.m_dependencySetFactory;
+        for (int nogoodIndex=nogoods.size()-1;nogoodIndex>=0;--nogoodIndex) {
+            Nogood nogood=nogoods.get(nogoodIndex);
+            if (nogood.m_activeInTest==m_testNumber) {
+                int matchingIndex=nogood.getLiteralIndex(concept,node);
+                if (matchingIndex!=-1) {
+                    boolean allOtherLiteralsHold=true;
+                    for (int index=0;allOtherLiteralsHold && index<nogood.m_concepts.length;index++)
+                        if (index!=matchingIndex)
+                            allOtherLiteralsHold=extensionManager.containsConceptAssertion(nogood.m_concepts[index],nogood.m_nodes[index].getCanonicalNode());
+                    if (allOtherLiteralsHold) {
+                        PermanentDependencySet clashDependencySet=dependencySetFactory.getPermanent(dependencySet);
+                        // a nogood learned in this test from a clash that involved the dummy facts depends on them
+                        if (nogood.m_isTestLocal)
+                            clashDependencySet=dependencySetFactory.addBranchingPoint(clashDependencySet,m_tableau.m_nonbacktrackableBranchingPoint);
+                        for (int index=0;index<nogood.m_concepts.length;index++)
+                            if (index!=matchingIndex) {
+                                Node literalNode=nogood.m_nodes[index];
+                                clashDependencySet=dependencySetFactory.unionWith(clashDependencySet,extensionManager.getConceptAssertionDependencySet(nogood.m_concepts[index],literalNode.getCanonicalNode()));
+                                clashDependencySet=literalNode.addCanonicalNodeDependencySet(clashDependencySet);
+                            }
+                        bumpActivity(nogood);
+                        m_numberOfPrunedDisjuncts++;
+                        extensionManager.setClash(clashDependencySet);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    protected void bumpActivity(Nogood nogood) {
+        nogood.m_activity+=m_activityIncrement;
+        if (nogood.m_activity>ACTIVITY_LIMIT) {
+            for (Nogood existing : m_nogoods)
+                existing.m_activity/=ACTIVITY_LIMIT;
+            m_activityIncrement/=ACTIVITY_LIMIT;
+        }
+    }
+    protected void evictLeastActiveHalf() {
+        Collections.sort(m_nogoods,new Comparator<Nogood>() {
+            public int compare(Nogood nogood1,Nogood nogood2) {
+                return Double.compare(nogood2.m_activity,nogood1.m_activity);
+            }
+        });
+        while (m_nogoods.size()>m_capacity/2)
+            m_nogoods.remove(m_nogoods.size()-1);
+        m_numberOfTestLocalNogoods=0;
+        for (Nogood nogood : m_nogoods)
+            if (nogood.m_isTestLocal)
+                m_numberOfTestLocalNogoods++;
+        rebuildIndexes();
+    }
+    protected Individual getIndividualForNode(Node node) {
+        Individual individual=m_individualsForNodes.get(node);
+        if (individual==null)
+            individual=m_checkpointIndividualsForNodes.get(node);
+        return individual;
+    }
+    protected void rebuildIndexes() {
+        m_nogoodsByLiterals.clear();
+        m_nogoodsByConcept.clear();
+        for (Nogood nogood : m_nogoods)
+            addToIndexes(nogood);
+    }
+    protected void addToIndexes(Nogood nogood) {
+        m_nogoodsByLiterals.put(nogood,nogood);
+        for (int index=0;index<nogood.m_concepts.length;index++) {
+            AtomicConcept concept=nogood.m_concepts[index];
+            List<Nogood> nogoods=m_nogoodsByConcept.get(concept);
+            if (nogoods==null) {
+                nogoods=new ArrayList<Nogood>();
+                m_nogoodsByConcept.put(concept,nogoods);
+            }
+            if (nogoods.isEmpty() || nogoods.get(nogoods.size()-1)!=nogood)
+                nogoods.add(nogood);
+        }
+    }
+
+    /**
+     * The facts that a test started with, apart from the dummy facts. A nogood learned in a test with some base is
+     * valid in each test whose base contains at least the same facts.
+     */
+    protected static final class Base implements Serializable {
+        private static final long serialVersionUID=4650389734213546581L;
+
+        protected final boolean m_loadPermanentABox;
+        protected final boolean m_loadAdditionalABox;
+        protected final DLOntology m_additionalDLOntology;
+        protected final Set<Atom> m_perTestPositiveFacts;
+        protected final Set<Atom> m_perTestNegativeFacts;
+        protected final int m_hashCode;
+        protected int m_checkedInTest;
+        protected boolean m_isApplicable;
+
+        public Base(boolean loadPermanentABox,boolean loadAdditionalABox,DLOntology additionalDLOntology,Set<Atom> perTestPositiveFacts,Set<Atom> perTestNegativeFacts) {
+            m_loadPermanentABox=loadPermanentABox;
+            m_loadAdditionalABox=loadAdditionalABox;
+            m_additionalDLOntology=additionalDLOntology;
+            m_perTestPositiveFacts=copy(perTestPositiveFacts);
+            m_perTestNegativeFacts=copy(perTestNegativeFacts);
+            m_hashCode=(m_loadPermanentABox ? 1 : 0)+(m_loadAdditionalABox ? 2 : 0)+(m_additionalDLOntology==null ? 0 : System.identityHashCode(m_additionalDLOntology))+7*m_perTestPositiveFacts.hashCode()+13*m_perTestNegativeFacts.hashCode();
+            m_checkedInTest=-1;
+        }
+        protected static Set<Atom> copy(Set<Atom> facts) {
+            if (facts==null || facts.isEmpty())
+                return Collections.emptySet();
+            else
+                return new HashSet<Atom>(facts);
+        }
+        public boolean isWeakerThan(Base that) {
+            return (!m_loadPermanentABox || that.m_loadPermanentABox) && (!m_loadAdditionalABox || that.m_loadAdditionalABox) && (m_additionalDLOntology==null || m_additionalDLOntology==that.m_additionalDLOntology) && that.m_perTestPositiveFacts.containsAll(m_perTestPositiveFacts) && that.m_perTestNegativeFacts.containsAll(m_perTestNegativeFacts);
+        }
+        public int hashCode() {
+            return m_hashCode;
+        }
+        public boolean equals(Object that) {
+            if (this==that)
+                return true;
+            if (!(that instanceof Base))
+                return false;
+            Base thatBase=(Base)that;
+            return m_hashCode==thatBase.m_hashCode && m_loadPermanentABox==thatBase.m_loadPermanentABox && m_loadAdditionalABox==thatBase.m_loadAdditionalABox && m_additionalDLOntology==thatBase.m_additionalDLOntology && m_perTestPositiveFacts.equals(thatBase.m_perTestPositiveFacts) && m_perTestNegativeFacts.equals(thatBase.m_perTestNegativeFacts);
+        }
+    }
+
+    /**
+     * A set of (individual, concept) literals that cannot hold together given the facts of the base.
+     */
+    protected static final class Nogood implements Serializable {
+        private static final long serialVersionUID=-6707913874950531847L;
+
+        protected final Base m_base;
+        protected final boolean m_isTestLocal;
+        protected final Individual[] m_individuals;
+        protected final AtomicConcept[] m_concepts;
+        protected final Node[] m_nodes;
+        protected final int m_hashCode;
+        protected double m_activity;
+        protected int m_activeInTest;
+
+        public Nogood(Base base,boolean isTestLocal,Individual[] individuals,AtomicConcept[] concepts) {
+            m_base=base;
+            m_isTestLocal=isTestLocal;
+            m_individuals=individuals;
+            m_concepts=concepts;
+            m_nodes=new Node[individuals.length];
+            int hashCode=base.hashCode()+(isTestLocal ? 1 : 0);
+            for (int index=0;index<individuals.length;index++)
+                hashCode+=individuals[index].hashCode()*31+concepts[index].hashCode();
+            m_hashCode=hashCode;
+            m_activeInTest=-1;
+        }
+        public boolean resolveNodes(Map<Term,Node> termsToNodes) {
+            for (int index=0;index<m_individuals.length;index++) {
+                Node node=termsToNodes.get(m_individuals[index]);
+                if (node==null)
+                    return false;
+                m_nodes[index]=node;
+            }
+            return true;
+        }
+        public int getLiteralIndex(AtomicConcept concept,Node node) {
+            for (int index=0;index<m_concepts.length;index++)
+                if (m_concepts[index]==concept && m_nodes[index]==node)
+                    return index;
+            return -1;
+        }
+        protected boolean containsLiteral(Individual individual,AtomicConcept concept) {
+            for (int index=0;index<m_concepts.length;index++)
+                if (m_concepts[index]==concept && m_individuals[index]==individual)
+                    return true;
+            return false;
+        }
+        public int hashCode() {
+            return m_hashCode;
+        }
+        public boolean equals(Object that) {
+            if (this==that)
+                return true;
+            if (!(that instanceof Nogood))
+                return false;
+            Nogood thatNogood=(Nogood)that;
+            if (m_hashCode!=thatNogood.m_hashCode || m_isTestLocal!=thatNogood.m_isTestLocal || m_concepts.length!=thatNogood.m_concepts.length || !m_base.equals(thatNogood.m_base))
+                return false;
+            for (int index=0;index<m_concepts.length;index++)
+                if (!thatNogood.containsLiteral(m_individuals[index],m_concepts[index]))
+                    return false;
+            return true;
+        }
+    }
+}
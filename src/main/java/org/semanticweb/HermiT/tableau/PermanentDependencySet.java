@@ -28,6 +28,9 @@ public final class PermanentDependencySet implements DependencySet,Serializable
     protected int m_usageCounter;
     protected PermanentDependencySet m_previousUnusedSet;
     protected PermanentDependencySet m_nextUnusedSet;
+    protected long[] m_bits;
+    protected int m_bitsHashCode;
+    protected PermanentDependencySet m_nextBitsEntry;
     
     protected PermanentDependencySet() {
         m_rest=null;
@@ -38,6 +41,10 @@ public final class PermanentDependencySet implements DependencySet,Serializable
         m_nextUnusedSet=null;
     }
     public boolean containsBranchingPoint(int branchingPoint) {
+        if (m_bits!=null && branchingPoint>=0) {
+            int wordIndex=branchingPoint >>> 6;
+            return wordIndex<m_bits.length && (m_bits[wordIndex] & (1L << branchingPoint))!=0;
+        }
         PermanentDependencySet set=this;
         while (set!=null) {
             if (set.m_branchingPoint==branchingPoint)
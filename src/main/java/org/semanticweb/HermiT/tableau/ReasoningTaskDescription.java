@@ -74,6 +74,16 @@ public class ReasoningTaskDescription {
     public static ReasoningTaskDescription isConceptSatisfiable(Object atomicConcept) {
         return new ReasoningTaskDescription(false,StandardTestType.CONCEPT_SATISFIABILITY,atomicConcept);
     }
+    public static ReasoningTaskDescription isConceptListSatisfiable(Object... atomicConcepts) {
+        StringBuffer message=new StringBuffer();
+        message.append("satisfiability of concepts");
+        for (int index=0;index<atomicConcepts.length;index++) {
+            message.append(index==0 ? " '{" : ", '{");
+            message.append(index);
+            message.append("}'");
+        }
+        return new ReasoningTaskDescription(false,message.toString(),atomicConcepts);
+    }
     public static ReasoningTaskDescription isConceptSubsumedBy(Object atomicSubconcept,Object atomicSuperconcept) {
         return new ReasoningTaskDescription(true,StandardTestType.CONCEPT_SUBSUMPTION,atomicSubconcept,atomicSuperconcept);
     }
@@ -103,6 +113,16 @@ public class ReasoningTaskDescription {
         System.arraycopy(superroles,0,arguments,1,superroles.length);
         return new ReasoningTaskDescription(false,message.toString(),arguments);
     }
+    public static ReasoningTaskDescription isRoleListSatisfiable(Object... roles) {
+        StringBuffer message=new StringBuffer();
+        message.append("satisfiability of roles");
+        for (int index=0;index<roles.length;index++) {
+            message.append(index==0 ? " '{" : ", '{");
+            message.append(index);
+            message.append("}'");
+        }
+        return new ReasoningTaskDescription(false,message.toString(),roles);
+    }
     public static ReasoningTaskDescription isRoleSatisfiable(Object role,boolean isObjectRole) {
         return new ReasoningTaskDescription(false,(isObjectRole ? StandardTestType.OBJECT_ROLE_SATISFIABILITY : StandardTestType.DATA_ROLE_SATISFIABILITY),role);
     }
@@ -112,6 +132,19 @@ public class ReasoningTaskDescription {
     public static ReasoningTaskDescription isInstanceOf(Object atomicConcept,Object individual) {
         return new ReasoningTaskDescription(true,StandardTestType.INSTANCE_OF,atomicConcept,individual);
     }
+    public static ReasoningTaskDescription isInstanceOfForEach(Object atomicConcept,Object... individuals) {
+        StringBuffer message=new StringBuffer();
+        message.append("class instances");
+        for (int index=0;index<individuals.length;index++) {
+            message.append(index==0 ? " '{0}'('{" : ", '{0}'('{");
+            message.append(index+1);
+            message.append("}')");
+        }
+        Object[] arguments=new Object[individuals.length+1];
+        arguments[0]=atomicConcept;
+        System.arraycopy(individuals,0,arguments,1,individuals.length);
+        return new ReasoningTaskDescription(true,message.toString(),arguments);
+    }
     public static ReasoningTaskDescription isObjectRoleInstanceOf(Object atomicRole,Object individual1,Object individual2) {
         return new ReasoningTaskDescription(true,StandardTestType.OBJECT_ROLE_INSTANCE_OF,atomicRole,individual1,individual2);
     }
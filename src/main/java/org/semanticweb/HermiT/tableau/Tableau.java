@@ -19,12 +19,18 @@ package org.semanticweb.HermiT.tableau;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.semanticweb.HermiT.existentials.ExistentialExpansionStrategy;
+import org.semanticweb.HermiT.existentials.IndividualReuseStrategy;
 import org.semanticweb.HermiT.model.Atom;
 import org.semanticweb.HermiT.model.AtomicConcept;
 import org.semanticweb.HermiT.model.AtomicRole;
@@ -55,6 +61,12 @@ import org.semanticweb.HermiT.tableau.Node.NodeState;
  */
 public final class Tableau implements Serializable {
     private static final long serialVersionUID=-28982363158925221L;
+    /**
+     * If this tableau parameter is Boolean.TRUE, tests with the permanent ABox start from a checkpoint of the saturated
+     * permanent ABox instead of reloading it.
+     */
+    public static final String ABOX_CHECKPOINT_PARAMETER="Tableau.aboxCheckpoint";
+    protected static final int ADDITIONAL_HYPERRESOLUTION_MANAGER_CACHE_SIZE=16;
 
     protected final InterruptFlag m_interruptFlag;
     protected final Map<String,Object> m_parameters;
@@ -67,6 +79,7 @@ public final class Tableau implements Serializable {
     protected final ClashManager m_clashManager;
     protected final HyperresolutionManager m_permanentHyperresolutionManager;
     protected HyperresolutionManager m_additionalHyperresolutionManager;
+    protected final LinkedHashMap<DLOntology,HyperresolutionManager> m_additionalHyperresolutionManagers;
     protected final MergingManager m_mergingManager;
     protected final ExistentialExpansionManager m_existentialExpasionManager;
     protected final NominalIntroductionManager m_nominalIntroductionManager;
@@ -74,6 +87,8 @@ public final class Tableau implements Serializable {
     protected final DatatypeManager m_datatypeManager;
     protected final List<List<ExistentialConcept>> m_existentialConceptsBuffers;
     protected final boolean m_useDisjunctionLearning;
+    protected final NogoodStore m_nogoodStore;
+    protected final DisjunctionStatistics m_disjunctionStatistics;
     protected final boolean m_hasDescriptionGraphs;
     protected BranchingPoint[] m_branchingPoints;
     protected int m_currentBranchingPoint;
@@ -94,6 +109,22 @@ public final class Tableau implements Serializable {
     protected Node m_lastMergedOrPrunedNode;
     protected GroundDisjunction m_firstGroundDisjunction;
     protected GroundDisjunction m_firstUnprocessedGroundDisjunction;
+    protected final boolean m_useABoxCheckpoint;
+    protected Map<Term,Node> m_checkpointTermsToNodes;
+    protected final List<Term> m_termsAddedAfterCheckpoint;
+    protected boolean m_isTestInProgress;
+    protected Set<DLPredicate> m_permanentDLPredicates;
+    protected DLOntology m_additionalDLOntologyCheckedForCheckpoint;
+    protected boolean m_additionalDLOntologySupportsCheckpoint;
+    protected boolean m_additionalDLOntologyMatchesCheckpoint;
+    protected final boolean m_permanentDLOntologySupportsBatchedTests;
+    protected boolean m_supportsBatchedTests;
+    protected List<Atom> m_batchFacts;
+    protected boolean[] m_batchResults;
+    protected boolean[] m_batchResultsAttributed;
+    protected boolean[] m_batchFactsIntroduceTerms;
+    protected Map<Term,Node> m_batchTermsToNodes;
+    protected int m_lastBatchBranchingPoint;
 
     public Tableau(InterruptFlag interruptFlag,TableauMonitor tableauMonitor,ExistentialExpansionStrategy existentialsExpansionStrategy,boolean useDisjunctionLearning,DLOntology permanentDLOntology,DLOntology additionalDLOntology,Map<String,Object> parameters) {
         if (additionalDLOntology!=null && !additionalDLOntology.getAllDescriptionGraphs().isEmpty())
@@ -106,7 +137,8 @@ public final class Tableau implements Serializable {
             m_existentialExpansionStrategy=existentialsExpansionStrategy;
             m_permanentDLOntology=permanentDLOntology;
             m_additionalDLOntology=additionalDLOntology;
-            m_dependencySetFactory=new DependencySetFactory();
+            m_disjunctionStatistics=(useDisjunctionLearning ? (DisjunctionStatistics)parameters.get(DisjunctionStatistics.SHARED_STATISTICS_PARAMETER) : null);
+            m_dependencySetFactory=new DependencySetFactory(Boolean.TRUE.equals(parameters.get(DependencySetFactory.BIT_SET_DEPENDENCY_SETS_PARAMETER)));
             m_extensionManager=new ExtensionManager(this);
             m_clashManager=new ClashManager(this);
             m_permanentHyperresolutionManager=new HyperresolutionManager(this,m_permanentDLOntology.getDLClauses());
@@ -114,6 +146,7 @@ public final class Tableau implements Serializable {
                 m_additionalHyperresolutionManager=new HyperresolutionManager(this,m_additionalDLOntology.getDLClauses());
             else
                 m_additionalHyperresolutionManager=null;
+            m_additionalHyperresolutionManagers=new LinkedHashMap<DLOntology,HyperresolutionManager>(16,0.75f,true);
             m_mergingManager=new MergingManager(this);
             m_existentialExpasionManager=new ExistentialExpansionManager(this);
             m_nominalIntroductionManager=new NominalIntroductionManager(this);
@@ -122,10 +155,16 @@ public final class Tableau implements Serializable {
             m_existentialExpansionStrategy.initialize(this);
             m_existentialConceptsBuffers=new ArrayList<List<ExistentialConcept>>();
             m_useDisjunctionLearning=useDisjunctionLearning;
+            Object nogoodStoreCapacity=parameters.get(NogoodStore.CAPACITY_PARAMETER);
+            m_nogoodStore=(nogoodStoreCapacity instanceof Integer && ((Integer)nogoodStoreCapacity).intValue()>0 ? new NogoodStore(this,((Integer)nogoodStoreCapacity).intValue()) : null);
             m_hasDescriptionGraphs=!m_permanentDLOntology.getAllDescriptionGraphs().isEmpty();
             m_branchingPoints=new BranchingPoint[2];
             m_currentBranchingPoint=-1;
             m_nonbacktrackableBranchingPoint=-1;
+            m_useABoxCheckpoint=Boolean.TRUE.equals(parameters.get(ABOX_CHECKPOINT_PARAMETER));
+            m_termsAddedAfterCheckpoint=new ArrayList<Term>();
+            m_permanentDLOntologySupportsBatchedTests=!(m_existentialExpansionStrategy instanceof IndividualReuseStrategy) && supportsBatchedTests(m_permanentDLOntology);
+            m_lastBatchBranchingPoint=-1;
             updateFlagsDependentOnAdditionalOntology();
             if (m_tableauMonitor!=null)
                 m_tableauMonitor.setTableau(this);
@@ -155,6 +194,15 @@ public final class Tableau implements Serializable {
     public boolean isDeterministic() {
         return m_permanentDLOntology.isHorn() && (m_additionalDLOntology==null || m_additionalDLOntology.isHorn()) && m_existentialExpansionStrategy.isDeterministic();
     }
+    public boolean hasCheckpoint() {
+        return m_checkpointTermsToNodes!=null;
+    }
+    public NogoodStore getNogoodStore() {
+        return m_nogoodStore;
+    }
+    public DisjunctionStatistics getDisjunctionStatistics() {
+        return m_disjunctionStatistics;
+    }
     public DependencySetFactory getDependencySetFactory() {
         return m_dependencySetFactory;
     }
@@ -193,6 +241,7 @@ public final class Tableau implements Serializable {
         m_branchingPoints=new BranchingPoint[2];
         m_currentBranchingPoint=-1;
         m_nonbacktrackableBranchingPoint=-1;
+        m_lastBatchBranchingPoint=-1;
         m_dependencySetFactory.clear();
         m_extensionManager.clear();
         m_clashManager.clear();
@@ -207,6 +256,10 @@ public final class Tableau implements Serializable {
         m_existentialExpansionStrategy.clear();
         m_datatypeManager.clear();
         m_existentialConceptsBuffers.clear();
+        m_checkpointTermsToNodes=null;
+        m_termsAddedAfterCheckpoint.clear();
+        if (m_nogoodStore!=null)
+            m_nogoodStore.clear();
         if (m_tableauMonitor!=null)
             m_tableauMonitor.tableauCleared();
     }
@@ -226,13 +279,36 @@ public final class Tableau implements Serializable {
     public void setAdditionalDLOntology(DLOntology additionalDLOntology) {
         if (!supportsAdditionalDLOntology(additionalDLOntology))
             throw new IllegalArgumentException("Additional DL-ontology contains features that are incompatible with this tableau.");
+        if (m_nogoodStore!=null)
+            m_nogoodStore.additionalDLOntologyChanged(m_additionalDLOntology);
         m_additionalDLOntology=additionalDLOntology;
-        m_additionalHyperresolutionManager=new HyperresolutionManager(this,m_additionalDLOntology.getDLClauses());
+        m_additionalHyperresolutionManager=getHyperresolutionManagerForAdditionalDLOntology(m_additionalDLOntology);
         m_existentialExpansionStrategy.additionalDLOntologySet(m_additionalDLOntology);
         m_datatypeManager.additionalDLOntologySet(m_additionalDLOntology);
         updateFlagsDependentOnAdditionalOntology();
     }
+    /**
+     * Returns the hyperresolution manager for the given additional DL-ontology. The managers of the most recently used
+     * additional DL-ontologies are kept so that setting the same DL-ontology object again does not recompile its clauses.
+     */
+    protected HyperresolutionManager getHyperresolutionManagerForAdditionalDLOntology(DLOntology additionalDLOntology) {
+        HyperresolutionManager hyperresolutionManager=m_additionalHyperresolutionManagers.get(additionalDLOntology);
+        if (hyperresolutionManager==null) {
+            hyperresolutionManager=new HyperresolutionManager(this,additionalDLOntology.getDLClauses());
+            m_additionalHyperresolutionManagers.put(additionalDLOntology,hyperresolutionManager);
+            if (m_additionalHyperresolutionManagers.size()>ADDITIONAL_HYPERRESOLUTION_MANAGER_CACHE_SIZE) {
+                Iterator<DLOntology> iterator=m_additionalHyperresolutionManagers.keySet().iterator();
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        else
+            hyperresolutionManager.clear();
+        return hyperresolutionManager;
+    }
     public void clearAdditionalDLOntology() {
+        if (m_nogoodStore!=null)
+            m_nogoodStore.additionalDLOntologyChanged(m_additionalDLOntology);
         m_additionalDLOntology=null;
         m_additionalHyperresolutionManager=null;
         m_existentialExpansionStrategy.additionalDLOntologyCleared();
@@ -254,30 +330,54 @@ public final class Tableau implements Serializable {
             m_checkDatatypes|=m_additionalDLOntology.hasDatatypes();
             m_checkUnknownDatatypeRestrictions|=m_additionalDLOntology.hasUnknownDatatypeRestrictions();
         }
+        m_supportsBatchedTests=m_permanentDLOntologySupportsBatchedTests && (m_additionalDLOntology==null || supportsBatchedTests(m_additionalDLOntology));
+    }
+    protected static boolean supportsBatchedTests(DLOntology dlOntology) {
+        if (dlOntology.hasNominals() || !dlOntology.getAllDescriptionGraphs().isEmpty())
+            return false;
+        for (DLClause dlClause : dlOntology.getDLClauses())
+            if (!dlClause.hasConnectedBody())
+                return false;
+        return true;
+    }
+    /**
+     * Returns true if several concepts can be tested in one run of the calculus. The models of the concepts must not
+     * interact, which is the case if there are no nominals and no description graphs, if the body of each DL-clause is
+     * connected, and if existentials are not expanded by reusing nodes.
+     */
+    public boolean supportsBatchedTests() {
+        return m_supportsBatchedTests;
     }
     public boolean isSatisfiable(boolean loadAdditionalABox,Set<Atom> perTestPositiveFactsNoDependency,Set<Atom> perTestNegativeFactsNoDependency,Set<Atom> perTestPositiveFactsDummyDependency,Set<Atom> perTestNegativeFactsDummyDependency,Map<Individual,Node> nodesForIndividuals,ReasoningTaskDescription reasoningTaskDescription) {
         boolean loadPermanentABox=m_permanentDLOntology.hasNominals() || (m_additionalDLOntology!=null && m_additionalDLOntology.hasNominals());
-        return isSatisfiable(loadPermanentABox,loadAdditionalABox,perTestPositiveFactsNoDependency,perTestNegativeFactsNoDependency,perTestPositiveFactsDummyDependency,perTestNegativeFactsDummyDependency,new HashMap<Term,Node>(),nodesForIndividuals,reasoningTaskDescription);
+        return isSatisfiable(loadPermanentABox,loadAdditionalABox,perTestPositiveFactsNoDependency,perTestNegativeFactsNoDependency,perTestPositiveFactsDummyDependency,perTestNegativeFactsDummyDependency,null,nodesForIndividuals,reasoningTaskDescription);
     }
     public boolean isSatisfiable(boolean loadPermanentABox,boolean loadAdditionalABox,Set<Atom> perTestPositiveFactsNoDependency,Set<Atom> perTestNegativeFactsNoDependency,Set<Atom> perTestPositiveFactsDummyDependency,Set<Atom> perTestNegativeFactsDummyDependency,Map<Individual,Node> nodesForIndividuals,ReasoningTaskDescription reasoningTaskDescription) {
-        return isSatisfiable(loadPermanentABox,loadAdditionalABox,perTestPositiveFactsNoDependency,perTestNegativeFactsNoDependency,perTestPositiveFactsDummyDependency,perTestNegativeFactsDummyDependency,new HashMap<Term,Node>(),nodesForIndividuals,reasoningTaskDescription);
+        return isSatisfiable(loadPermanentABox,loadAdditionalABox,perTestPositiveFactsNoDependency,perTestNegativeFactsNoDependency,perTestPositiveFactsDummyDependency,perTestNegativeFactsDummyDependency,null,nodesForIndividuals,reasoningTaskDescription);
     }
+    /**
+     * Checks whether the permanent and/or the additional ABox together with the given per-test facts are satisfiable.
+     * If termsToNodes is null and the permanent ABox is loaded, the test can start from a checkpoint that holds the
+     * deterministically saturated permanent ABox, which saves reloading and resaturating the ABox in each test.
+     */
     public boolean isSatisfiable(boolean loadPermanentABox,boolean loadAdditionalABox,Set<Atom> perTestPositiveFactsNoDependency,Set<Atom> perTestNegativeFactsNoDependency,Set<Atom> perTestPositiveFactsDummyDependency,Set<Atom> perTestNegativeFactsDummyDependency,Map<Term,Node> termsToNodes,Map<Individual,Node> nodesForIndividuals,ReasoningTaskDescription reasoningTaskDescription) {
         if (m_tableauMonitor!=null)
             m_tableauMonitor.isSatisfiableStarted(reasoningTaskDescription);
-        clear();
-        if (loadPermanentABox) {
-            for (Atom atom : m_permanentDLOntology.getPositiveFacts())
-                loadPositiveFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
-            for (Atom atom : m_permanentDLOntology.getNegativeFacts())
-                loadNegativeFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
-        }
-        if (loadAdditionalABox && m_additionalDLOntology!=null) {
-            for (Atom atom : m_additionalDLOntology.getPositiveFacts())
-                loadPositiveFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
-            for (Atom atom : m_additionalDLOntology.getNegativeFacts())
-                loadNegativeFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
+        Map<Term,Node> checkpointTermsToNodes=null;
+        if (termsToNodes==null && loadPermanentABox && canStartFromCheckpoint())
+            checkpointTermsToNodes=startFromCheckpoint();
+        if (checkpointTermsToNodes!=null)
+            termsToNodes=checkpointTermsToNodes;
+        else {
+            if (termsToNodes==null)
+                termsToNodes=new HashMap<Term,Node>();
+            clear();
+            if (loadPermanentABox)
+                loadABox(termsToNodes,m_permanentDLOntology);
         }
+        m_isTestInProgress=true;
+        if (loadAdditionalABox && m_additionalDLOntology!=null)
+            loadABox(termsToNodes,m_additionalDLOntology);
         if (perTestPositiveFactsNoDependency!=null && !perTestPositiveFactsNoDependency.isEmpty())
             for (Atom atom : perTestPositiveFactsNoDependency)
                 loadPositiveFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
@@ -285,7 +385,7 @@ public final class Tableau implements Serializable {
             for (Atom atom : perTestNegativeFactsNoDependency)
                 loadNegativeFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
         if ((perTestPositiveFactsDummyDependency!=null && !perTestPositiveFactsDummyDependency.isEmpty()) || (perTestNegativeFactsDummyDependency!=null && !perTestNegativeFactsDummyDependency.isEmpty())) {
-            m_branchingPoints[0]=new BranchingPoint(this);
+            m_branchingPoints[m_currentBranchingPoint+1]=new BranchingPoint(this);
             m_currentBranchingPoint++;
             m_nonbacktrackableBranchingPoint=m_currentBranchingPoint;
             DependencySet dependencySet=m_dependencySetFactory.addBranchingPoint(m_dependencySetFactory.emptySet(),m_currentBranchingPoint);
@@ -307,10 +407,289 @@ public final class Tableau implements Serializable {
         // Ensure that at least one individual exists.
         if (m_firstTableauNode==null)
             createNewNINode(m_dependencySetFactory.emptySet());
+        if (m_nogoodStore!=null)
+            m_nogoodStore.testStarted(loadPermanentABox,loadAdditionalABox,perTestPositiveFactsNoDependency,perTestNegativeFactsNoDependency,termsToNodes,checkpointTermsToNodes==null ? null : m_termsAddedAfterCheckpoint);
         boolean result=runCalculus();
+        m_isTestInProgress=false;
         if (m_tableauMonitor!=null)
             m_tableauMonitor.isSatisfiableFinished(reasoningTaskDescription,result);
         return result;
+    }
+    /**
+     * Checks the satisfiability of the given concepts in one run of the calculus, which saves clearing the tableau and
+     * restarting the calculus for each concept; the tableau must support batched tests. Each concept is asserted for a
+     * fresh individual, and the assertion depends on a branching point of its own, so a clash whose latest branching
+     * point is that of a concept proves the concept unsatisfiable without affecting the other concepts. The ABoxes are
+     * not loaded. The result tells which concepts are satisfiable; for these, rootNodes receives the node of the
+     * individual in the final tableau, which holds a model of all satisfiable concepts at once, and the facts about
+     * the node that do not depend on a nondeterministic choice are those for which isDeterministicConsequence() holds.
+     * A deterministic tableau does not record dependency sets, so a clash cannot be attributed to a concept; in such a
+     * case, null is returned and the concepts must be tested separately.
+     */
+    public boolean[] isSatisfiable(List<AtomicConcept> concepts,Node[] rootNodes,ReasoningTaskDescription reasoningTaskDescription) {
+        if (!m_supportsBatchedTests)
+            throw new IllegalStateException("Internal error: the tableau does not support batched satisfiability tests.");
+        if (m_tableauMonitor!=null)
+            m_tableauMonitor.isSatisfiableStarted(reasoningTaskDescription);
+        clear();
+        List<Atom> facts=new ArrayList<Atom>(concepts.size());
+        for (int conceptIndex=0;conceptIndex<concepts.size();conceptIndex++)
+            facts.add(Atom.create(concepts.get(conceptIndex),Individual.createAnonymous("fresh-individual-"+conceptIndex)));
+        Map<Term,Node> termsToNodes=new HashMap<Term,Node>();
+        m_isTestInProgress=true;
+        boolean result=runBatch(facts,termsToNodes,false,false,null);
+        boolean[] results=m_batchResults;
+        if (!result && results.length>1 && isDeterministic())
+            results=null;
+        else
+            for (int conceptIndex=0;conceptIndex<results.length;conceptIndex++) {
+                results[conceptIndex]&=result;
+                rootNodes[conceptIndex]=(results[conceptIndex] ? termsToNodes.get(facts.get(conceptIndex).getArgument(0)) : null);
+            }
+        endBatch();
+        if (m_tableauMonitor!=null)
+            m_tableauMonitor.isSatisfiableFinished(reasoningTaskDescription,result);
+        return results;
+    }
+    /**
+     * Checks for each of the given positive facts whether the permanent and/or the additional ABox together with the
+     * fact are satisfiable, in one run of the calculus that starts with all facts asserted. Each fact depends on a
+     * branching point of its own; when a clash occurs whose latest branching point is that of a fact, the fact is
+     * dropped and the remaining facts are kept. The ABoxes are satisfiable together with each fact that is never
+     * dropped, so the result for such a fact is TRUE. The result for a dropped fact is FALSE if the clash depended on
+     * no other fact, and null otherwise, in which case the fact must be tested again; this is also the result for all
+     * facts if the tableau is deterministic and thus cannot attribute a clash to a fact.
+     */
+    public Boolean[] isSatisfiableWithFacts(boolean loadPermanentABox,boolean loadAdditionalABox,List<Atom> facts,ReasoningTaskDescription reasoningTaskDescription) {
+        if (m_tableauMonitor!=null)
+            m_tableauMonitor.isSatisfiableStarted(reasoningTaskDescription);
+        Map<Term,Node> termsToNodes=null;
+        if (loadPermanentABox && canStartFromCheckpoint())
+            termsToNodes=startFromCheckpoint();
+        boolean startedFromCheckpoint=(termsToNodes!=null);
+        if (!startedFromCheckpoint) {
+            termsToNodes=new HashMap<Term,Node>();
+            clear();
+            if (loadPermanentABox)
+                loadABox(termsToNodes,m_permanentDLOntology);
+        }
+        m_isTestInProgress=true;
+        if (loadAdditionalABox && m_additionalDLOntology!=null)
+            loadABox(termsToNodes,m_additionalDLOntology);
+        boolean result=runBatch(facts,termsToNodes,loadPermanentABox,loadAdditionalABox,startedFromCheckpoint ? m_termsAddedAfterCheckpoint : null);
+        Boolean[] results=new Boolean[facts.size()];
+        if (result || facts.size()==1 || !isDeterministic())
+            for (int factIndex=0;factIndex<results.length;factIndex++) {
+                if (result && m_batchResults[factIndex])
+                    results[factIndex]=Boolean.TRUE;
+                else if (!result || m_batchResultsAttributed[factIndex])
+                    results[factIndex]=Boolean.FALSE;
+            }
+        endBatch();
+        if (m_tableauMonitor!=null)
+            m_tableauMonitor.isSatisfiableFinished(reasoningTaskDescription,result);
+        return results;
+    }
+    protected void loadABox(Map<Term,Node> termsToNodes,DLOntology dlOntology) {
+        for (Atom atom : dlOntology.getPositiveFacts())
+            loadPositiveFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
+        for (Atom atom : dlOntology.getNegativeFacts())
+            loadNegativeFact(termsToNodes,atom,m_dependencySetFactory.emptySet());
+    }
+    protected boolean runBatch(List<Atom> facts,Map<Term,Node> termsToNodes,boolean loadPermanentABox,boolean loadAdditionalABox,Collection<Term> termsAddedAfterCheckpoint) {
+        m_batchFacts=facts;
+        m_batchResults=new boolean[facts.size()];
+        Arrays.fill(m_batchResults,true);
+        m_batchResultsAttributed=new boolean[facts.size()];
+        m_batchFactsIntroduceTerms=new boolean[facts.size()];
+        for (int factIndex=0;factIndex<facts.size();factIndex++)
+            m_batchFactsIntroduceTerms[factIndex]=!termsToNodes.containsKey(facts.get(factIndex).getArgument(0));
+        m_batchTermsToNodes=termsToNodes;
+        loadBatchFacts(0);
+        if (m_firstTableauNode==null)
+            createNewNINode(m_dependencySetFactory.emptySet());
+        if (m_nogoodStore!=null)
+            m_nogoodStore.testStarted(loadPermanentABox,loadAdditionalABox,null,null,termsToNodes,termsAddedAfterCheckpoint);
+        return runCalculus();
+    }
+    protected void endBatch() {
+        m_batchFacts=null;
+        m_batchResults=null;
+        m_batchResultsAttributed=null;
+        m_batchFactsIntroduceTerms=null;
+        m_batchTermsToNodes=null;
+        m_isTestInProgress=false;
+    }
+    /**
+     * Loads the facts of the current batch starting with the given index that have not been dropped. The branching
+     * points of the batch thus always precede all branching points of disjunctions. A term that a fact introduced has
+     * lost its node through backtracking, so a new node is created for it.
+     */
+    protected void loadBatchFacts(int firstFactIndex) {
+        for (int factIndex=firstFactIndex;factIndex<m_batchResults.length;factIndex++)
+            if (m_batchResults[factIndex]) {
+                pushBranchingPoint(new BatchBranchingPoint(this,factIndex));
+                DependencySet dependencySet=m_dependencySetFactory.addBranchingPoint(m_dependencySetFactory.emptySet(),m_currentBranchingPoint);
+                Atom fact=m_batchFacts.get(factIndex);
+                if (m_batchFactsIntroduceTerms[factIndex])
+                    m_batchTermsToNodes.remove(fact.getArgument(0));
+                loadPositiveFact(m_batchTermsToNodes,fact,dependencySet);
+            }
+        m_lastBatchBranchingPoint=m_currentBranchingPoint;
+        m_isCurrentModelDeterministic=true;
+    }
+    /**
+     * Drops the fact of the given index after a clash whose latest branching point is that of the fact. The result
+     * for the fact is attributed if the clash depended on the branching point of no other fact.
+     */
+    protected void batchFactUnsatisfiable(int factIndex,DependencySet clashDependencySet) {
+        m_batchResults[factIndex]=false;
+        m_batchResultsAttributed[factIndex]=true;
+        for (int level=m_nonbacktrackableBranchingPoint+1;level<m_currentBranchingPoint;level++)
+            if (m_branchingPoints[level] instanceof BatchBranchingPoint && clashDependencySet.containsBranchingPoint(level)) {
+                m_batchResultsAttributed[factIndex]=false;
+                break;
+            }
+        if (m_batchFactsIntroduceTerms[factIndex])
+            m_batchTermsToNodes.remove(m_batchFacts.get(factIndex).getArgument(0));
+        loadBatchFacts(factIndex+1);
+    }
+    /**
+     * Returns true if a fact with the given dependency set does not depend on a nondeterministic choice of the current
+     * test; in a batched test, the fact may depend on the branching points of the concepts.
+     */
+    public boolean isDeterministicConsequence(DependencySet dependencySet) {
+        return dependencySet.getMaximumBranchingPoint()<=m_lastBatchBranchingPoint;
+    }
+    /**
+     * The checkpoint is used only if it is enabled through ABOX_CHECKPOINT_PARAMETER and no tableau monitor is
+     * installed, so that the monitor observes each test from the start. The checkpoint is saturated with the permanent
+     * DL-clauses only, so it can be used with an additional DL-ontology only if the additional DL-ontology does not
+     * require extensions or datatype checks that the permanent DL-ontology does not require.
+     */
+    protected boolean canStartFromCheckpoint() {
+        if (!m_useABoxCheckpoint || m_tableauMonitor!=null)
+            return false;
+        if (m_additionalDLOntology==null)
+            return true;
+        if (m_additionalDLOntologyCheckedForCheckpoint!=m_additionalDLOntology) {
+            m_additionalDLOntologyCheckedForCheckpoint=m_additionalDLOntology;
+            m_additionalDLOntologySupportsCheckpoint=additionalDLOntologySupportsCheckpoint();
+            m_additionalDLOntologyMatchesCheckpoint=(m_additionalDLOntologySupportsCheckpoint && additionalDLOntologyMatchesCheckpoint());
+        }
+        return m_additionalDLOntologySupportsCheckpoint;
+    }
+    protected boolean additionalDLOntologySupportsCheckpoint() {
+        if ((m_additionalDLOntology.hasDatatypes() && !m_permanentDLOntology.hasDatatypes()) || (m_additionalDLOntology.hasUnknownDatatypeRestrictions() && !m_permanentDLOntology.hasUnknownDatatypeRestrictions()))
+            return false;
+        for (DLPredicate dlPredicate : new DLPredicate[] { AtomicConcept.THING,AtomicConcept.INTERNAL_NAMED,InternalDatatype.RDFS_LITERAL })
+            if (m_additionalHyperresolutionManager.m_tupleConsumersByDeltaPredicate.containsKey(dlPredicate) && !m_permanentHyperresolutionManager.m_tupleConsumersByDeltaPredicate.containsKey(dlPredicate))
+                return false;
+        return true;
+    }
+    /**
+     * Checks whether each DL-clause of the additional DL-ontology contains a body atom whose predicate does not occur
+     * in the permanent DL-ontology. Such DL-clauses cannot match the facts of the checkpoint alone; otherwise, the
+     * DL-clauses of the additional DL-ontology must be applied to the checkpoint whenever a test starts from it.
+     */
+    protected boolean additionalDLOntologyMatchesCheckpoint() {
+        if (m_permanentDLPredicates==null) {
+            m_permanentDLPredicates=new HashSet<DLPredicate>();
+            for (DLClause dlClause : m_permanentDLOntology.getDLClauses()) {
+                for (int atomIndex=0;atomIndex<dlClause.getBodyLength();atomIndex++)
+                    m_permanentDLPredicates.add(dlClause.getBodyAtom(atomIndex).getDLPredicate());
+                for (int atomIndex=0;atomIndex<dlClause.getHeadLength();atomIndex++)
+                    m_permanentDLPredicates.add(dlClause.getHeadAtom(atomIndex).getDLPredicate());
+            }
+            for (Atom atom : m_permanentDLOntology.getPositiveFacts())
+                m_permanentDLPredicates.add(atom.getDLPredicate());
+            for (Atom atom : m_permanentDLOntology.getNegativeFacts())
+                m_permanentDLPredicates.add(atom.getDLPredicate());
+        }
+        for (DLClause dlClause : m_additionalDLOntology.getDLClauses()) {
+            boolean hasNewBodyPredicate=false;
+            for (int atomIndex=0;!hasNewBodyPredicate && atomIndex<dlClause.getBodyLength();atomIndex++) {
+                DLPredicate dlPredicate=dlClause.getBodyAtom(atomIndex).getDLPredicate();
+                hasNewBodyPredicate=((dlPredicate instanceof AtomicConcept || dlPredicate instanceof AtomicRole) && !AtomicConcept.THING.equals(dlPredicate) && !AtomicConcept.INTERNAL_NAMED.equals(dlPredicate) && !m_permanentDLPredicates.contains(dlPredicate));
+            }
+            if (!hasNewBodyPredicate)
+                return false;
+        }
+        return true;
+    }
+    /**
+     * Brings the tableau into the state of the checkpoint, creating the checkpoint if necessary. The checkpoint holds
+     * the permanent ABox saturated with the deterministic rules of the permanent DL-ontology; existentials and ground
+     * disjunctions are not expanded, so no branching point is pushed before the checkpoint. The checkpoint itself is
+     * branching point 0, and each test backtracks to it. Returns the map of terms to nodes of the checkpoint, or null
+     * if the permanent ABox alone is unsatisfiable, in which case the checkpoint is not created.
+     */
+    protected Map<Term,Node> startFromCheckpoint() {
+        if (m_checkpointTermsToNodes!=null && !m_isTestInProgress) {
+            backtrackTo(0);
+            for (Term term : m_termsAddedAfterCheckpoint)
+                m_checkpointTermsToNodes.remove(term);
+            m_termsAddedAfterCheckpoint.clear();
+            m_nonbacktrackableBranchingPoint=0;
+            m_isCurrentModelDeterministic=true;
+            m_dependencySetFactory.removeUnusedSets();
+            if (m_nogoodStore!=null)
+                m_nogoodStore.checkpointRestored();
+            applyAdditionalDLClausesToCheckpoint();
+            return m_checkpointTermsToNodes;
+        }
+        clear();
+        Map<Term,Node> termsToNodes=new HashMap<Term,Node>();
+        loadABox(termsToNodes,m_permanentDLOntology);
+        m_interruptFlag.startTask();
+        try {
+            while (m_extensionManager.propagateDeltaNew() && !m_extensionManager.containsClash()) {
+                if (m_hasDescriptionGraphs && !m_extensionManager.containsClash())
+                    m_descriptionGraphManager.checkGraphConstraints();
+                if (!m_extensionManager.containsClash())
+                    m_permanentHyperresolutionManager.applyDLClauses();
+                if (m_checkUnknownDatatypeRestrictions && !m_extensionManager.containsClash())
+                    m_datatypeManager.applyUnknownDatatypeRestrictionSemantics();
+                if (m_checkDatatypes && !m_extensionManager.containsClash())
+                    m_datatypeManager.checkDatatypeConstraints();
+            }
+        }
+        finally {
+            m_interruptFlag.endTask();
+        }
+        if (m_extensionManager.containsClash() || m_currentBranchingPoint!=-1) {
+            clear();
+            return null;
+        }
+        pushBranchingPoint(new BranchingPoint(this));
+        m_nonbacktrackableBranchingPoint=0;
+        m_isCurrentModelDeterministic=true;
+        m_checkpointTermsToNodes=termsToNodes;
+        if (m_nogoodStore!=null)
+            m_nogoodStore.checkpointCreated(termsToNodes);
+        applyAdditionalDLClausesToCheckpoint();
+        return termsToNodes;
+    }
+    /**
+     * Applies the DL-clauses of the additional DL-ontology to all facts of the checkpoint by temporarily treating
+     * all these facts as delta-old. The derived facts are added to delta-new and are thus processed by the test.
+     * The checkpoint is saturated, so delta-old is empty before and after this method.
+     */
+    protected void applyAdditionalDLClausesToCheckpoint() {
+        if (m_additionalDLOntology!=null && !m_additionalDLOntologyMatchesCheckpoint) {
+            ExtensionTable[] extensionTables=m_extensionManager.m_allExtensionTablesArray;
+            for (ExtensionTable extensionTable : extensionTables)
+                extensionTable.resetDeltaToBeginning();
+            m_interruptFlag.startTask();
+            try {
+                m_additionalHyperresolutionManager.applyDLClauses();
+            }
+            finally {
+                m_interruptFlag.endTask();
+                for (ExtensionTable extensionTable : extensionTables)
+                    extensionTable.restoreDelta();
+            }
+        }
     }
     protected void loadPositiveFact(Map<Term,Node> termsToNodes,Atom atom,DependencySet dependencySet) {
         DLPredicate dlPredicate=atom.getDLPredicate();
@@ -366,6 +745,8 @@ public final class Tableau implements Serializable {
                     m_extensionManager.addAssertion(ConstantEnumeration.create(new Constant[] { constant }),node,dependencySet,true);
             }
             termsToNodes.put(term,node);
+            if (termsToNodes==m_checkpointTermsToNodes)
+                m_termsAddedAfterCheckpoint.add(term);
         }
         return node.getCanonicalNode();
     }
@@ -467,6 +848,8 @@ public final class Tableau implements Serializable {
             int newCurrentBranchingPoint=clashDependencySet.getMaximumBranchingPoint();
             if (newCurrentBranchingPoint<=m_nonbacktrackableBranchingPoint)
                 return false;
+            if (m_nogoodStore!=null)
+                m_nogoodStore.learn(m_dependencySetFactory.getPermanent(clashDependencySet));
             backtrackTo(newCurrentBranchingPoint);
             BranchingPoint branchingPoint=getCurrentBranchingPoint();
             if (m_tableauMonitor!=null)
@@ -0,0 +1,81 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.semanticweb.owlapi.reasoner.ReasonerInterruptedException;
+
+/**
+ * A bounded pool of tableaux from which concurrent queries borrow a tableau for the duration of a query. A tableau is
+ * used by at most one thread at a time; if all tableaux are in use, borrowers wait until one of them is given back.
+ */
+public class TableauPool {
+    protected final List<Tableau> m_tableaux;
+    protected final LinkedList<Tableau> m_idleTableaux;
+
+    public TableauPool(List<Tableau> tableaux) {
+        m_tableaux=new ArrayList<Tableau>(tableaux);
+        m_idleTableaux=new LinkedList<Tableau>(tableaux);
+    }
+    public List<Tableau> getTableaux() {
+        return m_tableaux;
+    }
+    public int getNumberOfTableaux() {
+        return m_tableaux.size();
+    }
+    public synchronized int getNumberOfIdleTableaux() {
+        return m_idleTableaux.size();
+    }
+    /**
+     * Takes an idle tableau out of the pool, waiting if necessary until one is given back.
+     *
+     * @throws ReasonerInterruptedException
+     *             - if the current thread is interrupted while waiting
+     */
+    public synchronized Tableau borrow() {
+        while (m_idleTableaux.isEmpty()) {
+            try {
+                wait();
+            }
+            catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new ReasonerInterruptedException(error);
+            }
+        }
+        return m_idleTableaux.removeFirst();
+    }
+    public synchronized void giveBack(Tableau tableau) {
+        tableau.clearAdditionalDLOntology();
+        m_idleTableaux.addLast(tableau);
+        notify();
+    }
+    /**
+     * Interrupts the reasoning tasks currently running on the tableaux of this pool.
+     */
+    public void interrupt() {
+        for (Tableau tableau : m_tableaux)
+            tableau.getInterruptFlag().interrupt();
+    }
+    public void dispose() {
+        for (Tableau tableau : m_tableaux)
+            tableau.getInterruptFlag().dispose();
+    }
+}
@@ -0,0 +1,124 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.semanticweb.owlapi.reasoner.ReasonerInterruptedException;
+
+/**
+ * Runs a piece of work concurrently on several tableaux, one thread per tableau. The tableaux must not be used by anyone
+ * else while a job is running. If one of the workers fails, the remaining ones are interrupted through their interrupt
+ * flags and the first failure is rethrown to the caller once all workers have stopped.
+ */
+public class TableauWorkerPool {
+    protected final List<Tableau> m_tableaux;
+    protected final String m_threadName;
+    protected volatile boolean m_cancelled;
+
+    public TableauWorkerPool(List<Tableau> tableaux,String threadName) {
+        m_tableaux=tableaux;
+        m_threadName=threadName;
+    }
+    public List<Tableau> getTableaux() {
+        return m_tableaux;
+    }
+    public int getNumberOfWorkers() {
+        return m_tableaux.size();
+    }
+    /**
+     * Workers should poll this between reasoning tasks: an interrupt raised between two tasks is cleared when the next task
+     * starts, so the interrupt flag alone does not reliably stop a worker.
+     */
+    public boolean isCancelled() {
+        return m_cancelled;
+    }
+    public void cancel() {
+        m_cancelled=true;
+        for (Tableau tableau : m_tableaux)
+            tableau.getInterruptFlag().interrupt();
+    }
+    public void runOnAllWorkers(final Worker worker) {
+        m_cancelled=false;
+        ExecutorService executor=Executors.newFixedThreadPool(m_tableaux.size(),new ThreadFactory() {
+            protected int m_nextThreadIndex=0;
+
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread=new Thread(runnable,m_threadName+" "+(m_nextThreadIndex++));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<?>> futures=new ArrayList<Future<?>>();
+            for (final Tableau tableau : m_tableaux)
+                futures.add(executor.submit(new Runnable() {
+                    public void run() {
+                        worker.run(tableau);
+                    }
+                }));
+            Throwable failure=null;
+            boolean interrupted=false;
+            for (Future<?> future : futures) {
+                boolean done=false;
+                while (!done) {
+                    try {
+                        future.get();
+                        done=true;
+                    }
+                    catch (ExecutionException error) {
+                        if (failure==null) {
+                            failure=error.getCause();
+                            cancel();
+                        }
+                        done=true;
+                    }
+                    catch (InterruptedException error) {
+                        // We must not return while the workers still use the tableaux, so we just stop them and keep waiting.
+                        interrupted=true;
+                        if (failure==null) {
+                            failure=new ReasonerInterruptedException(error);
+                            cancel();
+                        }
+                    }
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException)failure;
+            else if (failure instanceof Error)
+                throw (Error)failure;
+            else if (failure!=null)
+                throw new IllegalStateException("Internal error: a worker thread failed.",failure);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    public static interface Worker {
+        void run(Tableau tableau);
+    }
+}
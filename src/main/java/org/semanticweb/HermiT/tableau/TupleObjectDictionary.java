@@ -0,0 +1,104 @@
+/* Copyright 2009 by the Oxford University Computing Laboratory
+
+   This file is part of HermiT.
+
+   HermiT is free software: you can redistribute it and/or modify
+   it under the terms of the GNU Lesser General Public License as published by
+   the Free Software Foundation, either version 3 of the License, or
+   (at your option) any later version.
+
+   HermiT is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public License
+   along with HermiT.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.semanticweb.HermiT.tableau;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the objects in the tuples of the extension tables to dense integer IDs. The first position of a tuple holds a
+ * DL-predicate, which is assigned an ID on first use; all other positions hold nodes, which are identified by their node
+ * IDs. Node IDs are unique among the nodes currently in the tableau, and a tuple never outlives its nodes (both are
+ * removed on backtracking), so the node recorded last for an ID is always the one referenced by the stored tuples.
+ */
+public final class TupleObjectDictionary implements Serializable {
+    private static final long serialVersionUID=-4409812706351628713L;
+
+    public static final int UNKNOWN_ID=-1;
+
+    protected final Map<Object,Integer> m_predicateIDs;
+    protected Object[] m_predicatesByID;
+    protected int m_numberOfPredicates;
+    protected Node[] m_nodesByID;
+
+    public TupleObjectDictionary() {
+        m_predicateIDs=new HashMap<Object,Integer>();
+        m_predicatesByID=new Object[128];
+        m_numberOfPredicates=0;
+        m_nodesByID=new Node[1024];
+    }
+    public int sizeInMemory() {
+        return m_predicatesByID.length*4+m_nodesByID.length*4+m_numberOfPredicates*24;
+    }
+    /**
+     * Returns the ID of the object at the given position, registering the object if necessary.
+     */
+    public int encode(int position,Object object) {
+        if (position==0) {
+            Integer predicateID=m_predicateIDs.get(object);
+            if (predicateID!=null)
+                return predicateID.intValue();
+            if (m_numberOfPredicates==m_predicatesByID.length) {
+                Object[] newPredicatesByID=new Object[m_predicatesByID.length*3/2];
+                System.arraycopy(m_predicatesByID,0,newPredicatesByID,0,m_predicatesByID.length);
+                m_predicatesByID=newPredicatesByID;
+            }
+            m_predicatesByID[m_numberOfPredicates]=object;
+            m_predicateIDs.put(object,Integer.valueOf(m_numberOfPredicates));
+            return m_numberOfPredicates++;
+        }
+        else {
+            Node node=(Node)object;
+            int nodeID=node.m_nodeID;
+            if (nodeID>=m_nodesByID.length) {
+                int newLength=m_nodesByID.length*3/2;
+                while (nodeID>=newLength)
+                    newLength=newLength*3/2;
+                Node[] newNodesByID=new Node[newLength];
+                System.arraycopy(m_nodesByID,0,newNodesByID,0,m_nodesByID.length);
+                m_nodesByID=newNodesByID;
+            }
+            m_nodesByID[nodeID]=node;
+            return nodeID;
+        }
+    }
+    /**
+     * Returns the ID of the object at the given position without registering it, or UNKNOWN_ID if the object cannot
+     * occur in any stored tuple.
+     */
+    public int getID(int position,Object object) {
+        if (position==0) {
+            Integer predicateID=m_predicateIDs.get(object);
+            return predicateID==null ? UNKNOWN_ID : predicateID.intValue();
+        }
+        else
+            return ((Node)object).m_nodeID;
+    }
+    public Object decode(int position,int id) {
+        if (position==0)
+            return m_predicatesByID[id];
+        else
+            return m_nodesByID[id];
+    }
+    public void clear() {
+        // Predicates do not depend on the state of the tableau, so their IDs remain valid; nodes are recycled.
+        for (int index=m_nodesByID.length-1;index>=0;--index)
+            m_nodesByID[index]=null;
+    }
+}
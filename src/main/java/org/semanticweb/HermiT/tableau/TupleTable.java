@@ -22,8 +22,9 @@ import java.io.Serializable;
 /**
  * The actual implementation of the tuple tables used in the ExtensionTable
  * class.
+ * @see IntTupleTable
  */
-public final class TupleTable implements Serializable {
+public class TupleTable implements Serializable {
     private static final long serialVersionUID=-7712458276004062803L;
 
     protected static final int PAGE_SIZE=512;   // Must be a power of two!
@@ -0,0 +1,89 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class ABoxCheckpointTest extends AbstractReasonerTest {
+
+    public ABoxCheckpointTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.setUseABoxCheckpoint(true);
+        return configuration;
+    }
+    public void testInstanceChecks() throws Exception {
+        String axioms="ClassAssertion(ObjectUnionOf(:A :B) :a)"
+            + "ClassAssertion(:C :b)"
+            + "ObjectPropertyAssertion(:r :a :b)"
+            + "ObjectPropertyAssertion(:r :b :c)"
+            + "SubClassOf(:C ObjectAllValuesFrom(:r :D))"
+            + "SubClassOf(:A :E)"
+            + "SubClassOf(:B :E)"
+            + "SubClassOf(ObjectSomeValuesFrom(:r :C) :F)"
+            + "SubClassOf(:D ObjectSomeValuesFrom(:s :G))"
+            + "DisjointClasses(:G :H)";
+        loadReasonerWithAxioms(axioms);
+        assertABoxSatisfiable(true);
+        assertTrue(m_reasoner.getTableau().hasCheckpoint());
+        m_reasoner.precomputeInferences(InferenceType.CLASS_ASSERTIONS);
+        assertInstanceOf(NS_C("E"),NS_NI("a"),true);
+        assertInstanceOf(NS_C("A"),NS_NI("a"),false);
+        assertInstanceOf(NS_C("F"),NS_NI("a"),true);
+        assertInstanceOf(NS_C("D"),NS_NI("c"),true);
+        assertInstanceOf(m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("s"),NS_C("G")),NS_NI("c"),true);
+        assertInstanceOf(m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("s"),NS_C("H")),NS_NI("c"),false);
+        assertInstanceOf(m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),NS_C("D")),NS_NI("b"),true);
+        assertInstanceOf(m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),NS_C("D")),NS_NI("a"),false);
+        assertTrue(m_reasoner.getTableau().hasCheckpoint());
+        assertResultsMatchWithoutCheckpoint(true);
+    }
+    public void testInconsistentABox() throws Exception {
+        String axioms="ClassAssertion(:A :a)"
+            + "ObjectPropertyAssertion(:r :a :b)"
+            + "SubClassOf(:A ObjectAllValuesFrom(:r :B))"
+            + "ClassAssertion(ObjectComplementOf(:B) :b)";
+        loadReasonerWithAxioms(axioms);
+        assertABoxSatisfiable(false);
+        assertFalse(m_reasoner.getTableau().hasCheckpoint());
+    }
+    public void testWine() throws Exception {
+        loadReasonerFromResource("res/wine.xml");
+        assertResultsMatchWithoutCheckpoint(false);
+        assertTrue(m_reasoner.getTableau().hasCheckpoint());
+    }
+    protected void assertResultsMatchWithoutCheckpoint(boolean checkComplexClassExpressions) {
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS);
+        Configuration configuration=getConfiguration();
+        configuration.setUseABoxCheckpoint(false);
+        Reasoner reasoner=new Reasoner(configuration,m_ontology);
+        try {
+            reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS);
+            assertFalse(reasoner.getTableau().hasCheckpoint());
+            List<OWLClassExpression> classExpressions=new ArrayList<OWLClassExpression>();
+            if (checkComplexClassExpressions)
+                for (OWLClass owlClass : m_ontology.getClassesInSignature()) {
+                    classExpressions.add(m_dataFactory.getOWLObjectComplementOf(owlClass));
+                    for (OWLObjectProperty objectProperty : m_ontology.getObjectPropertiesInSignature())
+                        classExpressions.add(m_dataFactory.getOWLObjectSomeValuesFrom(objectProperty,owlClass));
+                }
+            for (OWLNamedIndividual individual : m_ontology.getIndividualsInSignature()) {
+                assertEquals(individual.toString(),reasoner.getTypes(individual,false).getFlattened(),m_reasoner.getTypes(individual,false).getFlattened());
+                for (OWLClassExpression classExpression : classExpressions)
+                    assertEquals(individual+" "+classExpression,reasoner.hasType(individual,classExpression,false),m_reasoner.hasType(individual,classExpression,false));
+            }
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+}
@@ -19,6 +19,10 @@ public class AllQuickTests extends TestCase {
         suite.addTestSuite(XMLLiteralTest.class);
         suite.addTestSuite(ReasonerTest.class);
         suite.addTestSuite(ReasonerIndividualReuseTest.class);
+        suite.addTestSuite(ReasonerIntEncodedTuplesTest.class);
+        suite.addTestSuite(ReasonerAdaptiveJoinOrderingTest.class);
+        suite.addTestSuite(ReasonerParallelHyperresolutionTest.class);
+        suite.addTestSuite(ReasonerBitSetDependencySetsTest.class);
         suite.addTestSuite(ReasonerCoreBlockingTest.class);
         suite.addTestSuite(ComplexConceptTest.class);
         suite.addTestSuite(EntailmentTest.class);
@@ -27,6 +31,19 @@ public class AllQuickTests extends TestCase {
         suite.addTestSuite(RulesTest.class);
         suite.addTestSuite(OWLReasonerTest.class);
         suite.addTestSuite(DatalogEngineTest.class);
+        suite.addTestSuite(PreprocessingCacheTest.class);
+        suite.addTestSuite(ReasoningSnapshotTest.class);
+        suite.addTestSuite(IncrementalClassificationTest.class);
+        suite.addTestSuite(HierarchyIndexTest.class);
+        suite.addTestSuite(MetricsMonitorTest.class);
+        suite.addTestSuite(ConsequenceBasedSaturationTest.class);
+        suite.addTestSuite(NogoodLearningTest.class);
+        suite.addTestSuite(DisjunctionStatisticsTest.class);
+        suite.addTestSuite(ABoxCheckpointTest.class);
+        suite.addTestSuite(DeltaDLOntologyCacheTest.class);
+        suite.addTestSuite(BatchedInstanceRetrievalTest.class);
+        suite.addTestSuite(ConcurrentQueryTest.class);
+        suite.addTestSuite(AsyncPrecomputationTest.class);
         // $JUnit-END$
         return suite;
     }
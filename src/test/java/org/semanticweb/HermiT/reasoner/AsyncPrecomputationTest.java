@@ -0,0 +1,162 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.semanticweb.HermiT.InferencePrecomputation;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+import org.semanticweb.owlapi.reasoner.TimeOutException;
+
+public class AsyncPrecomputationTest extends AbstractReasonerTest {
+
+    public AsyncPrecomputationTest(String name) {
+        super(name);
+    }
+    public void testResultsMatchSynchronousPrecomputation() throws Exception {
+        loadOntologyFromResource("res/pizza.xml");
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLClassAssertionAxiom(NS_C("Margherita"),NS_NI("m")));
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLObjectPropertyAssertionAxiom(NS_OP("hasTopping"),NS_NI("m"),NS_NI("t")));
+        createReasoner();
+        InferenceType[] inferenceTypes=new InferenceType[] { InferenceType.CLASS_HIERARCHY,InferenceType.OBJECT_PROPERTY_HIERARCHY,InferenceType.DATA_PROPERTY_HIERARCHY,InferenceType.CLASS_ASSERTIONS,InferenceType.OBJECT_PROPERTY_ASSERTIONS };
+        EventCollector events=new EventCollector();
+        ExecutorService executor=Executors.newFixedThreadPool(3);
+        try {
+            m_reasoner.precomputeInferencesAsync(executor,events,inferenceTypes).getFuture().get();
+        }
+        finally {
+            executor.shutdown();
+        }
+        for (InferenceType inferenceType : inferenceTypes) {
+            assertTrue(m_reasoner.isPrecomputed(inferenceType));
+            assertTrue(events.contains(InferencePrecomputation.Event.Type.STARTED,inferenceType));
+            assertTrue(events.contains(InferencePrecomputation.Event.Type.COMPLETED,inferenceType));
+        }
+        assertTrue(events.contains(InferencePrecomputation.Event.Type.PROGRESS,InferenceType.CLASS_HIERARCHY));
+        Reasoner reasoner=new Reasoner(getConfiguration(),m_ontology);
+        try {
+            reasoner.precomputeInferences(inferenceTypes);
+            for (OWLClass owlClass : m_ontology.getClassesInSignature())
+                assertEquals(owlClass.toString(),reasoner.getSuperClasses(owlClass,false).getFlattened(),m_reasoner.getSuperClasses(owlClass,false).getFlattened());
+            for (OWLObjectProperty objectProperty : m_ontology.getObjectPropertiesInSignature())
+                assertEquals(objectProperty.toString(),reasoner.getSuperObjectProperties(objectProperty,false).getFlattened(),m_reasoner.getSuperObjectProperties(objectProperty,false).getFlattened());
+            for (OWLNamedIndividual individual : m_ontology.getIndividualsInSignature())
+                assertEquals(individual.toString(),reasoner.getTypes(individual,false).getFlattened(),m_reasoner.getTypes(individual,false).getFlattened());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+    public void testCancellingAStageStopsDependentStages() throws Exception {
+        loadReasonerWithAxioms("SubClassOf(:A :B) ClassAssertion(:A :a) ObjectPropertyAssertion(:r :a :b)");
+        ManualExecutor executor=new ManualExecutor();
+        EventCollector events=new EventCollector();
+        InferencePrecomputation precomputation=m_reasoner.precomputeInferencesAsync(executor,events,InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS,InferenceType.SAME_INDIVIDUAL);
+        precomputation.cancel(InferenceType.CLASS_ASSERTIONS);
+        executor.runAll();
+        assertTrue(precomputation.isDone());
+        precomputation.getFuture(InferenceType.CLASS_HIERARCHY).get();
+        assertCompletedWith(CancellationException.class,precomputation,InferenceType.CLASS_ASSERTIONS);
+        assertCompletedWith(CancellationException.class,precomputation,InferenceType.SAME_INDIVIDUAL);
+        assertTrue(events.contains(InferencePrecomputation.Event.Type.CANCELLED,InferenceType.CLASS_ASSERTIONS));
+        assertTrue(events.contains(InferencePrecomputation.Event.Type.CANCELLED,InferenceType.SAME_INDIVIDUAL));
+        assertFalse(events.contains(InferencePrecomputation.Event.Type.STARTED,InferenceType.CLASS_ASSERTIONS));
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.CLASS_HIERARCHY));
+        assertFalse(m_reasoner.isPrecomputed(InferenceType.CLASS_ASSERTIONS));
+        assertInstanceOf(NS_C("B"),NS_NI("a"),true);
+    }
+    public void testCancellingARunningStage() throws Exception {
+        loadReasonerFromResource("res/pizza.xml");
+        ManualExecutor executor=new ManualExecutor();
+        final AtomicReference<InferencePrecomputation> precomputation=new AtomicReference<InferencePrecomputation>();
+        EventCollector events=new EventCollector() {
+            public void handleEvent(InferencePrecomputation.Event event) {
+                super.handleEvent(event);
+                if (event.getType()==InferencePrecomputation.Event.Type.STARTED)
+                    precomputation.get().cancel(event.getInferenceType());
+            }
+        };
+        precomputation.set(m_reasoner.precomputeInferencesAsync(executor,events,InferenceType.CLASS_HIERARCHY));
+        executor.runAll();
+        assertCompletedWith(CancellationException.class,precomputation.get(),InferenceType.CLASS_HIERARCHY);
+        assertTrue(events.contains(InferencePrecomputation.Event.Type.CANCELLED,InferenceType.CLASS_HIERARCHY));
+        assertFalse(m_reasoner.isPrecomputed(InferenceType.CLASS_HIERARCHY));
+        // the cancellation must not stick to the reasoner
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.CLASS_HIERARCHY));
+    }
+    public void testDeadline() throws Exception {
+        loadReasonerWithAxioms("SubClassOf(:A :B) SubObjectPropertyOf(:r :s)");
+        ManualExecutor executor=new ManualExecutor();
+        EventCollector events=new EventCollector();
+        InferencePrecomputation precomputation=m_reasoner.precomputeInferencesAsync(executor,events,InferenceType.CLASS_HIERARCHY,InferenceType.OBJECT_PROPERTY_HIERARCHY);
+        precomputation.setDeadline(InferenceType.CLASS_HIERARCHY,1,TimeUnit.MILLISECONDS);
+        precomputation.setDeadline(InferenceType.OBJECT_PROPERTY_HIERARCHY,1,TimeUnit.HOURS);
+        Thread.sleep(200);
+        executor.runAll();
+        assertCompletedWith(TimeOutException.class,precomputation,InferenceType.CLASS_HIERARCHY);
+        precomputation.getFuture(InferenceType.OBJECT_PROPERTY_HIERARCHY).get();
+        assertTrue(events.contains(InferencePrecomputation.Event.Type.TIMED_OUT,InferenceType.CLASS_HIERARCHY));
+        assertFalse(m_reasoner.isPrecomputed(InferenceType.CLASS_HIERARCHY));
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.OBJECT_PROPERTY_HIERARCHY));
+    }
+    protected static void assertCompletedWith(Class<? extends Throwable> exceptionClass,InferencePrecomputation precomputation,InferenceType inferenceType) throws Exception {
+        try {
+            precomputation.getFuture(inferenceType).get();
+            fail();
+        }
+        catch (CancellationException error) {
+            assertEquals(exceptionClass,CancellationException.class);
+        }
+        catch (ExecutionException error) {
+            assertTrue(error.getCause().toString(),exceptionClass.isInstance(error.getCause()));
+        }
+    }
+
+    protected static class EventCollector implements InferencePrecomputation.Listener {
+        protected final List<InferencePrecomputation.Event> m_events=Collections.synchronizedList(new ArrayList<InferencePrecomputation.Event>());
+
+        public void handleEvent(InferencePrecomputation.Event event) {
+            m_events.add(event);
+        }
+        public boolean contains(InferencePrecomputation.Event.Type type,InferenceType inferenceType) {
+            synchronized (m_events) {
+                for (InferencePrecomputation.Event event : m_events)
+                    if (event.getType()==type && event.getInferenceType()==inferenceType)
+                        return true;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Runs the stages in the test thread when runAll() is called.
+     */
+    protected static class ManualExecutor implements Executor {
+        protected final LinkedList<Runnable> m_tasks=new LinkedList<Runnable>();
+
+        public synchronized void execute(Runnable task) {
+            m_tasks.add(task);
+        }
+        public void runAll() {
+            Runnable task;
+            while ((task=next())!=null)
+                task.run();
+        }
+        protected synchronized Runnable next() {
+            return m_tasks.poll();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.Random;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+
+public class BatchedInstanceRetrievalTest extends AbstractReasonerTest {
+
+    public BatchedInstanceRetrievalTest(String name) {
+        super(name);
+    }
+    public void testBatchedRetrievalMatchesSeparateTests() throws Exception {
+        StringBuffer axioms=new StringBuffer();
+        axioms.append("SubClassOf(:A ObjectUnionOf(:B :C))");
+        axioms.append("SubClassOf(:B ObjectAllValuesFrom(:r :D))");
+        axioms.append("SubClassOf(:C ObjectAllValuesFrom(:r :D))");
+        axioms.append("SubClassOf(:F ObjectComplementOf(:C))");
+        axioms.append("SubClassOf(:E ObjectSomeValuesFrom(:s :H))");
+        Random random=new Random(0);
+        for (int index=0;index<60;index++) {
+            if (random.nextBoolean())
+                axioms.append("ClassAssertion(:A :i"+index+")");
+            if (random.nextInt(3)==0)
+                axioms.append("ClassAssertion(:F :i"+index+")");
+            if (random.nextInt(4)==0)
+                axioms.append("ClassAssertion(:E :i"+index+")");
+            if (random.nextInt(3)==0)
+                axioms.append("ClassAssertion(:K :i"+index+")");
+            axioms.append("ObjectPropertyAssertion(:r :i"+index+" :i"+random.nextInt(60)+")");
+        }
+        loadOntologyWithAxioms(axioms.toString());
+        OWLClassExpression[] queries=new OWLClassExpression[] {
+            m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),NS_C("D")),
+            m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),m_dataFactory.getOWLObjectIntersectionOf(NS_C("D"),m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),NS_C("D")))),
+            m_dataFactory.getOWLObjectUnionOf(NS_C("B"),m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("s"),NS_C("H"))),
+            m_dataFactory.getOWLObjectUnionOf(m_dataFactory.getOWLObjectComplementOf(NS_C("K")),m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),NS_C("K")))
+        };
+        Reasoner plainReasoner=new Reasoner(getConfiguration(),m_ontology);
+        try {
+            for (int numberOfThreads=1;numberOfThreads<=2;numberOfThreads++) {
+                Configuration configuration=getConfiguration();
+                configuration.instanceRetrievalBatchSize=8;
+                configuration.numberOfRealisationThreads=numberOfThreads;
+                Reasoner reasoner=new Reasoner(configuration,m_ontology);
+                try {
+                    for (OWLClassExpression query : queries)
+                        assertEquals(query.toString(),plainReasoner.getInstances(query,false).getFlattened(),reasoner.getInstances(query,false).getFlattened());
+                }
+                finally {
+                    reasoner.dispose();
+                }
+            }
+        }
+        finally {
+            plainReasoner.dispose();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+public class ConcurrentQueryTest extends AbstractReasonerTest {
+
+    public ConcurrentQueryTest(String name) {
+        super(name);
+    }
+    public void testConcurrentQueriesMatchSequentialAnswers() throws Exception {
+        StringBuffer axioms=new StringBuffer();
+        axioms.append("SubClassOf(:A ObjectUnionOf(:B :C))");
+        axioms.append("SubClassOf(:B ObjectAllValuesFrom(:r :D))");
+        axioms.append("SubClassOf(:C ObjectAllValuesFrom(:r :D))");
+        axioms.append("SubClassOf(:F ObjectComplementOf(:C))");
+        axioms.append("SubClassOf(:E ObjectSomeValuesFrom(:s :H))");
+        axioms.append("SubClassOf(:H :D)");
+        axioms.append("SubObjectPropertyOf(:s :r)");
+        axioms.append("ObjectPropertyDomain(:r :K)");
+        Random random=new Random(0);
+        for (int index=0;index<30;index++) {
+            if (random.nextBoolean())
+                axioms.append("ClassAssertion(:A :i"+index+")");
+            if (random.nextInt(3)==0)
+                axioms.append("ClassAssertion(:F :i"+index+")");
+            if (random.nextInt(4)==0)
+                axioms.append("ClassAssertion(:E :i"+index+")");
+            axioms.append("ObjectPropertyAssertion(:r :i"+index+" :i"+random.nextInt(30)+")");
+        }
+        loadOntologyWithAxioms(axioms.toString());
+        final OWLObjectProperty r=NS_OP("r");
+        final OWLClassExpression[] classExpressions=new OWLClassExpression[] {
+            NS_C("A"),
+            NS_C("D"),
+            NS_C("K"),
+            m_dataFactory.getOWLObjectSomeValuesFrom(r,NS_C("D")),
+            m_dataFactory.getOWLObjectIntersectionOf(NS_C("A"),NS_C("F")),
+            m_dataFactory.getOWLObjectUnionOf(NS_C("B"),m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("s"),NS_C("H"))),
+            m_dataFactory.getOWLObjectIntersectionOf(NS_C("C"),NS_C("F"))
+        };
+        final List<OWLNamedIndividual> individuals=new ArrayList<OWLNamedIndividual>();
+        for (int index=0;index<30;index+=3)
+            individuals.add(NS_NI("i"+index));
+        List<Query> queries=new ArrayList<Query>();
+        for (final OWLClassExpression classExpression : classExpressions) {
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.getSuperClasses(classExpression,false).getFlattened();
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.getSubClasses(classExpression,true).getFlattened();
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.isSatisfiable(classExpression);
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.getInstances(classExpression,false).getFlattened();
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.hasType(individuals.get(1),classExpression,false);
+                }
+            });
+        }
+        for (final OWLNamedIndividual individual : individuals) {
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.getTypes(individual,true).getFlattened();
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.getObjectPropertyValues(individual,r).getFlattened();
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.isEntailed(m_dataFactory.getOWLClassAssertionAxiom(m_dataFactory.getOWLObjectSomeValuesFrom(r,NS_C("D")),individual));
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.isSameIndividual(individual,individuals.get(0));
+                }
+            });
+            queries.add(new Query() {
+                public Object answer(Reasoner reasoner) {
+                    return reasoner.hasObjectPropertyRelationship(individual,r,individuals.get(1));
+                }
+            });
+        }
+        queries.add(new Query() {
+            public Object answer(Reasoner reasoner) {
+                return reasoner.getObjectPropertyDomains(NS_OP("s"),true).getFlattened();
+            }
+        });
+        List<Object> expectedAnswers=new ArrayList<Object>();
+        Reasoner plainReasoner=new Reasoner(getConfiguration(),m_ontology);
+        try {
+            for (Query query : queries)
+                expectedAnswers.add(query.answer(plainReasoner));
+        }
+        finally {
+            plainReasoner.dispose();
+        }
+        createReasoner();
+        assertTrue(m_reasoner.isConsistent());
+        m_reasoner.startConcurrentQueries(2);
+        assertTrue(m_reasoner.isInConcurrentQueryMode());
+        ExecutorService executor=Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Object>>> futures=new ArrayList<Future<List<Object>>>();
+            for (int thread=0;thread<4;thread++) {
+                final List<Integer> order=new ArrayList<Integer>();
+                for (int index=0;index<queries.size();index++)
+                    order.add(index);
+                Collections.shuffle(order,new Random(thread));
+                final List<Query> threadQueries=queries;
+                futures.add(executor.submit(new Callable<List<Object>>() {
+                    public List<Object> call() {
+                        List<Object> answers=new ArrayList<Object>(Collections.nCopies(threadQueries.size(),null));
+                        for (int index : order)
+                            answers.set(index,threadQueries.get(index).answer(m_reasoner));
+                        return answers;
+                    }
+                }));
+            }
+            for (Future<List<Object>> future : futures) {
+                List<Object> answers=future.get();
+                for (int index=0;index<queries.size();index++)
+                    assertEquals("query "+index,expectedAnswers.get(index),answers.get(index));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(2,m_reasoner.getTableauPool().getNumberOfIdleTableaux());
+    }
+    public void testChangesAreAppliedWhenFlushing() throws Exception {
+        loadReasonerWithAxioms("SubClassOf(:A :B)");
+        OWLClass a=NS_C("A");
+        OWLClass c=NS_C("C");
+        OWLClassExpression someA=m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),a);
+        m_reasoner.startConcurrentQueries(1);
+        assertFalse(m_reasoner.getSuperClasses(someA,false).containsEntity(c));
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLSubClassOfAxiom(a,c));
+        assertFalse(m_reasoner.getSuperClasses(a,false).containsEntity(c));
+        assertTrue(m_reasoner.isInConcurrentQueryMode());
+        m_reasoner.flush();
+        assertFalse(m_reasoner.isInConcurrentQueryMode());
+        assertTrue(m_reasoner.getSuperClasses(a,false).containsEntity(c));
+        m_reasoner.startConcurrentQueries(1);
+        assertTrue(m_reasoner.isSatisfiable(someA));
+        assertEquals(1,m_reasoner.getTableauPool().getNumberOfIdleTableaux());
+        m_reasoner.stopConcurrentQueries();
+        assertNull(m_reasoner.getTableauPool());
+    }
+
+    protected static interface Query {
+        Object answer(Reasoner reasoner);
+    }
+}
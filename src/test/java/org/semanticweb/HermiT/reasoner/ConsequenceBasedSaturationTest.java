@@ -0,0 +1,135 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.HermiT.hierarchy.ConsequenceBasedSaturation;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class ConsequenceBasedSaturationTest extends AbstractReasonerTest {
+
+    public ConsequenceBasedSaturationTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.useConsequenceBasedClassification=true;
+        return configuration;
+    }
+    public void testELOntology() throws Exception {
+        String axioms="SubClassOf(:A ObjectSomeValuesFrom(:r :B))"
+            + "SubClassOf(:B ObjectIntersectionOf(:C ObjectSomeValuesFrom(:s :D)))"
+            + "SubObjectPropertyOf(:r :t)"
+            + "SubClassOf(ObjectSomeValuesFrom(:t ObjectIntersectionOf(:C ObjectSomeValuesFrom(:s owl:Thing))) :E)"
+            + "SubClassOf(ObjectIntersectionOf(:E :F) :G)"
+            + "EquivalentClasses(:H ObjectIntersectionOf(:A :F))"
+            + "SubClassOf(:D :K)"
+            + "DisjointClasses(:K :L)"
+            + "SubClassOf(:M ObjectSomeValuesFrom(:r ObjectSomeValuesFrom(:s :L)))"
+            + "SubClassOf(:N ObjectSomeValuesFrom(:r :M))"
+            + "SubClassOf(owl:Thing :T)";
+        loadReasonerWithAxioms(axioms);
+        assertNotNull(ConsequenceBasedSaturation.create(m_reasoner.getDLOntology()));
+        assertSubsumedBy("A","E",true);
+        assertSubsumedBy("H","G",true);
+        assertSubsumedBy("A","G",false);
+        assertSubsumedBy("A","T",true);
+        assertSatisfiable("L",true);
+        assertSatisfiable("M",true);
+        assertSubsumedBy("B","K",false);
+        assertHierarchiesMatchTableau();
+    }
+    public void testUnsatisfiableSuccessor() throws Exception {
+        String axioms="SubClassOf(:A ObjectSomeValuesFrom(:r :B))"
+            + "SubClassOf(:B ObjectSomeValuesFrom(:s :C))"
+            + "SubClassOf(:C :D)"
+            + "DisjointClasses(:C :E)"
+            + "SubClassOf(:D :E)"
+            + "SubClassOf(:F ObjectSomeValuesFrom(:r :G))";
+        loadReasonerWithAxioms(axioms);
+        assertNotNull(ConsequenceBasedSaturation.create(m_reasoner.getDLOntology()));
+        assertSatisfiable("A",false);
+        assertSatisfiable("B",false);
+        assertSatisfiable("F",true);
+        assertHierarchiesMatchTableau();
+    }
+    public void testUnsupportedOntology() throws Exception {
+        String axioms="SubClassOf(:A ObjectSomeValuesFrom(:r :B))"
+            + "InverseObjectProperties(:r :s)"
+            + "SubClassOf(ObjectSomeValuesFrom(:s :A) :C)"
+            + "SubClassOf(:B :C)";
+        loadReasonerWithAxioms(axioms);
+        assertNull(ConsequenceBasedSaturation.create(m_reasoner.getDLOntology()));
+        assertSubsumedBy("B","C",true);
+        assertHierarchiesMatchTableau();
+    }
+    public void testRandomELOntologies() throws Exception {
+        for (int seed=0;seed<20;seed++) {
+            setUp();
+            loadOntologyWithAxioms("");
+            m_ontologyManager.addAxioms(m_ontology,createRandomELAxioms(new Random(seed),40,4,80));
+            createReasoner();
+            assertNotNull(ConsequenceBasedSaturation.create(m_reasoner.getDLOntology()));
+            assertHierarchiesMatchTableau();
+            tearDown();
+        }
+    }
+    protected void assertHierarchiesMatchTableau() {
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        Configuration configuration=getConfiguration();
+        configuration.useConsequenceBasedClassification=false;
+        Reasoner tableauReasoner=new Reasoner(configuration,m_ontology);
+        try {
+            tableauReasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+            for (OWLClass owlClass : m_ontology.getClassesInSignature()) {
+                assertEquals(owlClass.toString(),tableauReasoner.getEquivalentClasses(owlClass).getEntities(),m_reasoner.getEquivalentClasses(owlClass).getEntities());
+                assertEquals(owlClass.toString(),tableauReasoner.getSuperClasses(owlClass,true).getFlattened(),m_reasoner.getSuperClasses(owlClass,true).getFlattened());
+            }
+        }
+        finally {
+            tableauReasoner.dispose();
+        }
+    }
+    protected Set<OWLAxiom> createRandomELAxioms(Random random,int numberOfClasses,int numberOfProperties,int numberOfAxioms) {
+        OWLClass[] classes=new OWLClass[numberOfClasses];
+        for (int index=0;index<numberOfClasses;index++)
+            classes[index]=m_dataFactory.getOWLClass(IRI.create(NS+"C"+index));
+        OWLObjectProperty[] properties=new OWLObjectProperty[numberOfProperties];
+        for (int index=0;index<numberOfProperties;index++)
+            properties[index]=m_dataFactory.getOWLObjectProperty(IRI.create(NS+"r"+index));
+        Set<OWLAxiom> axioms=new HashSet<OWLAxiom>();
+        for (int index=1;index<numberOfProperties;index++)
+            if (random.nextBoolean())
+                axioms.add(m_dataFactory.getOWLSubObjectPropertyOfAxiom(properties[index],properties[random.nextInt(index)]));
+        for (int index=0;index<numberOfAxioms;index++) {
+            OWLClassExpression subClass=createRandomELConcept(random,classes,properties,2);
+            OWLClassExpression superClass=createRandomELConcept(random,classes,properties,2);
+            if (random.nextInt(10)==0)
+                axioms.add(m_dataFactory.getOWLDisjointClassesAxiom(subClass,superClass));
+            else if (random.nextInt(5)==0)
+                axioms.add(m_dataFactory.getOWLEquivalentClassesAxiom(classes[random.nextInt(numberOfClasses)],superClass));
+            else
+                axioms.add(m_dataFactory.getOWLSubClassOfAxiom(subClass,superClass));
+        }
+        return axioms;
+    }
+    protected OWLClassExpression createRandomELConcept(Random random,OWLClass[] classes,OWLObjectProperty[] properties,int depth) {
+        int choice=(depth==0 ? 0 : random.nextInt(4));
+        switch (choice) {
+        case 1:
+            return m_dataFactory.getOWLObjectIntersectionOf(createRandomELConcept(random,classes,properties,depth-1),createRandomELConcept(random,classes,properties,depth-1));
+        case 2:
+            return m_dataFactory.getOWLObjectSomeValuesFrom(properties[random.nextInt(properties.length)],createRandomELConcept(random,classes,properties,depth-1));
+        default:
+            return classes[random.nextInt(classes.length)];
+        }
+    }
+}
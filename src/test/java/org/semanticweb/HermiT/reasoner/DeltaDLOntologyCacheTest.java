@@ -0,0 +1,52 @@
+package org.semanticweb.HermiT.reasoner;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.HermiT.structural.DeltaDLOntologyCache;
+import org.semanticweb.HermiT.tableau.Tableau;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+
+public class DeltaDLOntologyCacheTest extends AbstractReasonerTest {
+
+    public DeltaDLOntologyCacheTest(String name) {
+        super(name);
+    }
+    public void testRepeatedQueriesReuseDeltaDLOntology() throws Exception {
+        loadReasonerWithAxioms("SubClassOf(:A ObjectSomeValuesFrom(:r :B))");
+        OWLClassExpression query=m_dataFactory.getOWLObjectIntersectionOf(NS_C("A"),m_dataFactory.getOWLObjectAllValuesFrom(NS_OP("r"),m_dataFactory.getOWLObjectComplementOf(NS_C("B"))));
+        DeltaDLOntologyCache cache=m_reasoner.getDeltaDLOntologyCache();
+        assertFalse(m_reasoner.isSatisfiable(query));
+        assertEquals(1,cache.getNumberOfMisses());
+        assertFalse(m_reasoner.isSatisfiable(query));
+        assertEquals(1,cache.getNumberOfMisses());
+        assertEquals(1,cache.getNumberOfHits());
+        OWLAxiom axiom=m_dataFactory.getOWLSubClassOfAxiom(NS_C("C"),query);
+        DLOntology deltaDLOntology=m_reasoner.getDeltaDLOntology(axiom);
+        assertSame(deltaDLOntology,m_reasoner.getDeltaDLOntology(axiom));
+        Tableau tableau=m_reasoner.getTableau(axiom);
+        assertSame(deltaDLOntology,tableau.getAdditionalDLOntology());
+        Object hyperresolutionManager=tableau.getAdditionalHyperresolutionManager();
+        assertSame(hyperresolutionManager,m_reasoner.getTableau(axiom).getAdditionalHyperresolutionManager());
+        assertEquals(2,cache.size());
+    }
+    public void testCacheIsClearedOnFlush() throws Exception {
+        loadReasonerWithAxioms("SubClassOf(:A ObjectSomeValuesFrom(:r :B))");
+        OWLClassExpression query=m_dataFactory.getOWLObjectIntersectionOf(NS_C("A"),m_dataFactory.getOWLObjectAllValuesFrom(NS_OP("r"),NS_C("C")));
+        assertTrue(m_reasoner.isSatisfiable(query));
+        assertEquals(1,m_reasoner.getDeltaDLOntologyCache().size());
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLDisjointClassesAxiom(NS_C("B"),NS_C("C")));
+        m_reasoner.flush();
+        assertEquals(0,m_reasoner.getDeltaDLOntologyCache().size());
+        assertFalse(m_reasoner.isSatisfiable(query));
+    }
+    public void testCacheCanBeDisabled() throws Exception {
+        loadOntologyWithAxioms("SubClassOf(:A ObjectSomeValuesFrom(:r :B))");
+        Configuration configuration=getConfiguration();
+        configuration.deltaDLOntologyCacheSize=0;
+        createReasoner(configuration,null);
+        assertNull(m_reasoner.getDeltaDLOntologyCache());
+        OWLAxiom axiom=m_dataFactory.getOWLSubClassOfAxiom(NS_C("C"),m_dataFactory.getOWLObjectComplementOf(NS_C("A")));
+        assertNotSame(m_reasoner.getDeltaDLOntology(axiom),m_reasoner.getDeltaDLOntology(axiom));
+    }
+}
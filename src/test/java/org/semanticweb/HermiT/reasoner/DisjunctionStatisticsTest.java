@@ -0,0 +1,74 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.io.File;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.HermiT.tableau.DisjunctionStatistics;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class DisjunctionStatisticsTest extends AbstractReasonerTest {
+    protected File m_statisticsFile;
+
+    public DisjunctionStatisticsTest(String name) {
+        super(name);
+    }
+    protected void setUp() throws Exception {
+        super.setUp();
+        m_statisticsFile=File.createTempFile("hermit-disjunctions",".stat");
+        m_statisticsFile.delete();
+    }
+    protected void tearDown() {
+        m_statisticsFile.delete();
+        super.tearDown();
+    }
+    public void testStatisticsSurviveFlush() throws Exception {
+        loadReasonerFromResource("res/pizza.xml");
+        DisjunctionStatistics statistics=m_reasoner.getTableau().getDisjunctionStatistics();
+        assertNotNull(statistics);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        int numberOfBacktrackings=statistics.getTotalNumberOfBacktrackings();
+        assertTrue(numberOfBacktrackings>0);
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLSubClassOfAxiom(NS_C("A"),NS_C("B")));
+        m_reasoner.flush();
+        assertSame(statistics,m_reasoner.getTableau().getDisjunctionStatistics());
+        assertTrue(statistics.getTotalNumberOfBacktrackings()>=numberOfBacktrackings);
+    }
+    public void testStatisticsAreSavedAndLoaded() throws Exception {
+        Configuration configuration=getConfiguration();
+        configuration.disjunctionStatisticsFile=m_statisticsFile;
+        loadOntologyFromResource("res/pizza.xml");
+        createReasoner(configuration,null);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        DisjunctionStatistics statistics=m_reasoner.getTableau().getDisjunctionStatistics();
+        int numberOfDisjunctions=statistics.getNumberOfDisjunctions();
+        int numberOfBacktrackings=statistics.getTotalNumberOfBacktrackings();
+        m_reasoner.dispose();
+        assertTrue(m_statisticsFile.isFile());
+        DisjunctionStatistics loaded=new DisjunctionStatistics();
+        assertTrue(loaded.load(m_statisticsFile));
+        assertEquals(numberOfDisjunctions,loaded.getNumberOfDisjunctions());
+        assertEquals(numberOfBacktrackings,loaded.getTotalNumberOfBacktrackings());
+        loaded.addAll(loaded);
+        assertEquals(2*numberOfBacktrackings,loaded.getTotalNumberOfBacktrackings());
+        createReasoner(configuration,null);
+        assertEquals(numberOfBacktrackings,m_reasoner.getTableau().getDisjunctionStatistics().getTotalNumberOfBacktrackings());
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        Reasoner reasoner=new Reasoner(getConfiguration(),m_ontology);
+        try {
+            for (OWLClass owlClass : m_ontology.getClassesInSignature())
+                assertEquals(owlClass.toString(),reasoner.getSuperClasses(owlClass,false).getFlattened(),m_reasoner.getSuperClasses(owlClass,false).getFlattened());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+    public void testDisabledDisjunctionLearning() throws Exception {
+        Configuration configuration=getConfiguration();
+        configuration.useDisjunctionLearning=false;
+        loadOntologyWithAxioms("SubClassOf(:A ObjectUnionOf(:B :C))");
+        createReasoner(configuration,null);
+        assertNull(m_reasoner.getTableau().getDisjunctionStatistics());
+    }
+}
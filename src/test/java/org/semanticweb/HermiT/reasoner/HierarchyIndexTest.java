@@ -0,0 +1,66 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectPropertyExpression;
+import org.semanticweb.owlapi.model.parameters.Imports;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class HierarchyIndexTest extends AbstractReasonerTest {
+
+    public HierarchyIndexTest(String name) {
+        super(name);
+    }
+    protected Set<OWLClass> getSuperClassesFromDirectSuperClasses(OWLClass owlClass) {
+        Set<OWLClass> result=new HashSet<OWLClass>();
+        Queue<OWLClass> toVisit=new LinkedList<OWLClass>(m_reasoner.getSuperClasses(owlClass,true).getFlattened());
+        while (!toVisit.isEmpty()) {
+            OWLClass current=toVisit.poll();
+            if (result.add(current)) {
+                toVisit.addAll(m_reasoner.getEquivalentClasses(current).getEntities());
+                toVisit.addAll(m_reasoner.getSuperClasses(current,true).getFlattened());
+            }
+        }
+        return result;
+    }
+    public void testClassHierarchyIndex() throws Exception {
+        loadReasonerFromResource("res/pizza.xml");
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        OWLDataFactory factory=m_dataFactory;
+        Set<OWLClass> classes=m_ontology.getClassesInSignature(Imports.INCLUDED);
+        for (OWLClass subClass : classes) {
+            Set<OWLClass> superClasses=m_reasoner.getSuperClasses(subClass,false).getFlattened();
+            assertEquals(subClass.toString(),getSuperClassesFromDirectSuperClasses(subClass),superClasses);
+            for (OWLClass superClass : classes) {
+                boolean expected=superClasses.contains(superClass) || m_reasoner.getEquivalentClasses(subClass).contains(superClass);
+                assertEquals(subClass+" "+superClass,expected,m_reasoner.isEntailed(factory.getOWLSubClassOfAxiom(subClass,superClass)));
+                assertEquals(subClass+" "+superClass,superClasses.contains(superClass),m_reasoner.getSubClasses(superClass,false).containsEntity(subClass));
+            }
+        }
+    }
+    public void testObjectPropertyHierarchyIndex() throws Exception {
+        String axioms="SubObjectPropertyOf(:r :s)"
+            + "SubObjectPropertyOf(:s :t)"
+            + "SubObjectPropertyOf(:u :t)"
+            + "EquivalentObjectProperties(:u :v)"
+            + "InverseObjectProperties(:s :w)";
+        loadReasonerWithAxioms(axioms);
+        Set<OWLObjectPropertyExpression> superProperties=m_reasoner.getSuperObjectProperties(NS_OP("r"),false).getFlattened();
+        assertTrue(superProperties.contains(NS_OP("s")));
+        assertTrue(superProperties.contains(NS_OP("t")));
+        assertFalse(superProperties.contains(NS_OP("r")));
+        assertFalse(superProperties.contains(NS_OP("u")));
+        Set<OWLObjectPropertyExpression> subProperties=m_reasoner.getSubObjectProperties(NS_OP("t"),false).getFlattened();
+        assertTrue(subProperties.contains(NS_OP("r")));
+        assertTrue(subProperties.contains(NS_OP("v")));
+        assertFalse(subProperties.contains(NS_OP("t")));
+        assertTrue(m_reasoner.isEntailed(m_dataFactory.getOWLSubObjectPropertyOfAxiom(NS_OP("v"),NS_OP("t"))));
+        assertTrue(m_reasoner.isEntailed(m_dataFactory.getOWLSubObjectPropertyOfAxiom(NS_OP("u"),NS_OP("v"))));
+        assertFalse(m_reasoner.isEntailed(m_dataFactory.getOWLSubObjectPropertyOfAxiom(NS_OP("t"),NS_OP("r"))));
+    }
+}
@@ -0,0 +1,135 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.HermiT.monitor.TableauMonitorAdapter;
+import org.semanticweb.HermiT.tableau.ReasoningTaskDescription;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class IncrementalClassificationTest extends AbstractReasonerTest {
+    protected List<String> m_tests;
+
+    public IncrementalClassificationTest(String name) {
+        super(name);
+    }
+    protected void setUp() throws Exception {
+        super.setUp();
+        m_tests=new ArrayList<String>();
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.bufferChanges=true;
+        configuration.incrementalClassification=true;
+        configuration.monitor=new TableauMonitorAdapter() {
+            private static final long serialVersionUID=1L;
+
+            public void isSatisfiableStarted(ReasoningTaskDescription reasoningTaskDescription) {
+                m_tests.add(reasoningTaskDescription.toString());
+            }
+        };
+        return configuration;
+    }
+    protected String getFreshClassHierarchy() {
+        Configuration configuration=new Configuration();
+        configuration.incrementalClassification=false;
+        Reasoner reasoner=new Reasoner(configuration,m_ontology);
+        try {
+            reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+            return getClassHierarchy(reasoner);
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+    protected String getClassHierarchy() {
+        return getClassHierarchy(m_reasoner);
+    }
+    protected static String getClassHierarchy(Reasoner reasoner) {
+        StringWriter buffer=new StringWriter();
+        PrintWriter output=new PrintWriter(buffer);
+        reasoner.printHierarchies(output,true,false,false);
+        output.flush();
+        return buffer.toString();
+    }
+    protected boolean isMentionedInTest(String cls) {
+        for (String test : m_tests)
+            if (test.contains(NS+cls+">"))
+                return true;
+        return false;
+    }
+    protected void assertNoTestMentions(String... classes) {
+        for (String test : m_tests)
+            for (String cls : classes)
+                assertFalse(test,test.contains(NS+cls+">"));
+    }
+    public void testAddedAndRemovedAxioms() throws Exception {
+        String axioms="SubClassOf(:A :B)"
+            + "SubClassOf(:C ObjectSomeValuesFrom(:r :D))"
+            + "SubClassOf(:D :E)"
+            + "SubClassOf(:F ObjectUnionOf(:G :H))"
+            + "SubClassOf(:G :I)"
+            + "SubClassOf(:H :I)";
+        loadReasonerWithAxioms(axioms);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        OWLAxiom bSubF=m_dataFactory.getOWLSubClassOfAxiom(NS_C("B"),NS_C("F"));
+        OWLAxiom someREsubJ=m_dataFactory.getOWLSubClassOfAxiom(m_dataFactory.getOWLObjectSomeValuesFrom(NS_OP("r"),NS_C("E")),NS_C("J"));
+        m_ontologyManager.addAxiom(m_ontology,bSubF);
+        m_ontologyManager.addAxiom(m_ontology,someREsubJ);
+        m_reasoner.flush();
+        assertSubsumedBy("A","I",true);
+        assertSubsumedBy("C","J",true);
+        assertEquals(getFreshClassHierarchy(),getClassHierarchy());
+        m_ontologyManager.removeAxiom(m_ontology,m_dataFactory.getOWLSubClassOfAxiom(NS_C("A"),NS_C("B")));
+        m_reasoner.flush();
+        assertSubsumedBy("A","I",false);
+        assertSubsumedBy("B","I",true);
+        assertEquals(getFreshClassHierarchy(),getClassHierarchy());
+    }
+    public void testUnaffectedClassesAreNotTested() throws Exception {
+        String axioms="SubClassOf(:A :B)"
+            + "SubClassOf(:C ObjectUnionOf(:D :E))"
+            + "SubClassOf(:D :F)"
+            + "SubClassOf(:E :F)";
+        loadReasonerWithAxioms(axioms);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLSubClassOfAxiom(NS_C("B"),NS_C("G")));
+        m_reasoner.flush();
+        m_tests.clear();
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        assertTrue(isMentionedInTest("A"));
+        assertNoTestMentions("C","D","E","F");
+        assertSubsumedBy("A","G",true);
+        assertSubsumedBy("C","F",true);
+        assertEquals(getFreshClassHierarchy(),getClassHierarchy());
+    }
+    public void testUnsatisfiableClasses() throws Exception {
+        String axioms="SubClassOf(:A :B)"
+            + "SubClassOf(:C :D)"
+            + "DisjointClasses(:B :E)";
+        loadReasonerWithAxioms(axioms);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        OWLAxiom aSubE=m_dataFactory.getOWLSubClassOfAxiom(NS_C("A"),NS_C("E"));
+        m_ontologyManager.addAxiom(m_ontology,aSubE);
+        m_reasoner.flush();
+        assertSatisfiable("A",false);
+        assertSatisfiable("C",true);
+        assertEquals(getFreshClassHierarchy(),getClassHierarchy());
+        m_ontologyManager.removeAxiom(m_ontology,aSubE);
+        m_reasoner.flush();
+        assertSatisfiable("A",true);
+        assertEquals(getFreshClassHierarchy(),getClassHierarchy());
+    }
+    public void testOntologyWithNominals() throws Exception {
+        loadReasonerFromResource("res/pizza.xml");
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLSubClassOfAxiom(NS_C("X"),m_dataFactory.getOWLThing()));
+        m_reasoner.flush();
+        assertEquals(getFreshClassHierarchy(),getClassHierarchy());
+    }
+}
@@ -0,0 +1,67 @@
+package org.semanticweb.HermiT.reasoner;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.HermiT.monitor.CountingMonitor;
+import org.semanticweb.HermiT.monitor.MetricsMonitor;
+import org.semanticweb.HermiT.monitor.TableauMonitorFork;
+import org.semanticweb.HermiT.tableau.ReasoningTaskDescription.StandardTestType;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class MetricsMonitorTest extends AbstractReasonerTest {
+
+    public MetricsMonitorTest(String name) {
+        super(name);
+    }
+    public void testMetricsAgreeWithCountingMonitor() throws Exception {
+        loadOntologyFromResource("res/pizza.xml");
+        MetricsMonitor metricsMonitor=new MetricsMonitor();
+        CountingMonitor countingMonitor=new CountingMonitor();
+        Configuration configuration=new Configuration();
+        configuration.monitor=new TableauMonitorFork(metricsMonitor,countingMonitor);
+        Reasoner reasoner=new Reasoner(configuration,m_ontology);
+        try {
+            reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS);
+        }
+        finally {
+            reasoner.dispose();
+        }
+        long numberOfTasks=0;
+        long numberOfBacktrackings=0;
+        for (MetricsMonitor.TaskMetrics taskMetrics : metricsMonitor.getTaskMetrics().values()) {
+            numberOfTasks+=taskMetrics.getNumberOfTasks();
+            numberOfBacktrackings+=taskMetrics.getNumberOfBacktrackings();
+            assertEquals(taskMetrics.getNumberOfTasks(),taskMetrics.getTime().getCount());
+            assertEquals(taskMetrics.getNumberOfTasks(),taskMetrics.getBranchingPointDepth().getCount());
+            long bucketTotal=0;
+            for (int bucket=0;bucket<taskMetrics.getTime().getNumberOfBuckets();bucket++)
+                bucketTotal+=taskMetrics.getTime().getBucketCount(bucket);
+            assertEquals(taskMetrics.getNumberOfTasks(),bucketTotal);
+            assertTrue(taskMetrics.getNumberOfDLClauseMatches()>0);
+        }
+        assertEquals(countingMonitor.getOverallNumberOfTests(),numberOfTasks);
+        assertEquals(countingMonitor.getOverallNumberOfBacktrackings(),numberOfBacktrackings);
+        MetricsMonitor.TaskMetrics subsumptionTests=metricsMonitor.getTaskMetrics(StandardTestType.CONCEPT_SUBSUMPTION);
+        assertNotNull(subsumptionTests);
+        assertEquals(countingMonitor.getOverallNumberOfTests(StandardTestType.CONCEPT_SUBSUMPTION),subsumptionTests.getNumberOfTasks());
+        assertEquals(1,metricsMonitor.getTaskMetrics(StandardTestType.CONSISTENCY).getNumberOfTasks());
+        assertTrue(metricsMonitor.getTaskMetrics(StandardTestType.CONSISTENCY).getNumberOfPositiveResults()==1);
+    }
+    public void testHistogramBuckets() {
+        MetricsMonitor.Histogram histogram=new MetricsMonitor.Histogram(10L,4);
+        histogram.record(0L);
+        histogram.record(10L);
+        histogram.record(11L);
+        histogram.record(40L);
+        histogram.record(1000L);
+        assertEquals(5,histogram.getCount());
+        assertEquals(1061L,histogram.getSum());
+        assertEquals(1000L,histogram.getMax());
+        assertEquals(2,histogram.getBucketCount(0));
+        assertEquals(1,histogram.getBucketCount(1));
+        assertEquals(1,histogram.getBucketCount(2));
+        assertEquals(1,histogram.getBucketCount(3));
+        assertEquals(20L,histogram.getBucketUpperBound(1));
+        assertEquals(Long.MAX_VALUE,histogram.getBucketUpperBound(3));
+    }
+}
@@ -0,0 +1,78 @@
+package org.semanticweb.HermiT.reasoner;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.HermiT.tableau.NogoodStore;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class NogoodLearningTest extends AbstractReasonerTest {
+
+    public NogoodLearningTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.nogoodStoreCapacity=1000;
+        return configuration;
+    }
+    public void testPizza() throws Exception {
+        loadReasonerFromResource("res/pizza.xml");
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        NogoodStore nogoodStore=m_reasoner.getTableau().getNogoodStore();
+        assertTrue(nogoodStore.getNumberOfLearnedNogoods()>0);
+        assertTrue(nogoodStore.getNumberOfPrunedDisjuncts()>0);
+        assertResultsMatchWithoutNogoods();
+    }
+    public void testSmallCapacity() throws Exception {
+        Configuration configuration=getConfiguration();
+        configuration.nogoodStoreCapacity=4;
+        loadOntologyFromResource("res/pizza.xml");
+        createReasoner(configuration,null);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        NogoodStore nogoodStore=m_reasoner.getTableau().getNogoodStore();
+        assertTrue(nogoodStore.getNumberOfLearnedNogoods()>4);
+        assertTrue(nogoodStore.getNumberOfNogoods()<=4);
+        assertResultsMatchWithoutNogoods();
+    }
+    public void testNogoodsOverIndividuals() throws Exception {
+        String axioms="ClassAssertion(ObjectUnionOf(:A :B) :a)"
+            + "ClassAssertion(ObjectUnionOf(:C :D) :a)"
+            + "ClassAssertion(ObjectUnionOf(:C :D) :b)"
+            + "DisjointClasses(:A :C)"
+            + "SubClassOf(:B :E)"
+            + "SubClassOf(:D :E)"
+            + "SubClassOf(:C ObjectSomeValuesFrom(:r :F))"
+            + "SubClassOf(:F ObjectUnionOf(:G :H))"
+            + "DisjointClasses(:G :H :I)"
+            + "SubClassOf(:G :I)"
+            + "SubClassOf(:H :I)"
+            + "ObjectPropertyAssertion(:s :a :b)"
+            + "SubClassOf(ObjectSomeValuesFrom(:s :E) :K)";
+        loadReasonerWithAxioms(axioms);
+        assertInstanceOf(NS_C("E"),NS_NI("a"),true);
+        assertInstanceOf(NS_C("D"),NS_NI("a"),true);
+        assertInstanceOf(NS_C("A"),NS_NI("a"),false);
+        assertInstanceOf(NS_C("E"),NS_NI("b"),true);
+        assertInstanceOf(NS_C("K"),NS_NI("a"),true);
+        assertResultsMatchWithoutNogoods();
+    }
+    protected void assertResultsMatchWithoutNogoods() {
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS);
+        Configuration configuration=getConfiguration();
+        configuration.nogoodStoreCapacity=0;
+        Reasoner reasoner=new Reasoner(configuration,m_ontology);
+        try {
+            assertNull(reasoner.getTableau().getNogoodStore());
+            reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS);
+            for (OWLClass owlClass : m_ontology.getClassesInSignature())
+                assertEquals(owlClass.toString(),reasoner.getSuperClasses(owlClass,false).getFlattened(),m_reasoner.getSuperClasses(owlClass,false).getFlattened());
+            for (OWLNamedIndividual individual : m_ontology.getIndividualsInSignature())
+                assertEquals(individual.toString(),reasoner.getTypes(individual,false).getFlattened(),m_reasoner.getTypes(individual,false).getFlattened());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+}
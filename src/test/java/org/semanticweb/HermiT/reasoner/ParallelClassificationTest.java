@@ -0,0 +1,19 @@
+package org.semanticweb.HermiT.reasoner;
+
+import org.semanticweb.HermiT.Configuration;
+
+public class ParallelClassificationTest extends ClassificationTest {
+
+    public ParallelClassificationTest(String name) {
+        super(name);
+    }
+    public void testGalenIansFullUndoctored() throws Exception {
+        // omitted since it takes too long with several tableaux
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.forceQuasiOrderClassification=true;
+        configuration.numberOfClassificationThreads=4;
+        return configuration;
+    }
+}
@@ -0,0 +1,81 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.parameters.Imports;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class ParallelRealisationTest extends AbstractReasonerTest {
+
+    public ParallelRealisationTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.numberOfRealisationThreads=4;
+        return configuration;
+    }
+    protected Map<String,Set<String>> getInstancesAsText(Reasoner reasoner) {
+        reasoner.precomputeInferences(InferenceType.CLASS_ASSERTIONS,InferenceType.OBJECT_PROPERTY_ASSERTIONS);
+        Map<String,Set<String>> result=new TreeMap<String,Set<String>>();
+        for (OWLClass owlClass : m_ontology.getClassesInSignature(Imports.INCLUDED)) {
+            Set<String> instances=new TreeSet<String>();
+            for (OWLNamedIndividual individual : reasoner.getInstances(owlClass,true).getFlattened())
+                instances.add(individual.toString());
+            result.put(owlClass.toString(),instances);
+        }
+        for (OWLObjectProperty property : m_ontology.getObjectPropertiesInSignature(Imports.INCLUDED))
+            for (OWLNamedIndividual individual : m_ontology.getIndividualsInSignature(Imports.INCLUDED)) {
+                Set<String> values=new TreeSet<String>();
+                for (OWLNamedIndividual value : reasoner.getObjectPropertyValues(individual,property).getFlattened())
+                    values.add(value.toString());
+                result.put(property+" "+individual,values);
+            }
+        return result;
+    }
+    protected void assertSameAsSequentialRealisation() {
+        Configuration configuration=super.getConfiguration();
+        Reasoner sequentialReasoner=new Reasoner(configuration,m_ontology);
+        try {
+            assertEquals(getInstancesAsText(sequentialReasoner),getInstancesAsText(m_reasoner));
+        }
+        finally {
+            sequentialReasoner.dispose();
+        }
+    }
+    public void testWine() throws Exception {
+        loadReasonerFromResource("res/wine.xml");
+        assertSameAsSequentialRealisation();
+    }
+    public void testPossibleInstances() throws Exception {
+        String axioms="SubClassOf(:A ObjectUnionOf(:B :C))"
+            + "SubClassOf(:B :D)"
+            + "SubClassOf(:C :D)"
+            + "SubObjectPropertyOf(:s :r)"
+            + "SubObjectPropertyOf(:t :r)"
+            + "TransitiveObjectProperty(:r)"
+            + "ClassAssertion(:A :a1)"
+            + "ClassAssertion(:A :a2)"
+            + "ClassAssertion(:B :a3)"
+            + "ClassAssertion(ObjectUnionOf(:B :E) :a4)"
+            + "ClassAssertion(ObjectUnionOf(ObjectHasValue(:s :b) ObjectHasValue(:t :b)) :a1)"
+            + "ClassAssertion(ObjectUnionOf(ObjectHasValue(:s :c) ObjectHasValue(:t :c)) :b)"
+            + "ObjectPropertyAssertion(:s :a2 :b)";
+        loadReasonerWithAxioms(axioms);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_ASSERTIONS,InferenceType.OBJECT_PROPERTY_ASSERTIONS);
+        assertInstancesOf(NS_C("D"),false,NS+"a1",NS+"a2",NS+"a3");
+        assertEquals(2,m_reasoner.getObjectPropertyValues(NS_NI("a1"),NS_OP("r")).getFlattened().size());
+        assertEquals(0,m_reasoner.getObjectPropertyValues(NS_NI("a1"),NS_OP("s")).getFlattened().size());
+        assertEquals(1,m_reasoner.getObjectPropertyValues(NS_NI("a2"),NS_OP("s")).getFlattened().size());
+        assertEquals(2,m_reasoner.getObjectPropertyValues(NS_NI("a2"),NS_OP("r")).getFlattened().size());
+        assertSameAsSequentialRealisation();
+    }
+}
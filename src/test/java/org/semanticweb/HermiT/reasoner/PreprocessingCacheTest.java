@@ -0,0 +1,82 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.model.DLClause;
+import org.semanticweb.HermiT.model.DLOntology;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+public class PreprocessingCacheTest extends AbstractReasonerTest {
+    protected File m_cacheDirectory;
+
+    public PreprocessingCacheTest(String name) {
+        super(name);
+    }
+    protected void setUp() throws Exception {
+        super.setUp();
+        m_cacheDirectory=File.createTempFile("hermit-cache",null);
+        m_cacheDirectory.delete();
+    }
+    protected void tearDown() {
+        File[] files=m_cacheDirectory.listFiles();
+        if (files!=null)
+            for (File file : files)
+                file.delete();
+        m_cacheDirectory.delete();
+        super.tearDown();
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.preprocessingCacheDirectory=m_cacheDirectory;
+        return configuration;
+    }
+    protected int getNumberOfCacheEntries() {
+        File[] files=m_cacheDirectory.listFiles();
+        return files==null ? 0 : files.length;
+    }
+    protected Set<String> getClausesAsText(DLOntology dlOntology) {
+        Set<String> result=new HashSet<String>();
+        for (DLClause dlClause : dlOntology.getDLClauses())
+            result.add(dlClause.toString());
+        return result;
+    }
+    public void testPizzaFromCache() throws Exception {
+        loadReasonerFromResource("res/pizza.xml");
+        assertHierarchies("res/pizza.xml.txt");
+        assertEquals(1,getNumberOfCacheEntries());
+        DLOntology dlOntology=m_reasoner.getDLOntology();
+        m_reasoner.dispose();
+        createReasoner();
+        assertEquals(1,getNumberOfCacheEntries());
+        assertEquals(getClausesAsText(dlOntology),getClausesAsText(m_reasoner.getDLOntology()));
+        assertEquals(dlOntology.getPositiveFacts(),m_reasoner.getDLOntology().getPositiveFacts());
+        assertHierarchies("res/pizza.xml.txt");
+    }
+    public void testComplexRoleInclusionsFromCache() throws Exception {
+        String axioms="TransitiveObjectProperty(:r)"
+            + "SubObjectPropertyOf(ObjectPropertyChain(:r :s) :r)"
+            + "SubClassOf(:A ObjectAllValuesFrom(:r :B))";
+        loadReasonerWithAxioms(axioms);
+        m_reasoner.dispose();
+        createReasoner();
+        assertEquals(1,getNumberOfCacheEntries());
+        OWLObjectProperty r=NS_OP("r");
+        OWLObjectProperty s=NS_OP("s");
+        OWLClassExpression query=m_dataFactory.getOWLObjectIntersectionOf(NS_C("A"),SVF(r,SVF(r,SVF(s,m_dataFactory.getOWLObjectComplementOf(NS_C("B"))))));
+        assertSatisfiable(query,false);
+        assertSatisfiable(m_dataFactory.getOWLObjectIntersectionOf(NS_C("A"),SVF(s,m_dataFactory.getOWLObjectComplementOf(NS_C("B")))),true);
+    }
+    public void testChangedOntologyIsNotTakenFromCache() throws Exception {
+        loadReasonerWithAxioms("SubClassOf(:A :B)");
+        assertSubsumedBy("A","C",false);
+        m_reasoner.dispose();
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLSubClassOfAxiom(NS_C("B"),NS_C("C")));
+        createReasoner();
+        assertEquals(2,getNumberOfCacheEntries());
+        assertSubsumedBy("A","C",true);
+    }
+}
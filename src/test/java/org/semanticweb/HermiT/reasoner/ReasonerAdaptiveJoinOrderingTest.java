@@ -0,0 +1,114 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.HermiT.model.DLPredicate;
+import org.semanticweb.HermiT.tableau.ExtensionTable;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.SWRLAtom;
+import org.semanticweb.owlapi.model.SWRLVariable;
+
+public class ReasonerAdaptiveJoinOrderingTest extends ReasonerTest {
+
+    public ReasonerAdaptiveJoinOrderingTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.setUseAdaptiveJoinOrdering(true);
+        return configuration;
+    }
+    public void testJoinOrderAdaptsToLargeABox() throws Exception {
+        loadOntologyWithAxioms("");
+        OWLObjectProperty r=m_dataFactory.getOWLObjectProperty(IRI.create(NS+"r"));
+        OWLObjectProperty s=m_dataFactory.getOWLObjectProperty(IRI.create(NS+"s"));
+        OWLClass a=m_dataFactory.getOWLClass(IRI.create(NS+"A"));
+        OWLClass b=m_dataFactory.getOWLClass(IRI.create(NS+"B"));
+        OWLClass c=m_dataFactory.getOWLClass(IRI.create(NS+"C"));
+        Random random=new Random(0);
+        OWLNamedIndividual[] individuals=new OWLNamedIndividual[300];
+        for (int index=0;index<individuals.length;index++)
+            individuals[index]=m_dataFactory.getOWLNamedIndividual(IRI.create(NS+"i"+index));
+        Set<OWLAxiom> axioms=new HashSet<OWLAxiom>();
+        for (int index=0;index<individuals.length;index++) {
+            for (int edge=0;edge<10;edge++) {
+                axioms.add(m_dataFactory.getOWLObjectPropertyAssertionAxiom(r,individuals[index],individuals[random.nextInt(individuals.length)]));
+                axioms.add(m_dataFactory.getOWLObjectPropertyAssertionAxiom(s,individuals[index],individuals[random.nextInt(individuals.length)]));
+            }
+            if (index%2==0)
+                axioms.add(m_dataFactory.getOWLClassAssertionAxiom(a,individuals[index]));
+            if (index%100==0)
+                axioms.add(m_dataFactory.getOWLClassAssertionAxiom(b,individuals[index]));
+        }
+        SWRLVariable x=m_dataFactory.getSWRLVariable(IRI.create(NS+"x"));
+        SWRLVariable y=m_dataFactory.getSWRLVariable(IRI.create(NS+"y"));
+        SWRLVariable z=m_dataFactory.getSWRLVariable(IRI.create(NS+"z"));
+        Set<SWRLAtom> body=new HashSet<SWRLAtom>();
+        body.add(m_dataFactory.getSWRLClassAtom(a,x));
+        body.add(m_dataFactory.getSWRLObjectPropertyAtom(r,x,y));
+        body.add(m_dataFactory.getSWRLObjectPropertyAtom(s,y,z));
+        body.add(m_dataFactory.getSWRLClassAtom(b,z));
+        Set<SWRLAtom> head=new HashSet<SWRLAtom>();
+        head.add(m_dataFactory.getSWRLClassAtom(c,x));
+        axioms.add(m_dataFactory.getSWRLRule(body,head));
+        m_ontologyManager.addAxioms(m_ontology,axioms);
+        createReasoner();
+        assertTrue(m_reasoner.isConsistent());
+        assertTrue(m_reasoner.getTableau().getPermanentHyperresolutionManager().getNumberOfRecompiledEvaluators()>0);
+        assertTupleCountsMatchExtensionTables();
+        Configuration configuration=super.getConfiguration();
+        Reasoner reasoner=new Reasoner(configuration,m_ontology);
+        try {
+            assertEquals(reasoner.getInstances(c,false).getFlattened(),m_reasoner.getInstances(c,false).getFlattened());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+    public void testTupleCountsAfterBacktracking() throws Exception {
+        String axioms="ClassAssertion(ObjectUnionOf(:A :B) :a)"
+            + "ClassAssertion(ObjectUnionOf(:C :D) :a)"
+            + "ClassAssertion(ObjectUnionOf(:C :D) :b)"
+            + "DisjointClasses(:A :C)"
+            + "SubClassOf(:B :E)"
+            + "SubClassOf(:D :E)"
+            + "SubClassOf(:C ObjectSomeValuesFrom(:r :F))"
+            + "SubClassOf(:F ObjectUnionOf(:G :H))"
+            + "DisjointClasses(:G :H :I)"
+            + "SubClassOf(:G :I)"
+            + "SubClassOf(:H :I)"
+            + "ObjectPropertyAssertion(:s :a :b)";
+        loadReasonerWithAxioms(axioms);
+        assertTrue(m_reasoner.isConsistent());
+        assertTupleCountsMatchExtensionTables();
+        assertSatisfiable("F",false);
+        assertTupleCountsMatchExtensionTables();
+    }
+    protected void assertTupleCountsMatchExtensionTables() {
+        for (ExtensionTable extensionTable : m_reasoner.getTableau().getExtensionManager().getExtensionTables()) {
+            assertTrue(extensionTable.isCountingTuples());
+            Map<Object,Integer> tupleCounts=new HashMap<Object,Integer>();
+            Object[] tuple=new Object[extensionTable.getArity()];
+            for (int tupleIndex=0;tupleIndex<extensionTable.getNumberOfTuples();tupleIndex++) {
+                extensionTable.retrieveTuple(tuple,tupleIndex);
+                Integer tupleCount=tupleCounts.get(tuple[0]);
+                tupleCounts.put(tuple[0],tupleCount==null ? 1 : tupleCount+1);
+            }
+            for (Map.Entry<Object,Integer> entry : tupleCounts.entrySet())
+                assertEquals(entry.getKey().toString(),entry.getValue().intValue(),extensionTable.getNumberOfTuples(entry.getKey()));
+            for (DLPredicate dlPredicate : m_reasoner.getDLOntology().getAllAtomicConcepts())
+                if (!tupleCounts.containsKey(dlPredicate) && extensionTable.getArity()==2)
+                    assertEquals(dlPredicate.toString(),0,extensionTable.getNumberOfTuples(dlPredicate));
+        }
+    }
+}
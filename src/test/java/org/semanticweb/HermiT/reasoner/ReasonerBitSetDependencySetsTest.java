@@ -0,0 +1,20 @@
+package org.semanticweb.HermiT.reasoner;
+
+import org.semanticweb.HermiT.Configuration;
+
+public class ReasonerBitSetDependencySetsTest extends ReasonerTest {
+
+    public ReasonerBitSetDependencySetsTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.setUseBitSetDependencySets(true);
+        return configuration;
+    }
+    public void testDependencySetFactoryUsesBitSets() throws Exception {
+        loadReasonerWithAxioms("ClassAssertion(ObjectUnionOf(:A :B) :a)");
+        assertTrue(m_reasoner.isConsistent());
+        assertTrue(m_reasoner.getTableau().getDependencySetFactory().usesBitSets());
+    }
+}
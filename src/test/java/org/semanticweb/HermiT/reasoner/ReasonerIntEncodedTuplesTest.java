@@ -0,0 +1,15 @@
+package org.semanticweb.HermiT.reasoner;
+
+import org.semanticweb.HermiT.Configuration;
+
+public class ReasonerIntEncodedTuplesTest extends ReasonerTest {
+
+    public ReasonerIntEncodedTuplesTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.setUseIntEncodedExtensionTables(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,79 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Reasoner;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class ReasonerParallelHyperresolutionTest extends ReasonerTest {
+
+    public ReasonerParallelHyperresolutionTest(String name) {
+        super(name);
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.setNumberOfHyperresolutionThreads(4);
+        return configuration;
+    }
+    public void testLargeABoxMatchesSequentialEvaluation() throws Exception {
+        loadOntologyWithAxioms(
+            "SubClassOf(ObjectSomeValuesFrom(:r :A) :B)"
+            + "SubClassOf(:B ObjectUnionOf(:C :D))"
+            + "SubClassOf(ObjectIntersectionOf(:B :E) :C)"
+            + "SubClassOf(ObjectSomeValuesFrom(:s :C) :F)"
+            + "TransitiveObjectProperty(:t)"
+            + "SubObjectPropertyOf(:t :s)"
+        );
+        addRandomABox(false);
+        createReasoner();
+        assertTrue(m_reasoner.isConsistent());
+        assertTrue(m_reasoner.getTableau().getPermanentHyperresolutionManager().getNumberOfParallelRounds()>0);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_ASSERTIONS);
+        Reasoner reasoner=new Reasoner(super.getConfiguration(),m_ontology);
+        try {
+            for (OWLClass owlClass : m_ontology.getClassesInSignature())
+                assertEquals(owlClass.toString(),reasoner.getInstances(owlClass,false).getFlattened(),m_reasoner.getInstances(owlClass,false).getFlattened());
+        }
+        finally {
+            reasoner.dispose();
+        }
+    }
+    public void testLargeInconsistentABox() throws Exception {
+        loadOntologyWithAxioms(
+            "SubClassOf(ObjectSomeValuesFrom(:r :A) :B)"
+            + "DisjointClasses(:B :E)"
+        );
+        addRandomABox(true);
+        createReasoner();
+        assertFalse(m_reasoner.isConsistent());
+        assertTrue(m_reasoner.getTableau().getPermanentHyperresolutionManager().getNumberOfParallelRounds()>0);
+    }
+    protected void addRandomABox(boolean withClash) {
+        OWLObjectProperty r=m_dataFactory.getOWLObjectProperty(IRI.create(NS+"r"));
+        OWLObjectProperty t=m_dataFactory.getOWLObjectProperty(IRI.create(NS+"t"));
+        OWLClass a=m_dataFactory.getOWLClass(IRI.create(NS+"A"));
+        OWLClass e=m_dataFactory.getOWLClass(IRI.create(NS+"E"));
+        Random random=new Random(0);
+        OWLNamedIndividual[] individuals=new OWLNamedIndividual[400];
+        for (int index=0;index<individuals.length;index++)
+            individuals[index]=m_dataFactory.getOWLNamedIndividual(IRI.create(NS+"i"+index));
+        Set<OWLAxiom> axioms=new HashSet<OWLAxiom>();
+        for (int index=0;index<individuals.length;index++) {
+            axioms.add(m_dataFactory.getOWLObjectPropertyAssertionAxiom(r,individuals[index],individuals[random.nextInt(individuals.length)]));
+            axioms.add(m_dataFactory.getOWLObjectPropertyAssertionAxiom(t,individuals[index],individuals[random.nextInt(individuals.length)]));
+            if (index%3==0)
+                axioms.add(m_dataFactory.getOWLClassAssertionAxiom(a,individuals[index]));
+            if (index%5==0 && (withClash || index%3!=0))
+                axioms.add(m_dataFactory.getOWLClassAssertionAxiom(e,individuals[index]));
+        }
+        m_ontologyManager.addAxioms(m_ontology,axioms);
+    }
+}
@@ -422,6 +422,44 @@ public class ReasonerTest extends AbstractReasonerTest {
         assertFalse(m_reasoner.hasType(NI("http://owl.cs.manchester.ac.uk/2011/07/sssw/pets#Max"),C("http://owl.cs.manchester.ac.uk/2011/07/sssw/pets#PetOwner1"),false));
     }
 
+    public void testRoleNonInstancesArePassedToSuperRoles() throws Exception {
+        // a possible r-successor that is not an r-successor must remain a possible successor for the super-roles of r
+        loadReasonerWithAxioms("ClassAssertion(ObjectUnionOf(ObjectHasValue(:r :b) ObjectHasValue(:t :b)) :a) SubObjectPropertyOf(:r :s) SubObjectPropertyOf(:t :s) SubObjectPropertyOf(:s :u) ObjectPropertyAssertion(:v :b :c)");
+        m_reasoner.precomputeInferences(InferenceType.OBJECT_PROPERTY_ASSERTIONS);
+        assertFalse(m_reasoner.getObjectPropertyValues(NS_NI("a"),NS_OP("r")).containsEntity(NS_NI("b")));
+        assertTrue(m_reasoner.getObjectPropertyValues(NS_NI("a"),NS_OP("s")).containsEntity(NS_NI("b")));
+        assertTrue(m_reasoner.getObjectPropertyValues(NS_NI("a"),NS_OP("u")).containsEntity(NS_NI("b")));
+        assertFalse(m_reasoner.getObjectPropertyValues(NS_NI("a"),NS_OP("s")).containsEntity(NS_NI("a")));
+    }
+
+    public void testRealisationTestsPossibleInstancesOfProcessedClasses() throws Exception {
+        // X is reached from L before the non-instances of Y or W are passed up to X, so they become possible instances of X after X has been processed
+        loadOntologyWithAxioms("SubClassOf(:L :X) SubClassOf(:Y :Z1) SubClassOf(:Z1 :Z2) SubClassOf(:Z2 :X) SubClassOf(:W :U1) SubClassOf(:U1 :U2) SubClassOf(:U2 :X) ClassAssertion(:L :c) ClassAssertion(ObjectUnionOf(:Y :W) :a)");
+        Configuration configuration=getConfiguration();
+        CountingMonitor monitor=new CountingMonitor();
+        configuration.monitor=monitor;
+        createReasoner(configuration,null);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_ASSERTIONS);
+        monitor.reset();
+        assertInstancesOf(NS_C("X"),false,IRIs("a","c"));
+        // realisation must have decided all possible instances, so queries need no further tests
+        assertEquals(0,monitor.getOverallNumberOfTests());
+    }
+
+    public void testRealisationTestsPossibleInstancesOfProcessedRoles() throws Exception {
+        // as for classes, x is reached from l before the non-instances of r or t are passed up to x
+        loadOntologyWithAxioms("SubObjectPropertyOf(:l :x) SubObjectPropertyOf(:r :s1) SubObjectPropertyOf(:s1 :s2) SubObjectPropertyOf(:s2 :x) SubObjectPropertyOf(:t :u1) SubObjectPropertyOf(:u1 :u2) SubObjectPropertyOf(:u2 :x) ObjectPropertyAssertion(:l :c :d) ClassAssertion(ObjectUnionOf(ObjectHasValue(:r :b) ObjectHasValue(:t :b)) :a)");
+        Configuration configuration=getConfiguration();
+        CountingMonitor monitor=new CountingMonitor();
+        configuration.monitor=monitor;
+        createReasoner(configuration,null);
+        m_reasoner.precomputeInferences(InferenceType.OBJECT_PROPERTY_ASSERTIONS);
+        monitor.reset();
+        assertEquals(1,m_reasoner.getObjectPropertyValues(NS_NI("a"),NS_OP("x")).getFlattened().size());
+        assertEquals(1,m_reasoner.getObjectPropertyValues(NS_NI("c"),NS_OP("x")).getFlattened().size());
+        assertEquals(0,monitor.getOverallNumberOfTests());
+    }
+
     public void testTopOPEquivalence() throws Exception {
         loadOntologyWithAxioms(
             "Declaration( NamedIndividual( :a ) )"+LB+
@@ -0,0 +1,80 @@
+package org.semanticweb.HermiT.reasoner;
+
+import java.io.File;
+
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+
+public class ReasoningSnapshotTest extends AbstractReasonerTest {
+    protected File m_snapshotDirectory;
+
+    public ReasoningSnapshotTest(String name) {
+        super(name);
+    }
+    protected void setUp() throws Exception {
+        super.setUp();
+        m_snapshotDirectory=File.createTempFile("hermit-snapshot",null);
+        m_snapshotDirectory.delete();
+    }
+    protected void tearDown() {
+        File[] files=m_snapshotDirectory.listFiles();
+        if (files!=null)
+            for (File file : files)
+                file.delete();
+        m_snapshotDirectory.delete();
+        super.tearDown();
+    }
+    protected Configuration getConfiguration() {
+        Configuration configuration=super.getConfiguration();
+        configuration.reasoningSnapshotDirectory=m_snapshotDirectory;
+        return configuration;
+    }
+    protected void restartReasoner() {
+        m_reasoner.dispose();
+        createReasoner();
+    }
+    public void testPizzaHierarchiesFromSnapshot() throws Exception {
+        loadReasonerFromResource("res/pizza.xml");
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.OBJECT_PROPERTY_HIERARCHY,InferenceType.DATA_PROPERTY_HIERARCHY);
+        String hierarchies=getHierarchiesAsText();
+        restartReasoner();
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.CLASS_HIERARCHY));
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.OBJECT_PROPERTY_HIERARCHY));
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.DATA_PROPERTY_HIERARCHY));
+        assertEquals(hierarchies,getHierarchiesAsText());
+        assertHierarchies("res/pizza.xml.txt");
+    }
+    public void testClassInstancesFromSnapshot() throws Exception {
+        String axioms="SubClassOf(:A :B)"
+            + "SubClassOf(:C ObjectUnionOf(:A :D))"
+            + "SubClassOf(:D :B)"
+            + "FunctionalObjectProperty(:f)"
+            + "ClassAssertion(:A :a)"
+            + "ClassAssertion(:C :c)"
+            + "ClassAssertion(ObjectUnionOf(:A :D) :d)"
+            + "ObjectPropertyAssertion(:f :e :e1)"
+            + "ObjectPropertyAssertion(:f :e :e2)";
+        loadReasonerWithAxioms(axioms);
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY,InferenceType.CLASS_ASSERTIONS,InferenceType.SAME_INDIVIDUAL);
+        restartReasoner();
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.CLASS_HIERARCHY));
+        assertTrue(m_reasoner.isPrecomputed(InferenceType.CLASS_ASSERTIONS));
+        OWLClass b=NS_C("B");
+        assertInstancesOf(b,false,NS+"a",NS+"c",NS+"d");
+        assertInstancesOf(NS_C("A"),false,NS+"a");
+        assertInstancesOf(b,true,NS+"d");
+        assertInstancesOf(NS_C("C"),true,NS+"c");
+        assertTrue(m_reasoner.isSameIndividual(NS_NI("e1"),NS_NI("e2")));
+        assertFalse(m_reasoner.isSameIndividual(NS_NI("a"),NS_NI("c")));
+    }
+    public void testChangedOntologyDoesNotUseSnapshot() throws Exception {
+        loadReasonerWithAxioms("SubClassOf(:A :B)");
+        m_reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+        m_reasoner.dispose();
+        m_ontologyManager.addAxiom(m_ontology,m_dataFactory.getOWLSubClassOfAxiom(NS_C("B"),NS_C("C")));
+        createReasoner();
+        assertFalse(m_reasoner.isPrecomputed(InferenceType.CLASS_HIERARCHY));
+        assertSubsumedBy("A","C",true);
+    }
+}
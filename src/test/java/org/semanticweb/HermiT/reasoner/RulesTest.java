@@ -1,5 +1,7 @@
 package org.semanticweb.HermiT.reasoner;
 
+import org.semanticweb.HermiT.Configuration;
+import org.semanticweb.HermiT.Configuration.BlockingStrategyType;
 import org.semanticweb.HermiT.Reasoner.ReasonerFactory;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -553,4 +555,63 @@ public class RulesTest extends AbstractReasonerTest {
         assertTrue(m_reasoner.getInstances(C, false).containsEntity(a));
         assertTrue(!m_reasoner.getInstances(C, false).containsEntity(b));
     }
+
+    public void testHeadFreeVariables() throws Exception {
+        assertHeadFreeVariables(getConfiguration());
+    }
+
+    public void testHeadFreeVariablesWithProjection() throws Exception {
+        Configuration configuration = getConfiguration();
+        configuration.setUseHeadFreeVariableProjection(true);
+        assertHeadFreeVariables(configuration);
+    }
+
+    public void testHeadFreeVariablesWithProjectionAndComplexCoreBlocking() throws Exception {
+        Configuration configuration = getConfiguration();
+        configuration.setUseHeadFreeVariableProjection(true);
+        configuration.blockingStrategyType = BlockingStrategyType.COMPLEX_CORE;
+        assertHeadFreeVariables(configuration);
+    }
+
+    public void testHeadFreeVariableProjectionInTBoxWithComplexCoreBlocking() throws Exception {
+        // The existential restrictions in subclass positions yield DL-clauses whose bodies bind variables that do not
+        // occur in their heads; the infinite s-chain below :B requires blocking.
+        String axioms = "SubClassOf(:A ObjectSomeValuesFrom(:r :B)) SubClassOf(:B ObjectSomeValuesFrom(:s :D))"
+            + "SubClassOf(:D ObjectSomeValuesFrom(:s :D)) SubClassOf(ObjectSomeValuesFrom(:s :D) :E)"
+            + "SubClassOf(ObjectIntersectionOf(:A ObjectSomeValuesFrom(:r :E)) :C)";
+        loadOntologyWithAxioms(axioms);
+        for (boolean projection : new boolean[] { false, true }) {
+            Configuration configuration = getConfiguration();
+            configuration.setUseHeadFreeVariableProjection(projection);
+            configuration.blockingStrategyType = BlockingStrategyType.COMPLEX_CORE;
+            createReasoner(configuration, null);
+            assertSubsumedBy("A", "C", true);
+            assertSubsumedBy("B", "E", true);
+            assertSubsumedBy("C", "A", false);
+            assertSubsumedBy("D", "C", false);
+        }
+    }
+
+    protected void assertHeadFreeVariables(Configuration configuration) throws Exception {
+        String axioms = "ClassAssertion(:E :a) SubClassOf(:E :A)"
+            + "ObjectPropertyAssertion(:r :a :b1) ObjectPropertyAssertion(:r :a :b2) ObjectPropertyAssertion(:r :a :b3)"
+            + "ClassAssertion(:B :b2) ClassAssertion(:B :b3) ObjectPropertyAssertion(:s :b3 :c)"
+            + "ClassAssertion(:A :d) ObjectPropertyAssertion(:r :d :e1) ObjectPropertyAssertion(:r :d :e2)"
+            + "ClassAssertion(:B :e1) ClassAssertion(ObjectUnionOf(:B :F) :e2) DisjointClasses(:F :G) ClassAssertion(:G :e2) ObjectPropertyAssertion(:s :e2 :c)"
+            + "ClassAssertion(:A :g) ObjectPropertyAssertion(:r :g :e1) ObjectPropertyAssertion(:r :g :b1)"
+            // A(x) /\ r(x, y) /\ B(y) /\ s(y, z) -> C(x)
+            + "DLSafeRule(Body("
+            + "ClassAtom(:A Variable(:x)) "
+            + "ObjectPropertyAtom(:r Variable(:x) Variable(:y)) "
+            + "ClassAtom(:B Variable(:y)) "
+            + "ObjectPropertyAtom(:s Variable(:y) Variable(:z))) Head(ClassAtom(:C Variable(:x))))";
+        loadOntologyWithAxioms(axioms);
+        createReasoner(configuration, null);
+        OWLClass C = m_dataFactory.getOWLClass(IRI.create(AbstractReasonerTest.NS + "C"));
+        NodeSet<OWLNamedIndividual> instances = m_reasoner.getInstances(C, false);
+        assertTrue(instances.containsEntity(m_dataFactory.getOWLNamedIndividual(IRI.create(AbstractReasonerTest.NS + "a"))));
+        assertTrue(instances.containsEntity(m_dataFactory.getOWLNamedIndividual(IRI.create(AbstractReasonerTest.NS + "d"))));
+        assertTrue(!instances.containsEntity(m_dataFactory.getOWLNamedIndividual(IRI.create(AbstractReasonerTest.NS + "g"))));
+        assertEquals(2, instances.getFlattened().size());
+    }
 }
@@ -12,9 +12,11 @@ public class AllTests {
         suite.addTestSuite(TupleTableFullIndexTest.class);
         suite.addTestSuite(DLClauseEvaluationTest.class);
         suite.addTestSuite(DependencySetTest.class);
+        suite.addTestSuite(BitSetDependencySetTest.class);
         suite.addTestSuite(NIRuleTest.class);
         suite.addTestSuite(MergeTest.class);
         suite.addTestSuite(GraphTest.class);
+        suite.addTestSuite(BatchedSatisfiabilityTest.class);
         //$JUnit-END$
         return suite;
     }
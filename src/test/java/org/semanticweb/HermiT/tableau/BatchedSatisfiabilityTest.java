@@ -0,0 +1,112 @@
+package org.semanticweb.HermiT.tableau;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.semanticweb.HermiT.model.Atom;
+import org.semanticweb.HermiT.model.AtomicConcept;
+import org.semanticweb.HermiT.model.Individual;
+
+public class BatchedSatisfiabilityTest extends AbstractReasonerInternalsTest {
+
+    public BatchedSatisfiabilityTest(String name) {
+        super(name);
+    }
+    public void testClashesAreAttributedToConcepts() throws Exception {
+        String axioms="SubClassOf(:A ObjectSomeValuesFrom(:r ObjectUnionOf(:B :C)))"
+            + "SubClassOf(:B :D)"
+            + "SubClassOf(:C :D)"
+            + "SubClassOf(:E ObjectIntersectionOf(:A ObjectAllValuesFrom(:r ObjectComplementOf(:D))))"
+            + "SubClassOf(:F ObjectIntersectionOf(:A ObjectAllValuesFrom(:r ObjectComplementOf(:B))))"
+            + "SubClassOf(:G ObjectIntersectionOf(:F ObjectAllValuesFrom(:r ObjectComplementOf(:C))))"
+            + "SubClassOf(:H ObjectUnionOf(:E :G))";
+        loadOntologyWithAxioms(axioms);
+        Tableau tableau=getTableau();
+        assertTrue(tableau.supportsBatchedTests());
+        List<AtomicConcept> concepts=new ArrayList<AtomicConcept>();
+        for (String name : new String[] { "A","E","F","G","B","H","C" })
+            concepts.add(AtomicConcept.create(NS+name));
+        Node[] rootNodes=new Node[concepts.size()];
+        boolean[] results=tableau.isSatisfiable(concepts,rootNodes,ReasoningTaskDescription.isConceptListSatisfiable(concepts.toArray()));
+        boolean[] expectedResults=new boolean[] { true,false,true,false,true,false,true };
+        for (int index=0;index<concepts.size();index++) {
+            assertEquals(concepts.get(index).toString(),expectedResults[index],results[index]);
+            assertEquals(expectedResults[index],rootNodes[index]!=null);
+            if (rootNodes[index]!=null) {
+                assertTrue(rootNodes[index].isActive());
+                assertTrue(tableau.getExtensionManager().containsConceptAssertion(concepts.get(index),rootNodes[index].getCanonicalNode()));
+            }
+        }
+        AtomicConcept D=AtomicConcept.create(NS+"D");
+        Node nodeForB=rootNodes[4].getCanonicalNode();
+        assertTrue(tableau.isDeterministicConsequence(tableau.getExtensionManager().getConceptAssertionDependencySet(D,nodeForB)));
+        for (int index=0;index<concepts.size();index++)
+            assertEquals(concepts.get(index).toString(),expectedResults[index],isSatisfiable(tableau,concepts.get(index)));
+        assertFalse(tableau.isDeterministicConsequence(tableau.getDependencySetFactory().addBranchingPoint(tableau.getDependencySetFactory().emptySet(),0)));
+    }
+    public void testClashesInDeterministicTableauAreNotAttributed() throws Exception {
+        String axioms="SubClassOf(:A ObjectSomeValuesFrom(:r :B))"
+            + "SubClassOf(:C ObjectIntersectionOf(:A ObjectAllValuesFrom(:r ObjectComplementOf(:B))))";
+        loadOntologyWithAxioms(axioms);
+        Tableau tableau=getTableau();
+        assertTrue(tableau.isDeterministic());
+        List<AtomicConcept> concepts=new ArrayList<AtomicConcept>();
+        concepts.add(AtomicConcept.create(NS+"A"));
+        concepts.add(AtomicConcept.create(NS+"C"));
+        Node[] rootNodes=new Node[concepts.size()];
+        assertNull(tableau.isSatisfiable(concepts,rootNodes,ReasoningTaskDescription.isConceptListSatisfiable(concepts.toArray())));
+        List<AtomicConcept> singleConcept=Collections.singletonList(AtomicConcept.create(NS+"C"));
+        assertFalse(tableau.isSatisfiable(singleConcept,rootNodes,ReasoningTaskDescription.isConceptListSatisfiable(singleConcept.toArray()))[0]);
+    }
+    public void testFactsAreCheckedAgainstABox() throws Exception {
+        String axioms="SubClassOf(:B ObjectUnionOf(:C :D))"
+            + "SubClassOf(:Q ObjectComplementOf(:A))"
+            + "SubClassOf(:P ObjectAllValuesFrom(:r ObjectComplementOf(:P)))"
+            + "ClassAssertion(:A :a)"
+            + "ClassAssertion(:B :e)"
+            + "ObjectPropertyAssertion(:r :c :d)";
+        loadOntologyWithAxioms(axioms);
+        Tableau tableau=getTableau();
+        assertFalse(tableau.isDeterministic());
+        List<Atom> facts=new ArrayList<Atom>();
+        facts.add(Atom.create(AtomicConcept.create(NS+"P"),Individual.create(NS+"c")));
+        facts.add(Atom.create(AtomicConcept.create(NS+"Q"),Individual.create(NS+"a")));
+        facts.add(Atom.create(AtomicConcept.create(NS+"P"),Individual.create(NS+"d")));
+        facts.add(Atom.create(AtomicConcept.create(NS+"Q"),Individual.create(NS+"e")));
+        Boolean[] results=tableau.isSatisfiableWithFacts(true,false,facts,ReasoningTaskDescription.isABoxSatisfiable());
+        assertEquals(Boolean.TRUE,results[0]);
+        assertEquals(Boolean.FALSE,results[1]);
+        assertNull(results[2]);
+        assertEquals(Boolean.TRUE,results[3]);
+        assertTrue(tableau.isSatisfiable(true,false,Collections.singleton(facts.get(2)),null,null,null,null,ReasoningTaskDescription.isABoxSatisfiable()));
+    }
+    public void testFactsInDeterministicTableauAreNotAttributed() throws Exception {
+        String axioms="SubClassOf(:Q ObjectComplementOf(:A))"
+            + "ClassAssertion(:A :a)"
+            + "ClassAssertion(:B :b)";
+        loadOntologyWithAxioms(axioms);
+        Tableau tableau=getTableau();
+        assertTrue(tableau.isDeterministic());
+        List<Atom> facts=new ArrayList<Atom>();
+        facts.add(Atom.create(AtomicConcept.create(NS+"Q"),Individual.create(NS+"a")));
+        facts.add(Atom.create(AtomicConcept.create(NS+"Q"),Individual.create(NS+"b")));
+        Boolean[] results=tableau.isSatisfiableWithFacts(true,false,facts,ReasoningTaskDescription.isABoxSatisfiable());
+        assertNull(results[0]);
+        assertNull(results[1]);
+        results=tableau.isSatisfiableWithFacts(true,false,facts.subList(1,2),ReasoningTaskDescription.isABoxSatisfiable());
+        assertEquals(Boolean.TRUE,results[0]);
+    }
+    public void testNotSupportedWithNominals() throws Exception {
+        loadOntologyWithAxioms("SubClassOf(:A ObjectOneOf(:a :b))");
+        assertFalse(getTableau().supportsBatchedTests());
+    }
+    protected static boolean isSatisfiable(Tableau tableau,AtomicConcept concept) {
+        Individual freshIndividual=Individual.createAnonymous("fresh-individual");
+        Map<Individual,Node> checkedNode=new HashMap<Individual,Node>();
+        checkedNode.put(freshIndividual,null);
+        return tableau.isSatisfiable(false,Collections.singleton(Atom.create(concept,freshIndividual)),null,null,null,checkedNode,ReasoningTaskDescription.isConceptSatisfiable(concept));
+    }
+}
@@ -0,0 +1,12 @@
+package org.semanticweb.HermiT.tableau;
+
+public class BitSetDependencySetTest extends DependencySetTest {
+
+    public BitSetDependencySetTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() {
+        m_factory=new DependencySetFactory(true);
+    }
+}
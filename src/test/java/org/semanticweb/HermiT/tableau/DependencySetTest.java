@@ -1,5 +1,7 @@
 package org.semanticweb.HermiT.tableau;
 
+import java.util.Random;
+
 import junit.framework.TestCase;
 
 public class DependencySetTest extends TestCase {
@@ -86,6 +88,52 @@ public class DependencySetTest extends TestCase {
         assertDSEquals(set4,1,2,3,10,14,17,18);
     }
 
+    public void testRandomOperations() {
+        DependencySetFactory referenceFactory=new DependencySetFactory();
+        Random random=new Random(0);
+        PermanentDependencySet[] sets=new PermanentDependencySet[20];
+        PermanentDependencySet[] referenceSets=new PermanentDependencySet[sets.length];
+        for (int index=0;index<sets.length;index++) {
+            sets[index]=m_factory.emptySet();
+            referenceSets[index]=referenceFactory.emptySet();
+        }
+        for (int step=0;step<5000;step++) {
+            int index1=random.nextInt(sets.length);
+            int index2=random.nextInt(sets.length);
+            int branchingPoint=random.nextInt(300);
+            switch (random.nextInt(4)) {
+            case 0:
+                sets[index1]=m_factory.addBranchingPoint(sets[index1],branchingPoint);
+                referenceSets[index1]=referenceFactory.addBranchingPoint(referenceSets[index1],branchingPoint);
+                break;
+            case 1:
+                sets[index1]=m_factory.removeBranchingPoint(sets[index1],branchingPoint);
+                referenceSets[index1]=referenceFactory.removeBranchingPoint(referenceSets[index1],branchingPoint);
+                break;
+            case 2:
+                sets[index1]=m_factory.unionWith(sets[index1],sets[index2]);
+                referenceSets[index1]=referenceFactory.unionWith(referenceSets[index1],referenceSets[index2]);
+                break;
+            case 3:
+                UnionDependencySet union=new UnionDependencySet(2);
+                union.m_dependencySets[0]=sets[index1];
+                union.m_dependencySets[1]=sets[index2];
+                UnionDependencySet referenceUnion=new UnionDependencySet(2);
+                referenceUnion.m_dependencySets[0]=referenceSets[index1];
+                referenceUnion.m_dependencySets[1]=referenceSets[index2];
+                sets[index1]=m_factory.getPermanent(union);
+                referenceSets[index1]=referenceFactory.getPermanent(referenceUnion);
+                break;
+            }
+            assertEquals(referenceSets[index1].toString(),sets[index1].toString());
+            assertEquals(referenceSets[index1].containsBranchingPoint(branchingPoint),sets[index1].containsBranchingPoint(branchingPoint));
+            for (int index=0;index<sets.length;index++)
+                assertEquals(sets[index1]==sets[index],referenceSets[index1]==referenceSets[index]);
+        }
+        m_factory.removeUnusedSets();
+        assertDSEquals(m_factory.unionWith(m_factory.addBranchingPoint(m_factory.emptySet(),70),m_factory.addBranchingPoint(m_factory.emptySet(),3)),3,70);
+    }
+
     protected static void assertDSEquals(PermanentDependencySet dependencySet,int... expectedSortedMembers) {
         PermanentDependencySet checkSet=dependencySet;
         for (int index=expectedSortedMembers.length-1;index>=0;--index) {